@@ -307,18 +307,6 @@ public class DCInput
         return vocabulary;
     }
 
-    /**
-     * Set the name of the controlled vocabulary that is associated with this
-     * field
-     * 
-     * @param vocabulary
-     *            the name of the vocabulary
-     */
-    public void setVocabulary(String vocabulary)
-    {
-        this.vocabulary = vocabulary;
-    }
-
     /**
      * Gets the display string that corresponds to the passed storage string in
      * a particular display-storage pair set.
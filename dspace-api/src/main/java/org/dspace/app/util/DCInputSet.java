@@ -8,6 +8,7 @@
 package org.dspace.app.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +25,8 @@ public class DCInputSet
 	private String formName = null; 
 	/** the inputs ordered by page and row position */
 	private DCInput[][] inputPages = null;
+	/** the inputs of every field in page and row order, by schema.element[.qualifier] */
+	private Map<String, List<DCInput>> fieldInputs = new HashMap<String, List<DCInput>>();
 	
 	/** constructor */
 	public DCInputSet(String formName, List<List<Map<String, String>>> pages, Map<String, List<String>> listMap)
@@ -37,6 +40,15 @@ public class DCInputSet
 			for ( int j = 0; j < inputPages[i].length; j++ )
 			{
 				inputPages[i][j] = new DCInput(page.get(j), listMap);
+				String key = fieldKey(inputPages[i][j].getSchema(), inputPages[i][j].getElement(),
+						inputPages[i][j].getQualifier());
+				List<DCInput> inputs = fieldInputs.get(key);
+				if (inputs == null)
+				{
+					inputs = new ArrayList<DCInput>(1);
+					fieldInputs.put(key, inputs);
+				}
+				inputs.add(inputPages[i][j]);
 			}
 		}
 	}
@@ -90,6 +102,41 @@ public class DCInputSet
 		return filteredInputs.toArray(inputArray);
 	}
 	
+    /**
+     * Get the input of a metadata field, the first one which is not left
+     * out if the form has several, without scanning the pages
+     *
+     * @param  schema     schema name of the field
+     * @param  element    element name of the field
+     * @param  qualifier  qualifier name of the field, or null
+     * @param  addTitleAlternative flag to include the additional title row
+     * @param  addPublishedBefore  flag to include the additional published info
+     *
+     * @return  the input, or null if the form does not have the field or
+     *          it is one of the rows left out
+     */
+    public DCInput getField(String schema, String element, String qualifier,
+                            boolean addTitleAlternative, boolean addPublishedBefore)
+    {
+        List<DCInput> inputs = fieldInputs.get(fieldKey(schema, element, qualifier));
+        if (inputs != null)
+        {
+            for (DCInput input : inputs)
+            {
+                if (doField(input, addTitleAlternative, addPublishedBefore))
+                {
+                    return input;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String fieldKey(String schema, String element, String qualifier)
+    {
+        return schema + "." + element + (qualifier == null ? "" : "." + qualifier);
+    }
+
     /**
      * Does this set of inputs include an alternate title field?
      *
@@ -9,6 +9,8 @@ package org.dspace.app.util;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.xml.sax.SAXException;
 import org.w3c.dom.*;
@@ -16,6 +18,7 @@ import javax.xml.parsers.*;
 
 import org.dspace.content.MetadataSchema;
 import org.dspace.core.ConfigurationManager;
+import org.dspace.core.I18nUtil;
 
 /**
  * Submission form generator for DSpace. Reads and parses the installation
@@ -35,6 +38,10 @@ import org.dspace.core.ConfigurationManager;
  * supply the value stored in the database if its sibling display value gets
  * selected from a choice list.
  *
+ * A reader is not changed after it has been built, so code which reads
+ * the forms often should use the shared readers of {@link #getInstance(String)},
+ * which parse every file once and again only after it changed.
+ *
  * @author  Brian S. Hughes
  * @version $Revision$
  */
@@ -75,10 +82,20 @@ public class DCInputsReader
     private Map<String, List<String>> valuePairs = null;    // Holds display/storage pairs
     
     /**
-     * Mini-cache of last DCInputSet requested. If submissions are not typically
-     * form-interleaved, there will be a modest win.
+     * The input set of every form, by form name, built with the reader
+     */
+    private Map<String, DCInputSet> inputSets = null;
+
+    /**
+     * The modification time of the definition file when it was read
+     */
+    private long lastModified;
+
+    /**
+     * The shared readers, by the name of the file they read
      */
-    private DCInputSet lastInputSet = null;
+    private static final ConcurrentMap<String, DCInputsReader> readers
+            = new ConcurrentHashMap<String, DCInputsReader>();
 
     /**
      * Parse an XML encoded submission forms template file, and create a hashmap
@@ -102,6 +119,54 @@ public class DCInputsReader
     }
 
 
+    /**
+     * Returns the shared reader of a form definition file. The file is
+     * parsed when it is first asked for and again when its modification
+     * time changed; until the new reader is complete the old one is
+     * handed out, so callers always get a consistent set of forms.
+     *
+     * @param fileName
+     *            the form definition file
+     * @return the reader
+     * @throws DCInputsReaderException
+     *             if the file cannot be read or is invalid
+     */
+    public static DCInputsReader getInstance(String fileName)
+         throws DCInputsReaderException
+    {
+        DCInputsReader reader = readers.get(fileName);
+        if (reader == null || reader.lastModified != new File(fileName).lastModified())
+        {
+            // one thread parses, the others wait for its reader
+            synchronized (readers)
+            {
+                reader = readers.get(fileName);
+                if (reader == null || reader.lastModified != new File(fileName).lastModified())
+                {
+                    reader = new DCInputsReader(fileName);
+                    readers.put(fileName, reader);
+                }
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the shared reader of the form definitions for a locale.
+     *
+     * @param locale
+     *            the locale, the default definitions are used if there are
+     *            none for it
+     * @return the reader
+     * @throws DCInputsReaderException
+     *             if the file cannot be read or is invalid
+     */
+    public static DCInputsReader getInstance(Locale locale)
+         throws DCInputsReaderException
+    {
+        return getInstance(I18nUtil.getInputFormsFileName(locale));
+    }
+
     private void buildInputs(String fileName)
          throws DCInputsReaderException
     {
@@ -109,6 +174,8 @@ public class DCInputsReader
         formDefns  = new HashMap<String, List<List<Map<String, String>>>>();
         valuePairs = new HashMap<String, List<String>>();
 
+        // taken before parsing, so a change made meanwhile is read again
+        lastModified = new File(fileName).lastModified();
         String uri = "file:" + new File(fileName).getAbsolutePath();
 
         try
@@ -122,6 +189,7 @@ public class DCInputsReader
                 Document doc = db.parse(uri);
                 doNodes(doc);
                 checkValues();
+                buildInputSets();
         }
         catch (FactoryConfigurationError fe)
         {
@@ -132,6 +200,27 @@ public class DCInputsReader
                 throw new DCInputsReaderException("Error creating submission forms: "+e);
         }
     }
+
+    /**
+     * Builds the input set of every form, then seals the maps of the reader
+     */
+    private void buildInputSets()
+    {
+        // the inputs share the value pair lists
+        for (Map.Entry<String, List<String>> pairs : valuePairs.entrySet())
+        {
+                pairs.setValue(Collections.unmodifiableList(pairs.getValue()));
+        }
+        valuePairs = Collections.unmodifiableMap(valuePairs);
+        Map<String, DCInputSet> sets = new HashMap<String, DCInputSet>();
+        for (Map.Entry<String, List<List<Map<String, String>>>> form : formDefns.entrySet())
+        {
+                sets.put(form.getKey(), new DCInputSet(form.getKey(), form.getValue(), valuePairs));
+        }
+        inputSets = Collections.unmodifiableMap(sets);
+        whichForms = Collections.unmodifiableMap(whichForms);
+        formDefns = Collections.unmodifiableMap(formDefns);
+    }
    
     public Iterator<String> getPairsNameIterator()
     {
@@ -165,19 +254,12 @@ public class DCInputsReader
         {
                 throw new DCInputsReaderException("No form designated as default");
         }
-        // check mini-cache, and return if match
-        if ( lastInputSet != null && lastInputSet.getFormName().equals( formName ) )
-        {
-                return lastInputSet;
-        }
-        // cache miss - construct new DCInputSet
-        List<List<Map<String, String>>> pages = formDefns.get(formName);
-        if ( pages == null )
+        DCInputSet inputSet = inputSets.get(formName);
+        if ( inputSet == null )
         {
                 throw new DCInputsReaderException("Missing the " + formName  + " form");
         }
-        lastInputSet = new DCInputSet(formName, pages, valuePairs);
-        return lastInputSet;
+        return inputSet;
     }
     
     /**
@@ -0,0 +1,89 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+
+package org.dspace.app.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dspace.core.QueryStatistics;
+import org.dspace.core.QueryStats;
+
+/**
+ * Serves the query statistics in the Prometheus text format, for
+ * monitoring systems which pull their metrics over HTTP.  The same
+ * numbers are published in JMX, see {@link QueryStatistics}.
+ * <p>
+ * No webapp maps it by default.  To enable it, add it to the web.xml of
+ * a webapp, e.g. on <code>/metrics</code>:
+ * <pre>
+ * &lt;servlet&gt;
+ *   &lt;servlet-name&gt;query-statistics&lt;/servlet-name&gt;
+ *   &lt;servlet-class&gt;org.dspace.app.util.QueryStatisticsServlet&lt;/servlet-class&gt;
+ * &lt;/servlet&gt;
+ * &lt;servlet-mapping&gt;
+ *   &lt;servlet-name&gt;query-statistics&lt;/servlet-name&gt;
+ *   &lt;url-pattern&gt;/metrics&lt;/url-pattern&gt;
+ * &lt;/servlet-mapping&gt;
+ * </pre>
+ * The query names reveal nothing but the DAO methods, but the mapping
+ * should still be kept away from the public, e.g. by a security
+ * constraint or by the proxy in front of the webapp.  It serves only the
+ * numbers of the webapp it is mapped in.
+ */
+public class QueryStatisticsServlet extends HttpServlet
+{
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws IOException
+    {
+        QueryStatistics statistics = QueryStatistics.getInstance();
+        List<QueryStats> all = statistics.getQueryStats();
+        long[] buckets = statistics.getLatencyBuckets();
+
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        out.println("# HELP dspace_statements_total SQL statements prepared by Hibernate.");
+        out.println("# TYPE dspace_statements_total counter");
+        out.println("dspace_statements_total " + statistics.getStatementCount());
+
+        out.println("# HELP dspace_query_rows_total Rows returned by the DAO method.");
+        out.println("# TYPE dspace_query_rows_total counter");
+        for (QueryStats stats : all)
+        {
+            out.println("dspace_query_rows_total{name=\"" + stats.getName() + "\"} " + stats.getRowCount());
+        }
+
+        out.println("# HELP dspace_query_seconds Latency of the DAO method.");
+        out.println("# TYPE dspace_query_seconds histogram");
+        for (QueryStats stats : all)
+        {
+            String name = "name=\"" + stats.getName() + "\"";
+            long[] histogram = stats.getLatencyHistogram();
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++)
+            {
+                cumulative += histogram[i];
+                out.println("dspace_query_seconds_bucket{" + name + ",le=\"" + buckets[i] / 1000.0 + "\"} " + cumulative);
+            }
+            out.println("dspace_query_seconds_bucket{" + name + ",le=\"+Inf\"} " + stats.getCallCount());
+            out.println("dspace_query_seconds_sum{" + name + "} "
+                    + stats.getTotalTimeNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+            out.println("dspace_query_seconds_count{" + name + "} " + stats.getCallCount());
+        }
+        out.flush();
+    }
+}
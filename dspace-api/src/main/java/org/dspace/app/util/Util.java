@@ -399,49 +399,15 @@ public class Util {
             col_handle = collection.getHandle(context);
         }
 
-        // Read the input form file for the specific collection
-        DCInputsReader inputsReader = new DCInputsReader(formFileName);
-
-        DCInputSet inputSet = inputsReader.getInputs(col_handle);
+        // The shared reader of the input form file, parsed once
+        DCInputSet inputSet = DCInputsReader.getInstance(formFileName).getInputs(col_handle);
 
         // Replace the values of DCValue[] with the correct ones in case of
         // controlled vocabularies
-        String currentField = schema + "." + element
-                + (qualifier == null ? "" : "." + qualifier);
-
         if (inputSet != null)
         {
-
-            int pageNums = inputSet.getNumberPages();
-
-            for (int p = 0; p < pageNums; p++)
-            {
-
-                DCInput[] inputs = inputSet.getPageRows(p, false, false);
-
-                if (inputs != null)
-                {
-
-                    for (int i = 0; i < inputs.length; i++)
-                    {
-                        String inputField = inputs[i].getSchema()
-                                + "."
-                                + inputs[i].getElement()
-                                + (inputs[i].getQualifier() == null ? "" : "."
-                                        + inputs[i].getQualifier());
-                        if (currentField.equals(inputField))
-                        {
-
-                            myInputs = inputs[i];
-                            myInputsFound = true;
-                            break;
-
-                        }
-                    }
-                }
-                if (myInputsFound)
-                    break;
-            }
+            myInputs = inputSet.getField(schema, element, qualifier, false, false);
+            myInputsFound = (myInputs != null);
         }
 
         if (myInputsFound)
@@ -648,9 +648,10 @@ public class AuthorizeServiceImpl implements AuthorizeService
             throws SQLException, AuthorizeException
     {
         // now add them to the destination object
+        List<ResourcePolicy> newPolicies = new ArrayList<ResourcePolicy>(policies.size());
         for (ResourcePolicy srp : policies)
         {
-            ResourcePolicy rp = resourcePolicyService.create(c);
+            ResourcePolicy rp = new ResourcePolicy();
 
             // copy over values
             rp.setdSpaceObject(dest);
@@ -662,11 +663,15 @@ public class AuthorizeServiceImpl implements AuthorizeService
             rp.setRpName(srp.getRpName());
             rp.setRpDescription(srp.getRpDescription());
             rp.setRpType(srp.getRpType());
-            // and write out new policy
-            resourcePolicyService.update(c, rp);
+            newPolicies.add(rp);
         }
 
-        serviceFactory.getDSpaceObjectService(dest).updateLastModified(c, dest);
+        // and write out the new policies in one batch, which updates the last modification of dest
+        resourcePolicyService.update(c, newPolicies);
+        if (newPolicies.isEmpty())
+        {
+            serviceFactory.getDSpaceObjectService(dest).updateLastModified(c, dest);
+        }
     }
 
     /**
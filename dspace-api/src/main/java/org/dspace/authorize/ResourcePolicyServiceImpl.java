@@ -9,7 +9,9 @@ package org.dspace.authorize;
 
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.log4j.Logger;
@@ -261,4 +263,21 @@ public class ResourcePolicyServiceImpl implements ResourcePolicyService
         // FIXME: Check authorisation
         resourcePolicyDAO.save(context, resourcePolicy);
     }
+
+    @Override
+    public void update(Context context, List<ResourcePolicy> resourcePolicies) throws SQLException, AuthorizeException {
+        // one modify event per object, not one per policy
+        Set<DSpaceObject> dSpaceObjects = new LinkedHashSet<DSpaceObject>();
+        for (ResourcePolicy resourcePolicy : resourcePolicies) {
+            if (resourcePolicy.getdSpaceObject() != null) {
+                dSpaceObjects.add(resourcePolicy.getdSpaceObject());
+            }
+        }
+        for (DSpaceObject dSpaceObject : dSpaceObjects) {
+            serviceFactory.getDSpaceObjectService(dSpaceObject).updateLastModified(context, dSpaceObject);
+        }
+
+        // FIXME: Check authorisation
+        resourcePolicyDAO.saveAll(context, resourcePolicies);
+    }
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         criteria.add(Restrictions.and(
                 Restrictions.eq("dSpaceObject", dso)
         ));
-        return list(criteria);
+        return list(context, "findByDso", criteria);
     }
 
     @Override
@@ -39,14 +39,14 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
                 Restrictions.eq("dSpaceObject", dso),
                 Restrictions.eq("rptype", type)
         ));
-        return list(criteria);
+        return list(context, "findByDsoAndType", criteria);
     }
 
     @Override
     public List<ResourcePolicy> findByGroup(Context context, Group group) throws SQLException {
         Criteria criteria = createCriteria(context, ResourcePolicy.class);
         criteria.add(Restrictions.eq("epersonGroup", group));
-        return list(criteria);
+        return list(context, "findByGroup", criteria);
     }
 
     @Override
@@ -57,7 +57,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
                 Restrictions.eq("dSpaceObject", dso),
                 Restrictions.eq("actionId", actionId)
         ));
-        return list(criteria);
+        return list(context, "findByDSoAndAction", criteria);
     }
 
     @Override
@@ -76,7 +76,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
             criteria.add(Restrictions.and(Restrictions.not(Restrictions.eq("id", action))));
         }
 
-        return list(criteria);
+        return list(context, "findByTypeIdGroupAction", criteria);
     }
 
     @Override
@@ -85,7 +85,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         String queryString = "delete from ResourcePolicy where dSpaceObject= :dSpaceObject";
         Query query = createQuery(context, queryString);
         query.setParameter("dSpaceObject", dso);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDso", query);
     }
 
     @Override
@@ -94,7 +94,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         Query query = createQuery(context, queryString);
         query.setParameter("dSpaceObject", dso);
         query.setInteger("actionId", actionId);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDsoAndAction", query);
     }
 
     @Override
@@ -103,7 +103,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         Query query = createQuery(context, queryString);
         query.setParameter("dso", dso);
         query.setString("rptype", type);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDsoAndType", query);
     }
 
     @Override
@@ -111,7 +111,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         String queryString = "delete from ResourcePolicy where epersonGroup= :epersonGroup";
         Query query = createQuery(context, queryString);
         query.setParameter("epersonGroup", group);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByGroup", query);
     }
 
     @Override
@@ -120,7 +120,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         Query query = createQuery(context, queryString);
         query.setParameter("dso", dso);
         query.setParameter("epersonGroup", group);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDsoGroupPolicies", query);
 
     }
 
@@ -130,7 +130,7 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         Query query = createQuery(context, queryString);
         query.setParameter("dso", dso);
         query.setParameter("eperson", ePerson);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDsoEPersonPolicies", query);
 
     }
 
@@ -141,6 +141,6 @@ public class ResourcePolicyDAOImpl extends AbstractHibernateDAO<ResourcePolicy>
         Query query = createQuery(context, queryString);
         query.setParameter("dso", dso);
         query.setParameter("rptype", type);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByDsoAndTypeNotEqualsTo", query);
     }
 }
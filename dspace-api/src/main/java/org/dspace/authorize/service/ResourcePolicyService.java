@@ -34,6 +34,11 @@ public interface ResourcePolicyService extends DSpaceCRUDService<ResourcePolicy>
 
     public ResourcePolicy clone(Context context, ResourcePolicy resourcePolicy) throws SQLException, AuthorizeException;
 
+    /**
+     * Stores new or changed policies, sending the statements in JDBC batches.
+     */
+    public void update(Context context, List<ResourcePolicy> resourcePolicies) throws SQLException, AuthorizeException;
+
     public void removeAllPolicies(Context c, DSpaceObject o) throws SQLException, AuthorizeException;
 
     public void removePolicies(Context c, DSpaceObject o, int actionId) throws SQLException, AuthorizeException;
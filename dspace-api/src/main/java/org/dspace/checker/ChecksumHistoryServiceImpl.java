@@ -9,6 +9,7 @@ import org.dspace.core.Context;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -44,14 +45,23 @@ public class ChecksumHistoryServiceImpl implements ChecksumHistoryService{
 //               + "most_recent_checksum.bitstream_id = checksum_history.bitstream_id ) "
 //               + "and most_recent_checksum.bitstream_id = bitstream.bitstream_id";
         List<MostRecentChecksum> mostRecentChecksums = mostRecentChecksumService.findNotInHistory(context);
+        List<ChecksumHistory> checksumHistories = new ArrayList<ChecksumHistory>(mostRecentChecksums.size());
         for (MostRecentChecksum mostRecentChecksum : mostRecentChecksums) {
-            addHistory(context, mostRecentChecksum);
+            checksumHistories.add(createHistory(context, mostRecentChecksum));
         }
+        checksumHistoryDAO.saveAll(context, checksumHistories, true);
     }
 
     @Override
     public void addHistory(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException {
-        ChecksumHistory checksumHistory = checksumHistoryDAO.create(context, new ChecksumHistory());
+        checksumHistoryDAO.save(context, createHistory(context, mostRecentChecksum));
+    }
+
+    /**
+     * @return a new, not yet saved, history record of the checksum
+     */
+    protected ChecksumHistory createHistory(Context context, MostRecentChecksum mostRecentChecksum) throws SQLException {
+        ChecksumHistory checksumHistory = new ChecksumHistory();
         checksumHistory.setBitstreamId(mostRecentChecksum.getBitstream().getID());
         checksumHistory.setProcessStartDate(mostRecentChecksum.getProcessStartDate());
         checksumHistory.setProcessEndDate(mostRecentChecksum.getProcessEndDate());
@@ -66,7 +76,7 @@ public class ChecksumHistoryServiceImpl implements ChecksumHistoryService{
         }
 
         checksumHistory.setChecksumResult(checksumResult);
-        checksumHistoryDAO.save(context, checksumHistory);
+        return checksumHistory;
     }
 
     /**
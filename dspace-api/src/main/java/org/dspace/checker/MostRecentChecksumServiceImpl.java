@@ -9,6 +9,7 @@ import org.dspace.core.Context;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -96,9 +97,12 @@ public class MostRecentChecksumServiceImpl implements MostRecentChecksumService
 //                + "where most_recent_checksum.bitstream_id = bitstream.bitstream_id )";
 
         List<Bitstream> unknownBitstreams = bitstreamService.findBitstreamsWithNoRecentChecksum(context);
+        ChecksumResult deletedResult = checksumResultService.findByCode(context, ChecksumResultCode.BITSTREAM_MARKED_DELETED);
+        ChecksumResult matchResult = checksumResultService.findByCode(context, ChecksumResultCode.CHECKSUM_MATCH);
+        List<MostRecentChecksum> mostRecentChecksums = new ArrayList<MostRecentChecksum>(unknownBitstreams.size());
         for (Bitstream bitstream : unknownBitstreams)
         {
-            MostRecentChecksum mostRecentChecksum = mostRecentChecksumDAO.create(context, new MostRecentChecksum());
+            MostRecentChecksum mostRecentChecksum = new MostRecentChecksum();
             mostRecentChecksum.setBitstream(bitstream);
             //Only process if our bitstream isn't deleted
             mostRecentChecksum.setToBeProcessed(!bitstream.isDeleted());
@@ -119,16 +123,11 @@ public class MostRecentChecksumServiceImpl implements MostRecentChecksumService
                 bitstream.setChecksumAlgorithm(bitstream.getChecksumAlgorithm());
             }
             mostRecentChecksum.setMatchedPrevChecksum(true);
-            ChecksumResult checksumResult;
-            if(bitstream.isDeleted())
-            {
-                checksumResult = checksumResultService.findByCode(context, ChecksumResultCode.BITSTREAM_MARKED_DELETED);
-            } else {
-                checksumResult = checksumResultService.findByCode(context, ChecksumResultCode.CHECKSUM_MATCH);
-            }
-            mostRecentChecksum.setChecksumResult(checksumResult);
-            mostRecentChecksumDAO.save(context, mostRecentChecksum);
+            mostRecentChecksum.setChecksumResult(bitstream.isDeleted() ? deletedResult : matchResult);
+            mostRecentChecksums.add(mostRecentChecksum);
         }
+        // the checker reads them back with its own queries, write them in batches and forget them
+        mostRecentChecksumDAO.saveAll(context, mostRecentChecksums, true);
     }
 
     @Override
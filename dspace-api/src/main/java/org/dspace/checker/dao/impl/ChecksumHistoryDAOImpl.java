@@ -24,7 +24,7 @@ public class ChecksumHistoryDAOImpl extends AbstractHibernateDAO<ChecksumHistory
         Query query = createQuery(context, hql);
         query.setParameter("processEndDate", retentionDate);
         query.setParameter("result", resultCode);
-        return query.executeUpdate();
+        return executeUpdate(context, "deleteByDateAndCode", query);
     }
 
     @Override
@@ -32,6 +32,6 @@ public class ChecksumHistoryDAOImpl extends AbstractHibernateDAO<ChecksumHistory
         String hql = "delete from ChecksumHistory where bitstream=:bitstream";
         Query query = createQuery(context, hql);
         query.setParameter("bitstream", bitstream);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByBitstream", query);
     }
 }
@@ -22,6 +22,6 @@ public class ChecksumResultDAOImpl extends AbstractHibernateDAO<ChecksumResult>
     public ChecksumResult findByCode(Context context, ChecksumResultCode code) throws SQLException {
         Criteria criteria = createCriteria(context, ChecksumResult.class);
         criteria.add(Restrictions.eq("resultCode", code));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByCode", criteria);
     }
 }
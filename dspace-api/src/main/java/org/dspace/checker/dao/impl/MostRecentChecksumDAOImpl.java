@@ -44,7 +44,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
                 )
         );
         criteria.addOrder(Order.asc("bitstream.id"));
-        return list(criteria);
+        return list(context, "findByNotProcessedInDateRange", criteria);
     }
 
 
@@ -52,7 +52,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
     public MostRecentChecksum findByBitstream(Context context, Bitstream bitstream) throws SQLException {
         Criteria criteria = createCriteria(context, MostRecentChecksum.class);
         criteria.add(Restrictions.eq("bitstream", bitstream));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByBitstream", criteria);
     }
 
 
@@ -75,7 +75,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
                 )
         );
         criteria.addOrder(Order.asc("bitstream.id"));
-        return list(criteria);
+        return list(context, "findByResultTypeInDateRange", criteria);
 
     }
 
@@ -85,7 +85,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         String hql = "delete from MostRecentChecksum WHERE bitstream=:bitstream";
         Query query = createQuery(context, hql);
         query.setParameter("bitstream", bitstream);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByBitstream", query);
     }
 
     @Override
@@ -98,7 +98,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         criteria.add(Restrictions.eq("toBeProcessed", true));
         criteria.addOrder(Order.asc("lastProcessEndDate")).addOrder(Order.asc("bitstream.id"));
         criteria.setMaxResults(1);
-        return uniqueResult(criteria);
+        return uniqueResult(context, "getOldestRecord", criteria);
     }
 
     @Override
@@ -117,7 +117,7 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         ));
         criteria.addOrder(Order.asc("lastProcessEndDate")).addOrder(Order.asc("bitstream.id"));
         criteria.setMaxResults(1);
-        return uniqueResult(criteria);
+        return uniqueResult(context, "getOldestRecord", criteria);
     }
 
     @Override
@@ -126,6 +126,6 @@ public class MostRecentChecksumDAOImpl extends AbstractHibernateDAO<MostRecentCh
         DetachedCriteria subCriteria = DetachedCriteria.forClass(ChecksumHistory.class);
         subCriteria.setProjection(Projections.property("bitstream.id"));
         criteria.add(Property.forName("bitstreamId").notIn(subCriteria));
-        return list(criteria);
+        return list(context, "findNotInHistory", criteria);
     }
 }
@@ -85,8 +85,10 @@ public class Bitstream extends DSpaceObject{
     @Transient
     private boolean modifiedMetadata;
 
-    @Transient
-    private BitstreamService bitstreamService = ContentServiceFactory.getInstance().getBitstreamService();
+    /** Looked up when used, like those of {@link Item} */
+    private static BitstreamService getBitstreamService() {
+        return ContentServiceFactory.getInstance().getBitstreamService();
+    }
 
     /**
      * Get the internal identifier of this bitstream
@@ -341,29 +343,29 @@ public class Bitstream extends DSpaceObject{
         this.modified = modified;
     }
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
      */
 
 
     public void setUserFormatDescription(Context context, String desc) throws SQLException
     {
-        bitstreamService.setUserFormatDescription(context, this, desc);
+        getBitstreamService().setUserFormatDescription(context, this, desc);
     }
 
     public String getFormatDescription()
     {
-        return bitstreamService.getFormatDescription(this);
+        return getBitstreamService().getFormatDescription(this);
     }
 
     public void setFormat(Context context, BitstreamFormat f) throws SQLException
     {
-        bitstreamService.setFormat(context, this, f);
+        getBitstreamService().setFormat(context, this, f);
     }
 
     @Override
     public String getName()
     {
-        return bitstreamService.getName(this);
+        return getBitstreamService().getName(this);
     }
 }
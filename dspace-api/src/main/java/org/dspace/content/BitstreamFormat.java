@@ -55,8 +55,10 @@ public class BitstreamFormat {
     @Cascade( { org.hibernate.annotations.CascadeType.ALL, org.hibernate.annotations.CascadeType.DELETE_ORPHAN })
     private List<String> fileExtensions;
 
-    @Transient
-    private BitstreamFormatService bitstreamFormatService = ContentServiceFactory.getInstance().getBitstreamFormatService();
+    /** Looked up when used, like those of {@link Item} */
+    private static BitstreamFormatService getBitstreamFormatService() {
+        return ContentServiceFactory.getInstance().getBitstreamFormatService();
+    }
 
     /**
      * Get the internal identifier of this bitstream format
@@ -191,18 +193,18 @@ public class BitstreamFormat {
         this.fileExtensions = fileExtensions;
     }
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
     */
 
     public void setShortDescription(Context context, String s) throws SQLException
     {
-        bitstreamFormatService.setShortDescription(context, this, s);
+        getBitstreamFormatService().setShortDescription(context, this, s);
     }
 
     public void setSupportLevel(int sl)
     {
-        bitstreamFormatService.setSupportLevel(this, sl);
+        getBitstreamFormatService().setSupportLevel(this, sl);
     }
 
 }
\ No newline at end of file
@@ -104,11 +104,14 @@ public class Collection extends DSpaceObject {
     @Transient
     private boolean modifiedMetadata;
 
-    @Transient
-    private CollectionService collectionService = ContentServiceFactory.getInstance().getCollectionService();
+    /** Looked up when used, like those of {@link Item} */
+    private static CollectionService getCollectionService() {
+        return ContentServiceFactory.getInstance().getCollectionService();
+    }
 
-    @Transient
-    private HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+    private static HandleService getHandleService() {
+        return HandleServiceFactory.getInstance().getHandleService();
+    }
 
 
 
@@ -125,7 +128,7 @@ public class Collection extends DSpaceObject {
 
     @Override
     public String getHandle(Context context) throws SQLException {
-        return handleService.findHandle(context, this);
+        return getHandleService().findHandle(context, this);
     }
 
     /**
@@ -389,38 +392,38 @@ public class Collection extends DSpaceObject {
     }
 
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
     */
 
     public final String getLicense()
     {
-        return collectionService.getLicense(this);
+        return getCollectionService().getLicense(this);
     }
 
     public final String getLicenseCollection()
     {
-        return collectionService.getLicenseCollection(this);
+        return getCollectionService().getLicenseCollection(this);
     }
 
     public Group getWorkflowGroup(int step) throws IllegalStateException
     {
-        return collectionService.getWorkflowGroup(this, step);
+        return getCollectionService().getWorkflowGroup(this, step);
     }
 
     public String getName()
     {
-        return collectionService.getName(this);
+        return getCollectionService().getName(this);
     }
 
 
     public void setName(String value) throws MissingResourceException
     {
-        collectionService.setName(this, value);
+        getCollectionService().setName(this, value);
     }
 
     public void setWorkflowGroup(int step, Group g)
     {
-        collectionService.setWorkflowGroup(this, step, g);
+        getCollectionService().setWorkflowGroup(this, step, g);
     }
 }
@@ -80,11 +80,14 @@ public class Community extends DSpaceObject{
     /** Flag set when metadata is modified, for events */
     private boolean modifiedMetadata = false;
 
-    @Transient
-    private CommunityService communityService = ContentServiceFactory.getInstance().getCommunityService();
+    /** Looked up when used, like those of {@link Item} */
+    private static CommunityService getCommunityService() {
+        return ContentServiceFactory.getInstance().getCommunityService();
+    }
 
-    @Transient
-    private HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+    private static HandleService getHandleService() {
+        return HandleServiceFactory.getInstance().getHandleService();
+    }
 
 
     /**
@@ -178,7 +181,7 @@ public class Community extends DSpaceObject{
      */
     @Override
     public String getHandle(Context context) throws SQLException {
-        return handleService.findHandle(context, this);
+        return getHandleService().findHandle(context, this);
     }
 
     /**
@@ -311,16 +314,16 @@ public class Community extends DSpaceObject{
     }
 
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
      */
     public final void setName(String value)throws MissingResourceException{
-        communityService.setName(this, value);
+        getCommunityService().setName(this, value);
     }
 
     @Override
     public final String getName()
     {
-        return communityService.getName(this);
+        return getCommunityService().getName(this);
     }
 }
@@ -8,9 +8,9 @@
 package org.dspace.content;
 
 import java.text.DateFormatSymbols;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
@@ -30,6 +30,12 @@ import org.apache.log4j.Logger;
  * <P>
  * Examples: <code>1994-05-03T15:30:24</code>,<code>1995-10-04</code>,
  * <code>2001-10</code>,<code>1975</code>
+ * <P>
+ * Dates are parsed and formatted by hand rather than with SimpleDateFormat,
+ * so a DCDate is cheap to create and may be shared between threads once
+ * created. Parsing follows what the formats used before accepted: the
+ * longest leading part of the string which is a date is used, the rest is
+ * ignored, and out of range values roll over into the next unit.
  *
  * @author Robert Tansley
  * @author Larry Stone
@@ -52,28 +58,7 @@ public class DCDate
     private enum DateGran { YEAR, MONTH, DAY, TIME }
     DateGran granularity = null;
 
-    // Full ISO 8601 is e.g. "2009-07-16T13:59:21Z"
-    private final SimpleDateFormat fullIso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-
-    // without Z
-    private final SimpleDateFormat fullIso2 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-
-    // without seconds
-    private final SimpleDateFormat fullIso3 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm");
-
-    // without minutes
-    private final SimpleDateFormat fullIso4 = new SimpleDateFormat("yyyy-MM-dd'T'HH");
-
-    // Date-only ISO 8601 is e.g. "2009-07-16"
-    private final SimpleDateFormat dateIso = new SimpleDateFormat("yyyy-MM-dd");
-
-    // Year-Month-only ISO 8601 is e.g. "2009-07"
-    private final SimpleDateFormat yearMonthIso = new SimpleDateFormat("yyyy-MM");
-
-    // just year, "2009"
-    private final SimpleDateFormat yearIso = new SimpleDateFormat("yyyy");
-    
-    private static Map<Locale, DateFormatSymbols> dfsLocaleMap = new HashMap<Locale, DateFormatSymbols>();
+    private static final ConcurrentMap<Locale, DateFormatSymbols> dfsLocaleMap = new ConcurrentHashMap<Locale, DateFormatSymbols>();
 
     /**
      * Construct a date object from a Java <code>Date</code> object.
@@ -83,8 +68,6 @@ public class DCDate
      */
     public DCDate(Date date)
     {
-        setUTCForFormatting();
-
         if (date == null)
         {
             return;
@@ -100,6 +83,7 @@ public class DCDate
         // Now set the UTC equivalent.
         calendar = new GregorianCalendar(utcZone);
         calendar.setTime(date);
+        completeFields();
      }
 
     /**
@@ -121,8 +105,6 @@ public class DCDate
      */
     public DCDate(int yyyy, int mm, int dd, int hh, int mn, int ss)
     {
-        setUTCForFormatting();
-
         // default values
         int lyear = 0;
         int lhours = 0;
@@ -177,6 +159,7 @@ public class DCDate
             // No Time component so just set the UTC date to be the same as the local Year, Month, and Day.
             calendar = new GregorianCalendar(localCalendar.get(Calendar.YEAR), localCalendar.get(Calendar.MONTH), localCalendar.get(Calendar.DAY_OF_MONTH));
         }
+        completeFields();
     }
 
     /**
@@ -187,8 +170,6 @@ public class DCDate
      */
     public DCDate(String fromDC)
     {
-        setUTCForFormatting();
-
         // An empty date is OK
         if ((fromDC == null) || fromDC.equals(""))
         {
@@ -197,45 +178,7 @@ public class DCDate
 
         // default granularity
         granularity = DateGran.TIME;
-        Date date = tryParse(fullIso, fromDC);
-        if (date == null)
-        {
-            date = tryParse(fullIso2, fromDC);
-        }
-        if (date == null)
-        {
-            date = tryParse(fullIso3, fromDC);
-        }
-        if (date == null)
-        {
-            date = tryParse(fullIso4, fromDC);
-        }
-        if (date == null)
-        {
-            // Seems there is no time component to the date.
-            date = tryParse(dateIso, fromDC);
-            if (date != null)
-            {
-                granularity = DateGran.DAY;
-            }
-        }
-        if (date == null)
-        {
-            date = tryParse(yearMonthIso, fromDC);
-            if (date != null)
-            {
-                granularity = DateGran.MONTH;
-            }
-        }
-        if (date == null)
-        {
-            date = tryParse(yearIso, fromDC);
-            if (date != null)
-            {
-                granularity = DateGran.YEAR;
-            }
-        }
-
+        Date date = parse(fromDC);
         if (date == null)
         {
             log.warn("Mangled date: " + fromDC + "  ..failed all attempts to parse as date.");
@@ -257,37 +200,121 @@ public class DCDate
                 // No Time component so just set the local date to be the same as the UTC  Year, Month, and Day.
                 localCalendar = new GregorianCalendar(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
             }
+            completeFields();
+        }
+    }
+
+    /**
+     * Parse an ISO 8601 date in UTC of any granularity, from
+     * <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code> down to <code>yyyy</code>,
+     * and set the granularity.
+     *
+     * @return the date, or null if the string does not start with a year
+     */
+    private Date parse(String source)
+    {
+        // the values of year, month, day, hour, minute and second, and the position after them
+        int[] fields = new int[6];
+        int pos = parseNumber(source, 0, fields, 0);
+        if (pos < 0)
+        {
+            return null;
+        }
+        granularity = DateGran.YEAR;
+        fields[1] = 1;
+        fields[2] = 1;
+        // every further field must be introduced by its separator
+        final char[] separators = { '-', '-', 'T', ':', ':' };
+        int count = 1;
+        while (count < fields.length)
+        {
+            if (pos >= source.length() || source.charAt(pos) != separators[count - 1])
+            {
+                break;
+            }
+            int next = parseNumber(source, pos + 1, fields, count);
+            if (next < 0)
+            {
+                break;
+            }
+            pos = next;
+            count++;
+        }
+        if (count == 2)
+        {
+            granularity = DateGran.MONTH;
+        }
+        else if (count == 3)
+        {
+            granularity = DateGran.DAY;
         }
+        else if (count > 3)
+        {
+            granularity = DateGran.TIME;
+        }
+
+        // lenient, like the date formats, so e.g. a 13th month is January of the next year
+        GregorianCalendar utc = new GregorianCalendar(utcZone);
+        utc.clear();
+        utc.set(fields[0], fields[1] - 1, fields[2], fields[3], fields[4], fields[5]);
+        return utc.getTime();
     }
 
     /**
-     * Set all the formatters to use UTC. SimpleDateFormat is not thread-safe which
-     * is why they are not static variables initialised once.
+     * Parse the digits at a position, after any spaces and tabs, into
+     * fields[index].  Like SimpleDateFormat, no other white space is
+     * skipped.
+     *
+     * @return the position after the digits, or -1 if there are none or too many
      */
-    private void setUTCForFormatting()
+    private static int parseNumber(String source, int pos, int[] fields, int index)
     {
-        fullIso.setTimeZone(utcZone);
-        fullIso2.setTimeZone(utcZone);
-        fullIso3.setTimeZone(utcZone);
-        fullIso4.setTimeZone(utcZone);
-        dateIso.setTimeZone(utcZone);
-        yearMonthIso.setTimeZone(utcZone);
-        yearIso.setTimeZone(utcZone);
+        int length = source.length();
+        while (pos < length && (source.charAt(pos) == ' ' || source.charAt(pos) == '\t'))
+        {
+            pos++;
+        }
+        int start = pos;
+        int value = 0;
+        while (pos < length)
+        {
+            char c = source.charAt(pos);
+            if (c < '0' || c > '9')
+            {
+                break;
+            }
+            // more than nine digits would overflow, and is not a date anyway
+            if (pos - start == 9)
+            {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        if (pos == start)
+        {
+            return -1;
+        }
+        fields[index] = value;
+        return pos;
     }
 
-    // Attempt to parse, swallowing errors; return null for failure.
-    private synchronized Date tryParse(SimpleDateFormat sdf,  String source)
+    /**
+     * Compute all calendar fields once, after which reading them does not
+     * change the calendars, so the date may be read by several threads.
+     */
+    private void completeFields()
     {
-        try
+        if (calendar != null)
         {
-            return sdf.parse(source);
+            calendar.get(Calendar.ERA);
         }
-        catch (ParseException pe)
+        if (localCalendar != null)
         {
-            return null;
+            localCalendar.get(Calendar.ERA);
         }
     }
-    
+
     /**
      * Get the year, adjusting for current time zone.
      *
@@ -423,24 +450,41 @@ public class DCDate
         return toStringInternal();
     }
 
-    private synchronized String toStringInternal()
+    private String toStringInternal()
     {
-        if (granularity == DateGran.YEAR)
-        {
-            return String.format("%4d", getYearUTC());
-        }
-        else if (granularity == DateGran.MONTH)
+        StringBuilder sb = new StringBuilder(20);
+        if (granularity != DateGran.TIME)
         {
-            return String.format("%4d-%02d", getYearUTC(), getMonthUTC());
-        }
-        else if (granularity == DateGran.DAY)
-        {
-            return String.format("%4d-%02d-%02d", getYearUTC(), getMonthUTC(), getDayUTC());
-        }
-        else
+            // as before, the year alone is padded with spaces
+            pad(sb, getYearUTC(), 4, ' ');
+            if (granularity == DateGran.MONTH || granularity == DateGran.DAY)
+            {
+                pad(sb.append('-'), getMonthUTC(), 2, '0');
+            }
+            if (granularity == DateGran.DAY)
+            {
+                pad(sb.append('-'), getDayUTC(), 2, '0');
+            }
+            return sb.toString();
+        }
+        // full ISO 8601, e.g. "2009-07-16T13:59:21Z"
+        pad(sb, getYearUTC(), 4, '0');
+        pad(sb.append('-'), getMonthUTC(), 2, '0');
+        pad(sb.append('-'), getDayUTC(), 2, '0');
+        pad(sb.append('T'), getHourUTC(), 2, '0');
+        pad(sb.append(':'), getMinuteUTC(), 2, '0');
+        pad(sb.append(':'), getSecondUTC(), 2, '0');
+        return sb.append('Z').toString();
+    }
+
+    private static void pad(StringBuilder sb, int value, int width, char padding)
+    {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++)
         {
-            return fullIso.format(calendar.getTime());
+            sb.append(padding);
         }
+        sb.append(digits);
     }
 
     /**
@@ -619,6 +663,7 @@ public class DCDate
             DateFormatSymbols dfs = dfsLocaleMap.get(locale);
             if (dfs == null)
             {
+                // creating it twice does no harm
                 dfs = new DateFormatSymbols(locale);
                 dfsLocaleMap.put(locale, dfs);
             }
@@ -0,0 +1,66 @@
+package org.dspace.content;
+
+/**
+ * The parts of the item graph to load together with the items, see
+ * {@link org.dspace.content.service.ItemService#find(org.dspace.core.Context, java.util.UUID, FetchPlan)}.
+ * <p>
+ * The associations of an item are lazy, so walking them item by item
+ * costs a query per item and association.  A fetch plan loads them for
+ * all items of a result at once, in a fixed number of queries for every
+ * hundred items.
+ */
+public enum FetchPlan {
+
+    /** The metadata with their fields and schemas, all a listing of items shows */
+    ITEM_LISTING("item-listing", true, false, false),
+
+    /** The bundles with their bitstreams and bitstream formats */
+    BUNDLE_WITH_BITSTREAMS("bundle-with-bitstreams", false, true, false),
+
+    /** The metadata, bundles, bitstreams and collections, all an item page shows */
+    ITEM_FULL("item-full", true, true, true);
+
+    private final String name;
+    private final boolean metadata;
+    private final boolean bitstreams;
+    private final boolean collections;
+
+    private FetchPlan(String name, boolean metadata, boolean bitstreams, boolean collections) {
+        this.name = name;
+        this.metadata = metadata;
+        this.bitstreams = bitstreams;
+        this.collections = collections;
+    }
+
+    /**
+     * @return the name of the plan, e.g. "item-full"
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean includesMetadata() {
+        return metadata;
+    }
+
+    public boolean includesBitstreams() {
+        return bitstreams;
+    }
+
+    public boolean includesCollections() {
+        return collections;
+    }
+
+    /**
+     * @param name the name of a plan, e.g. from the configuration
+     * @return the plan with that name, or null if there is none
+     */
+    public static FetchPlan fromName(String name) {
+        for (FetchPlan plan : values()) {
+            if (plan.name.equals(name)) {
+                return plan;
+            }
+        }
+        return null;
+    }
+}
@@ -70,11 +70,19 @@ public class Item extends DSpaceObject{
     @OrderBy("metadataField, place")
     private List<MetadataValue> metadata = new ArrayList<MetadataValue>();
 
-    @Transient
-    private ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    /**
+     * The services the entity delegates to are looked up when used, rather
+     * than for every instance Hibernate materialises.  They are not kept,
+     * so an entity loaded before the kernel started, or across a restart
+     * of it, uses the services of the running kernel.
+     */
+    private static ItemService getItemService() {
+        return ContentServiceFactory.getInstance().getItemService();
+    }
 
-    @Transient
-    private HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+    private static HandleService getHandleService() {
+        return HandleServiceFactory.getInstance().getHandleService();
+    }
 
 
 
@@ -153,7 +161,7 @@ public class Item extends DSpaceObject{
 
     @Override
     public String getHandle(Context context) throws SQLException {
-        return handleService.findHandle(context, this);
+        return getHandleService().findHandle(context, this);
     }
 
     /**
@@ -361,7 +369,7 @@ public class Item extends DSpaceObject{
     }
 
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
      */
 
@@ -370,16 +378,16 @@ public class Item extends DSpaceObject{
     @Override
     public final String getName()
     {
-        return itemService.getName(this);
+        return getItemService().getName(this);
     }
 
     public final List<Bundle> getBundles(Item item, String name) throws SQLException
     {
-        return itemService.getBundles(item, name);
+        return getItemService().getBundles(item, name);
     }
 
     public final List<Bitstream> getNonInternalBitstreams(Item item) throws SQLException
     {
-        return itemService.getNonInternalBitstreams(item);
+        return getItemService().getNonInternalBitstreams(item);
     }
 }
\ No newline at end of file
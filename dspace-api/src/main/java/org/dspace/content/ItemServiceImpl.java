@@ -228,7 +228,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     @Override
     public Iterator<Item> findAll(Context context) throws SQLException
     {
-        return itemDAO.findAll(context, true);
+        return findAll(context, null);
     }
     
     /**
@@ -243,7 +243,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
 	@Override
     public Iterator<Item> findAllUnfiltered(Context context) throws SQLException
     {
-        return itemDAO.findAll(context, true, true);
+        return findAllUnfiltered(context, null);
 	}
 
     /**
@@ -260,7 +260,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     @Override
     public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException
     {
-        return itemDAO.findBySubmitter(context, eperson);
+        return findBySubmitter(context, eperson, null);
     }
 
     @Override
@@ -270,12 +270,71 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
 
     @Override
     public Iterator<Item> findArchivedItemsByCollection(Context context, Collection collection, Integer limit, Integer offset) throws SQLException {
-        return itemDAO.findArchivedByCollection(context, collection, limit, offset);
+        return findArchivedItemsByCollection(context, collection, limit, offset, null);
     }
 
     @Override
     public Iterator<Item> findByCollection(Context context, Collection collection) throws SQLException {
-        return itemDAO.findAllByCollection(context, collection);
+        return findByCollection(context, collection, null);
+    }
+
+    @Override
+    public Iterator<Item> findAll(Context context, FetchPlan fetchPlan) throws SQLException {
+        return itemDAO.findAll(context, true, fetchPlan);
+    }
+
+    @Override
+    public Iterator<Item> findAllUnfiltered(Context context, FetchPlan fetchPlan) throws SQLException {
+        return itemDAO.findAll(context, true, true, fetchPlan);
+    }
+
+    @Override
+    public Iterator<Item> findBySubmitter(Context context, EPerson eperson, FetchPlan fetchPlan) throws SQLException {
+        return itemDAO.findBySubmitter(context, eperson, fetchPlan);
+    }
+
+    @Override
+    public Iterator<Item> findArchivedItemsByCollection(Context context, Collection collection, Integer limit, Integer offset, FetchPlan fetchPlan) throws SQLException {
+        return itemDAO.findArchivedByCollection(context, collection, limit, offset, fetchPlan);
+    }
+
+    @Override
+    public Iterator<Item> findByCollection(Context context, Collection collection, FetchPlan fetchPlan) throws SQLException {
+        return itemDAO.findAllByCollection(context, collection, fetchPlan);
+    }
+
+    @Override
+    public List<Item> findByIds(Context context, List<UUID> ids, FetchPlan fetchPlan) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<Item>();
+        }
+        return itemDAO.findByIds(context, ids, fetchPlan);
+    }
+
+    @Override
+    public List<UUID> findArchivedItemIds(Context context) throws SQLException {
+        return itemDAO.findArchivedIds(context);
+    }
+
+    @Override
+    public List<UUID> findArchivedItemIdsByCollection(Context context, Collection collection) throws SQLException {
+        return itemDAO.findArchivedIdsByCollection(context, collection);
+    }
+
+    @Override
+    public Item find(Context context, UUID id, FetchPlan fetchPlan) throws SQLException {
+        Item item = find(context, id);
+        if (item != null && fetchPlan != null) {
+            fetch(context, Collections.singletonList(item), fetchPlan);
+        }
+        return item;
+    }
+
+    @Override
+    public void fetch(Context context, List<Item> items, FetchPlan fetchPlan) throws SQLException {
+        if (!items.isEmpty()) {
+            itemDAO.fetch(context, items, fetchPlan);
+        }
     }
 
     @Override
@@ -484,19 +543,21 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
     @Override
     public void addMetadata(Context context, Item item, MetadataField metadataField, String lang, List<String> values, List<String> authorities, List<Integer> confidences) throws SQLException
     {
+        if(metadataField == null)
+        {
+            throw new SQLException("Metadata field cannot be null");
+        }
+        boolean authorityControlled = metadataAuthorityService.isAuthorityControlled(metadataField);
+        boolean authorityRequired = metadataAuthorityService.isAuthorityRequired(metadataField);
+        // the new values go after the existing ones, the inserts are batched when the session is flushed
+        int place = getMetadata(item, metadataField, Item.ANY).size();
         for (int i = 0; i < values.size(); i++)
         {
             String value = values.get(i);
-            if(metadataField == null)
-            {
-                throw new SQLException("Metadata field cannot be null");
-            }
             if (value == null) {
                 //Do not allow "null" values in our metadata
                 return;
             }
-            boolean authorityControlled = metadataAuthorityService.isAuthorityControlled(metadataField);
-            boolean authorityRequired = metadataAuthorityService.isAuthorityRequired(metadataField);
 
             MetadataValue metadataValue = metadataValueService.create(context, item, metadataField);
 
@@ -536,7 +597,7 @@ public class ItemServiceImpl extends DSpaceObjectServiceImpl<Item> implements It
             }
             metadataValue.setValue(String.valueOf(dcvalue));
             //Set the place to be the next place in the line
-            metadataValue.setPlace(getMetadata(item, metadataField, Item.ANY).size() + 1);
+            metadataValue.setPlace(++place);
             item.addMetadata(metadataValue);
             metadataValueService.update(context, metadataValue);
         }
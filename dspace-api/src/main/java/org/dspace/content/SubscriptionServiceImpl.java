@@ -13,7 +13,10 @@ import org.dspace.eperson.EPerson;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -173,4 +176,14 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     public void delete(Context context, EPerson person) throws SQLException, AuthorizeException {
         //TODO: HIBERNATE IMPLEMENT
     }
+
+    @Override
+    public Map<UUID, List<UUID>> findItemsInSubscribedCollections(Context context, Date from, Date until) throws SQLException {
+        return subscriptionDAO.findItemsInSubscribedCollections(context, from, until);
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> findSubscribersOfModifiedCollections(Context context, Date from, Date until) throws SQLException {
+        return subscriptionDAO.findSubscribersOfModifiedCollections(context, from, until);
+    }
 }
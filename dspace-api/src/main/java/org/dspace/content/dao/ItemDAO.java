@@ -1,6 +1,7 @@
 package org.dspace.content.dao;
 
 import org.dspace.content.Collection;
+import org.dspace.content.FetchPlan;
 import org.dspace.content.Item;
 import org.dspace.content.MetadataField;
 import org.dspace.core.Context;
@@ -8,6 +9,8 @@ import org.dspace.eperson.EPerson;
 
 import java.sql.SQLException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Created with IntelliJ IDEA.
@@ -18,18 +21,47 @@ import java.util.Iterator;
  */
 public interface ItemDAO extends DSpaceObjectDAO<Item> {
 
-    public Iterator<Item> findAll(Context context, boolean archived) throws SQLException;
+    /*
+     * The finders take a fetch plan: without one (null) the items are
+     * loaded one by one while iterating, with one they are loaded at once
+     * together with the associations the plan names.
+     */
 
-    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn) throws SQLException;
+    public Iterator<Item> findAll(Context context, boolean archived, FetchPlan fetchPlan) throws SQLException;
 
-    public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException;
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn, FetchPlan fetchPlan) throws SQLException;
+
+    public Iterator<Item> findBySubmitter(Context context, EPerson eperson, FetchPlan fetchPlan) throws SQLException;
 
     public Iterator<Item> findByMetadataField(Context context, MetadataField metadataField, String value, boolean inArchive) throws SQLException;
 
     public Iterator<Item> findByAuthorityValue(Context context, MetadataField metadataField, String authority, boolean inArchive) throws SQLException;
 
-    public Iterator<Item> findArchivedByCollection(Context context, Collection collection, Integer limit, Integer offset) throws SQLException;
+    public Iterator<Item> findArchivedByCollection(Context context, Collection collection, Integer limit, Integer offset, FetchPlan fetchPlan) throws SQLException;
+
+    public Iterator<Item> findAllByCollection(Context context, Collection collection, FetchPlan fetchPlan) throws SQLException;
+
+    /**
+     * The items with these ids, in no particular order, together with the
+     * parts of their graph the fetch plan names.  Ids of items which do
+     * not exist are left out.
+     */
+    public List<Item> findByIds(Context context, List<UUID> ids, FetchPlan fetchPlan) throws SQLException;
+
+    /**
+     * The ids of all in_archive items, ordered by id.
+     */
+    public List<UUID> findArchivedIds(Context context) throws SQLException;
+
+    /**
+     * The ids of the in_archive items in the collection, ordered by id.
+     */
+    public List<UUID> findArchivedIdsByCollection(Context context, Collection collection) throws SQLException;
 
-    public Iterator<Item> findAllByCollection(Context context, Collection collection) throws SQLException;
+    /**
+     * Loads the associations the fetch plan names for all given items,
+     * in a fixed number of queries for every hundred items.
+     */
+    public void fetch(Context context, List<Item> items, FetchPlan fetchPlan) throws SQLException;
 
 }
\ No newline at end of file
@@ -7,7 +7,10 @@ import org.dspace.dao.GenericDAO;
 import org.dspace.eperson.EPerson;
 
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -25,4 +28,20 @@ public interface SubscriptionDAO extends GenericDAO<Subscription> {
     public void deleteByEPerson(Context context, EPerson eperson) throws SQLException;
 
     public void deleteByCollectionAndEPerson(Context context, Collection collection, EPerson eperson) throws SQLException;
+
+    /**
+     * Find the archived items modified in the given window, grouped by
+     * collection, in the collections with at least one subscriber.
+     *
+     * @return the item ids by collection id
+     */
+    public Map<UUID, List<UUID>> findItemsInSubscribedCollections(Context context, Date from, Date until) throws SQLException;
+
+    /**
+     * Find the subscribers of the collections with archived items modified
+     * in the given window, together with those of their collections.
+     *
+     * @return the collection ids by eperson id, in eperson id order
+     */
+    public Map<UUID, List<UUID>> findSubscribersOfModifiedCollections(Context context, Date from, Date until) throws SQLException;
 }
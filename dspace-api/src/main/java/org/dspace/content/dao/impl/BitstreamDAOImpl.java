@@ -30,7 +30,7 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
         Criteria criteria = createCriteria(context, Bitstream.class);
         criteria.add(Restrictions.eq("deleted", true));
 
-        return list(criteria);
+        return list(context, "findDeletedBitstreams", criteria);
 
     }
 
@@ -42,7 +42,7 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
                 Restrictions.not(Restrictions.eq("id", bitstream.getID()))
         ));
 
-        return list(criteria);
+        return list(context, "findDuplicateInternalIdentifier", criteria);
     }
 
     @Override
@@ -59,9 +59,7 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
         Criteria criteria = createCriteria(context, Bitstream.class)
             .add(Subqueries.propertyNotIn("id", DetachedCriteria.forClass(MostRecentChecksum.class)));
 
-        @SuppressWarnings("unchecked")
-        List<Bitstream> result = (List<Bitstream>) criteria.list();
-        return result;
+        return list(context, "findBitstreamsWithNoRecentChecksum", criteria);
     }
 
     @Override
@@ -76,7 +74,7 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
 
         query.setParameter("community", community);
 
-        return iterate(query);
+        return iterate(context, "findByCommunity", query);
     }
 
     @Override
@@ -90,7 +88,7 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
 
         query.setParameter("collection", collection);
 
-        return iterate(query);
+        return iterate(context, "findByCollection", query);
     }
 
     @Override
@@ -103,6 +101,6 @@ public class BitstreamDAOImpl extends AbstractHibernateDAO<Bitstream> implements
 
         query.setParameter("item", item);
 
-        return iterate(query);
+        return iterate(context, "findByItem", query);
     }
 }
@@ -44,7 +44,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
                 Restrictions.like("mimetype", mimeType)
         ));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByMIMEType", criteria);
     }
 
     /**
@@ -68,7 +68,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
                 Restrictions.eq("shortDescription", desc)
         ));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByShortDescription", criteria);
     }
 
     @Override
@@ -78,7 +78,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
         query.setParameter("unknown_format", newBitstreamFormat);
         query.setParameter("deleted_format", deletedBitstreamFormat);
 
-        return query.executeUpdate();
+        return executeUpdate(context, "updateRemovedBitstreamFormat", query);
     }
 
     @Override
@@ -90,7 +90,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
         ));
         criteria.addOrder(Order.desc("supportLevel")).addOrder(Order.asc("shortDescription"));
 
-        return list(criteria);
+        return list(context, "findNonInternal", criteria);
 
     }
 
@@ -98,7 +98,7 @@ public class BitstreamFormatDAOImpl extends AbstractHibernateDAO<BitstreamFormat
     public List<BitstreamFormat> findAll(Context context, Class clazz) throws SQLException {
         Criteria criteria = createCriteria(context, BitstreamFormat.class);
         criteria.addOrder(Order.asc("id"));
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
 }
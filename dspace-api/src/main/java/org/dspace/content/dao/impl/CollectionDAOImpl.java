@@ -47,14 +47,14 @@ public class CollectionDAOImpl extends AbstractHibernateDAO<Collection> implemen
         if(offset != null){
             criteria.setMaxResults(offset);
         }
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
     @Override
     public Collection findByTemplateItem(Context context, Item item) throws SQLException {
         Criteria criteria = createCriteria(context, Collection.class);
         criteria.add(Restrictions.eq("template_item", item));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByTemplateItem", criteria);
     }
 
     @Override
@@ -69,6 +69,6 @@ public class CollectionDAOImpl extends AbstractHibernateDAO<Collection> implemen
                         Restrictions.eq("admins", group)
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByGroup", criteria);
     }
 }
@@ -35,14 +35,14 @@ public class CommunityDAOImpl extends AbstractHibernateDAO<Community> implements
     {
         Criteria criteria = createCriteria(context, Community.class);
         criteria.addOrder(Order.asc(order));
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
     @Override
     public Community findByAdminGroup(Context context, Group group) throws SQLException {
         Criteria criteria = createCriteria(context, Community.class);
         criteria.add(Restrictions.eq("admins", group));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByAdminGroup", criteria);
     }
 
 
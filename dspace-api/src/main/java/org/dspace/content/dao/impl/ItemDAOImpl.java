@@ -10,7 +10,10 @@ import org.dspace.eperson.EPerson;
 import org.hibernate.Query;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Created with IntelliJ IDEA.
@@ -21,29 +24,32 @@ import java.util.Iterator;
  */
 public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
 
+    /** The number of items or bundles whose associations one fetch query loads */
+    private static final int FETCH_SIZE = 100;
+
     @Override
-    public Iterator<Item> findAll(Context context, boolean archived) throws SQLException
+    public Iterator<Item> findAll(Context context, boolean archived, FetchPlan fetchPlan) throws SQLException
     {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive");
         query.setParameter("in_archive", archived);
-        return iterate(query);
+        return iterate(context, "findAll", query, fetchPlan);
     }
 
     @Override
-    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn) throws SQLException
+    public Iterator<Item> findAll(Context context, boolean archived, boolean withdrawn, FetchPlan fetchPlan) throws SQLException
     {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive or withdrawn = :withdrawn");
         query.setParameter("in_archive", archived);
         query.setParameter("withdrawn", withdrawn);
-        return iterate(query);
+        return iterate(context, "findAll", query, fetchPlan);
     }
 
     @Override
-    public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException {
+    public Iterator<Item> findBySubmitter(Context context, EPerson eperson, FetchPlan fetchPlan) throws SQLException {
         Query query = createQuery(context, "FROM Item WHERE inArchive= :in_archive and submitter= :submitter");
         query.setParameter("in_archive", true);
         query.setParameter("submitter", eperson);
-        return iterate(query);
+        return iterate(context, "findBySubmitter", query, fetchPlan);
     }
 
     @Override
@@ -61,7 +67,7 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         {
             query.setParameter("text_value", value);
         }
-        return iterate(query);
+        return iterate(context, "findByMetadataField", query);
     }
 
     @Override
@@ -70,11 +76,11 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         query.setParameter("in_archive", inArchive);
         query.setParameter("metadata_field", metadataField);
         query.setParameter("authority", authority);
-        return iterate(query);
+        return iterate(context, "findByAuthorityValue", query);
     }
 
     @Override
-    public Iterator<Item> findArchivedByCollection(Context context, Collection collection, Integer limit, Integer offset) throws SQLException{
+    public Iterator<Item> findArchivedByCollection(Context context, Collection collection, Integer limit, Integer offset, FetchPlan fetchPlan) throws SQLException{
         Query query = createQuery(context, "select i from Item i join i.collections c WHERE :collection IN c AND i.inArchive=:in_archive");
         query.setParameter("collection", collection);
         query.setParameter("in_archive", true);
@@ -86,18 +92,101 @@ public class ItemDAOImpl extends AbstractHibernateDAO<Item> implements ItemDAO {
         {
             query.setMaxResults(limit);
         }
-        @SuppressWarnings("unchecked")
-        Iterator<Item> iterator = iterate(query);
-        return iterator;
+        return iterate(context, "findArchivedByCollection", query, fetchPlan);
     }
 
     @Override
-    public Iterator<Item> findAllByCollection(Context context, Collection collection) throws SQLException {
+    public Iterator<Item> findAllByCollection(Context context, Collection collection, FetchPlan fetchPlan) throws SQLException {
         Query query = createQuery(context, "select i from Item i join i.collections c WHERE :collection IN c");
         query.setParameter("collection", collection);
 
-        @SuppressWarnings("unchecked")
-        Iterator<Item> iterator = iterate(query);
-        return iterator;
+        return iterate(context, "findAllByCollection", query, fetchPlan);
+    }
+
+    @Override
+    public List<Item> findByIds(Context context, List<UUID> ids, FetchPlan fetchPlan) throws SQLException {
+        List<Item> items = new ArrayList<Item>(ids.size());
+        for (int from = 0; from < ids.size(); from += FETCH_SIZE) {
+            Query query = createQuery(context, "FROM Item WHERE id IN (:ids)");
+            query.setParameterList("ids", ids.subList(from, Math.min(from + FETCH_SIZE, ids.size())));
+            items.addAll(list(context, "findByIds", query));
+        }
+        if (fetchPlan != null) {
+            fetch(context, items, fetchPlan);
+        }
+        return items;
+    }
+
+    @Override
+    public List<UUID> findArchivedIds(Context context) throws SQLException {
+        Query query = createQuery(context, "select i.id from Item i WHERE i.inArchive=:in_archive ORDER BY i.id");
+        query.setParameter("in_archive", true);
+        return this.<UUID>listValues(context, "findArchivedIds", query);
+    }
+
+    @Override
+    public List<UUID> findArchivedIdsByCollection(Context context, Collection collection) throws SQLException {
+        Query query = createQuery(context, "select i.id from Item i join i.collections c WHERE c = :collection AND i.inArchive=:in_archive ORDER BY i.id");
+        query.setParameter("collection", collection);
+        query.setParameter("in_archive", true);
+        return this.<UUID>listValues(context, "findArchivedIdsByCollection", query);
+    }
+
+    @Override
+    public void fetch(Context context, List<Item> items, FetchPlan fetchPlan) throws SQLException {
+        for (int from = 0; from < items.size(); from += FETCH_SIZE) {
+            List<Item> chunk = items.subList(from, Math.min(from + FETCH_SIZE, items.size()));
+            List<UUID> ids = new ArrayList<UUID>(chunk.size());
+            for (Item item : chunk) {
+                ids.add(item.getID());
+            }
+            // one collection per query, fetching several at once would multiply the rows
+            if (fetchPlan.includesMetadata()) {
+                fetch(context, "SELECT DISTINCT item FROM Item item LEFT JOIN FETCH item.metadata metadatavalue"
+                        + " LEFT JOIN FETCH metadatavalue.metadataField metadatafield"
+                        + " LEFT JOIN FETCH metadatafield.metadataSchema WHERE item.id IN (:ids)", ids);
+            }
+            if (fetchPlan.includesCollections()) {
+                fetch(context, "SELECT DISTINCT item FROM Item item LEFT JOIN FETCH item.owningCollection"
+                        + " LEFT JOIN FETCH item.collections WHERE item.id IN (:ids)", ids);
+            }
+            if (fetchPlan.includesBitstreams()) {
+                fetch(context, "SELECT DISTINCT item FROM Item item LEFT JOIN FETCH item.bundles bundle"
+                        + " LEFT JOIN FETCH bundle.primaryBitstream WHERE item.id IN (:ids)", ids);
+                List<UUID> bundleIds = new ArrayList<UUID>();
+                for (Item item : chunk) {
+                    for (Bundle bundle : item.getBundles()) {
+                        bundleIds.add(bundle.getID());
+                    }
+                }
+                // the logo associations of a bitstream are the inverse side, which Hibernate cannot load lazily
+                for (int bundleFrom = 0; bundleFrom < bundleIds.size(); bundleFrom += FETCH_SIZE) {
+                    fetch(context, "SELECT DISTINCT bundle FROM Bundle bundle LEFT JOIN FETCH bundle.bitstreams bundlebitstream"
+                            + " LEFT JOIN FETCH bundlebitstream.bitstream bitstream LEFT JOIN FETCH bitstream.bitstreamFormat"
+                            + " LEFT JOIN FETCH bitstream.community LEFT JOIN FETCH bitstream.collection"
+                            + " WHERE bundle.id IN (:ids)",
+                            bundleIds.subList(bundleFrom, Math.min(bundleFrom + FETCH_SIZE, bundleIds.size())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Without a fetch plan the items are iterated, which loads them one by
+     * one unless they are cached.  With one they are listed and fetched.
+     */
+    protected Iterator<Item> iterate(Context context, String name, Query query, FetchPlan fetchPlan) throws SQLException {
+        if (fetchPlan == null) {
+            return iterate(context, name, query);
+        }
+        List<Item> items = list(context, name, query);
+        fetch(context, items, fetchPlan);
+        return items.iterator();
+    }
+
+    private void fetch(Context context, String hql, List<UUID> ids) throws SQLException {
+        Query query = createQuery(context, hql);
+        query.setParameterList("ids", ids);
+        list(context, "fetch", query);
     }
 }
@@ -33,7 +33,7 @@ public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> im
                         Restrictions.eqOrIsNull("qualifier", qualifier)
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "find", criteria);
     }
 
     @Override
@@ -47,7 +47,7 @@ public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> im
                         Restrictions.eqOrIsNull("qualifier", qualifier)
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByElement", criteria);
     }
 
     @Override
@@ -57,6 +57,6 @@ public class MetadataFieldDAOImpl extends AbstractHibernateDAO<MetadataField> im
         criteria.createAlias("metadataSchema", "mds");
         criteria.add(Restrictions.eq("mds.name", schema));
         criteria.addOrder(Order.asc("element")).addOrder(Order.asc("qualifier"));
-        return list(criteria);
+        return list(context, "findAllInSchema", criteria);
     }
 }
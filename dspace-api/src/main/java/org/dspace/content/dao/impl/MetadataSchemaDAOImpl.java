@@ -33,7 +33,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
         // Grab rows from DB
         Criteria criteria = createCriteria(context, MetadataSchema.class);
         criteria.add(Restrictions.eq("namespace", namespace));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByNamespace", criteria);
     }
 
     @Override
@@ -41,7 +41,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
         // Get all the metadataschema rows
         Criteria criteria = createCriteria(context, MetadataSchema.class);
         criteria.addOrder(Order.asc("id"));
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
     /**
@@ -62,7 +62,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
                 Restrictions.not(Restrictions.eq("id", metadataSchemaId)),
                 Restrictions.eq("namespace", namespace)
         ));
-        return uniqueResult(criteria) == null;
+        return uniqueResult(context, "uniqueNamespace", criteria) == null;
     }
 
     /**
@@ -83,7 +83,7 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
                 Restrictions.eq("name", name)
         ));
 
-        return uniqueResult(criteria) == null;
+        return uniqueResult(context, "uniqueShortName", criteria) == null;
     }
 
     /**
@@ -104,6 +104,6 @@ public class MetadataSchemaDAOImpl extends AbstractHibernateDAO<MetadataSchema>
                 Restrictions.eq("name", shortName)
         );
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "find", criteria);
     }
 }
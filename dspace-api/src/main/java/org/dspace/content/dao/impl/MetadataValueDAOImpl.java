@@ -25,7 +25,7 @@ public class MetadataValueDAOImpl extends AbstractHibernateDAO<MetadataValue> im
         criteria.add(
                 Restrictions.eq("metadataField.id", fieldId)
         );
-        return list(criteria);
+        return list(context, "findByField", criteria);
     }
 
 
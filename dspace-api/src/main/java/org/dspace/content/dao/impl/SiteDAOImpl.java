@@ -18,6 +18,6 @@ public class SiteDAOImpl extends AbstractHibernateDAO<Site> implements SiteDAO {
     @Override
     public Site findSite(Context context) throws SQLException {
         Criteria criteria = createCriteria(context, Site.class);
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findSite", criteria);
     }
 }
@@ -11,7 +11,12 @@ import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -28,7 +33,7 @@ public class SubscriptionDAOImpl extends AbstractHibernateDAO<Subscription> impl
                         Restrictions.eq("ePerson", eperson)
                 )
         );
-        return list(criteria);
+        return list(context, "findByEPerson", criteria);
 
     }
 
@@ -41,7 +46,7 @@ public class SubscriptionDAOImpl extends AbstractHibernateDAO<Subscription> impl
                         Restrictions.eq("collection", collection)
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByCollectionAndEPerson", criteria);
     }
 
 
@@ -50,7 +55,7 @@ public class SubscriptionDAOImpl extends AbstractHibernateDAO<Subscription> impl
         String hqlQuery = "delete from Subscription where collection=:collection";
         Query query = createQuery(context, hqlQuery);
         query.setParameter("collection", collection);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByCollection", query);
     }
 
     @Override
@@ -58,7 +63,7 @@ public class SubscriptionDAOImpl extends AbstractHibernateDAO<Subscription> impl
         String hqlQuery = "delete from Subscription where ePerson=:ePerson";
         Query query = createQuery(context, hqlQuery);
         query.setParameter("ePerson", eperson);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByEPerson", query);
     }
 
     @Override
@@ -67,6 +72,46 @@ public class SubscriptionDAOImpl extends AbstractHibernateDAO<Subscription> impl
         Query query = createQuery(context, hqlQuery);
         query.setParameter("collection", collection);
         query.setParameter("ePerson", eperson);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByCollectionAndEPerson", query);
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> findItemsInSubscribedCollections(Context context, Date from, Date until) throws SQLException {
+        Query query = createQuery(context, "SELECT c.id, i.id FROM Item i JOIN i.collections c " +
+                "WHERE i.inArchive = true AND i.lastModified >= :from AND i.lastModified < :until " +
+                "AND EXISTS (SELECT s.id FROM Subscription s WHERE s.collection = c) " +
+                "ORDER BY c.id, i.id");
+        query.setTimestamp("from", from);
+        query.setTimestamp("until", until);
+        return group(this.<Object[]>listValues(context, "findItemsInSubscribedCollections", query));
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> findSubscribersOfModifiedCollections(Context context, Date from, Date until) throws SQLException {
+        Query query = createQuery(context, "SELECT s.ePerson.id, s.collection.id FROM Subscription s " +
+                "WHERE s.collection IN (SELECT c FROM Item i JOIN i.collections c " +
+                "WHERE i.inArchive = true AND i.lastModified >= :from AND i.lastModified < :until) " +
+                "ORDER BY s.ePerson.id");
+        query.setTimestamp("from", from);
+        query.setTimestamp("until", until);
+        return group(this.<Object[]>listValues(context, "findSubscribersOfModifiedCollections", query));
+    }
+
+    /**
+     * Groups (key, value) rows which are ordered by key.
+     */
+    protected Map<UUID, List<UUID>> group(List<Object[]> rows) {
+        Map<UUID, List<UUID>> groups = new LinkedHashMap<UUID, List<UUID>>();
+        List<UUID> group = null;
+        UUID key = null;
+        for (Object[] row : rows) {
+            if (group == null || !key.equals(row[0])) {
+                key = (UUID) row[0];
+                group = new ArrayList<UUID>();
+                groups.put(key, group);
+            }
+            group.add((UUID) row[1]);
+        }
+        return groups;
     }
 }
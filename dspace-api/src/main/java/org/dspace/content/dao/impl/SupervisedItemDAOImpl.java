@@ -24,7 +24,7 @@ public class SupervisedItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> i
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.createAlias("groups.epeople", "e");
         criteria.add(Restrictions.eq("e", ePerson));
-        return list(criteria);
+        return list(context, "findByEPerson", criteria);
     }
 
     @Override
@@ -32,7 +32,7 @@ public class SupervisedItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> i
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.createAlias("supervisorGroups", "sgs");
         criteria.add(Restrictions.eq("sgs.id",  group.getID()));
-        return list(criteria);
+        return list(context, "findByGroup", criteria);
     }
 
     @Override
@@ -44,7 +44,7 @@ public class SupervisedItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> i
                 Restrictions.eq("id", workspaceItem.getID())
         ));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByWorkspaceItemAndGroup", criteria);
     }
 
 
@@ -53,6 +53,6 @@ public class SupervisedItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> i
     public List<WorkspaceItem> findAll(Context context, Class clazz) throws SQLException {
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.add(Restrictions.isNotEmpty("supervisorGroups"));
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 }
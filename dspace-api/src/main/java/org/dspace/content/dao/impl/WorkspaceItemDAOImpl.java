@@ -28,7 +28,7 @@ public class WorkspaceItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> im
     {
         Query query = createQuery(context, "from WorkspaceItem ws where ws.item.submitter = :submitter order by workspaceItemId");
         query.setParameter("submitter", ep);
-        return list(query);
+        return list(context, "findByEPerson", query);
     }
 
     @Override
@@ -36,7 +36,7 @@ public class WorkspaceItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> im
     {
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.add(Restrictions.eq("collection", c));
-        return list(criteria);
+        return list(context, "findByCollection", criteria);
     }
 
     @Override
@@ -45,7 +45,7 @@ public class WorkspaceItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> im
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.add(Restrictions.eq("item", i));
         // Look for the unique workspaceitem entry where 'item_id' references this item
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByItem", criteria);
     }
 
     @Override
@@ -53,7 +53,7 @@ public class WorkspaceItemDAOImpl extends AbstractHibernateDAO<WorkspaceItem> im
     {
         Criteria criteria = createCriteria(context, WorkspaceItem.class);
         criteria.addOrder(Order.asc("item"));
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
 }
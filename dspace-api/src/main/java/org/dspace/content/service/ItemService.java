@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -24,12 +25,38 @@ public interface ItemService extends DSpaceObjectService<Item> {
 
     public Item createTemplateItem(Context context, Collection collection) throws SQLException, AuthorizeException;
 
+    /**
+     * Find an item together with the parts of its graph the fetch plan names.
+     *
+     * @param fetchPlan the associations to load, or null to load them lazily
+     * @return the item, or null if the id is invalid
+     * @throws SQLException
+     */
+    public Item find(Context context, UUID id, FetchPlan fetchPlan) throws SQLException;
+
+    /**
+     * Loads the parts of the graph of the items the fetch plan names, in a
+     * fixed number of queries for every hundred items.
+     */
+    public void fetch(Context context, List<Item> items, FetchPlan fetchPlan) throws SQLException;
+
     public Iterator<Item> findAll(Context context) throws SQLException;
 
+    /**
+     * Get all the items in the archive, see {@link #findAll(Context)}.  With
+     * a fetch plan all items are loaded at once, together with the
+     * associations of the plan.
+     */
+    public Iterator<Item> findAll(Context context, FetchPlan fetchPlan) throws SQLException;
+
     public Iterator<Item> findAllUnfiltered(Context context) throws SQLException;
 
+    public Iterator<Item> findAllUnfiltered(Context context, FetchPlan fetchPlan) throws SQLException;
+
     public Iterator<Item> findBySubmitter(Context context, EPerson eperson) throws SQLException;
 
+    public Iterator<Item> findBySubmitter(Context context, EPerson eperson, FetchPlan fetchPlan) throws SQLException;
+
     /**
      * Get the in_archive items in this collection. The order is indeterminate.
      *
@@ -48,6 +75,14 @@ public interface ItemService extends DSpaceObjectService<Item> {
      */
     public Iterator<Item> findArchivedItemsByCollection(Context context, Collection collection, Integer limit, Integer offset) throws SQLException;
 
+    /**
+     * Get a page of the in_archive items in this collection, together with
+     * the parts of their graph the fetch plan names.
+     *
+     * @param fetchPlan the associations to load, or null to load them lazily
+     */
+    public Iterator<Item> findArchivedItemsByCollection(Context context, Collection collection, Integer limit, Integer offset, FetchPlan fetchPlan) throws SQLException;
+
     /**
      * Get all the items in this collection. The order is indeterminate.
      *
@@ -56,6 +91,36 @@ public interface ItemService extends DSpaceObjectService<Item> {
      */
     public Iterator<Item> findByCollection(Context context, Collection collection) throws SQLException;
 
+    public Iterator<Item> findByCollection(Context context, Collection collection, FetchPlan fetchPlan) throws SQLException;
+
+    /**
+     * Find several items at once, in a query for every hundred of them
+     * rather than one for each.
+     *
+     * @param fetchPlan the associations to load, or null to load them lazily
+     * @return the items which exist, in no particular order
+     * @throws SQLException
+     */
+    public List<Item> findByIds(Context context, List<UUID> ids, FetchPlan fetchPlan) throws SQLException;
+
+    /**
+     * Get the ids of all in_archive items, ordered by id, see
+     * {@link #findArchivedItemIdsByCollection(Context, Collection)}.
+     *
+     * @return the ids, without loading the items
+     * @throws SQLException
+     */
+    public List<UUID> findArchivedItemIds(Context context) throws SQLException;
+
+    /**
+     * Get the ids of the in_archive items in this collection, ordered by id,
+     * e.g. to hand them out to workers which load the items themselves.
+     *
+     * @return the ids, without loading the items
+     * @throws SQLException
+     */
+    public List<UUID> findArchivedItemIdsByCollection(Context context, Collection collection) throws SQLException;
+
     public List<MetadataValue> getMetadata(Item item, MetadataField metadataField, String lang);
 
     public List<MetadataValue> getMetadata(Item item, String schema, String element, String qualifier, String lang);
@@ -7,6 +7,10 @@ import org.dspace.core.Context;
 import org.dspace.eperson.EPerson;
 
 import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -22,4 +26,26 @@ public interface SubscriptionService {
     public void delete(Context context, Subscription subscription) throws SQLException, AuthorizeException;
 
     public void delete(Context context, EPerson person) throws SQLException, AuthorizeException;
+
+    /**
+     * Find the archived items modified in a window, in one query grouped by
+     * collection.  Only the collections someone is subscribed to are included.
+     *
+     * @param context DSpace context
+     * @param from    the start of the window, inclusive
+     * @param until   the end of the window, exclusive
+     * @return the item ids by collection id
+     */
+    public Map<UUID, List<UUID>> findItemsInSubscribedCollections(Context context, Date from, Date until) throws SQLException;
+
+    /**
+     * Find everyone subscribed to a collection with archived items modified
+     * in a window, together with the collections concerned, in one query.
+     *
+     * @param context DSpace context
+     * @param from    the start of the window, inclusive
+     * @param until   the end of the window, exclusive
+     * @return the collection ids by eperson id, in eperson id order
+     */
+    public Map<UUID, List<UUID>> findSubscribersOfModifiedCollections(Context context, Date from, Date until) throws SQLException;
 }
@@ -5,8 +5,11 @@ import org.hibernate.Criteria;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.criterion.Projections;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -18,6 +21,9 @@ import java.util.UUID;
  */
 public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
 
+    /** The number of objects flushed at once if hibernate.jdbc.batch_size is not set. */
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
     @Override
     public T create(Context context, T t) throws SQLException {
         getHibernateSession(context).save(t);
@@ -38,37 +44,93 @@ public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
         getHibernateSession(context).delete(t);
     }
 
+    @Override
+    public void saveAll(Context context, Collection<T> ts) throws SQLException {
+        saveAll(context, ts, false);
+    }
+
+    @Override
+    public void saveAll(Context context, Collection<T> ts, boolean detach) throws SQLException {
+        Session session = getHibernateSession(context);
+        int batchSize = getBatchSize(session);
+        List<T> batch = new ArrayList<T>(Math.min(batchSize, ts.size()));
+        for (T t : ts) {
+            session.save(t);
+            batch.add(t);
+            if (batch.size() >= batchSize) {
+                flush(session, batch, detach);
+            }
+        }
+        // the rest is written by the next flush, unless it has to leave the session now
+        if (detach && !batch.isEmpty()) {
+            flush(session, batch, true);
+        }
+    }
+
+    // write a batch, so the session has no pending inserts piling up, and detach it if asked to
+    private void flush(Session session, List<T> batch, boolean detach) {
+        session.flush();
+        if (detach) {
+            for (T t : batch) {
+                session.evict(t);
+            }
+        }
+        batch.clear();
+    }
+
+    @Override
+    public void deleteAll(Context context, Collection<T> ts) throws SQLException {
+        Session session = getHibernateSession(context);
+        int batchSize = getBatchSize(session);
+        int count = 0;
+        for (T t : ts) {
+            session.delete(t);
+            // flushed deletes leave the session
+            if (++count % batchSize == 0) {
+                session.flush();
+            }
+        }
+    }
+
+    /**
+     * @return the JDBC batch size of the session factory, so every flush fills whole batches
+     */
+    private int getBatchSize(Session session) {
+        int batchSize = ((SessionFactoryImplementor) session.getSessionFactory()).getSettings().getJdbcBatchSize();
+        return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
     @Override
     public List<T> findAll(Context context, Class<T> clazz) throws SQLException {
-        return list(createCriteria(context, clazz));
+        return list(context, "findAll", createCriteria(context, clazz));
     }
 
     @Override
     public T findUnique(Context context, String query) throws SQLException {
-        @SuppressWarnings("unchecked")
-        T result = (T) createQuery(context, query).uniqueResult();
-        return result;
+        return uniqueResult(context, "findUnique", createQuery(context, query));
     }
 
     @Override
     public T findByID(Context context, Class clazz, UUID id) throws SQLException {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         T result = (T) getHibernateSession(context).get(clazz, id);
+        record(context, "findByID", null, result == null ? 0 : 1, start);
         return result;
     }
 
     @Override
     public T findByID(Context context, Class clazz, int id) throws SQLException {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         T result = (T) getHibernateSession(context).get(clazz, id);
+        record(context, "findByID", null, result == null ? 0 : 1, start);
         return result;
     }
 
     @Override
     public List<T> findMany(Context context, String query) throws SQLException {
-        @SuppressWarnings("unchecked")
-        List<T> result = (List<T>) createQuery(context, query).uniqueResult();
-        return result;
+        return list(context, "findMany", createQuery(context, query));
     }
 
     public Criteria createCriteria(Context context, Class<T> persistentClass) throws SQLException {
@@ -79,36 +141,102 @@ public abstract class AbstractHibernateDAO<T> implements GenericDAO<T> {
         return getHibernateSession(context).createQuery(query);
     }
 
-    public List<T> list(Criteria criteria)
+    /*
+     * The methods below run the queries and record them in the query
+     * statistics, under the DAO class and the name of the method, which
+     * the DAO passes in, e.g. list(context, "findByCollection", query).
+     */
+
+    public List<T> list(Context context, String name, Criteria criteria)
     {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         List<T> result = (List<T>) criteria.list();
+        record(context, name, null, result.size(), start);
         return result;
     }
 
-    public List<T> list(Query query)
+    public List<T> list(Context context, String name, Query query)
     {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         List<T> result = (List<T>) query.list();
+        record(context, name, query.getQueryString(), result.size(), start);
+        return result;
+    }
+
+    /**
+     * Like {@link #list(Context, String, Query)}, for queries which select values
+     * or rows of values rather than entities.
+     */
+    public <R> List<R> listValues(Context context, String name, Query query)
+    {
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        List<R> result = (List<R>) query.list();
+        record(context, name, query.getQueryString(), result.size(), start);
         return result;
     }
 
-    public T uniqueResult(Criteria criteria)
+    public T uniqueResult(Context context, String name, Criteria criteria)
     {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         T result = (T) criteria.uniqueResult();
+        record(context, name, null, result == null ? 0 : 1, start);
+        return result;
+    }
+
+    public T uniqueResult(Context context, String name, Query query)
+    {
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        T result = (T) query.uniqueResult();
+        record(context, name, query.getQueryString(), result == null ? 0 : 1, start);
         return result;
     }
 
-    public Iterator<T> iterate(Query query)
+    /**
+     * Iterates over the results.  Only the query for the ids is recorded,
+     * the entities are loaded one by one while iterating.
+     */
+    public Iterator<T> iterate(Context context, String name, Query query)
     {
+        long start = System.nanoTime();
         @SuppressWarnings("unchecked")
         Iterator<T> result = (Iterator<T>) query.iterate();
+        record(context, name, query.getQueryString(), 0, start);
+        return result;
+    }
+
+    public int count(Context context, String name, Criteria criteria)
+    {
+        long start = System.nanoTime();
+        int result = ((Long) criteria.setProjection(Projections.rowCount()).uniqueResult()).intValue();
+        record(context, name, null, 1, start);
         return result;
     }
 
-    public int count(Criteria criteria)
+    /**
+     * Runs a bulk HQL update or delete.  These fire no entity listeners,
+     * so the other nodes of the cluster are told to evict every cached
+     * region the statement may have changed.
+     *
+     * @return the number of rows updated or deleted
+     */
+    public int executeUpdate(Context context, String name, Query query) throws SQLException
     {
-        return ((Long) criteria.setProjection(Projections.rowCount()).uniqueResult()).intValue();
+        long start = System.nanoTime();
+        int result = query.executeUpdate();
+        record(context, name, query.getQueryString(), result, start);
+        HibernateUtil.getCacheInvalidator().recordBulkUpdate(getHibernateSession(context), query.getQueryString());
+        return result;
+    }
+
+    private void record(Context context, String name, String query, long rows, long start) {
+        QueryStatistics statistics = QueryStatistics.getInstance();
+        if (statistics.isEnabled()) {
+            statistics.record(context, getClass().getSimpleName() + "." + name, query, rows, start);
+        }
     }
 }
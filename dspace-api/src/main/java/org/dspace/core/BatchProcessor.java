@@ -0,0 +1,115 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.apache.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Works through a list of objects, usually ids, in batches on a pool of
+ * threads.  Each batch is processed in a context of its own, which is
+ * completed once the batch is done, so a worker never holds more than a
+ * batch of objects in its session.
+ * <p>
+ * <code>
+ *     int failed = new BatchProcessor&lt;UUID&gt;("items", 100, threads) {
+ *         protected int process(Context context, List&lt;UUID&gt; batch) throws Exception {
+ *             ... return the number of ids of the batch which failed ...
+ *         }
+ *     }.run(ids);
+ * </code>
+ *
+ * @param <T> the type of the objects
+ */
+public abstract class BatchProcessor<T> {
+
+    private static final Logger log = Logger.getLogger(BatchProcessor.class);
+
+    private final String name;
+    private final int batchSize;
+    private final int threads;
+
+    /**
+     * @param name what the objects are, for the log
+     * @param batchSize the number of objects processed in one context
+     * @param threads the number of threads processing batches
+     */
+    public BatchProcessor(String name, int batchSize, int threads) {
+        this.name = name;
+        this.batchSize = Math.max(1, batchSize);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Processes one batch.  The context is completed afterwards, unless
+     * this throws an exception, which counts the whole batch as failed.
+     *
+     * @param context a new context for the batch
+     * @param batch the objects of the batch
+     * @return the number of objects of the batch which failed
+     */
+    protected abstract int process(Context context, List<T> batch) throws Exception;
+
+    /**
+     * @return a new context for a batch
+     */
+    protected Context createContext() throws SQLException {
+        return new Context();
+    }
+
+    /**
+     * Processes all objects and waits until they are done.
+     *
+     * @param objects the objects, they are handed out in their order
+     * @return the number of objects which failed
+     */
+    public int run(List<T> objects) throws InterruptedException {
+        final AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int from = 0; from < objects.size(); from += batchSize) {
+                final List<T> batch = objects.subList(from, Math.min(from + batchSize, objects.size()));
+                executor.execute(new Runnable() {
+                    public void run() {
+                        failed.addAndGet(runBatch(batch));
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+        return failed.get();
+    }
+
+    private int runBatch(List<T> batch) {
+        Context context = null;
+        try {
+            context = createContext();
+            int failed = process(context, batch);
+            context.complete();
+            context = null;
+            return failed;
+        } catch (Exception e) {
+            log.error("Failed processing a batch of " + batch.size() + " " + name, e);
+            return batch.size();
+        } finally {
+            if (context != null) {
+                context.abort();
+            }
+        }
+    }
+}
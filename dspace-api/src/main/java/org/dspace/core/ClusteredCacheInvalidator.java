@@ -0,0 +1,358 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.apache.log4j.Logger;
+import org.dspace.services.EventService;
+import org.dspace.services.model.Event;
+import org.dspace.services.model.EventListener;
+import org.dspace.utils.DSpace;
+import org.hibernate.Cache;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Keeps the Hibernate second-level caches of the nodes of a cluster
+ * consistent.
+ * <p>
+ * Every node caches entities and collections with a local
+ * <code>read-write</code> strategy, which is only correct for changes
+ * made on that node.  This integrator records the cached entities and
+ * collections each transaction changes and, once the transaction has
+ * committed, sends their keys to the other nodes as a single
+ * {@link #EVENT_INVALIDATE} cluster event.  The other nodes evict those
+ * keys (and their query caches) so the next read goes to the database.
+ * <p>
+ * The events travel through the cluster event provider of the kernel's
+ * event service, without one this only does local bookkeeping.
+ * <p>
+ * Bulk HQL updates and deletes bypass the listeners, the DAOs run them
+ * through {@link AbstractHibernateDAO#executeUpdate} which has the other
+ * nodes evict every cached region the statement may have changed.
+ */
+public class ClusteredCacheInvalidator implements Integrator, PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private static final Logger log = Logger.getLogger(ClusteredCacheInvalidator.class);
+
+    /**
+     * The name of the cluster events carrying the keys to evict.
+     * The properties of the event map each key to its kind.
+     */
+    public static final String EVENT_INVALIDATE = "hibernate.cache.invalidate";
+
+    private static final String KIND_ENTITY = "entity";
+    private static final String KIND_COLLECTION = "collection";
+    private static final String KIND_QUERY = "query";
+    private static final String QUERY_KEY = "*";
+    /** The id of the keys which evict a whole entity or collection region */
+    private static final String ALL_IDS = "*";
+
+    /**
+     * The keys changed by the running transaction of each session.
+     */
+    private final Map<SessionImplementor, Map<String, String>> pending =
+            Collections.synchronizedMap(new WeakHashMap<SessionImplementor, Map<String, String>>());
+
+    private volatile SessionFactoryImplementor sessionFactory;
+    private volatile EventService eventService;
+
+    /**
+     * Connects to the kernel's event service to send and receive
+     * invalidations.  Must be called once the session factory is built.
+     */
+    public void start() {
+        try {
+            EventService service = new DSpace().getEventService();
+            if (service != null) {
+                connect(service);
+            }
+        } catch (IllegalStateException e) {
+            log.warn("The DSpace kernel is not running, second-level cache invalidations are not shared with other nodes");
+        }
+    }
+
+    /**
+     * Sends and receives the invalidations through the given event service.
+     *
+     * @return the event service used before, or null
+     */
+    EventService connect(EventService service) {
+        EventService previous = eventService;
+        service.registerEventListener(new InvalidationListener());
+        eventService = service;
+        return previous;
+    }
+
+    /**
+     * Records a bulk HQL update or delete, which fires none of the
+     * listeners.  Hibernate evicts the regions of the tables it changes
+     * from the local caches, the other nodes evict the same regions once
+     * the transaction has committed.
+     *
+     * @param session the session which ran the statement
+     * @param hql the statement
+     */
+    public void recordBulkUpdate(Session session, String hql) {
+        if (eventService == null) {
+            return;
+        }
+        EventSource source = (EventSource) session;
+        SessionFactoryImplementor factory = source.getFactory();
+        @SuppressWarnings("unchecked")
+        Set<Serializable> spaces = factory.getQueryPlanCache()
+                .getHQLQueryPlan(hql, false, Collections.<String, Filter>emptyMap()).getQuerySpaces();
+        for (String entityName : factory.getAllClassMetadata().keySet()) {
+            EntityPersister persister = factory.getEntityPersister(entityName);
+            if (persister.hasCache() && affects(spaces, persister.getQuerySpaces())) {
+                record(source, persister.getEntityName() + "#" + ALL_IDS, KIND_ENTITY);
+            }
+        }
+        for (Object role : factory.getAllCollectionMetadata().keySet()) {
+            CollectionPersister persister = factory.getCollectionPersister((String) role);
+            if (persister.hasCache() && affects(spaces, persister.getCollectionSpaces())) {
+                record(source, persister.getRole() + "#" + ALL_IDS, KIND_COLLECTION);
+            }
+        }
+        recordQuery(source);
+    }
+
+    private boolean affects(Set<? extends Serializable> changed, Serializable[] spaces) {
+        for (Serializable space : spaces) {
+            if (changed.contains(space)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void integrate(Configuration configuration, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        integrate(sessionFactory, serviceRegistry);
+    }
+
+    @Override
+    public void integrate(MetadataImplementor metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        integrate(sessionFactory, serviceRegistry);
+    }
+
+    private void integrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.sessionFactory = sessionFactory;
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.sessionFactory = null;
+        pending.clear();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // nothing cached can hold a new entity, only the query results may change
+        recordQuery(event.getSession());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        recordEntity(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        recordEntity(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        // the changes are collected during the transaction and sent after it completes
+        return false;
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        recordCollection(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        recordCollection(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        recordCollection(event);
+    }
+
+    private void recordEntity(EventSource session, EntityPersister persister, Serializable id) {
+        if (persister.hasCache() && id != null) {
+            record(session, persister.getEntityName() + "#" + id, KIND_ENTITY);
+        }
+        recordQuery(session);
+    }
+
+    private void recordCollection(AbstractCollectionEvent event) {
+        PersistentCollection collection = event.getCollection();
+        Serializable ownerId = event.getAffectedOwnerIdOrNull();
+        if (collection == null || collection.getRole() == null || ownerId == null) {
+            return;
+        }
+        CollectionPersister persister = event.getSession().getFactory().getCollectionPersister(collection.getRole());
+        if (persister.hasCache()) {
+            record(event.getSession(), collection.getRole() + "#" + ownerId, KIND_COLLECTION);
+        }
+    }
+
+    private void recordQuery(EventSource session) {
+        if (session.getFactory().getSettings().isQueryCacheEnabled()) {
+            record(session, QUERY_KEY, KIND_QUERY);
+        }
+    }
+
+    private void record(EventSource session, String key, String kind) {
+        if (eventService == null) {
+            return;
+        }
+        Map<String, String> keys = pending.get(session);
+        if (keys == null) {
+            keys = new LinkedHashMap<String, String>();
+            pending.put(session, keys);
+            session.getActionQueue().registerProcess(new SendInvalidations());
+        }
+        keys.put(key, kind);
+    }
+
+    /**
+     * Sends the keys changed by the completed transaction, if it committed.
+     */
+    private final class SendInvalidations implements AfterTransactionCompletionProcess {
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SessionImplementor session) {
+            Map<String, String> keys = pending.remove(session);
+            EventService service = eventService;
+            if (!success || keys == null || keys.isEmpty() || service == null) {
+                return;
+            }
+            try {
+                service.fireEvent(new Event(EVENT_INVALIDATE, null, null, keys,
+                        new Event.Scope[] {Event.Scope.CLUSTER}, true));
+            } catch (RuntimeException e) {
+                log.warn("Unable to send second-level cache invalidations to the cluster: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Evicts the keys other nodes changed.
+     */
+    private final class InvalidationListener implements EventListener {
+
+        @Override
+        public String[] getEventNamePrefixes() {
+            return new String[] { EVENT_INVALIDATE };
+        }
+
+        @Override
+        public String getResourcePrefix() {
+            return null;
+        }
+
+        @Override
+        public void receiveEvent(Event event) {
+            SessionFactoryImplementor factory = sessionFactory;
+            if (factory == null || !EVENT_INVALIDATE.equals(event.getName()) || event.getProperties() == null) {
+                return;
+            }
+            Cache cache = factory.getCache();
+            for (Map.Entry<String, String> key : event.getProperties().entrySet()) {
+                try {
+                    evict(factory, cache, key.getKey(), key.getValue());
+                } catch (RuntimeException e) {
+                    log.warn("Unable to evict (" + key.getKey() + ") from the second-level cache: " + e.getMessage());
+                }
+            }
+        }
+
+        private void evict(SessionFactoryImplementor factory, Cache cache, String key, String kind) {
+            if (KIND_QUERY.equals(kind)) {
+                cache.evictQueryRegions();
+                return;
+            }
+            int hash = key.lastIndexOf('#');
+            if (hash <= 0) {
+                return;
+            }
+            String name = key.substring(0, hash);
+            String id = key.substring(hash + 1);
+            if (KIND_ENTITY.equals(kind)) {
+                EntityPersister persister = factory.getEntityPersister(name);
+                Serializable identifier = ALL_IDS.equals(id) ? null
+                        : parseId(persister.getIdentifierType().getReturnedClass(), id);
+                if (identifier == null) {
+                    cache.evictEntityRegion(name);
+                } else {
+                    cache.evictEntity(name, identifier);
+                }
+            } else if (KIND_COLLECTION.equals(kind)) {
+                CollectionPersister persister = factory.getCollectionPersister(name);
+                Serializable ownerId = ALL_IDS.equals(id) ? null
+                        : parseId(persister.getKeyType().getReturnedClass(), id);
+                if (ownerId == null) {
+                    cache.evictCollectionRegion(name);
+                } else {
+                    cache.evictCollection(name, ownerId);
+                }
+            }
+        }
+
+        /**
+         * @return the id, or null if ids of this type cannot be read back
+         */
+        private Serializable parseId(Class<?> type, String id) {
+            try {
+                if (UUID.class.equals(type)) {
+                    return UUID.fromString(id);
+                } else if (Integer.class.equals(type) || int.class.equals(type)) {
+                    return Integer.valueOf(id);
+                } else if (Long.class.equals(type) || long.class.equals(type)) {
+                    return Long.valueOf(id);
+                } else if (String.class.equals(type)) {
+                    return id;
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Unable to read the id (" + id + ") of type " + type.getName());
+            }
+            return null;
+        }
+    }
+}
@@ -14,10 +14,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Category;
 import org.apache.log4j.Logger;
@@ -37,6 +41,9 @@ import org.dspace.core.factory.CoreServiceFactory;
  * Other configuration files are read from the <code>config</code> directory
  * of the DSpace installation directory (specified as the property
  * <code>dspace.dir</code> in the main configuration file.)
+ * <P>
+ * Once loaded, the (trimmed) values are kept in immutable maps so that
+ * property lookups never need to lock.
  *
  *
  * @author Robert Tansley
@@ -50,10 +57,19 @@ public class ConfigurationManager
     private static Logger log = Logger.getLogger(ConfigurationManager.class);
 
     /** The configuration properties */
-    private static Properties properties = null;
+    private static volatile Properties properties = null;
+
+    /** The trimmed configuration values, never modified once published */
+    private static volatile Map<String, String> values = null;
 
     /** module configuration properties */
-    private static Map<String, Properties> moduleProps = new HashMap<String, Properties>();
+    private static final ConcurrentMap<String, Properties> moduleProps = new ConcurrentHashMap<String, Properties>();
+
+    /** The trimmed module configuration values, never modified once published */
+    private static final ConcurrentMap<String, Map<String, String>> moduleValues = new ConcurrentHashMap<String, Map<String, String>>();
+
+    /** Modules for which no configuration file could be found */
+    private static final Set<String> missingModules = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     // limit of recursive depth of property variable interpolation in
     // configuration; anything greater than this is very likely to be a loop.
@@ -144,7 +160,7 @@ public class ConfigurationManager
             return properties;
 
         Properties retProps = moduleProps.get(module);
-        if (retProps == null)
+        if (retProps == null && !missingModules.contains(module))
         {
             loadModuleConfig(module);
             retProps = moduleProps.get(module);
@@ -153,6 +169,28 @@ public class ConfigurationManager
         return retProps;
     }
 
+    private static Map<String, String> getValues()
+    {
+        if (values == null)
+        {
+            loadConfig(null);
+        }
+
+        return values;
+    }
+
+    private static Map<String, String> getValues(String module)
+    {
+        Map<String, String> retValues = moduleValues.get(module);
+        if (retValues == null && !missingModules.contains(module))
+        {
+            loadModuleConfig(module);
+            retValues = moduleValues.get(module);
+        }
+
+        return retValues;
+    }
+
     /**
      * Get a configuration property
      *
@@ -164,9 +202,8 @@ public class ConfigurationManager
      */
     public static String getProperty(String property)
     {
-        Properties props = getMutableProperties();
-        String value = props == null ? null : props.getProperty(property);
-        return (value != null) ? value.trim() : null;
+        Map<String, String> current = getValues();
+        return current == null ? null : current.get(property);
     }
 
     /**
@@ -189,11 +226,11 @@ public class ConfigurationManager
         }
 
         String value = null;
-        Properties modProps = getMutableProperties(module);
+        Map<String, String> modValues = getValues(module);
 
-        if (modProps != null)
+        if (modValues != null)
         {
-            value = modProps.getProperty(property);
+            value = modValues.get(property);
         }
 
         if (value == null)
@@ -202,7 +239,7 @@ public class ConfigurationManager
             value = getProperty(module + "." + property);
         }
 
-        return (value != null) ? value.trim() : null;
+        return value;
     }
 
     /**
@@ -523,6 +560,12 @@ public class ConfigurationManager
 
     private static synchronized void loadModuleConfig(String module)
     {
+        // another thread may have loaded it while we were waiting
+        if (moduleProps.containsKey(module) || missingModules.contains(module))
+        {
+            return;
+        }
+
         // try to find it in modules
         File modFile = null;
         try
@@ -559,17 +602,19 @@ public class ConfigurationManager
                 for (Enumeration pe = modProps.propertyNames(); pe.hasMoreElements(); )
                 {
                     String key = (String)pe.nextElement();
-                    String ival = interpolate(key, modProps.getProperty(key), 1);
+                    String ival = interpolate(getMutableProperties(), key, modProps.getProperty(key), 1);
                     if (ival != null)
                     {
                         modProps.setProperty(key, ival);
                     }
                 }
+                moduleValues.put(module, toValues(modProps));
                 moduleProps.put(module, modProps);
             }
             else
             {
-                // log invalid request
+                // log invalid request, once
+                missingModules.add(module);
                 warn("Requested configuration module: " + module + " not found");
             }
         }
@@ -657,21 +702,25 @@ public class ConfigurationManager
             }
             else
             {
-                properties = new Properties();
+                Properties loaded = new Properties();
                 is = url.openStream();
                 reader = new InputStreamReader(is, "UTF-8");
-                properties.load(reader);
+                loaded.load(reader);
 
                 // walk values, interpolating any embedded references.
-                for (Enumeration<?> pe = properties.propertyNames(); pe.hasMoreElements(); )
+                for (Enumeration<?> pe = loaded.propertyNames(); pe.hasMoreElements(); )
                 {
                     String key = (String)pe.nextElement();
-                    String value = interpolate(key, properties.getProperty(key), 1);
+                    String value = interpolate(loaded, key, loaded.getProperty(key), 1);
                     if (value != null)
                     {
-                        properties.setProperty(key, value);
+                        loaded.setProperty(key, value);
                     }
                 }
+
+                // only publish the fully interpolated configuration
+                values = toValues(loaded);
+                properties = loaded;
             }
 
         }
@@ -825,13 +874,27 @@ public class ConfigurationManager
         CoreServiceFactory.getInstance().getLicenseService().writeLicenseFile(licenseFile, newLicense);
     }
 
+    /**
+     * @return an immutable map of the trimmed property values
+     */
+    private static Map<String, String> toValues(Properties props)
+    {
+        Map<String, String> map = new HashMap<String, String>();
+        for (String key : props.stringPropertyNames())
+        {
+            map.put(key, props.getProperty(key).trim());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     /**
      * Recursively interpolate variable references in value of
      * property named "key".
+     * @param properties the properties to resolve the references against
      * @return new value if it contains interpolations, or null
      *   if it had no variable references.
      */
-    private static String interpolate(String key, String value, int level)
+    private static String interpolate(Properties properties, String key, String value, int level)
     {
         if (level > RECURSION_LIMIT)
         {
@@ -861,7 +924,7 @@ public class ConfigurationManager
                 }
                 if (properties.containsKey(var))
                 {
-                    String ivalue = interpolate(var, properties.getProperty(var), level+1);
+                    String ivalue = interpolate(properties, var, properties.getProperty(var), level+1);
                     if (ivalue != null)
                     {
                         result.append(ivalue);
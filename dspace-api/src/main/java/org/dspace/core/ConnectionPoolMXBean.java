@@ -0,0 +1,49 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+/**
+ * MBean type for watching the database connection pool.
+ */
+public interface ConnectionPoolMXBean {
+    /** The connections handed out and not yet returned. */
+    public int getActiveConnections();
+
+    /** The open connections waiting in the pool, -1 if unknown (e.g. an injected DataSource). */
+    public int getIdleConnections();
+
+    /** The most connections the pool opens, -1 if unknown. */
+    public int getMaxConnections();
+
+    /** How many times a connection was requested. */
+    public long getConnectionRequests();
+
+    /** How many requests failed, e.g. because no connection became free in time. */
+    public long getConnectionFailures();
+
+    /** The average time spent waiting for a connection. */
+    public double getAverageWaitMillis();
+
+    /** The longest time spent waiting for a connection. */
+    public double getMaxWaitMillis();
+
+    /** The connections held longer than the leak detection threshold right now. */
+    public int getLeakedConnections();
+
+    /** Whether the pool keeps prepared statements open between uses. */
+    public boolean isStatementCaching();
+
+    /** Where the connections come from, e.g. a pool built from dspace.cfg or a kernel DataSource. */
+    public String getSource();
+
+    /** Where the connections of read-only contexts come from, the same as {@link #getSource()} without a replica. */
+    public String getReadOnlySource();
+
+    /** Forgets the request, failure and wait time counts. */
+    public void resetStatistics();
+}
@@ -43,9 +43,22 @@ import org.springframework.util.CollectionUtils;
 public class Context
 {
     private static final Logger log = Logger.getLogger(Context.class);
-    protected GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
 
-    /** option flags */
+    /**
+     * The services a context needs, resolved once when first used rather
+     * than for every context
+     */
+    private static final class Services
+    {
+        static final GroupService GROUP_SERVICE = EPersonServiceFactory.getInstance().getGroupService();
+        static final EventService EVENT_SERVICE = EventServiceFactory.getInstance().getEventService();
+    }
+
+    /**
+     * option flags: a read-only context reads through a session which
+     * never flushes or checks for changes, from the read replica of the
+     * database if one is configured
+     */
     public static final short READ_ONLY = 0x01;
 
     /** Current user - null means anonymous access */
@@ -60,21 +73,19 @@ public class Context
     /** Indicates whether authorisation subsystem should be ignored */
     private boolean ignoreAuth;
 
-    /** A stack with the history of authorisation system check modify */
-    private Stack<Boolean> authStateChangeHistory;
-
-    private EventService eventService;
+    /**
+     * A stack with the history of authorisation system check modify,
+     * allocated when the authorisation system is first turned off
+     */
+    private Deque<Boolean> authStateChangeHistory;
 
     /**
      * A stack with the name of the caller class that modify authorisation
-     * system check
+     * system check, only kept if trace logging is on
      */
-    private Stack<String> authStateClassCallHistory;
-
-    /** Object cache for this context */
-    private Map<String, Object> objectCache;
+    private Deque<String> authStateClassCallHistory;
 
-    /** Group IDs of special groups user is a member of */
+    /** Group IDs of special groups user is a member of, allocated when the first one is set */
     private List<UUID> specialGroups;
 
     /** Content events */
@@ -86,8 +97,13 @@ public class Context
     /** options */
     private short options = 0;
 
+    /** The database connection, obtained when the context first needs it */
     private DBConnection dbConnection;
 
+    /** The number of DAO queries and commits, and the time they took, see {@link QueryStatistics} */
+    private long queryCount;
+    private long queryTimeNanos;
+
     /**
      * Construct a new context object with default options. A database connection is opened.
      * No user is authenticated.
@@ -115,25 +131,16 @@ public class Context
     }
 
     /**
-     * Initializes a new context object. 
-     *
-     * @exception SQLException
-     *                if there was an error obtaining a database connection
+     * Initializes a new context object. Nothing is allocated or looked up
+     * which the context may not need: the database connection is obtained
+     * by the first query, the collections are created when first filled.
      */
-    private void init() throws SQLException
+    private void init()
     {
-        dbConnection = new DSpace().getSingletonService(DBConnection.class);
         currentUser = null;
         currentLocale = I18nUtil.DEFAULTLOCALE;
         extraLogInfo = "";
         ignoreAuth = false;
-
-        objectCache = new HashMap<String, Object>();
-        specialGroups = new ArrayList<UUID>();
-
-        authStateChangeHistory = new Stack<Boolean>();
-        authStateClassCallHistory = new Stack<String>();
-        eventService = EventServiceFactory.getInstance().getEventService();
     }
 
     /**
@@ -142,6 +149,13 @@ public class Context
      * @return the database connection
      */
     DBConnection getDBConnection() throws SQLException {
+        if (dbConnection == null)
+        {
+            // a prototype bean: every context gets its own session and transaction
+            DBConnection connection = new DSpace().getServiceManager().getServiceByName(DBConnection.class.getName(), DBConnection.class);
+            connection.setReadOnly(isReadOnly());
+            dbConnection = connection;
+        }
         return dbConnection;
     }
 
@@ -207,14 +221,19 @@ public class Context
      */
     public void turnOffAuthorisationSystem()
     {
+        if (authStateChangeHistory == null)
+        {
+            authStateChangeHistory = new ArrayDeque<Boolean>();
+        }
         authStateChangeHistory.push(ignoreAuth);
-        if (log.isDebugEnabled())
+        // taking the stack trace is expensive, only do it when asked for
+        if (log.isTraceEnabled())
         {
-            Thread currThread = Thread.currentThread();
-            StackTraceElement[] stackTrace = currThread.getStackTrace();
-            String caller = stackTrace[stackTrace.length - 1].getClassName();
-
-            authStateClassCallHistory.push(caller);
+            if (authStateClassCallHistory == null)
+            {
+                authStateClassCallHistory = new ArrayDeque<String>();
+            }
+            authStateClassCallHistory.push(getCaller());
         }
         ignoreAuth = true;
     }
@@ -226,30 +245,28 @@ public class Context
      *     mycontext.turnOffAuthorisationSystem();
      *     some java code that require no authorisation check
      *     mycontext.restoreAuthSystemState(); 
-     * </code> If Context debug is enabled, the correct sequence calling will be
+     * </code> If Context trace logging is enabled, the correct sequence calling will be
      * checked and a warning will be displayed if not.
      */
     public void restoreAuthSystemState()
     {
         Boolean previousState;
-        try
-        {
-            previousState = authStateChangeHistory.pop();
-        }
-        catch (EmptyStackException ex)
+        if (authStateChangeHistory == null || authStateChangeHistory.isEmpty())
         {
             log.warn(LogManager.getHeader(this, "restore_auth_sys_state",
-                    "not previous state info available "
-                            + ex.getLocalizedMessage()));
+                    "not previous state info available"));
             previousState = Boolean.FALSE;
         }
-        if (log.isDebugEnabled())
+        else
         {
-            Thread currThread = Thread.currentThread();
-            StackTraceElement[] stackTrace = currThread.getStackTrace();
-            String caller = stackTrace[stackTrace.length - 1].getClassName();
-
-            String previousCaller = (String) authStateClassCallHistory.pop();
+            previousState = authStateChangeHistory.pop();
+        }
+        // the caller is not known if trace logging was turned on in between
+        if (log.isTraceEnabled() && authStateClassCallHistory != null
+                && !authStateClassCallHistory.isEmpty())
+        {
+            String caller = getCaller();
+            String previousCaller = authStateClassCallHistory.pop();
 
             // if previousCaller is not the current caller *only* log a warning
             if (!previousCaller.equals(caller))
@@ -268,6 +285,16 @@ public class Context
         ignoreAuth = previousState.booleanValue();
     }
 
+    /**
+     * The class calling into the context: the stack holds getStackTrace,
+     * this method and the method of the context which was called.
+     */
+    private String getCaller()
+    {
+        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        return stackTrace.length > 3 ? stackTrace[3].getClassName() : "unknown";
+    }
+
     /**
      * Specify whether the authorisation system should be ignored for this
      * context. This should be used sparingly.
@@ -309,6 +336,38 @@ public class Context
         return extraLogInfo;
     }
 
+    /**
+     * Adds a DAO query or commit to the totals of this context.
+     *
+     * @param nanos the time the call took
+     */
+    void addQuery(long nanos)
+    {
+        queryCount++;
+        queryTimeNanos += nanos;
+    }
+
+    /**
+     * Get the number of DAO queries and commits made for this context.
+     * Only counted if <code>db.statistics</code> is on.
+     *
+     * @return the number of calls
+     */
+    public long getQueryCount()
+    {
+        return queryCount;
+    }
+
+    /**
+     * Get the time the DAO queries and commits of this context took.
+     *
+     * @return the time in milliseconds
+     */
+    public long getQueryTime()
+    {
+        return queryTimeNanos / 1000000;
+    }
+
     /**
      * Close the context object after all of the operations performed in the
      * context have completed successfully. Any transaction with the database is
@@ -333,7 +392,11 @@ public class Context
         finally
         {
             // Free the connection
-            dbConnection.closeDBConnection();
+            if (dbConnection != null)
+            {
+                dbConnection.closeDBConnection();
+            }
+            logQueryTotals();
         }
     }
 
@@ -357,6 +420,7 @@ public class Context
         }
         // Commit any changes made as part of the transaction
         Dispatcher dispatcher = null;
+        long start = System.nanoTime();
 
         try
         {
@@ -368,12 +432,15 @@ public class Context
                     dispName = EventService.DEFAULT_DISPATCHER;
                 }
 
-                dispatcher = eventService.getDispatcher(dispName);
-                dbConnection.commit();
+                dispatcher = Services.EVENT_SERVICE.getDispatcher(dispName);
+                if (dbConnection != null)
+                {
+                    dbConnection.commit();
+                }
                 //TODO: HIBERNATE, ALLOW DISPATCHING !
                 //dispatcher.dispatch(this);
             }
-            else
+            else if (dbConnection != null)
             {
                 dbConnection.commit();
             }
@@ -381,10 +448,11 @@ public class Context
         }
         finally
         {
+            QueryStatistics.getInstance().record(this, "Context.commit", null, 0, start);
             events = null;
             if (dispatcher != null)
             {
-                eventService.returnDispatcher(dispName, dispatcher);
+                Services.EVENT_SERVICE.returnDispatcher(dispName, dispatcher);
             }
         }
     }
@@ -398,7 +466,10 @@ public class Context
         {
             throw new IllegalStateException("Attempt to commit transaction in read-only context");
         }
-        dbConnection.commit();
+        if (dbConnection != null)
+        {
+            dbConnection.commit();
+        }
     }
 
     /**
@@ -477,14 +548,19 @@ public class Context
      */
     public void abort()
     {
+        if (dbConnection == null)
+        {
+            // nothing was read or written
+            events = null;
+            logQueryTotals();
+            return;
+        }
         try
         {
-            if (!dbConnection.isTransActionAlive())
+            // a read-only connection has nothing to roll back
+            if (!isReadOnly() && dbConnection.isTransActionAlive())
             {
-                if (! isReadOnly())
-                {
-                    dbConnection.rollback();
-                }
+                dbConnection.rollback();
             }
         }
         catch (SQLException se)
@@ -495,7 +571,7 @@ public class Context
         {
             try
             {
-                if (!dbConnection.isSessionAlive())
+                if (dbConnection.isSessionAlive())
                 {
                     dbConnection.closeDBConnection();
                 }
@@ -505,6 +581,47 @@ public class Context
                 log.error("Exception aborting context", ex);
             }
             events = null;
+            logQueryTotals();
+        }
+    }
+
+    /**
+     * End the current unit of work and prepare the context for the next
+     * one, so a worker loop can use one context for many objects instead
+     * of constructing a context for each.  Like {@link #abort()}, anything
+     * not committed is rolled back and the database session is closed,
+     * which frees the objects it held; the next query opens a new session.
+     * The current user, locale, special groups, extra log info and
+     * authorisation state are those of a new context again, the options
+     * and the event dispatcher are kept.
+     * <P>
+     * <code>
+     *     Context context = new Context();
+     *     for (UUID id : ids)
+     *     {
+     *         ... work on the object, context.commit() ...
+     *         context.reset();
+     *     }
+     *     context.complete();
+     * </code>
+     */
+    public void reset()
+    {
+        abort();
+        init();
+        specialGroups = null;
+        authStateChangeHistory = null;
+        authStateClassCallHistory = null;
+        queryCount = 0;
+        queryTimeNanos = 0;
+    }
+
+    private void logQueryTotals()
+    {
+        if (log.isDebugEnabled() && queryCount > 0)
+        {
+            log.debug(LogManager.getHeader(this, "query_totals",
+                    "queries=" + queryCount + ",time_ms=" + getQueryTime()));
         }
     }
 
@@ -519,6 +636,14 @@ public class Context
     public boolean isValid()
     {
         // Only return true if our DB connection is live
+        if (dbConnection == null)
+        {
+            return false;
+        }
+        if (isReadOnly())
+        {
+            return dbConnection.isSessionAlive();
+        }
         return dbConnection.isTransActionAlive();
     }
 
@@ -541,6 +666,10 @@ public class Context
      */
     public void setSpecialGroup(UUID groupID)
     {
+        if (specialGroups == null)
+        {
+            specialGroups = new ArrayList<UUID>();
+        }
         specialGroups.add(groupID);
 
         // System.out.println("Added " + groupID);
@@ -555,7 +684,7 @@ public class Context
      */
     public boolean inSpecialGroup(UUID groupID)
     {
-        if (specialGroups.contains(groupID))
+        if (specialGroups != null && specialGroups.contains(groupID))
         {
             // System.out.println("Contains " + groupID);
             return true;
@@ -572,9 +701,13 @@ public class Context
     public List<Group> getSpecialGroups() throws SQLException
     {
         List<Group> myGroups = new ArrayList<Group>();
+        if (specialGroups == null)
+        {
+            return myGroups;
+        }
         for (UUID groupId : specialGroups)
         {
-            myGroups.add(groupService.find(this, groupId));
+            myGroups.add(Services.GROUP_SERVICE.find(this, groupId));
         }
 
         return myGroups;
@@ -586,7 +719,7 @@ public class Context
          * If a context is garbage-collected, we roll back and free up the
          * database connection if there is one.
          */
-        if (dbConnection.isTransActionAlive())
+        if (isValid())
         {
             abort();
         }
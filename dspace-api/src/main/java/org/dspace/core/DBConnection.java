@@ -3,14 +3,30 @@ package org.dspace.core;
 import java.sql.SQLException;
 
 /**
+ * The database session of one {@link Context}.  Each context has its own
+ * instance, see {@link HibernateDBConnection}.
+ *
  * User: kevin (kevin at atmire.com)
  * Date: 3/06/14
  * Time: 08:38
  */
 public interface DBConnection<T> {
 
+    /**
+     * @return the session, opening it (and for writable connections
+     * beginning a transaction) if needed
+     */
     public T getSession() throws SQLException;
 
+    /**
+     * A read-only connection gets a session which never writes and may
+     * read from a replica of the database.  Can only be changed while
+     * no session is open.
+     */
+    public void setReadOnly(boolean readOnly) throws SQLException;
+
+    public boolean isReadOnly();
+
     public boolean isTransActionAlive();
 
     public boolean isSessionAlive();
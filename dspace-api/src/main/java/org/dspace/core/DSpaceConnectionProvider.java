@@ -0,0 +1,446 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.dspace.kernel.ServiceManager;
+import org.dspace.utils.DSpace;
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands Hibernate its JDBC connections from a real connection pool instead
+ * of Hibernate's built-in pool, which is not meant for production.
+ * <p>
+ * The connections come from the first of:
+ * <ol>
+ *  <li>a <code>javax.sql.DataSource</code> service registered with the DSpace kernel
+ *      (e.g. a pool defined in the Spring configuration),</li>
+ *  <li>the DataSource found in JNDI under <code>db.jndi</code>,</li>
+ *  <li>a DBCP pool built from the <code>db.*</code> settings in dspace.cfg, falling
+ *      back to the <code>hibernate.connection.*</code> settings.</li>
+ * </ol>
+ * The pool built from the settings caches prepared statements
+ * (<code>db.statementpool</code>) and validates connections before handing
+ * them out.  Connections held longer than <code>db.leakdetection.threshold</code>
+ * seconds (default 300, 0 turns it off) are reported as leaks, with the stack
+ * of the code which took them if <code>db.leakdetection.trace</code> is true.
+ * The pool is published in JMX as <code>org.dspace:type=ConnectionPool</code>.
+ * <p>
+ * Read-only contexts take their connections from a read replica if one is
+ * configured, found in JNDI under <code>db.replica.jndi</code> or built
+ * from the <code>db.replica.*</code> settings (which default to the
+ * <code>db.*</code> ones).
+ * <p>
+ * Enabled through <code>hibernate.connection.provider_class</code>.
+ */
+public class DSpaceConnectionProvider implements ConnectionProvider, Configurable, Stoppable, ConnectionPoolMXBean {
+
+    private static final Logger log = Logger.getLogger(DSpaceConnectionProvider.class);
+
+    /** The name the pool is published under in JMX. */
+    public static final String MBEAN_NAME = "org.dspace:type=ConnectionPool";
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 30;
+    private static final int DEFAULT_MAX_WAIT = 5000;
+    private static final int DEFAULT_MAX_STATEMENTS = 100;
+    private static final int DEFAULT_LEAK_THRESHOLD = 300;
+
+    private DataSource dataSource;
+    /** Only set if this provider built the pool itself. */
+    private BasicDataSource pool;
+    private String source;
+    private boolean statementCaching;
+
+    /** The read replica, the same as dataSource if there is none. */
+    private DataSource readOnlyDataSource;
+    /** Only set if this provider built the replica pool itself. */
+    private BasicDataSource readOnlyPool;
+    private String readOnlySource;
+
+    private long leakThresholdMillis;
+    private boolean leakTrace;
+    /** The connections handed out, with the time (and optionally the stack) they were taken. */
+    private final Map<Connection, Checkout> checkedOut =
+            Collections.synchronizedMap(new IdentityHashMap<Connection, Checkout>());
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @Override
+    public void configure(Map configurationValues) {
+        leakThresholdMillis = ConfigurationManager.getIntProperty("db.leakdetection.threshold", DEFAULT_LEAK_THRESHOLD) * 1000L;
+        leakTrace = ConfigurationManager.getBooleanProperty("db.leakdetection.trace", false);
+
+        dataSource = findKernelDataSource();
+        if (dataSource != null) {
+            source = "DSpace kernel DataSource";
+        } else {
+            String jndiName = ConfigurationManager.getProperty("db.jndi");
+            if (StringUtils.isNotBlank(jndiName)) {
+                dataSource = findJndiDataSource(jndiName.trim());
+                source = "JNDI DataSource " + jndiName.trim();
+            }
+        }
+        if (dataSource == null) {
+            pool = buildPool("db.", configurationValues);
+            dataSource = pool;
+            source = "DBCP pool " + pool.getUrl();
+        }
+        configureReadReplica(configurationValues);
+        registerMBean();
+        log.info("Database connections from " + source);
+    }
+
+    private void configureReadReplica(Map configurationValues) {
+        String jndiName = ConfigurationManager.getProperty("db.replica.jndi");
+        if (StringUtils.isNotBlank(jndiName)) {
+            readOnlyDataSource = findJndiDataSource(jndiName.trim());
+            readOnlySource = "JNDI DataSource " + jndiName.trim();
+        }
+        if (readOnlyDataSource == null && StringUtils.isNotBlank(ConfigurationManager.getProperty("db.replica.url"))) {
+            readOnlyPool = buildPool("db.replica.", configurationValues);
+            readOnlyDataSource = readOnlyPool;
+            readOnlySource = "DBCP pool " + readOnlyPool.getUrl();
+        }
+        if (readOnlyDataSource == null) {
+            readOnlyDataSource = dataSource;
+            readOnlySource = source;
+        } else {
+            log.info("Read-only database connections from " + readOnlySource);
+        }
+    }
+
+    /**
+     * @return the DataSource registered with the kernel, or null if there is none (or no kernel)
+     */
+    private DataSource findKernelDataSource() {
+        try {
+            ServiceManager serviceManager = new DSpace().getServiceManager();
+            DataSource kernelDataSource = serviceManager.getServiceByName(DataSource.class.getName(), DataSource.class);
+            if (kernelDataSource == null) {
+                List<DataSource> dataSources = serviceManager.getServicesByType(DataSource.class);
+                if (dataSources.size() == 1) {
+                    kernelDataSource = dataSources.get(0);
+                } else if (dataSources.size() > 1) {
+                    log.warn("Found " + dataSources.size() + " DataSources in the DSpace kernel, register the one to use as "
+                            + DataSource.class.getName());
+                }
+            }
+            return kernelDataSource;
+        } catch (IllegalStateException e) {
+            // no kernel running, e.g. some command line tools
+            return null;
+        }
+    }
+
+    private DataSource findJndiDataSource(String jndiName) {
+        try {
+            InitialContext ctx = new InitialContext();
+            try {
+                return (DataSource) ctx.lookup(jndiName);
+            } catch (NamingException e) {
+                // containers like Tomcat bind their resources under java:comp/env
+                return (DataSource) ctx.lookup("java:comp/env/" + jndiName);
+            }
+        } catch (NamingException e) {
+            log.warn("Unable to find the DataSource " + jndiName + " in JNDI, using the db.* settings: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param prefix the prefix of the settings to use, <code>db.</code> or <code>db.replica.</code>
+     */
+    private BasicDataSource buildPool(String prefix, Map configurationValues) {
+        BasicDataSource basicDataSource = new BasicDataSource();
+        basicDataSource.setDriverClassName(getSetting(prefix, "driver", AvailableSettings.DRIVER, configurationValues));
+        basicDataSource.setUrl(getSetting(prefix, "url", AvailableSettings.URL, configurationValues));
+        basicDataSource.setUsername(getSetting(prefix, "username", AvailableSettings.USER, configurationValues));
+        basicDataSource.setPassword(getSetting(prefix, "password", AvailableSettings.PASS, configurationValues));
+        basicDataSource.setDefaultAutoCommit(false);
+
+        int maxConnections = getIntSetting(prefix, "maxconnections", DEFAULT_MAX_CONNECTIONS);
+        basicDataSource.setMaxActive(maxConnections);
+        basicDataSource.setMaxIdle(getIntSetting(prefix, "maxidle", -1));
+        basicDataSource.setMinIdle(Math.min(getIntSetting(prefix, "minidle", 2), Math.max(maxConnections, 0)));
+        basicDataSource.setMaxWait(getIntSetting(prefix, "maxwait", DEFAULT_MAX_WAIT));
+
+        boolean poolStatements = ConfigurationManager.getBooleanProperty("db.statementpool", true);
+        basicDataSource.setPoolPreparedStatements(poolStatements);
+        if (poolStatements) {
+            basicDataSource.setMaxOpenPreparedStatements(
+                    ConfigurationManager.getIntProperty("db.statementpool.max", DEFAULT_MAX_STATEMENTS));
+        }
+        if ("db.".equals(prefix)) {
+            statementCaching = poolStatements;
+        }
+
+        // make sure connections dropped by the database are never handed out
+        String validationQuery = "oracle".equals(ConfigurationManager.getProperty("db.name"))
+                ? "SELECT 1 FROM DUAL" : "SELECT 1";
+        basicDataSource.setValidationQuery(validationQuery);
+        basicDataSource.setTestOnBorrow(true);
+        basicDataSource.setTestWhileIdle(true);
+        basicDataSource.setTimeBetweenEvictionRunsMillis(60000);
+        return basicDataSource;
+    }
+
+    /**
+     * @return the dspace.cfg setting, falling back to the <code>db.</code> one
+     * and then to the Hibernate one if it is not set
+     */
+    private String getSetting(String prefix, String name, String hibernateName, Map configurationValues) {
+        String value = ConfigurationManager.getProperty(prefix + name);
+        if (StringUtils.isBlank(value) && !"db.".equals(prefix)) {
+            value = ConfigurationManager.getProperty("db." + name);
+        }
+        if (StringUtils.isBlank(value) && configurationValues.get(hibernateName) != null) {
+            value = configurationValues.get(hibernateName).toString();
+        }
+        return value == null ? null : value.trim();
+    }
+
+    private int getIntSetting(String prefix, String name, int defaultValue) {
+        if (StringUtils.isNotBlank(ConfigurationManager.getProperty(prefix + name))) {
+            return ConfigurationManager.getIntProperty(prefix + name, defaultValue);
+        }
+        return ConfigurationManager.getIntProperty("db." + name, defaultValue);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return checkOut(dataSource);
+    }
+
+    /**
+     * Takes a connection for a read-only context, from the read replica if
+     * there is one.  The caller marks it read-only and hands it back with
+     * {@link #closeConnection(Connection)}.
+     */
+    public Connection getReadOnlyConnection() throws SQLException {
+        return checkOut(readOnlyDataSource);
+    }
+
+    private Connection checkOut(DataSource from) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = from.getConnection();
+        } catch (SQLException e) {
+            failures.incrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            long waited = System.nanoTime() - start;
+            requests.incrementAndGet();
+            totalWaitNanos.addAndGet(waited);
+            long max = maxWaitNanos.get();
+            while (waited > max && !maxWaitNanos.compareAndSet(max, waited)) {
+                max = maxWaitNanos.get();
+            }
+        }
+        if (leakThresholdMillis > 0) {
+            checkedOut.put(connection, new Checkout(leakTrace));
+        }
+        return connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        if (leakThresholdMillis > 0) {
+            Checkout checkout = checkedOut.remove(connection);
+            if (checkout != null && checkout.heldMillis() > leakThresholdMillis) {
+                log.warn("A database connection was held for " + checkout.heldMillis() / 1000 + " seconds", checkout.stack);
+            }
+        }
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || DSpaceConnectionProvider.class.isAssignableFrom(unwrapType)
+                || DataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || DSpaceConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        } else if (DataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        unregisterMBean();
+        try {
+            if (readOnlyPool != null) {
+                readOnlyPool.close();
+            }
+            if (pool != null) {
+                pool.close();
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Unable to close the database connection pool", e);
+        }
+    }
+
+    /* ConnectionPoolMXBean methods */
+
+    @Override
+    public int getActiveConnections() {
+        return pool != null ? pool.getNumActive() : checkedOut.size();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool != null ? pool.getNumIdle() : -1;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return pool != null ? pool.getMaxActive() : -1;
+    }
+
+    @Override
+    public long getConnectionRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public long getConnectionFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public double getAverageWaitMillis() {
+        long count = requests.get();
+        return count == 0 ? 0d : totalWaitNanos.get() / 1000000d / count;
+    }
+
+    @Override
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1000000d;
+    }
+
+    @Override
+    public int getLeakedConnections() {
+        if (leakThresholdMillis <= 0) {
+            return 0;
+        }
+        int leaked = 0;
+        synchronized (checkedOut) {
+            for (Checkout checkout : checkedOut.values()) {
+                if (checkout.heldMillis() > leakThresholdMillis) {
+                    leaked++;
+                }
+            }
+        }
+        return leaked;
+    }
+
+    @Override
+    public boolean isStatementCaching() {
+        return statementCaching;
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String getReadOnlySource() {
+        return readOnlySource;
+    }
+
+    @Override
+    public void resetStatistics() {
+        requests.set(0);
+        failures.set(0);
+        totalWaitNanos.set(0);
+        maxWaitNanos.set(0);
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+            mbs.registerMBean(this, name);
+        } catch (JMException e) {
+            log.warn("Unable to register the connection pool MBean: " + e.getMessage());
+        } catch (SecurityException e) {
+            log.warn("Unable to register the connection pool MBean: " + e.getMessage());
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.debug("Unable to unregister the connection pool MBean", e);
+        } catch (SecurityException e) {
+            log.debug("Unable to unregister the connection pool MBean", e);
+        }
+    }
+
+    /**
+     * When (and optionally where) a connection was taken from the pool.
+     */
+    private static final class Checkout {
+        private final long time = System.currentTimeMillis();
+        private final Throwable stack;
+
+        Checkout(boolean trace) {
+            stack = trace ? new Throwable("Connection taken here") : null;
+        }
+
+        long heldMillis() {
+            return System.currentTimeMillis() - time;
+        }
+    }
+}
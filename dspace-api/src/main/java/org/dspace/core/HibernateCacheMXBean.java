@@ -0,0 +1,23 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.dspace.services.model.CacheStats;
+
+import java.util.List;
+
+/**
+ * MBean type for watching the Hibernate second-level and query caches.
+ */
+public interface HibernateCacheMXBean {
+    /** The statistics of each second-level cache region. */
+    public List<CacheStats> getCacheStats();
+
+    /** Empties all entity, collection and query cache regions of this node. */
+    public void evictAll();
+}
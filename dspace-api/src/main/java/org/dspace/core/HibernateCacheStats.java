@@ -0,0 +1,65 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.dspace.services.model.CacheStats;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports the hit rates of the Hibernate second-level cache regions, in
+ * the same form as the caches of the caching service.  The counts are
+ * only collected if <code>hibernate.generate_statistics</code> is on.
+ */
+public final class HibernateCacheStats implements HibernateCacheMXBean {
+    /** The name the statistics are published under in JMX. */
+    public static final String MBEAN_NAME = "org.dspace:type=HibernateCache";
+
+    private static final String SCOPE = "HIBERNATE";
+
+    private final SessionFactory sessionFactory;
+
+    public HibernateCacheStats(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public List<CacheStats> getCacheStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        List<CacheStats> stats = new ArrayList<CacheStats>(regionNames.length + 1);
+        for (String regionName : regionNames) {
+            SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+            if (region != null) {
+                stats.add(new CacheStats(regionName, SCOPE, region.getElementCountInMemory(),
+                        region.getHitCount(), region.getMissCount(), 0, region.getPutCount(), 0));
+            }
+        }
+        if (statistics.getQueryCachePutCount() > 0 || statistics.getQueryCacheHitCount() > 0
+                || statistics.getQueryCacheMissCount() > 0) {
+            stats.add(new CacheStats("query", SCOPE, 0, statistics.getQueryCacheHitCount(),
+                    statistics.getQueryCacheMissCount(), 0, statistics.getQueryCachePutCount(), 0));
+        }
+        return stats;
+    }
+
+    @Override
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityRegions();
+        cache.evictCollectionRegions();
+        cache.evictQueryRegions();
+    }
+}
@@ -1,45 +1,133 @@
 package org.dspace.core;
 
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 
 /**
+ * The Hibernate session and transaction of one {@link Context}.
+ * <p>
+ * Every context gets its own instance (the Spring bean is a prototype),
+ * so contexts never share a session, also not when they are used on the
+ * same thread.  A context may move to another thread, e.g. be handed to a
+ * worker pool, as long as only one thread uses it at a time; the methods
+ * are synchronized so the new thread sees the current session.
+ *
  * User: kevin (kevin at atmire.com)
  * Date: 3/06/14
  * Time: 08:47
  */
 public class HibernateDBConnection implements DBConnection<Session> {
 
+    private Session session;
+    private Transaction transaction;
+    /** The connection of the read-only session, which Hibernate does not close as it did not open it. */
+    private Connection readOnlyConnection;
+    private boolean readOnly;
+
+    @Override
+    public synchronized void setReadOnly(boolean readOnly) throws SQLException {
+        if (readOnly != this.readOnly && session != null) {
+            throw new IllegalStateException("Cannot change the read-only mode while the session is open");
+        }
+        this.readOnly = readOnly;
+    }
+
     @Override
-    public Session getSession() throws SQLException {
-        HibernateUtil.beginTransaction();
-        return HibernateUtil.getSession();
+    public synchronized boolean isReadOnly() {
+        return readOnly;
     }
 
     @Override
-    public boolean isTransActionAlive() {
-        return HibernateUtil.isTransActionAlive();
+    public synchronized Session getSession() throws SQLException {
+        if (readOnly) {
+            if (session == null) {
+                readOnlyConnection = HibernateUtil.getReadOnlyConnection();
+                try {
+                    session = HibernateUtil.openReadOnlySession(readOnlyConnection);
+                } catch (SQLException ex) {
+                    releaseReadOnlyConnection();
+                    throw ex;
+                }
+            }
+            return session;
+        }
+        if (session == null) {
+            session = HibernateUtil.openSession();
+        }
+        if (transaction == null) {
+            try {
+                transaction = session.beginTransaction();
+            } catch (HibernateException ex) {
+                throw new SQLException(ex);
+            }
+        }
+        return session;
     }
 
     @Override
-    public boolean isSessionAlive() {
-        return HibernateUtil.isSessionAlive();
+    public synchronized boolean isTransActionAlive() {
+        return transaction != null && transaction.isActive();
     }
 
     @Override
-    public void rollback() throws SQLException {
-        HibernateUtil.rollbackTransaction();
+    public synchronized boolean isSessionAlive() {
+        return session != null && session.isOpen();
+    }
 
+    @Override
+    public synchronized void rollback() throws SQLException {
+        Transaction tx = transaction;
+        try {
+            transaction = null;
+            if (tx != null && !tx.wasCommitted() && !tx.wasRolledBack()) {
+                tx.rollback();
+            }
+        } catch (HibernateException ex) {
+            throw new SQLException(ex);
+        } finally {
+            closeDBConnection();
+        }
     }
 
     @Override
-    public void closeDBConnection() throws SQLException {
-        HibernateUtil.closeSession();
+    public synchronized void closeDBConnection() throws SQLException {
+        Session s = session;
+        session = null;
+        transaction = null;
+        try {
+            if (s != null && s.isOpen()) {
+                s.close();
+            }
+        } catch (HibernateException ex) {
+            throw new SQLException(ex);
+        } finally {
+            releaseReadOnlyConnection();
+        }
+    }
+
+    private void releaseReadOnlyConnection() throws SQLException {
+        Connection connection = readOnlyConnection;
+        readOnlyConnection = null;
+        if (connection != null) {
+            HibernateUtil.releaseReadOnlyConnection(connection);
+        }
     }
 
     @Override
-    public void commit() throws SQLException {
-        HibernateUtil.commitTransaction();
+    public synchronized void commit() throws SQLException {
+        Transaction tx = transaction;
+        try {
+            if (tx != null && !tx.wasCommitted() && !tx.wasRolledBack()) {
+                tx.commit();
+            }
+            transaction = null;
+        } catch (HibernateException ex) {
+            rollback();
+            throw new SQLException(ex);
+        }
     }
 }
@@ -1,108 +1,165 @@
 package org.dspace.core;
 
+import org.apache.log4j.Logger;
+import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
+import org.hibernate.boot.registry.BootstrapServiceRegistry;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.service.ServiceRegistry;
+import org.hibernate.stat.Statistics;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
 import java.sql.SQLException;
 
 /**
  * Created by kevin on 08/02/14.
  */
 public class HibernateUtil {
+    private static final Logger log = Logger.getLogger(HibernateUtil.class);
+
+    /**
+     * System property naming the Hibernate configuration resource to use
+     * instead of /hibernate.cfg.xml, e.g. to run against an embedded database.
+     */
+    public static final String CONFIGURATION_PROPERTY = "dspace.hibernate.cfg";
+
     private static final SessionFactory sessionFactory;
-    private static final ThreadLocal<Session> threadSession =
-            new ThreadLocal<Session>();
-    private static final ThreadLocal<Transaction> threadTransaction =
-            new ThreadLocal<Transaction>();
+    private static final ClusteredCacheInvalidator cacheInvalidator;
 
     static {
         // Initialize SessionFactory...
         Configuration configuration = new Configuration();
-        configuration.configure();
-        ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build();
+        configuration.configure(System.getProperty(CONFIGURATION_PROPERTY, "/hibernate.cfg.xml"));
+        // keeps the second-level caches of the other nodes in the cluster up to date
+        cacheInvalidator = new ClusteredCacheInvalidator();
+        BootstrapServiceRegistry bootstrapRegistry = new BootstrapServiceRegistryBuilder().with(cacheInvalidator).build();
+        ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder(bootstrapRegistry).applySettings(configuration.getProperties()).build();
         sessionFactory = configuration.buildSessionFactory(serviceRegistry);
+        cacheInvalidator.start();
+        registerMBean(HibernateCacheStats.MBEAN_NAME, new HibernateCacheStats(sessionFactory),
+                "second-level cache statistics");
+        registerMBean(QueryStatistics.MBEAN_NAME, QueryStatistics.getInstance(), "query statistics");
     }
 
-    public static Session getSession() throws SQLException {
-        Session s = threadSession.get();
-        // Open a new Session, if this thread has none yet
+    /**
+     * Publishes statistics in JMX.
+     */
+    private static void registerMBean(String mbeanName, Object mbean, String description) {
         try {
-            if (s == null) {
-                s = sessionFactory.openSession();
-                threadSession.set(s);
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(mbeanName);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
             }
-        } catch (HibernateException ex) {
-            throw new SQLException(ex);
+            mbs.registerMBean(mbean, name);
+        } catch (JMException e) {
+            log.warn("Unable to register the " + description + " MBean: " + e.getMessage());
+        } catch (SecurityException e) {
+            log.warn("Unable to register the " + description + " MBean: " + e.getMessage());
         }
-        return s;
-    }
-
-    public static boolean isSessionAlive(){
-        return threadSession.get() != null;
     }
 
-    public static void closeSession() throws SQLException {
+    /**
+     * Opens a new session with its own JDBC connection.  The caller owns
+     * the session, see {@link HibernateDBConnection}.
+     */
+    public static Session openSession() throws SQLException {
         try {
-            Session s = threadSession.get();
-            threadSession.set(null);
-            if (s != null && s.isOpen()){
-                s.close();
-            }
+            return sessionFactory.openSession();
         } catch (HibernateException ex) {
             throw new SQLException(ex);
         }
     }
 
-    public static void beginTransaction() throws SQLException {
-        Transaction tx = threadTransaction.get();
+    /**
+     * Takes a connection for a read-only session, from the read replica if
+     * there is one, and marks it read-only.  Hand it back with
+     * {@link #releaseReadOnlyConnection(Connection)}.
+     */
+    public static Connection getReadOnlyConnection() throws SQLException {
+        ConnectionProvider connectionProvider = getConnectionProvider();
+        Connection connection = connectionProvider instanceof DSpaceConnectionProvider
+                ? ((DSpaceConnectionProvider) connectionProvider).getReadOnlyConnection()
+                : connectionProvider.getConnection();
         try {
-            if (tx == null) {
-                tx = getSession().beginTransaction();
-                threadTransaction.set(tx);
-            }
-        } catch (HibernateException ex) {
-            throw new SQLException(ex);
+            connection.setReadOnly(true);
+        } catch (SQLException ex) {
+            connectionProvider.closeConnection(connection);
+            throw ex;
         }
+        return connection;
     }
 
-    public static void commitTransaction() throws SQLException {
-        Transaction tx = threadTransaction.get();
+    /**
+     * Opens a read-only session on the given connection.
+     * <p>
+     * The session runs outside of a Hibernate transaction.  It never
+     * flushes, and the entities it loads are read-only, so Hibernate
+     * neither keeps snapshots of them nor checks them for changes.
+     */
+    public static Session openReadOnlySession(Connection connection) throws SQLException {
         try {
-            if (tx != null && !tx.wasCommitted()
-                    && !tx.wasRolledBack())
-                tx.commit();
-            threadTransaction.set(null);
+            Session s = sessionFactory.withOptions().connection(connection).flushMode(FlushMode.MANUAL).openSession();
+            s.setDefaultReadOnly(true);
+            return s;
         } catch (HibernateException ex) {
-            rollbackTransaction();
             throw new SQLException(ex);
         }
     }
 
-    public static void rollbackTransaction() throws SQLException {
-
-        Transaction tx = threadTransaction.get();
+    /**
+     * Ends the implicit transaction of the reads and hands the connection back to the pool.
+     */
+    public static void releaseReadOnlyConnection(Connection connection) throws SQLException {
         try {
-            threadTransaction.set(null);
-            if (tx != null && !tx.wasCommitted()
-                    && !tx.wasRolledBack()) {
-                tx.rollback();
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
             }
-        } catch (HibernateException ex) {
-            throw new SQLException(ex);
+            connection.setReadOnly(false);
         } finally {
-            closeSession();
+            getConnectionProvider().closeConnection(connection);
         }
     }
 
-    public static boolean isTransActionAlive(){
-        Transaction tx = threadTransaction.get();
-        return tx != null && tx.isActive();
+    private static ConnectionProvider getConnectionProvider() {
+        return ((SessionFactoryImplementor) sessionFactory).getServiceRegistry().getService(ConnectionProvider.class);
     }
 
-}
+    /**
+     * @return the DataSource Hibernate gets its connections from, for code which needs plain JDBC
+     */
+    public static DataSource getDataSource() {
+        ConnectionProvider connectionProvider = getConnectionProvider();
+        if (connectionProvider != null && connectionProvider.isUnwrappableAs(DataSource.class)) {
+            return connectionProvider.unwrap(DataSource.class);
+        }
+        return null;
+    }
 
+    /**
+     * @return the statistics of the session factory, which count the statements
+     *         only if hibernate.generate_statistics is on
+     */
+    public static Statistics getStatistics() {
+        return sessionFactory.getStatistics();
+    }
+
+    /**
+     * @return the invalidator sharing the changes to the second-level caches with the cluster
+     */
+    static ClusteredCacheInvalidator getCacheInvalidator() {
+        return cacheInvalidator;
+    }
+
+}
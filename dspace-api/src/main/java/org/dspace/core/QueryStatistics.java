@@ -0,0 +1,166 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the calls, returned rows and latencies of the DAO methods and of
+ * <code>Context.commit</code>, adds them to the totals of the context,
+ * and logs the slow ones together with the extra log info of the context.
+ * <p>
+ * Configured by <code>db.statistics</code> (on by default) and
+ * <code>db.slowquery.threshold</code> in milliseconds (1000 by default,
+ * 0 turns the logging off).  Both are read on every call, so changing
+ * them in the running configuration takes effect at once.  Published in
+ * JMX as {@value #MBEAN_NAME}.
+ */
+public final class QueryStatistics implements QueryStatisticsMXBean {
+    /** The name the statistics are published under in JMX. */
+    public static final String MBEAN_NAME = "org.dspace:type=QueryStatistics";
+
+    private static final Logger log = Logger.getLogger(QueryStatistics.class);
+
+    /** The upper bounds in milliseconds of the latency buckets */
+    private static final long[] BUCKETS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private static final QueryStatistics instance = new QueryStatistics();
+
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+    private QueryStatistics() {
+    }
+
+    public static QueryStatistics getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return whether calls are counted, if not {@link #record} does nothing
+     */
+    public boolean isEnabled() {
+        return ConfigurationManager.getBooleanProperty("db.statistics", true);
+    }
+
+    /**
+     * Records a finished call.
+     *
+     * @param context the context the call was made for
+     * @param name the DAO class and method, e.g. "ItemDAOImpl.findAll"
+     * @param query the query, for the log, or null
+     * @param rows the number of rows returned
+     * @param start the {@link System#nanoTime()} at the start of the call
+     */
+    public void record(Context context, String name, String query, long rows, long start) {
+        if (!isEnabled()) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        context.addQuery(nanos);
+
+        Counters c = counters.get(name);
+        if (c == null) {
+            Counters created = new Counters();
+            c = counters.putIfAbsent(name, created);
+            if (c == null) {
+                c = created;
+            }
+        }
+        c.add(rows, nanos);
+
+        long slowQueryThreshold = getSlowQueryThreshold();
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (slowQueryThreshold > 0 && millis >= slowQueryThreshold) {
+            log.warn(LogManager.getHeader(context, "slow_query", "name=" + name + ",time_ms=" + millis
+                    + ",rows=" + rows + (query == null ? "" : ",query=" + query)));
+        }
+    }
+
+    @Override
+    public List<QueryStats> getQueryStats() {
+        List<QueryStats> stats = new ArrayList<QueryStats>(counters.size());
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            stats.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        Collections.sort(stats, new Comparator<QueryStats>() {
+            @Override
+            public int compare(QueryStats a, QueryStats b) {
+                return a.getTotalTimeNanos() < b.getTotalTimeNanos() ? 1
+                        : a.getTotalTimeNanos() > b.getTotalTimeNanos() ? -1 : 0;
+            }
+        });
+        return stats;
+    }
+
+    @Override
+    public long[] getLatencyBuckets() {
+        return BUCKETS.clone();
+    }
+
+    @Override
+    public long getStatementCount() {
+        return HibernateUtil.getStatistics().getPrepareStatementCount();
+    }
+
+    @Override
+    public long getSlowQueryThreshold() {
+        return ConfigurationManager.getLongProperty("db.slowquery.threshold", 1000);
+    }
+
+    @Override
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * The counters of one name.  They are updated without locking, so a
+     * snapshot taken during a call may be off by that call.
+     */
+    private static final class Counters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS.length + 1);
+
+        void add(long rowCount, long nanos) {
+            calls.incrementAndGet();
+            rows.addAndGet(rowCount);
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis >= BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram.incrementAndGet(bucket);
+        }
+
+        QueryStats snapshot(String name) {
+            long[] buckets = new long[histogram.length()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = histogram.get(i);
+            }
+            return new QueryStats(name, calls.get(), rows.get(), totalNanos.get(), maxNanos.get(), buckets);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import java.util.List;
+
+/**
+ * MBean type for watching the queries the DAOs run.
+ */
+public interface QueryStatisticsMXBean {
+    /** The statistics of each DAO method and of the commits, the slowest in total first. */
+    public List<QueryStats> getQueryStats();
+
+    /** The upper bounds in milliseconds of the latency histogram buckets, the last bucket has none. */
+    public long[] getLatencyBuckets();
+
+    /** The number of SQL statements Hibernate prepared, including those of lazy loading and flushing. */
+    public long getStatementCount();
+
+    /** Calls slower than this many milliseconds are logged, 0 if none are. */
+    public long getSlowQueryThreshold();
+
+    /** Starts counting from zero again. */
+    public void reset();
+}
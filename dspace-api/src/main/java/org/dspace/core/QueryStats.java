@@ -0,0 +1,85 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable snapshot of the statistics of one DAO method, or of
+ * <code>Context.commit</code>.
+ */
+public final class QueryStats {
+
+    private final String name;
+    private final long callCount;
+    private final long rowCount;
+    private final long totalTimeNanos;
+    private final long maxTimeNanos;
+    private final long[] latencyHistogram;
+
+    @ConstructorProperties({"name", "callCount", "rowCount", "totalTimeNanos", "maxTimeNanos", "latencyHistogram"})
+    public QueryStats(String name, long callCount, long rowCount, long totalTimeNanos, long maxTimeNanos,
+            long[] latencyHistogram) {
+        this.name = name;
+        this.callCount = callCount;
+        this.rowCount = rowCount;
+        this.totalTimeNanos = totalTimeNanos;
+        this.maxTimeNanos = maxTimeNanos;
+        this.latencyHistogram = latencyHistogram.clone();
+    }
+
+    /**
+     * @return the DAO class and method, e.g. "ItemDAOImpl.findAll"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of calls
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * @return the number of rows the calls returned
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the time spent in all calls together
+     */
+    public long getTotalTimeNanos() {
+        return totalTimeNanos;
+    }
+
+    /**
+     * @return the time of the slowest call
+     */
+    public long getMaxTimeNanos() {
+        return maxTimeNanos;
+    }
+
+    /**
+     * @return the mean time of a call, or 0 if there were none
+     */
+    public long getMeanTimeNanos() {
+        return callCount == 0 ? 0 : totalTimeNanos / callCount;
+    }
+
+    /**
+     * @return the number of calls per latency bucket, the buckets are
+     *         those of {@link QueryStatisticsMXBean#getLatencyBuckets()}
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+}
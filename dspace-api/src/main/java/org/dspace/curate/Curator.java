@@ -10,6 +10,15 @@ package org.dspace.curate;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
 
@@ -19,9 +28,14 @@ import org.dspace.content.factory.ContentServiceFactory;
 import org.dspace.content.service.CollectionService;
 import org.dspace.content.service.CommunityService;
 import org.dspace.content.service.ItemService;
+import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.core.PluginManager;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.Group;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.EPersonService;
 import org.dspace.handle.HandleServiceImpl;
 import org.dspace.handle.factory.HandleServiceFactory;
 import org.dspace.handle.service.HandleService;
@@ -65,10 +79,20 @@ public class Curator
     private Invoked iMode = null;
     private TaskResolver resolver = new TaskResolver();
     private TxScope txScope = TxScope.OPEN;
+    private int threads = ConfigurationManager.getIntProperty("curate", "threads", 1);
+    // the workers curating the items of collections, while a container is curated in parallel
+    private WorkerPool workers = null;
+    // messages of a worker curator, reported in order by the curator it works for
+    private List<String> reportBuffer = null;
+
+    /** The number of items a worker curates in one context */
+    protected static final int BATCH_SIZE = 100;
+    private int batchSize = BATCH_SIZE;
 
     protected final CommunityService communityService = ContentServiceFactory.getInstance().getCommunityService();
     protected final ItemService itemService = ContentServiceFactory.getInstance().getItemService();
     protected final HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+    protected final EPersonService ePersonService = EPersonServiceFactory.getInstance().getEPersonService();
 
 
     /**
@@ -173,6 +197,43 @@ public class Curator
     	return this;
     }
 
+    /**
+     * Sets the number of threads curating the items of a collection at
+     * once, the default is the curate 'threads' property or 1.
+     * <P>
+     * With more than one thread, every thread has its own instance of
+     * the task and its own context, in which it curates the items in
+     * batches.  The containers are still curated by the calling thread
+     * and distributive tasks are not affected.  The worker contexts are
+     * committed after every object if the transaction scope is 'object'
+     * or the task is mutative, else after every batch, as a single
+     * transaction over all workers is not possible.  Messages reported
+     * by the workers, the status and the result are passed on in the
+     * order of the items, and a task suspending curation stops all
+     * workers once their current object is done.
+     *
+     * @param threads number of worker threads, 1 curates sequentially
+     * @return the Curator instance
+     */
+    public Curator setThreads(int threads)
+    {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * Sets the number of items a worker curates in one context, so tests
+     * can spread a small collection over several workers.
+     *
+     * @param batchSize number of items per batch
+     * @return the Curator instance
+     */
+    Curator setBatchSize(int batchSize)
+    {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
     /**
      * Performs all configured tasks upon object identified by id. If
      * the object can be resolved as a handle, the DSO will be the
@@ -249,18 +310,34 @@ public class Curator
             if (type == Constants.ITEM || tr.task.isDistributive())
             {
                 tr.run(curationContext(), dso);
+                continue;
             }
-            else if (type == Constants.COLLECTION)
+            if (threads > 1)
             {
-                doCollection(tr, (Collection)dso);
+                workers = new WorkerPool(taskName, curationContext());
             }
-            else if (type == Constants.COMMUNITY)
+            try
             {
-                doCommunity(tr, (Community)dso);
-            }  
-            else if (type == Constants.SITE)
+                if (type == Constants.COLLECTION)
+                {
+                    doCollection(tr, (Collection)dso);
+                }
+                else if (type == Constants.COMMUNITY)
+                {
+                    doCommunity(tr, (Community)dso);
+                }
+                else if (type == Constants.SITE)
+                {
+                    doSite(tr, (Site) dso);
+                }
+            }
+            finally
             {
-                doSite(tr, (Site) dso);    
+                if (workers != null)
+                {
+                    workers.shutdown();
+                    workers = null;
+                }
             }
         }
     }
@@ -308,6 +385,11 @@ public class Curator
      */
     public void report(String message)
     {
+        if (reportBuffer != null)
+        {
+            reportBuffer.add(message);
+            return;
+        }
         // Stub for now
         if ("-".equals(reporter))
         {
@@ -489,6 +571,10 @@ public class Curator
             {
                 return false;
             }
+            if (workers != null)
+            {
+                return workers.curate(tr, itemService.findArchivedItemIdsByCollection(curationContext(), coll));
+            }
             Iterator<Item> iter = itemService.findArchivedItemsByCollection(curationContext(), coll);
             while (iter.hasNext())
             {
@@ -528,6 +614,262 @@ public class Curator
     	}
     }
 
+    /**
+     * The threads curating items for a curator, each with a curator and a
+     * context of its own.
+     */
+    private class WorkerPool
+    {
+        private final ExecutorService executor;
+        private final BlockingQueue<Worker> idle;
+        private final List<Worker> all = new ArrayList<Worker>();
+        // set once a task suspended curation or failed, the workers stop
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        WorkerPool(String taskName, Context parent) throws IOException, SQLException
+        {
+            idle = new ArrayBlockingQueue<Worker>(threads);
+            try
+            {
+                for (int i = 0; i < threads; i++)
+                {
+                    Worker worker = new Worker(taskName, parent);
+                    all.add(worker);
+                    idle.add(worker);
+                }
+            }
+            catch (IOException ioE)
+            {
+                shutdownWorkers();
+                throw ioE;
+            }
+            catch (SQLException sqlE)
+            {
+                shutdownWorkers();
+                throw sqlE;
+            }
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        /**
+         * Curate the items in batches on the worker threads, then pass on
+         * what the workers reported in the order of the items.
+         *
+         * @return false if the task suspended curation
+         */
+        boolean curate(TaskRunner tr, List<UUID> ids) throws IOException
+        {
+            List<Future<Batch>> batches = new ArrayList<Future<Batch>>();
+            for (int from = 0; from < ids.size(); from += batchSize)
+            {
+                final List<UUID> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                batches.add(executor.submit(new Callable<Batch>()
+                {
+                    public Batch call() throws Exception
+                    {
+                        Worker worker = idle.take();
+                        try
+                        {
+                            return worker.curate(batch);
+                        }
+                        finally
+                        {
+                            idle.add(worker);
+                        }
+                    }
+                }));
+            }
+
+            boolean proceed = true;
+            IOException failure = null;
+            for (Future<Batch> future : batches)
+            {
+                Batch batch;
+                try
+                {
+                    batch = future.get();
+                }
+                catch (InterruptedException ie)
+                {
+                    stopped.set(true);
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while curating items", ie);
+                }
+                catch (ExecutionException ee)
+                {
+                    stopped.set(true);
+                    throw new IOException(ee.getCause().getMessage(), ee.getCause());
+                }
+                for (String message : batch.reports)
+                {
+                    report(message);
+                }
+                // the status and result of the object which suspended curation, or of the last one
+                if (proceed && failure == null && batch.statusCode != CURATE_UNSET)
+                {
+                    tr.statusCode = batch.statusCode;
+                    tr.result = batch.result;
+                }
+                if (batch.failure != null && failure == null)
+                {
+                    failure = batch.failure;
+                }
+                if (batch.suspended)
+                {
+                    proceed = false;
+                }
+            }
+            if (failure != null)
+            {
+                throw failure;
+            }
+            return proceed;
+        }
+
+        void shutdown()
+        {
+            // batches still queued, e.g. after a failure, end without curating
+            stopped.set(true);
+            executor.shutdown();
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+            shutdownWorkers();
+        }
+
+        private void shutdownWorkers()
+        {
+            for (Worker worker : all)
+            {
+                worker.context.abort();
+            }
+        }
+
+        private class Worker
+        {
+            final Curator curator = new Curator();
+            final TaskRunner runner;
+            final Context context;
+            // the performer of the curation, set again for every batch
+            final UUID userId;
+            final boolean ignoreAuth;
+            final List<UUID> specialGroups = new ArrayList<UUID>();
+
+            Worker(String taskName, Context parent) throws IOException, SQLException
+            {
+                curator.iMode = iMode;
+                curator.reporter = reporter;
+                curator.txScope = txScope;
+                curator.reportBuffer = new ArrayList<String>();
+                curator.addTask(taskName);
+                runner = curator.trMap.get(taskName);
+                if (runner == null)
+                {
+                    throw new IOException("Task: '" + taskName + "' cannot be set up for a worker");
+                }
+                EPerson user = parent.getCurrentUser();
+                userId = (user != null) ? user.getID() : null;
+                ignoreAuth = parent.ignoreAuthorization();
+                for (Group group : parent.getSpecialGroups())
+                {
+                    specialGroups.add(group.getID());
+                }
+                context = new Context();
+            }
+
+            Batch curate(List<UUID> ids)
+            {
+                Batch batch = new Batch();
+                curationCtx.set(context);
+                try
+                {
+                    if (userId != null)
+                    {
+                        context.setCurrentUser(ePersonService.find(context, userId));
+                    }
+                    if (ignoreAuth)
+                    {
+                        context.turnOffAuthorisationSystem();
+                    }
+                    for (UUID groupId : specialGroups)
+                    {
+                        context.setSpecialGroup(groupId);
+                    }
+                    runner.statusCode = CURATE_UNSET;
+                    runner.result = null;
+                    for (UUID id : ids)
+                    {
+                        if (stopped.get())
+                        {
+                            break;
+                        }
+                        Item item = itemService.find(context, id);
+                        // it may have been deleted in the meantime
+                        if (item == null)
+                        {
+                            continue;
+                        }
+                        boolean proceed = runner.run(context, item);
+                        // a mutative task gets a transaction per object, whatever the scope
+                        if (runner.task.isMutative() && ! txScope.equals(TxScope.OBJECT))
+                        {
+                            context.commit();
+                        }
+                        if (! proceed)
+                        {
+                            batch.suspended = true;
+                            stopped.set(true);
+                            break;
+                        }
+                    }
+                    // no one else can commit the worker's context
+                    if (! txScope.equals(TxScope.OBJECT))
+                    {
+                        context.commit();
+                    }
+                }
+                catch (IOException ioE)
+                {
+                    batch.failure = ioE;
+                    stopped.set(true);
+                }
+                catch (Exception e)
+                {
+                    // e.g. a SQLException of the worker's context or a RuntimeException of the task
+                    log.error("Error curating a batch of items with task '" + runner.task.getName() + "'", e);
+                    batch.failure = new IOException(e.getMessage(), e);
+                    stopped.set(true);
+                }
+                finally
+                {
+                    batch.statusCode = runner.statusCode;
+                    batch.result = runner.result;
+                    batch.reports.addAll(curator.reportBuffer);
+                    curator.reportBuffer.clear();
+                    curationCtx.remove();
+                    // rolls back what was not committed and frees the session for the next batch
+                    context.reset();
+                }
+                return batch;
+            }
+        }
+    }
+
+    /** What a worker did with a batch of items */
+    private static class Batch
+    {
+        int statusCode = CURATE_UNSET;
+        String result = null;
+        boolean suspended = false;
+        IOException failure = null;
+        List<String> reports = new ArrayList<String>();
+    }
+
     private class TaskRunner
     {
         ResolvedTask task = null;
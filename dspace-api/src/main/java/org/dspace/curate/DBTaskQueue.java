@@ -0,0 +1,271 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Context;
+import org.dspace.curate.factory.CurateServiceFactory;
+import org.dspace.curate.service.QueuedTaskService;
+
+/**
+ * DBTaskQueue provides a TaskQueue implementation based on a database
+ * table, see {@link QueuedTask}.  Rather than locking a whole queue for
+ * one reader, every reader claims the entries it takes for a while, so
+ * several readers on several nodes can work off the same queue at once.
+ * <P>
+ * In terms of the TaskQueue contract, <code>dequeue</code> claims the
+ * entries of the queue for the ticket, up to the configured batch size,
+ * and <code>release</code> deletes them or returns them to the queue.
+ * A reader which wants to acknowledge every entry on its own uses
+ * {@link #claim(String, int)} and {@link #done(QueuedTask)} or
+ * {@link #retry(QueuedTask)} instead.
+ * <P>
+ * Entries a reader does not deal with within the lease time, e.g. because
+ * its node went down, are handed out again.  An entry handed out the
+ * maximum number of times stays in the table for an administrator to
+ * look at but is not handed out any more.  The settings, in the curate
+ * module:
+ * <ul>
+ * <li>taskqueue.db.lease: the lease time in seconds (default 3600)</li>
+ * <li>taskqueue.db.batchsize: the entries claimed by one dequeue, 0 for
+ * all (default 0)</li>
+ * <li>taskqueue.db.maxattempts: how often an entry is handed out (default 3)</li>
+ * </ul>
+ */
+public class DBTaskQueue implements TaskQueue
+{
+    private static Logger log = Logger.getLogger(DBTaskQueue.class);
+
+    // tells the claims of this node from those of others with the same ticket
+    private static final String NODE = UUID.randomUUID().toString();
+    private static final AtomicLong claims = new AtomicLong();
+
+    private final long leaseMillis = ConfigurationManager.getLongProperty("curate", "taskqueue.db.lease", 3600) * 1000;
+    private final int batchSize = ConfigurationManager.getIntProperty("curate", "taskqueue.db.batchsize", 0);
+    private final int maxAttempts = ConfigurationManager.getIntProperty("curate", "taskqueue.db.maxattempts", 3);
+
+    protected QueuedTaskService queuedTaskService = CurateServiceFactory.getInstance().getQueuedTaskService();
+
+    public DBTaskQueue()
+    {
+    }
+
+    @Override
+    public String[] queueNames()
+    {
+        Context context = null;
+        try
+        {
+            context = new Context();
+            List<String> names = queuedTaskService.findQueueNames(context);
+            return names.toArray(new String[names.size()]);
+        }
+        catch (SQLException sqlE)
+        {
+            log.error("Unable to read the curation queue names", sqlE);
+            return new String[0];
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public void enqueue(String queueName, TaskQueueEntry entry) throws IOException
+    {
+        Set<TaskQueueEntry> entrySet = new LinkedHashSet<TaskQueueEntry>();
+        entrySet.add(entry);
+        enqueue(queueName, entrySet);
+    }
+
+    @Override
+    public void enqueue(String queueName, Set<TaskQueueEntry> entrySet) throws IOException
+    {
+        Context context = null;
+        try
+        {
+            context = new Context();
+            for (TaskQueueEntry entry : entrySet)
+            {
+                queuedTaskService.create(context, queueName, entry);
+            }
+            context.complete();
+            context = null;
+        }
+        catch (SQLException sqlE)
+        {
+            throw new IOException(sqlE.getMessage(), sqlE);
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    @Override
+    public Set<TaskQueueEntry> dequeue(String queueName, long ticket) throws IOException
+    {
+        Set<TaskQueueEntry> entrySet = new LinkedHashSet<TaskQueueEntry>();
+        for (QueuedTask queuedTask : claim(queueName, ticketClaim(ticket), batchSize))
+        {
+            entrySet.add(queuedTask.getEntry());
+        }
+        return entrySet;
+    }
+
+    @Override
+    public void release(String queueName, long ticket, boolean removeEntries)
+    {
+        Context context = null;
+        try
+        {
+            context = new Context();
+            if (removeEntries)
+            {
+                queuedTaskService.deleteByClaim(context, ticketClaim(ticket));
+            }
+            else
+            {
+                queuedTaskService.releaseByClaim(context, ticketClaim(ticket));
+            }
+            context.complete();
+            context = null;
+        }
+        catch (SQLException sqlE)
+        {
+            log.error("Unable to release the entries of curation queue " + queueName
+                    + " for ticket " + ticket, sqlE);
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    /**
+     * Claims entries of the named queue, the oldest first, for a reader
+     * which acknowledges each of them with {@link #done(QueuedTask)} or
+     * {@link #retry(QueuedTask)}.
+     *
+     * @param queueName
+     *        the name of the queue to read
+     * @param max
+     *        the number of entries to claim, 0 for all
+     * @return the entries claimed, empty if there are none left
+     * @throws IOException
+     */
+    public List<QueuedTask> claim(String queueName, int max) throws IOException
+    {
+        return claim(queueName, NODE + ":" + claims.incrementAndGet(), max);
+    }
+
+    /**
+     * Removes an entry which was curated from the queue.
+     *
+     * @param queuedTask
+     *        an entry returned by {@link #claim(String, int)}
+     * @throws IOException
+     */
+    public void done(QueuedTask queuedTask) throws IOException
+    {
+        acknowledge(queuedTask, true);
+    }
+
+    /**
+     * Returns an entry which could not be curated to the queue, it is
+     * handed out again unless it reached the maximum number of attempts.
+     *
+     * @param queuedTask
+     *        an entry returned by {@link #claim(String, int)}
+     * @throws IOException
+     */
+    public void retry(QueuedTask queuedTask) throws IOException
+    {
+        acknowledge(queuedTask, false);
+    }
+
+    private List<QueuedTask> claim(String queueName, String claim, int max) throws IOException
+    {
+        Context context = null;
+        try
+        {
+            context = new Context();
+            List<QueuedTask> claimed = queuedTaskService.claim(context, queueName, claim, max,
+                    leaseMillis, maxAttempts);
+            // the claim only counts once other readers can see it
+            context.complete();
+            context = null;
+            return claimed;
+        }
+        catch (SQLException sqlE)
+        {
+            throw new IOException(sqlE.getMessage(), sqlE);
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    private void acknowledge(QueuedTask queuedTask, boolean delete) throws IOException
+    {
+        Context context = null;
+        try
+        {
+            context = new Context();
+            if (delete)
+            {
+                queuedTaskService.delete(context, queuedTask);
+            }
+            else
+            {
+                queuedTaskService.release(context, queuedTask);
+            }
+            context.complete();
+            context = null;
+        }
+        catch (SQLException sqlE)
+        {
+            throw new IOException(sqlE.getMessage(), sqlE);
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+    }
+
+    private String ticketClaim(long ticket)
+    {
+        return NODE + ":ticket:" + ticket;
+    }
+}
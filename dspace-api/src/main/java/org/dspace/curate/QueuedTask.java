@@ -0,0 +1,107 @@
+package org.dspace.curate;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A curation request waiting in a named queue of the {@link DBTaskQueue}.
+ * <p>
+ * A reader claims an entry by writing its claim token and the end of its
+ * lease into the row.  Until the lease ends the entry is invisible to
+ * other readers; if the reader neither deletes nor releases it by then,
+ * e.g. because its node went down, the entry becomes visible again.
+ * Every claim counts as an attempt, an entry is not handed out again
+ * once it reached the maximum number of attempts.
+ */
+@Entity
+@Table(name = "curation_queue", schema = "public",
+        indexes = {@Index(name = "curation_queue_name_idx", columnList = "queue_name, lease_expires"),
+                   @Index(name = "curation_queue_claim_idx", columnList = "claim")})
+public class QueuedTask implements Serializable {
+
+    @Id
+    @Column(name = "queued_task_id", unique = true, nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "curation_queue_seq")
+    @SequenceGenerator(name = "curation_queue_seq", sequenceName = "curation_queue_seq", allocationSize = 1)
+    private int id;
+
+    @Column(name = "queue_name", nullable = false)
+    private String queueName;
+
+    @Column(name = "eperson_id")
+    private String epersonId;
+
+    @Column(name = "submit_time", nullable = false)
+    private long submitTime;
+
+    @Column(name = "tasks", nullable = false)
+    private String tasks;
+
+    @Column(name = "object_id", nullable = false)
+    private String objectId;
+
+    @Column(name = "claim")
+    private String claim;
+
+    @Column(name = "lease_expires")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date leaseExpires;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    protected QueuedTask() {
+    }
+
+    QueuedTask(String queueName, TaskQueueEntry entry) {
+        this.queueName = queueName;
+        this.epersonId = entry.getEpersonId();
+        this.submitTime = entry.getSubmitTime();
+        StringBuilder names = new StringBuilder();
+        for (String name : entry.getTaskNames()) {
+            if (names.length() > 0) {
+                names.append(",");
+            }
+            names.append(name);
+        }
+        this.tasks = names.toString();
+        this.objectId = entry.getObjectId();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    /**
+     * @return the curation request, as queued
+     */
+    public TaskQueueEntry getEntry() {
+        List<String> names = Arrays.asList(tasks.split(","));
+        return new TaskQueueEntry(epersonId, submitTime, names, objectId);
+    }
+
+    /**
+     * @return the token of the reader holding the entry, or null
+     */
+    public String getClaim() {
+        return claim;
+    }
+
+    public Date getLeaseExpires() {
+        return leaseExpires;
+    }
+
+    /**
+     * @return how often the entry was claimed, i.e. the attempts to curate it
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+}
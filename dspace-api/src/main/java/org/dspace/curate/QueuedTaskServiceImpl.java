@@ -0,0 +1,69 @@
+package org.dspace.curate;
+
+import org.dspace.core.Context;
+import org.dspace.curate.dao.QueuedTaskDAO;
+import org.dspace.curate.service.QueuedTaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Service implementation for the QueuedTask object.
+ * This class is responsible for all business logic calls for the QueuedTask object and is autowired by spring.
+ * This class should never be accessed directly.
+ */
+public class QueuedTaskServiceImpl implements QueuedTaskService {
+
+    @Autowired(required = true)
+    protected QueuedTaskDAO queuedTaskDAO;
+
+    @Override
+    public QueuedTask create(Context context, String queueName, TaskQueueEntry entry) throws SQLException {
+        return queuedTaskDAO.create(context, new QueuedTask(queueName, entry));
+    }
+
+    @Override
+    public List<String> findQueueNames(Context context) throws SQLException {
+        return queuedTaskDAO.findQueueNames(context);
+    }
+
+    @Override
+    public List<QueuedTask> claim(Context context, String queueName, String claim, int max, long leaseMillis, int maxAttempts) throws SQLException {
+        Date now = new Date();
+        List<Integer> ids = queuedTaskDAO.findClaimable(context, queueName, now, maxAttempts, max);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // whole seconds, as some databases store no fractions and the lease tells this claim's entries apart
+        Date leaseExpires = new Date((now.getTime() + leaseMillis) / 1000 * 1000);
+        // entries another reader claimed since they were found are skipped by the update
+        if (queuedTaskDAO.claim(context, ids, claim, now, leaseExpires, maxAttempts) == 0) {
+            return Collections.emptyList();
+        }
+        // the claim may still hold entries of earlier calls, e.g. of another queue
+        return queuedTaskDAO.findByClaim(context, claim, ids, leaseExpires);
+    }
+
+    @Override
+    public void delete(Context context, QueuedTask queuedTask) throws SQLException {
+        queuedTaskDAO.deleteByClaim(context, queuedTask.getClaim(), queuedTask.getId());
+    }
+
+    @Override
+    public int deleteByClaim(Context context, String claim) throws SQLException {
+        return queuedTaskDAO.deleteByClaim(context, claim);
+    }
+
+    @Override
+    public void release(Context context, QueuedTask queuedTask) throws SQLException {
+        queuedTaskDAO.releaseClaim(context, queuedTask.getClaim(), queuedTask.getId());
+    }
+
+    @Override
+    public int releaseByClaim(Context context, String claim) throws SQLException {
+        return queuedTaskDAO.releaseClaim(context, claim);
+    }
+}
@@ -16,10 +16,18 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+
+import org.apache.commons.io.FileUtils;
 
 import org.apache.log4j.Logger;
 
@@ -61,6 +69,13 @@ import org.dspace.core.PluginManager;
  * Thus, $td=ruby||LinkChecker.new will be expanded to a descriptor
  * with the name of the embedding file.
  * 
+ * The catalog and the scripts are read once and kept, compiled if the
+ * engine supports it, until their files change. Every resolution of a
+ * scripted task constructs a new task, so every curator initialises an
+ * instance of its own. The script is evaluated in a fresh scope for every
+ * resolution, unless the task is annotated {@link ThreadSafe}: then it is
+ * evaluated once per version of the script and the tasks share its scope.
+ * 
  * @author richardrodgers
  */
 
@@ -73,8 +88,16 @@ public class TaskResolver
 	private static final String CATALOG = "task.catalog";
 	private static final String scriptDir = ConfigurationManager.getProperty("curate", "script.dir");
 	
-	// catalog of script tasks
-	private Properties catalog;
+	// catalog of script tasks, as last read, and when its file was modified then
+	private static Properties catalog;
+	private static long catalogModified;
+
+	// engines are looked up through one manager, which is costly to set up
+	private static ScriptEngineManager engineManager;
+
+	// loaded scripts by engine and file, and the evaluated scripts of thread safe tasks by descriptor
+	private static final ConcurrentMap<String, LoadedScript> scripts = new ConcurrentHashMap<String, LoadedScript>();
+	private static final ConcurrentMap<String, SharedScope> sharedScopes = new ConcurrentHashMap<String, SharedScope>();
 	
 	public TaskResolver()
 	{
@@ -156,13 +179,28 @@ public class TaskResolver
 	 */
 	public void addDescriptor(String taskName, String descriptor)
 	{
-		loadCatalog();
-		catalog.put(taskName, descriptor);
+		synchronized (TaskResolver.class)
+		{
+			// the cached catalog is shared, change a copy
+			Properties updated = new Properties();
+			updated.putAll(loadCatalog());
+			updated.put(taskName, descriptor);
+			storeCatalog(updated);
+		}
+	}
+
+	private static void storeCatalog(Properties updated)
+	{
+		File catalogFile = new File(scriptDir, CATALOG);
 		Writer writer = null;
 		try
 		{
-			writer = new FileWriter(new File(scriptDir, CATALOG));
-			catalog.store(writer, "do not edit");
+			writer = new FileWriter(catalogFile);
+			updated.store(writer, "do not edit");
+			writer.close();
+			writer = null;
+			catalog = updated;
+			catalogModified = catalogFile.lastModified();
 		}
 		catch(IOException ioE)
 		{
@@ -201,79 +239,227 @@ public class TaskResolver
 			return new ResolvedTask(taskName, ctask);
 		}
 		// maybe it is implemented by a script?
-		loadCatalog();
-		String scriptDesc = catalog.getProperty(taskName);
+		String scriptDesc = loadCatalog().getProperty(taskName);
 		if (scriptDesc != null)
 		{
 			String[] tokens = scriptDesc.split("\\|");
-			// first descriptor token is name ('alias') of scripting engine
-			ScriptEngineManager mgr = new ScriptEngineManager();
-			ScriptEngine engine = mgr.getEngineByName(tokens[0]);
-			if (engine != null)
+			// the second token is the relative path to the script file
+			File script = new File(scriptDir, tokens[1]);
+			if (! script.exists())
 			{
-			    // see if we can locate the script file and load it
-			    // the second token is the relative path to the file
-			    File script = new File(scriptDir, tokens[1]);
-			    if (script.exists())
-			    {
-			    	try
-			    	{
-			    		Reader reader = new FileReader(script);
-			    		engine.eval(reader);
-			    		reader.close();
-			    		// third token is the constructor expression for the class
-			    		// implementing CurationTask interface
-			    		ScriptedTask stask = (ScriptedTask)engine.eval(tokens[2]);
-			    		return new ResolvedTask(taskName, stask);
-			    	}
-			    	catch (FileNotFoundException fnfE)
-			    	{
-			    		log.error("Script: '" + script.getName() + "' not found for task: " + taskName);
-			    	}
-			    	catch (IOException ioE)
-			    	{
-			    		log.error("Error loading script: '" + script.getName() + "'");
-			    	}
-			    	catch (ScriptException scE)
-			    	{
-			    		log.error("Error evaluating script: '" + script.getName() + "' msg: " + scE.getMessage());
-			    	}
-			    }
-			    else
-			    {
-			    	log.error("No script: '" + script.getName() + "' found for task: " + taskName);
-			    }
-			} 
-			else
+				log.error("No script: '" + script.getName() + "' found for task: " + taskName);
+				return null;
+			}
+			return resolveScript(taskName, scriptDesc, script);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a new instance of a scripted task, or <code>null</code> if
+	 * the script cannot be evaluated.  The scope a thread safe task's
+	 * script was evaluated in is kept while the script is unchanged, and
+	 * only the constructor expression is evaluated again.
+	 *
+	 * @param taskName
+	 *        logical task name
+	 * @param scriptDesc
+	 *        the descriptor of the task
+	 * @param script
+	 *        the script file
+	 * @return task
+	 */
+	ResolvedTask resolveScript(String taskName, String scriptDesc, File script)
+	{
+		String[] tokens = scriptDesc.split("\\|");
+		try
+		{
+			SharedScope shared = sharedScopes.get(scriptDesc);
+			if (shared != null && shared.script.isCurrent(script))
+			{
+				return new ResolvedTask(taskName, shared.script.construct(shared.scope, tokens[2]));
+			}
+			// first descriptor token is name ('alias') of scripting engine
+			LoadedScript loaded = loadScript(tokens[0], script, taskName);
+			if (loaded != null)
 			{
-			    log.error("Script engine: '" + tokens[0] + "' is not installed");
-			} 	
+				// third token is the constructor expression for the class
+				// implementing CurationTask interface
+				ScriptContext scope = loaded.evaluate();
+				ScriptedTask stask = loaded.construct(scope, tokens[2]);
+				if (stask.getClass().isAnnotationPresent(ThreadSafe.class))
+				{
+					sharedScopes.put(scriptDesc, new SharedScope(loaded, scope));
+				}
+				return new ResolvedTask(taskName, stask);
+			}
+		}
+		catch (ScriptException scE)
+		{
+			log.error("Error evaluating script: '" + script.getName() + "' msg: " + scE.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the script for the engine and file, reading and compiling
+	 * it again if the file changed since it was last read.
+	 */
+	private LoadedScript loadScript(String engineName, File script, String taskName)
+	{
+		String key = engineName + "|" + script.getAbsolutePath();
+		LoadedScript loaded = scripts.get(key);
+		if (loaded != null && loaded.isCurrent(script))
+		{
+			return loaded;
+		}
+		ScriptEngine engine = getEngineManager().getEngineByName(engineName);
+		if (engine == null)
+		{
+			log.error("Script engine: '" + engineName + "' is not installed");
+			return null;
+		}
+		try
+		{
+			// the modification time is taken first, so a change while reading is seen next time
+			long modified = script.lastModified();
+			String source = FileUtils.readFileToString(script);
+			loaded = new LoadedScript(engine, source, modified, script.length());
+			scripts.put(key, loaded);
+			return loaded;
+		}
+		catch (FileNotFoundException fnfE)
+		{
+			log.error("Script: '" + script.getName() + "' not found for task: " + taskName);
+		}
+		catch (IOException ioE)
+		{
+			log.error("Error loading script: '" + script.getName() + "'");
+		}
+		catch (ScriptException scE)
+		{
+			log.error("Error compiling script: '" + script.getName() + "' msg: " + scE.getMessage());
 		}
 		return null;
 	}
+
+	static synchronized ScriptEngineManager getEngineManager()
+	{
+		if (engineManager == null)
+		{
+			engineManager = new ScriptEngineManager();
+		}
+		return engineManager;
+	}
 	
 	/**
-	 * Loads catalog of descriptors for tasks if not already loaded
+	 * Loads catalog of descriptors for tasks if not already loaded,
+	 * or again if the catalog file changed since
 	 */
-	private void loadCatalog()
+	private static synchronized Properties loadCatalog()
 	{
-		if (catalog == null)
+		File catalogFile = new File(scriptDir, CATALOG);
+		long modified = catalogFile.lastModified();
+		if (catalog == null || modified != catalogModified)
 		{
-			catalog = new Properties();
-			File catalogFile = new File(scriptDir, CATALOG);
+			Properties loaded = new Properties();
 			if (catalogFile.exists())
 			{
+				Reader reader = null;
 				try
 				{
-					Reader reader = new FileReader(catalogFile);
-					catalog.load(reader);
-					reader.close();
+					reader = new FileReader(catalogFile);
+					loaded.load(reader);
 				}
 				catch(IOException ioE)
 				{
 					log.error("Error loading scripted task catalog: " + CATALOG);
 				}
+				finally
+				{
+					if (reader != null)
+					{
+						try
+						{
+							reader.close();
+						}
+						catch (IOException ioE)
+						{
+							log.error("Error closing scripted task catalog: " + CATALOG);
+						}
+					}
+				}
+			}
+			catalog = loaded;
+			catalogModified = modified;
+		}
+		return catalog;
+	}
+
+	/**
+	 * A task script as read from its file, compiled if the engine can.
+	 * Evaluations are serialized, as few engines are thread safe.
+	 */
+	private static class LoadedScript
+	{
+		private final ScriptEngine engine;
+		private final CompiledScript compiled;
+		private final String source;
+		private final long modified;
+		private final long length;
+
+		LoadedScript(ScriptEngine engine, String source, long modified, long length) throws ScriptException
+		{
+			this.engine = engine;
+			this.compiled = (engine instanceof Compilable) ? ((Compilable)engine).compile(source) : null;
+			this.source = source;
+			this.modified = modified;
+			this.length = length;
+		}
+
+		boolean isCurrent(File script)
+		{
+			return script.lastModified() == modified && script.length() == length;
+		}
+
+		/**
+		 * Evaluates the script in a scope of its own.
+		 */
+		synchronized ScriptContext evaluate() throws ScriptException
+		{
+			ScriptContext context = new SimpleScriptContext();
+			context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+			context.setBindings(engine.getBindings(ScriptContext.GLOBAL_SCOPE), ScriptContext.GLOBAL_SCOPE);
+			if (compiled != null)
+			{
+				compiled.eval(context);
 			}
+			else
+			{
+				engine.eval(source, context);
+			}
+			return context;
+		}
+
+		/**
+		 * Evaluates the constructor expression in a scope the script was evaluated in.
+		 */
+		synchronized ScriptedTask construct(ScriptContext context, String constructor) throws ScriptException
+		{
+			return (ScriptedTask)engine.eval(constructor, context);
+		}
+	}
+
+	/** The scope of a thread safe task's script, shared while the script is current */
+	private static class SharedScope
+	{
+		private final LoadedScript script;
+		private final ScriptContext scope;
+
+		SharedScope(LoadedScript script, ScriptContext scope)
+		{
+			this.script = script;
+			this.scope = scope;
 		}
 	}
-}
\ No newline at end of file
+}
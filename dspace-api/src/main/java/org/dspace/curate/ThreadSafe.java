@@ -0,0 +1,26 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation type for ScriptedTasks. A task is thread safe if the
+ * instances of several curators may share the scope its script was
+ * evaluated in, which means the script keeps no state at its top level
+ * which the instances change. The TaskResolver then evaluates the script
+ * once per version instead of on every resolution; each resolution still
+ * constructs an instance of its own, for its curator to initialise.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ThreadSafe
+{
+}
@@ -0,0 +1,51 @@
+package org.dspace.curate.dao;
+
+import org.dspace.core.Context;
+import org.dspace.curate.QueuedTask;
+import org.dspace.dao.GenericDAO;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Database Access Object interface class for the QueuedTask object.
+ */
+public interface QueuedTaskDAO extends GenericDAO<QueuedTask> {
+
+    public List<String> findQueueNames(Context context) throws SQLException;
+
+    /**
+     * @return the ids of the entries of the queue which are not claimed or whose lease ended
+     *         and which have had fewer attempts than the maximum, the oldest first
+     */
+    public List<Integer> findClaimable(Context context, String queueName, Date now, int maxAttempts, int limit) throws SQLException;
+
+    /**
+     * Claims those of the entries which are still claimable, in one statement.  An
+     * entry claimed by another reader in the meantime is left alone.
+     *
+     * @return the number of entries claimed
+     */
+    public int claim(Context context, List<Integer> ids, String claim, Date now, Date leaseExpires, int maxAttempts) throws SQLException;
+
+    /**
+     * @return those of the entries which the claim holds with the given lease, i.e. which one
+     *         {@link #claim} took, rather than entries the same claim took before
+     */
+    public List<QueuedTask> findByClaim(Context context, String claim, List<Integer> ids, Date leaseExpires) throws SQLException;
+
+    /**
+     * Deletes the entries still held by the claim.
+     */
+    public int deleteByClaim(Context context, String claim) throws SQLException;
+
+    public int deleteByClaim(Context context, String claim, int id) throws SQLException;
+
+    /**
+     * Makes the entries still held by the claim visible again.
+     */
+    public int releaseClaim(Context context, String claim) throws SQLException;
+
+    public int releaseClaim(Context context, String claim, int id) throws SQLException;
+}
@@ -0,0 +1,101 @@
+package org.dspace.curate.dao.impl;
+
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.dspace.curate.QueuedTask;
+import org.dspace.curate.dao.QueuedTaskDAO;
+import org.hibernate.Query;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the QueuedTask object.
+ * <p>
+ * Claiming is an optimistic lease: the update re-checks that an entry is
+ * still claimable, so of two readers racing for an entry only one updates
+ * its row, on any database and without holding row locks while curating.
+ */
+public class QueuedTaskDAOImpl extends AbstractHibernateDAO<QueuedTask> implements QueuedTaskDAO {
+
+    private static final String CLAIMABLE = "(q.leaseExpires IS NULL OR q.leaseExpires < :now) AND q.attempts < :max_attempts";
+
+    @Override
+    public List<String> findQueueNames(Context context) throws SQLException {
+        Query query = createQuery(context, "SELECT DISTINCT q.queueName FROM QueuedTask q ORDER BY q.queueName");
+        return this.<String>listValues(context, "findQueueNames", query);
+    }
+
+    @Override
+    public List<Integer> findClaimable(Context context, String queueName, Date now, int maxAttempts, int limit) throws SQLException {
+        Query query = createQuery(context, "SELECT q.id FROM QueuedTask q WHERE q.queueName = :queue_name AND "
+                + CLAIMABLE + " ORDER BY q.id");
+        query.setParameter("queue_name", queueName);
+        query.setTimestamp("now", now);
+        query.setParameter("max_attempts", maxAttempts);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return this.<Integer>listValues(context, "findClaimable", query);
+    }
+
+    @Override
+    public int claim(Context context, List<Integer> ids, String claim, Date now, Date leaseExpires, int maxAttempts) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Query query = createQuery(context, "UPDATE QueuedTask q SET q.claim = :claim, q.leaseExpires = :lease_expires, "
+                + "q.attempts = q.attempts + 1 WHERE q.id IN (:ids) AND " + CLAIMABLE);
+        query.setParameter("claim", claim);
+        query.setTimestamp("lease_expires", leaseExpires);
+        query.setParameterList("ids", ids);
+        query.setTimestamp("now", now);
+        query.setParameter("max_attempts", maxAttempts);
+        return executeUpdate(context, "claim", query);
+    }
+
+    @Override
+    public List<QueuedTask> findByClaim(Context context, String claim, List<Integer> ids, Date leaseExpires) throws SQLException {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Query query = createQuery(context, "SELECT q FROM QueuedTask q WHERE q.claim = :claim AND q.id IN (:ids) "
+                + "AND q.leaseExpires = :lease_expires ORDER BY q.id");
+        query.setParameter("claim", claim);
+        query.setParameterList("ids", ids);
+        query.setTimestamp("lease_expires", leaseExpires);
+        return list(context, "findByClaim", query);
+    }
+
+    @Override
+    public int deleteByClaim(Context context, String claim) throws SQLException {
+        Query query = createQuery(context, "DELETE FROM QueuedTask WHERE claim = :claim");
+        query.setParameter("claim", claim);
+        return executeUpdate(context, "deleteByClaim", query);
+    }
+
+    @Override
+    public int deleteByClaim(Context context, String claim, int id) throws SQLException {
+        Query query = createQuery(context, "DELETE FROM QueuedTask WHERE claim = :claim AND id = :id");
+        query.setParameter("claim", claim);
+        query.setParameter("id", id);
+        return executeUpdate(context, "deleteByClaim", query);
+    }
+
+    @Override
+    public int releaseClaim(Context context, String claim) throws SQLException {
+        Query query = createQuery(context, "UPDATE QueuedTask SET claim = NULL, leaseExpires = NULL WHERE claim = :claim");
+        query.setParameter("claim", claim);
+        return executeUpdate(context, "releaseClaim", query);
+    }
+
+    @Override
+    public int releaseClaim(Context context, String claim, int id) throws SQLException {
+        Query query = createQuery(context, "UPDATE QueuedTask SET claim = NULL, leaseExpires = NULL WHERE claim = :claim AND id = :id");
+        query.setParameter("claim", claim);
+        query.setParameter("id", id);
+        return executeUpdate(context, "releaseClaim", query);
+    }
+}
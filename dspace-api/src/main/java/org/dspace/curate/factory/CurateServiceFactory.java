@@ -0,0 +1,16 @@
+package org.dspace.curate.factory;
+
+import org.dspace.curate.service.QueuedTaskService;
+import org.dspace.utils.DSpace;
+
+/**
+ * Abstract factory to get services for the curate package, use CurateServiceFactory.getInstance() to retrieve an implementation
+ */
+public abstract class CurateServiceFactory {
+
+    public abstract QueuedTaskService getQueuedTaskService();
+
+    public static CurateServiceFactory getInstance(){
+        return new DSpace().getServiceManager().getServiceByName("curateServiceFactory", CurateServiceFactory.class);
+    }
+}
@@ -0,0 +1,18 @@
+package org.dspace.curate.factory;
+
+import org.dspace.curate.service.QueuedTaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Factory implementation to get services for the curate package, use CurateServiceFactory.getInstance() to retrieve an implementation
+ */
+public class CurateServiceFactoryImpl extends CurateServiceFactory {
+
+    @Autowired(required = true)
+    private QueuedTaskService queuedTaskService;
+
+    @Override
+    public QueuedTaskService getQueuedTaskService() {
+        return queuedTaskService;
+    }
+}
@@ -0,0 +1,57 @@
+package org.dspace.curate.service;
+
+import org.dspace.core.Context;
+import org.dspace.curate.QueuedTask;
+import org.dspace.curate.TaskQueueEntry;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Service interface class for the QueuedTask object, the entries of the
+ * curation queues kept in the database.
+ * The implementation of this class is responsible for all business logic calls for the QueuedTask object and is autowired by spring
+ */
+public interface QueuedTaskService {
+
+    public QueuedTask create(Context context, String queueName, TaskQueueEntry entry) throws SQLException;
+
+    /**
+     * @return the names of the queues which hold entries
+     */
+    public List<String> findQueueNames(Context context) throws SQLException;
+
+    /**
+     * Claims entries of the queue, the oldest first.  The entries are
+     * invisible to other readers until the lease ends or the claim is
+     * released.  The claim is only safe from other readers once the
+     * context is committed.
+     *
+     * @param claim        a token unique to the reader
+     * @param max          the number of entries to claim, 0 for all
+     * @param leaseMillis  how long the reader may hold the entries
+     * @param maxAttempts  entries claimed that often before are left alone
+     * @return the entries claimed
+     */
+    public List<QueuedTask> claim(Context context, String queueName, String claim, int max, long leaseMillis, int maxAttempts) throws SQLException;
+
+    /**
+     * Deletes the entry, if the reader still holds it.
+     */
+    public void delete(Context context, QueuedTask queuedTask) throws SQLException;
+
+    /**
+     * Deletes all entries the reader still holds.
+     */
+    public int deleteByClaim(Context context, String claim) throws SQLException;
+
+    /**
+     * Returns the entry to the queue for another attempt, if the reader still holds it.
+     */
+    public void release(Context context, QueuedTask queuedTask) throws SQLException;
+
+    /**
+     * Returns all entries the reader still holds to the queue for another attempt.
+     */
+    public int releaseByClaim(Context context, String claim) throws SQLException;
+}
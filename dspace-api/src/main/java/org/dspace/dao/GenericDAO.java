@@ -3,6 +3,7 @@ package org.dspace.dao;
 import org.dspace.core.Context;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,6 +20,27 @@ public interface GenericDAO<T>
 
     public void delete(Context context, T t) throws SQLException;
 
+    /**
+     * Saves all objects, see {@link #saveAll(Context, Collection, boolean)},
+     * leaving them in the session.
+     */
+    public void saveAll(Context context, Collection<T> ts) throws SQLException;
+
+    /**
+     * Saves all objects, flushing them to the database in JDBC batches as
+     * soon as a batch is complete.
+     *
+     * @param detach if true the objects are also removed from the session
+     * once written, which keeps the session small during bulk writes.  Only
+     * use this for objects the caller does not change or navigate afterwards.
+     */
+    public void saveAll(Context context, Collection<T> ts, boolean detach) throws SQLException;
+
+    /**
+     * Deletes all objects, flushing the deletes to the database in JDBC batches.
+     */
+    public void deleteAll(Context context, Collection<T> ts) throws SQLException;
+
     public List<T> findAll(Context context, Class<T> clazz) throws SQLException;
 
     public T findUnique(Context context, String query) throws SQLException;
@@ -10,16 +10,26 @@ package org.dspace.discovery;
 import org.apache.log4j.Logger;
 import org.dspace.content.Bundle;
 import org.dspace.content.DSpaceObject;
+import org.dspace.content.FetchPlan;
 import org.dspace.content.factory.ContentServiceFactory;
 import org.dspace.content.service.BundleService;
+import org.dspace.content.service.ItemService;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.event.Consumer;
 import org.dspace.event.Event;
+import org.dspace.handle.factory.HandleServiceFactory;
+import org.dspace.handle.service.HandleService;
 import org.dspace.utils.DSpace;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * Class for updating search indices in discovery from content events.
@@ -34,13 +44,20 @@ public class IndexEventConsumer implements Consumer {
      */
     private static Logger log = Logger.getLogger(IndexEventConsumer.class);
 
-    // collect Items, Collections, Communities that need indexing
-    private Set<DSpaceObject> objectsToUpdate = null;
+    // collect the ids of Items, Collections, Communities that need indexing, with their types;
+    // they are loaded once the transaction ends, all at once
+    private Map<UUID, Integer> objectsToUpdate = null;
+
+    // the bundles met in this transaction: the owning Item of each TEXT bundle, whose
+    // index changes with the bundle, and null for the other bundles
+    private Map<UUID, UUID> bundleItems = null;
 
     // handles to delete since IDs are not useful by now.
     private Set<String> handlesToDelete = null;
 
     private BundleService bundleService = ContentServiceFactory.getInstance().getBundleService();
+    private ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
 
     DSpace dspace = new DSpace();
 
@@ -52,7 +69,9 @@ public class IndexEventConsumer implements Consumer {
 
     /**
      * Consume a content event -- just build the sets of objects to add (new) to
-     * the index, update, and delete.
+     * the index, update, and delete.  Only the ids of the objects are kept,
+     * the one thing loaded here is the bundle of a bitstream event, whose
+     * name decides whether its Item needs an update.
      *
      * @param ctx   DSpace context
      * @param event Content event
@@ -60,7 +79,8 @@ public class IndexEventConsumer implements Consumer {
     public void consume(Context ctx, Event event) throws Exception {
 
         if (objectsToUpdate == null) {
-            objectsToUpdate = new HashSet<DSpaceObject>();
+            objectsToUpdate = new LinkedHashMap<UUID, Integer>();
+            bundleItems = new HashMap<UUID, UUID>();
             handlesToDelete = new HashSet<String>();
         }
 
@@ -73,62 +93,64 @@ public class IndexEventConsumer implements Consumer {
             return;
         }
 
-        DSpaceObject subject = event.getSubject(ctx);
-
-        DSpaceObject object = event.getObject(ctx);
-
-
         // If event subject is a Bundle and event was Add or Remove,
-        // transform the event to be a Modify on the owning Item.
-        // It could be a new bitstream in the TEXT bundle which
-        // would change the index.
+        // it could be a new bitstream in the TEXT bundle which
+        // would change the index of the owning Item.  The bundle
+        // is looked up now, once, as it may be gone by the end.
         int et = event.getEventType();
         if (st == Constants.BUNDLE) {
-            if ((et == Event.ADD || et == Event.REMOVE) && subject != null
-                    && ((Bundle) subject).getName().equals("TEXT")) {
-                st = Constants.ITEM;
-                et = Event.MODIFY;
-                subject = bundleService.getParentObject(ctx, (Bundle) subject);
-                if (log.isDebugEnabled())
-                {
-                    log.debug("Transforming Bundle event into MODIFY of Item "
-                            + subject.getHandle(ctx));
+            UUID bundleId = event.getSubjectID();
+            if ((et == Event.ADD || et == Event.REMOVE) && bundleId != null) {
+                if (!bundleItems.containsKey(bundleId)) {
+                    bundleItems.put(bundleId, findTextBundleItem(ctx, bundleId));
+                }
+                UUID itemId = bundleItems.get(bundleId);
+                if (itemId != null) {
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("Transforming Bundle event into MODIFY of Item " + itemId);
+                    }
+                    objectsToUpdate.put(itemId, Constants.ITEM);
                 }
-            } else
-            {
-                return;
             }
+            return;
         }
 
         switch (et) {
             case Event.CREATE:
             case Event.MODIFY:
             case Event.MODIFY_METADATA:
-                if (subject == null)
+                if (event.getSubjectID() == null)
                 {
-                    log.warn(event.getEventTypeAsString() + " event, could not get object for "
-                            + event.getSubjectTypeAsString() + " id="
-                            + String.valueOf(event.getSubjectID())
-                            + ", perhaps it has been deleted.");
+                    log.warn(event.getEventTypeAsString() + " event, no id for "
+                            + event.getSubjectTypeAsString() + ", skipping it.");
                 }
                 else {
                     log.debug("consume() adding event to update queue: " + event.toString());
-                    objectsToUpdate.add(subject);
+                    objectsToUpdate.put(event.getSubjectID(), st);
                 }
                 break;
 
             case Event.REMOVE:
             case Event.ADD:
-                if (object == null)
+                int ot = event.getObjectType();
+                if (event.getObjectID() == null)
                 {
-                    log.warn(event.getEventTypeAsString() + " event, could not get object for "
-                            + event.getObjectTypeAsString() + " id="
-                            + String.valueOf(event.getObjectID())
-                            + ", perhaps it has been deleted.");
+                    log.warn(event.getEventTypeAsString() + " event, no id for "
+                            + event.getObjectTypeAsString() + ", skipping it.");
                 }
-                else {
+                else if (ot == Constants.ITEM || ot == Constants.COLLECTION || ot == Constants.COMMUNITY) {
                     log.debug("consume() adding event to update queue: " + event.toString());
-                    objectsToUpdate.add(object);
+                    objectsToUpdate.put(event.getObjectID(), ot);
+                }
+                else if (st == Constants.ITEM && ot == Constants.BUNDLE) {
+                    // the event names the bundle, which works for bundles deleted later on too
+                    boolean text = "TEXT".equals(event.getDetail());
+                    bundleItems.put(event.getObjectID(), text ? event.getSubjectID() : null);
+                    if (text) {
+                        log.debug("consume() adding event to update queue: " + event.toString());
+                        objectsToUpdate.put(event.getSubjectID(), Constants.ITEM);
+                    }
                 }
                 break;
 
@@ -157,35 +179,42 @@ public class IndexEventConsumer implements Consumer {
      * Process sets of objects to add, update, and delete in index. Correct for
      * interactions between the sets -- e.g. objects which were deleted do not
      * need to be added or updated, new objects don't also need an update, etc.
+     * The objects and their handles are loaded in bulk, and handed to the
+     * indexer in one request.
      */
     public void end(Context ctx) throws Exception {
 
         if (objectsToUpdate != null && handlesToDelete != null) {
 
-            // update the changed Items not deleted because they were on create list
-            for (DSpaceObject iu : objectsToUpdate) {
-                /* we let all types through here and 
-                 * allow the search DSIndexer to make 
-                 * decisions on indexing and/or removal
-                 */
-                String hdl = iu.getHandle(ctx);
+            // update the changed objects not deleted; we let all types through here and
+            // allow the indexer to make decisions on indexing and/or removal
+            List<UUID> ids = new ArrayList<UUID>(objectsToUpdate.keySet());
+            Map<UUID, String> handles = handleService.findHandles(ctx, ids);
+            List<DSpaceObject> toIndex = new ArrayList<DSpaceObject>();
+            for (DSpaceObject dso : findObjects(ctx)) {
+                String hdl = handles.get(dso.getID());
                 if (hdl != null && !handlesToDelete.contains(hdl)) {
-                    try {
-                        indexer.indexContent(ctx, iu, true);
-                        log.debug("Indexed "
-                                + Constants.typeText[iu.getType()]
-                                + ", id=" + String.valueOf(iu.getID())
-                                + ", handle=" + hdl);
-                    }
-                    catch (Exception e) {
-                        log.error("Failed while indexing object: ", e);
+                    toIndex.add(dso);
+                }
+            }
+            if (!toIndex.isEmpty()) {
+                try {
+                    indexer.indexContent(ctx, toIndex, true);
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("Indexed " + toIndex.size() + " objects");
                     }
                 }
+                catch (Exception e) {
+                    // one bad object should not keep the others out of the index
+                    log.error("Failed while indexing " + toIndex.size() + " objects, indexing them one by one: ", e);
+                    indexOneByOne(ctx, toIndex);
+                }
             }
 
             for (String hdl : handlesToDelete) {
                 try {
-                    indexer.unIndexContent(ctx, hdl, true);
+                    indexer.unIndexContent(ctx, hdl, false);
                     if (log.isDebugEnabled())
                     {
                         log.debug("UN-Indexed Item, handle=" + hdl);
@@ -196,17 +225,77 @@ public class IndexEventConsumer implements Consumer {
                 }
 
             }
+            if (!handlesToDelete.isEmpty()) {
+                try {
+                    indexer.commit();
+                }
+                catch (Exception e) {
+                    log.error("Failed committing the UN-indexed objects: ", e);
+                }
+            }
 
         }
 
         // "free" the resources
         objectsToUpdate = null;
+        bundleItems = null;
         handlesToDelete = null;
     }
 
+    /**
+     * Index the objects one at a time, logging those which fail.
+     */
+    protected void indexOneByOne(Context ctx, List<DSpaceObject> dsos) {
+        for (DSpaceObject dso : dsos) {
+            try {
+                indexer.indexContent(ctx, dso, true, false);
+            }
+            catch (Exception e) {
+                log.error("Failed while indexing object: " + Constants.typeText[dso.getType()] + " " + dso.getID(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the id of the Item owning the bundle if it is a TEXT bundle,
+     *         otherwise or if the bundle is gone null
+     */
+    protected UUID findTextBundleItem(Context ctx, UUID bundleId) throws Exception {
+        Bundle bundle = bundleService.find(ctx, bundleId);
+        if (bundle == null || !"TEXT".equals(bundle.getName())) {
+            return null;
+        }
+        DSpaceObject item = bundleService.getParentObject(ctx, bundle);
+        return item == null ? null : item.getID();
+    }
+
+    /**
+     * Load the objects to update, the items in bulk together with their
+     * metadata, which the indexer reads.  Objects deleted meanwhile are left out.
+     */
+    protected List<DSpaceObject> findObjects(Context ctx) throws Exception {
+        List<UUID> itemIds = new ArrayList<UUID>();
+        List<DSpaceObject> dsos = new ArrayList<DSpaceObject>();
+        for (Map.Entry<UUID, Integer> entry : objectsToUpdate.entrySet()) {
+            if (entry.getValue() == Constants.ITEM) {
+                itemIds.add(entry.getKey());
+            }
+            else {
+                // there are few of these
+                DSpaceObject dso = (DSpaceObject) ContentServiceFactory.getInstance()
+                        .getDSpaceObjectService(entry.getValue()).find(ctx, entry.getKey());
+                if (dso != null) {
+                    dsos.add(dso);
+                }
+            }
+        }
+        dsos.addAll(itemService.findByIds(ctx, itemIds, FetchPlan.ITEM_LISTING));
+        return dsos;
+    }
+
     public void finish(Context ctx) throws Exception {
         // No-op
 
     }
 
-}
\ No newline at end of file
+}
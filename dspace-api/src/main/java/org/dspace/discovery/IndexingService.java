@@ -12,6 +12,7 @@ import org.dspace.core.Context;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
 
 /**
  * Interface used for indexing dspaceobject into discovery
@@ -30,6 +31,16 @@ public interface IndexingService {
 
     void indexContent(Context context, DSpaceObject dso,
             boolean force, boolean commit) throws SQLException, SearchServiceException;
+
+    /**
+     * Index several objects at once, committing them as the implementation
+     * sees fit rather than one by one.
+     */
+    void indexContent(Context context, Collection<? extends DSpaceObject> dsos)
+            throws SQLException, SearchServiceException;
+
+    void indexContent(Context context, Collection<? extends DSpaceObject> dsos,
+            boolean force) throws SQLException, SearchServiceException;
     
     void unIndexContent(Context context, DSpaceObject dso)
             throws SQLException, IOException;
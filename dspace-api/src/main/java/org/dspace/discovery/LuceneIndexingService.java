@@ -0,0 +1,641 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.Version;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.FetchPlan;
+import org.dspace.content.Item;
+import org.dspace.content.MetadataField;
+import org.dspace.content.MetadataValue;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.BatchProcessor;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.handle.factory.HandleServiceFactory;
+import org.dspace.handle.service.HandleService;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IndexingService keeping the index in an embedded Lucene index on the
+ * local disk, for repositories which run without a search server.
+ * <p>
+ * Changes are not committed one by one: they are committed once a number
+ * of them piled up or some time passed, whichever comes first, and an
+ * explicit commit is only done when asked for.  Until then they are
+ * visible to {@link #search(Context, String, int)} through a near real
+ * time reader, which is refreshed every second.  The settings, in the
+ * discovery module:
+ * <ul>
+ * <li>lucene.dir: the directory of the index (default ${dspace.dir}/search)</li>
+ * <li>lucene.commit.count: the changes after which they are committed (default 1000)</li>
+ * <li>lucene.commit.interval: the seconds after which changes are committed (default 10)</li>
+ * <li>lucene.threads: the threads indexing the items in
+ * {@link #createIndex(Context)} and {@link #updateIndex(Context)} (default 4)</li>
+ * </ul>
+ * The index is opened on first use, register the bean with
+ * <code>destroy-method="shutdown"</code> so it is committed and closed.
+ * Once shut down, using the index fails with an
+ * {@link AlreadyClosedException}.
+ */
+public class LuceneIndexingService implements IndexingService {
+
+    private static final Logger log = Logger.getLogger(LuceneIndexingService.class);
+
+    /** Type and id of the object, e.g. "2-&lt;uuid&gt;", the key of a document */
+    public static final String UNIQUE_ID = "search.uniqueid";
+    public static final String RESOURCE_TYPE = "search.resourcetype";
+    public static final String RESOURCE_ID = "search.resourceid";
+    public static final String HANDLE = "handle";
+    public static final String NAME = "name";
+    public static final String LAST_MODIFIED = "lastModified";
+    /** All text of the object, searched when a query names no field */
+    public static final String DEFAULT_FIELD = "default";
+
+    /** The number of items indexed in one context */
+    protected static final int BATCH_SIZE = 100;
+
+    private static final long REFRESH_MILLIS = 1000;
+
+    private static final Set<String> KEY_FIELDS = new HashSet<String>(
+            Arrays.asList(UNIQUE_ID, RESOURCE_TYPE, RESOURCE_ID));
+
+    protected final String directory;
+    protected final int commitCount;
+    protected final long commitMillis;
+    protected final int threads;
+
+    protected CommunityService communityService = ContentServiceFactory.getInstance().getCommunityService();
+    protected CollectionService collectionService = ContentServiceFactory.getInstance().getCollectionService();
+    protected ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    protected HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+
+    private final Analyzer analyzer = new StandardAnalyzer(Version.LUCENE_44);
+
+    // opened on first use, closed for good by shutdown()
+    private volatile Index index;
+    private volatile boolean shutDown;
+    private ScheduledExecutorService scheduler;
+
+    // writes go on while committing, commits are one at a time
+    private final Object commitLock = new Object();
+
+    // the changes since the last commit, and when that was
+    private final AtomicInteger uncommitted = new AtomicInteger();
+    private volatile long lastCommit = System.currentTimeMillis();
+
+    public LuceneIndexingService() {
+        this(ConfigurationManager.getProperty("discovery", "lucene.dir") != null
+                        ? ConfigurationManager.getProperty("discovery", "lucene.dir")
+                        : ConfigurationManager.getProperty("dspace.dir") + File.separator + "search",
+                ConfigurationManager.getIntProperty("discovery", "lucene.commit.count", 1000),
+                ConfigurationManager.getLongProperty("discovery", "lucene.commit.interval", 10) * 1000,
+                ConfigurationManager.getIntProperty("discovery", "lucene.threads", 4));
+    }
+
+    /**
+     * With the settings given rather than configured, for tests.
+     */
+    LuceneIndexingService(String directory, int commitCount, long commitMillis, int threads) {
+        this.directory = directory;
+        this.commitCount = commitCount;
+        this.commitMillis = commitMillis;
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public void indexContent(Context context, DSpaceObject dso) throws SQLException {
+        indexContent(context, dso, false);
+    }
+
+    @Override
+    public void indexContent(Context context, DSpaceObject dso, boolean force) throws SQLException {
+        try {
+            indexContent(context, dso, force, false);
+        } catch (SearchServiceException e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void indexContent(Context context, DSpaceObject dso, boolean force, boolean commit)
+            throws SQLException, SearchServiceException {
+        try {
+            write(context, dso, dso.getHandle(context), force);
+            written(1, commit);
+        } catch (IOException e) {
+            throw new SearchServiceException("Failed indexing " + Constants.typeText[dso.getType()] + " " + dso.getID(), e);
+        }
+    }
+
+    @Override
+    public void indexContent(Context context, Collection<? extends DSpaceObject> dsos)
+            throws SQLException, SearchServiceException {
+        indexContent(context, dsos, false);
+    }
+
+    @Override
+    public void indexContent(Context context, Collection<? extends DSpaceObject> dsos, boolean force)
+            throws SQLException, SearchServiceException {
+        try {
+            writeAll(context, dsos, force);
+            written(dsos.size(), false);
+        } catch (IOException e) {
+            throw new SearchServiceException("Failed indexing " + dsos.size() + " objects", e);
+        }
+    }
+
+    @Override
+    public void unIndexContent(Context context, DSpaceObject dso) throws SQLException, IOException {
+        unIndexContent(context, dso, false);
+    }
+
+    @Override
+    public void unIndexContent(Context context, DSpaceObject dso, boolean commit) throws SQLException, IOException {
+        getWriter().deleteDocuments(uniqueId(dso.getType(), dso.getID()));
+        written(1, commit);
+    }
+
+    @Override
+    public void unIndexContent(Context context, String handle) throws SQLException, IOException {
+        unIndexContent(context, handle, false);
+    }
+
+    @Override
+    public void unIndexContent(Context context, String handle, boolean commit) throws SQLException, IOException {
+        getWriter().deleteDocuments(new Term(HANDLE, handle));
+        written(1, commit);
+    }
+
+    @Override
+    public void reIndexContent(Context context, DSpaceObject dso) throws SQLException, IOException {
+        indexContent(context, dso, true);
+    }
+
+    /**
+     * Rebuild the index: write the documents of all objects again, then
+     * remove those of objects which are gone.  The index is rebuilt in
+     * place, so searches find the old document of an object until its new
+     * one is written, never an empty or partial index.
+     *
+     * @throws IOException if any object could not be indexed, the documents
+     *         written are kept nevertheless
+     */
+    @Override
+    public void createIndex(Context context) throws SQLException, IOException {
+        try {
+            int failed = indexAll(context, true);
+            cleanIndex(false);
+            if (failed > 0) {
+                throw new IOException("Failed indexing " + failed + " items, see the log");
+            }
+        } catch (SearchServiceException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted rebuilding the search index", e);
+        }
+    }
+
+    @Override
+    public void updateIndex(Context context) {
+        updateIndex(context, false);
+    }
+
+    /**
+     * Index all communities, collections and archived items, see
+     * {@link #indexAll(Context, boolean)}.  Failures are logged.
+     */
+    @Override
+    public void updateIndex(Context context, boolean force) {
+        try {
+            indexAll(context, force);
+        } catch (Exception e) {
+            log.error("Failed updating the search index", e);
+        }
+    }
+
+    /**
+     * Index all communities, collections and archived items, the items on
+     * several threads, each loading batches of them in a context of its own.
+     *
+     * @return the number of items which failed
+     */
+    protected int indexAll(Context context, boolean force)
+            throws SQLException, IOException, SearchServiceException, InterruptedException {
+        writeAll(context, communityService.findAll(context), force);
+        writeAll(context, collectionService.findAll(context), force);
+        List<UUID> ids = itemService.findArchivedItemIds(context);
+        int failed = indexItems(ids, force);
+        commit();
+        log.info("Indexed " + (ids.size() - failed) + " items, " + failed + " failed");
+        return failed;
+    }
+
+    // index the items on a pool of threads, returns how many failed
+    protected int indexItems(List<UUID> ids, final boolean force) throws InterruptedException {
+        return new BatchProcessor<UUID>("items", BATCH_SIZE, threads) {
+            @Override
+            protected int process(Context context, List<UUID> batch) throws Exception {
+                indexBatch(context, batch, force);
+                return 0;
+            }
+        }.run(ids);
+    }
+
+    // index a batch of items
+    protected void indexBatch(Context context, List<UUID> batch, boolean force) throws Exception {
+        context.turnOffAuthorisationSystem();
+        List<Item> items = itemService.findByIds(context, batch, FetchPlan.ITEM_LISTING);
+        writeAll(context, items, force);
+        written(items.size(), false);
+    }
+
+    /**
+     * Remove the documents of objects which are gone or should not be
+     * indexed any more, or all documents if forced.
+     */
+    @Override
+    public void cleanIndex(boolean force) throws IOException, SQLException, SearchServiceException {
+        if (force) {
+            getWriter().deleteAll();
+        } else {
+            Context context = new Context();
+            SearcherManager manager = getSearcherManager();
+            manager.maybeRefreshBlocking();
+            IndexSearcher searcher = manager.acquire();
+            try {
+                // there are few communities and collections, they are all looked up at once
+                Set<String> containers = new HashSet<String>();
+                for (DSpaceObject dso : communityService.findAll(context)) {
+                    containers.add(uniqueId(dso.getType(), dso.getID()).text());
+                }
+                for (DSpaceObject dso : collectionService.findAll(context)) {
+                    containers.add(uniqueId(dso.getType(), dso.getID()).text());
+                }
+
+                // the items a batch at a time
+                List<UUID> items = new ArrayList<UUID>(BATCH_SIZE);
+                IndexReader reader = searcher.getIndexReader();
+                Bits liveDocs = MultiFields.getLiveDocs(reader);
+                for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    Document document = reader.document(doc, KEY_FIELDS);
+                    if (Integer.parseInt(document.get(RESOURCE_TYPE)) == Constants.ITEM) {
+                        items.add(UUID.fromString(document.get(RESOURCE_ID)));
+                        if (items.size() == BATCH_SIZE) {
+                            cleanItems(context, items);
+                            items.clear();
+                        }
+                    } else if (!containers.contains(document.get(UNIQUE_ID))) {
+                        getWriter().deleteDocuments(new Term(UNIQUE_ID, document.get(UNIQUE_ID)));
+                    }
+                }
+                cleanItems(context, items);
+            } finally {
+                manager.release(searcher);
+                context.abort();
+            }
+        }
+        commit();
+    }
+
+    // remove the documents of the items which are gone or should not be indexed any more
+    protected void cleanItems(Context context, List<UUID> ids) throws SQLException, IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<UUID> indexable = new HashSet<UUID>();
+        for (Item item : itemService.findByIds(context, ids, null)) {
+            if (isIndexable(item)) {
+                indexable.add(item.getID());
+            }
+        }
+        for (UUID id : ids) {
+            if (!indexable.contains(id)) {
+                getWriter().deleteDocuments(uniqueId(Constants.ITEM, id));
+            }
+        }
+        // keep the session small
+        context.reset();
+    }
+
+    @Override
+    public void commit() throws SearchServiceException {
+        try {
+            doCommit();
+        } catch (IOException e) {
+            throw new SearchServiceException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void optimize() throws SearchServiceException {
+        try {
+            getWriter().forceMerge(1);
+            doCommit();
+        } catch (IOException e) {
+            throw new SearchServiceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Search the index, including the changes not committed yet.
+     *
+     * @param query a query in the syntax of the Lucene query parser, the
+     *              fields are those of the metadata, e.g. "dc.title:lucene"
+     * @param max   the number of objects to return at most
+     * @return the objects found, the best match first
+     */
+    public List<DSpaceObject> search(Context context, String query, int max)
+            throws SQLException, SearchServiceException {
+        try {
+            SearcherManager manager = getSearcherManager();
+            IndexSearcher searcher = manager.acquire();
+            try {
+                // the parser is not thread safe
+                QueryParser parser = new QueryParser(Version.LUCENE_44, DEFAULT_FIELD, analyzer);
+                TopDocs topDocs = searcher.search(parser.parse(query), max);
+                List<DSpaceObject> result = new ArrayList<DSpaceObject>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    DSpaceObject dso = find(context, searcher.doc(scoreDoc.doc, KEY_FIELDS));
+                    if (dso != null) {
+                        result.add(dso);
+                    }
+                }
+                return result;
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (ParseException e) {
+            throw new SearchServiceException("Invalid query: " + query, e);
+        } catch (IOException e) {
+            throw new SearchServiceException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Commit the pending changes and close the index.
+     */
+    public synchronized void shutdown() {
+        shutDown = true;
+        if (index == null) {
+            return;
+        }
+        scheduler.shutdown();
+        synchronized (commitLock) {
+            try {
+                index.searcherManager.close();
+                index.writer.commit();
+                index.writer.close();
+            } catch (IOException e) {
+                log.error("Failed closing the search index", e);
+            }
+            index = null;
+            scheduler = null;
+        }
+    }
+
+    // write the documents of several objects, looking up their handles at once
+    protected void writeAll(Context context, Collection<? extends DSpaceObject> dsos, boolean force)
+            throws SQLException, IOException {
+        List<UUID> ids = new ArrayList<UUID>(dsos.size());
+        for (DSpaceObject dso : dsos) {
+            ids.add(dso.getID());
+        }
+        Map<UUID, String> handles = handleService.findHandles(context, ids);
+        for (DSpaceObject dso : dsos) {
+            write(context, dso, handles.get(dso.getID()), force);
+        }
+    }
+
+    // add, replace or remove the document of an object, without committing it
+    protected void write(Context context, DSpaceObject dso, String handle, boolean force)
+            throws SQLException, IOException {
+        Term id = uniqueId(dso.getType(), dso.getID());
+        if (!isIndexable(dso)) {
+            getWriter().deleteDocuments(id);
+        } else if (force || !isUpToDate(dso)) {
+            getWriter().updateDocument(id, buildDocument(context, dso, handle));
+        }
+    }
+
+    protected boolean isIndexable(DSpaceObject dso) {
+        switch (dso.getType()) {
+            case Constants.ITEM:
+                Item item = (Item) dso;
+                return item.isArchived() && !item.isWithdrawn();
+            case Constants.COLLECTION:
+            case Constants.COMMUNITY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // whether the document of an item is from its last modification
+    protected boolean isUpToDate(DSpaceObject dso) throws IOException {
+        if (dso.getType() != Constants.ITEM || ((Item) dso).getLastModified() == null) {
+            return false;
+        }
+        SearcherManager manager = getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(new TermQuery(uniqueId(dso.getType(), dso.getID())), 1);
+            if (topDocs.scoreDocs.length == 0) {
+                return false;
+            }
+            IndexableField lastModified = searcher.doc(topDocs.scoreDocs[0].doc).getField(LAST_MODIFIED);
+            return lastModified != null
+                    && lastModified.numericValue().longValue() == ((Item) dso).getLastModified().getTime();
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    protected Document buildDocument(Context context, DSpaceObject dso, String handle) throws SQLException {
+        Document document = new Document();
+        document.add(new StringField(UNIQUE_ID, uniqueId(dso.getType(), dso.getID()).text(), Field.Store.YES));
+        document.add(new StringField(RESOURCE_TYPE, Integer.toString(dso.getType()), Field.Store.YES));
+        document.add(new StringField(RESOURCE_ID, dso.getID().toString(), Field.Store.YES));
+        if (handle != null) {
+            document.add(new StringField(HANDLE, handle, Field.Store.YES));
+        }
+        if (dso.getName() != null) {
+            document.add(new TextField(NAME, dso.getName(), Field.Store.YES));
+            document.add(new TextField(DEFAULT_FIELD, dso.getName(), Field.Store.NO));
+        }
+        if (dso.getType() == Constants.ITEM) {
+            Item item = (Item) dso;
+            if (item.getLastModified() != null) {
+                document.add(new LongField(LAST_MODIFIED, item.getLastModified().getTime(), Field.Store.YES));
+            }
+            for (MetadataValue value : itemService.getMetadata(item, Item.ANY, Item.ANY, Item.ANY, Item.ANY)) {
+                if (value.getValue() == null) {
+                    continue;
+                }
+                document.add(new TextField(fieldName(value.getMetadataField()), value.getValue(), Field.Store.YES));
+                document.add(new TextField(DEFAULT_FIELD, value.getValue(), Field.Store.NO));
+            }
+        }
+        return document;
+    }
+
+    // e.g. "dc.contributor.author"
+    protected String fieldName(MetadataField field) {
+        StringBuilder name = new StringBuilder(field.getMetadataSchema().getName())
+                .append('.').append(field.getElement());
+        if (field.getQualifier() != null) {
+            name.append('.').append(field.getQualifier());
+        }
+        return name.toString();
+    }
+
+    protected Term uniqueId(int type, UUID id) {
+        return new Term(UNIQUE_ID, type + "-" + id);
+    }
+
+    // the object of a document, or null if it is gone
+    protected DSpaceObject find(Context context, Document document) throws SQLException {
+        int type = Integer.parseInt(document.get(RESOURCE_TYPE));
+        UUID id = UUID.fromString(document.get(RESOURCE_ID));
+        return (DSpaceObject) ContentServiceFactory.getInstance().getDSpaceObjectService(type).find(context, id);
+    }
+
+    // count changes written, committing them when asked to or enough piled up
+    private void written(int count, boolean commit) throws IOException {
+        if (commit || uncommitted.addAndGet(count) >= commitCount) {
+            doCommit();
+        }
+    }
+
+    private void doCommit() throws IOException {
+        synchronized (commitLock) {
+            Index current = index;
+            if (current == null) {
+                return;
+            }
+            // changes made while committing count for the next commit
+            uncommitted.set(0);
+            current.writer.commit();
+            lastCommit = System.currentTimeMillis();
+            current.searcherManager.maybeRefresh();
+        }
+    }
+
+    // refresh the near real time reader, and commit if the time has come
+    private void refresh() {
+        try {
+            if (uncommitted.get() > 0 && System.currentTimeMillis() - lastCommit >= commitMillis) {
+                doCommit();
+            } else {
+                getSearcherManager().maybeRefresh();
+            }
+        } catch (Exception e) {
+            log.error("Failed refreshing the search index", e);
+        }
+    }
+
+    protected IndexWriter getWriter() throws IOException {
+        return getIndex().writer;
+    }
+
+    protected SearcherManager getSearcherManager() throws IOException {
+        return getIndex().searcherManager;
+    }
+
+    // the open index, a writer and searcher closed by a concurrent shutdown() fail as closed
+    private Index getIndex() throws IOException {
+        Index current = index;
+        return current != null ? current : open();
+    }
+
+    private synchronized Index open() throws IOException {
+        if (shutDown) {
+            throw new AlreadyClosedException("The search index in " + directory + " has been shut down");
+        }
+        if (index != null) {
+            return index;
+        }
+        IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_44, analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        IndexWriter indexWriter = new IndexWriter(FSDirectory.open(new File(directory)), config);
+        index = new Index(indexWriter, new SearcherManager(indexWriter, true, null));
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "lucene-index-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                refresh();
+            }
+        }, REFRESH_MILLIS, REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("Opened the search index in " + directory);
+        return index;
+    }
+
+    // the writer and its near real time searcher, which are opened and closed together
+    private static final class Index {
+        final IndexWriter writer;
+        final SearcherManager searcherManager;
+
+        Index(IndexWriter writer, SearcherManager searcherManager) {
+            this.writer = writer;
+            this.searcherManager = searcherManager;
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.apache.log4j.Logger;
 import org.dspace.content.DCDate;
 import org.dspace.content.DSpaceObject;
 import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.BatchProcessor;
 import org.dspace.core.Constants;
 import org.dspace.core.Context;
 import org.dspace.embargo.factory.EmbargoServiceFactory;
@@ -12,8 +15,11 @@ import org.dspace.embargo.service.EmbargoService;
 import org.dspace.handle.factory.HandleServiceFactory;
 import org.dspace.handle.service.HandleService;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -25,6 +31,10 @@ public class EmbargoCLITool {
     private static final Logger log = Logger.getLogger(EmbargoCLITool.class);
     protected static final HandleService HANDLE_SERVICE = HandleServiceFactory.getInstance().getHandleService();
     protected static final EmbargoService EMBARGO_SERVICE = EmbargoServiceFactory.getInstance().getEmbargoService();
+    protected static final ItemService ITEM_SERVICE = ContentServiceFactory.getInstance().getItemService();
+
+    /** The number of items lifted in one context, and committed together */
+    protected static final int BATCH_SIZE = 100;
 
     /**
      * Command-line service to scan for every Item with an expired embargo,
@@ -51,7 +61,18 @@ public class EmbargoCLITool {
      *                      embargoed Item found.</dd>
      *   <dt>-q,--quiet</dt>
      *   <dd>         No output except upon error.</dd>
+     *   <dt>-r,--rebuild</dt>
+     *   <dd>         Rebuild the lift date index from the metadata of every
+     *                      embargoed Item first.</dd>
+     *   <dt>-t,--threads</dt>
+     *   <dd>         The number of threads lifting embargoes (default 4).</dd>
      * </dl>
+     * The Items due to be lifted are found in the lift date index, and
+     * lifted in batches on several threads.  The index is kept up to date
+     * by the EmbargoService, after an upgrade or outside edits of the lift
+     * date metadata it is brought up to date with --rebuild.  While the
+     * index is empty but some Items have a lift date, the job warns and
+     * scans the metadata instead.
      */
     public static void main(String argv[])
     {
@@ -73,6 +94,10 @@ public class EmbargoCLITool {
 
         options.addOption("a", "adjust", false,
                 "Function: Adjust bitstreams policies");
+        options.addOption("r", "rebuild", false,
+                "Rebuild the lift date index from the metadata of every embargoed Item first.");
+        options.addOption("t", "threads", true,
+                "The number of threads lifting embargoes (default 4).");
 
         options.addOption("h", "help", false, "help");
         CommandLine line = null;
@@ -132,8 +157,9 @@ public class EmbargoCLITool {
                     }
                 }
             }
-            else
+            else if (line.hasOption('a'))
             {
+                // adjusting needs every embargoed item, whether due or not
                 Iterator<Item> ii = EMBARGO_SERVICE.findItemsWithEmbargo(context);
                 while (ii.hasNext())
                 {
@@ -143,6 +169,60 @@ public class EmbargoCLITool {
                     }
                 }
             }
+            else
+            {
+                List<UUID> due;
+                List<UUID> underEmbargo = null;
+                if (line.hasOption('r'))
+                {
+                    rebuildIndex(context);
+                    due = EMBARGO_SERVICE.findItemsToLift(context, now);
+                }
+                else if (isIndexMissing(context))
+                {
+                    String message = "The embargo lift date index is empty although some Items have a lift date,"
+                            + " scanning their metadata instead.  Run once with --rebuild to fill the index.";
+                    log.warn(message);
+                    if (!line.hasOption('q'))
+                    {
+                        System.err.println("WARNING: " + message);
+                    }
+                    due = new ArrayList<UUID>();
+                    underEmbargo = new ArrayList<UUID>();
+                    scanLiftDates(context, now, due, underEmbargo);
+                }
+                else
+                {
+                    due = EMBARGO_SERVICE.findItemsToLift(context, now);
+                }
+                if (line.hasOption('c'))
+                {
+                    // nothing is lifted, only reported
+                    if (processItems(context, due, line, now))
+                    {
+                        status = 1;
+                    }
+                }
+                else
+                {
+                    int threads = line.hasOption('t') ? Integer.parseInt(line.getOptionValue('t')) : 4;
+                    if (liftInParallel(due, line, now, threads))
+                    {
+                        status = 1;
+                    }
+                }
+                if (!line.hasOption('l'))
+                {
+                    if (underEmbargo == null)
+                    {
+                        underEmbargo = EMBARGO_SERVICE.findItemsUnderEmbargo(context, now);
+                    }
+                    if (processItems(context, underEmbargo, line, now))
+                    {
+                        status = 1;
+                    }
+                }
+            }
             context.complete();
             context = null;
         }
@@ -168,6 +248,91 @@ public class EmbargoCLITool {
         System.exit(status);
     }
 
+    // bring the lift date index up to date with the metadata of every embargoed Item
+    protected static void rebuildIndex(Context context)
+        throws Exception
+    {
+        int count = 0;
+        Iterator<Item> ii = EMBARGO_SERVICE.findItemsWithEmbargo(context);
+        while (ii.hasNext())
+        {
+            EMBARGO_SERVICE.updateEmbargoIndex(context, ii.next());
+            if (++count % BATCH_SIZE == 0)
+            {
+                context.commit();
+            }
+        }
+        context.commit();
+        log.info("Rebuilt the embargo lift date index of " + count + " items");
+    }
+
+    // whether the lift date index is empty while some Items have a lift date,
+    // e.g. after an upgrade whose --rebuild has not run yet
+    protected static boolean isIndexMissing(Context context)
+        throws Exception
+    {
+        return EMBARGO_SERVICE.isEmbargoIndexEmpty(context)
+                && EMBARGO_SERVICE.findItemsWithEmbargo(context).hasNext();
+    }
+
+    // sort the Items with a lift date into the due ones and the ones still under
+    // embargo by scanning their metadata, as the index would
+    protected static void scanLiftDates(Context context, Date now, List<UUID> due, List<UUID> underEmbargo)
+        throws Exception
+    {
+        Iterator<Item> ii = EMBARGO_SERVICE.findItemsWithEmbargo(context);
+        while (ii.hasNext())
+        {
+            Item item = ii.next();
+            DCDate liftDate = EMBARGO_SERVICE.getActualEmbargoLiftDate(item);
+            if (liftDate == null || liftDate.toDate() == null)
+            {
+                continue;
+            }
+            if (liftDate.toDate().after(now))
+            {
+                underEmbargo.add(item.getID());
+            }
+            else
+            {
+                due.add(item.getID());
+            }
+        }
+    }
+
+    // process the Items with the given ids one by one in the given context
+    protected static boolean processItems(Context context, List<UUID> itemIds, CommandLine line, Date now)
+        throws Exception
+    {
+        boolean status = false;
+        for (UUID id : itemIds)
+        {
+            Item item = ITEM_SERVICE.find(context, id);
+            if (item != null && processOneItem(context, item, line, now))
+            {
+                status = true;
+            }
+        }
+        return status;
+    }
+
+    // lift the embargoes of the Items with the given ids, in batches on several threads
+    // return false on success, true if there was a fatal exception.
+    protected static boolean liftInParallel(List<UUID> itemIds, final CommandLine line, final Date now, int threads)
+        throws InterruptedException
+    {
+        return new BatchProcessor<UUID>("embargoed items", BATCH_SIZE, threads)
+        {
+            @Override
+            protected int process(Context context, List<UUID> batch) throws Exception
+            {
+                context.setIgnoreAuthorization(true);
+                // processItems only tells whether some Item failed
+                return processItems(context, batch, line, now) ? 1 : 0;
+            }
+        }.run(itemIds) > 0;
+    }
+
     // lift or check embargo on one Item, handle exceptions
     // return false on success, true if there was fatal exception.
     protected static boolean processOneItem(Context context, Item item, CommandLine line, Date now)
@@ -222,6 +387,11 @@ public class EmbargoCLITool {
                 status = true;
             }
         }
+        else if (!line.hasOption('n') && !line.hasOption('c'))
+        {
+            // the lift date metadata is gone, so should the item be from the index
+            EMBARGO_SERVICE.updateEmbargoIndex(context, item);
+        }
         return status;
     }
 
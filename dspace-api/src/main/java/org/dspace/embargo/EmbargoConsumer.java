@@ -0,0 +1,102 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.embargo;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.log4j.Logger;
+import org.dspace.content.Item;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.embargo.factory.EmbargoServiceFactory;
+import org.dspace.embargo.service.EmbargoService;
+import org.dspace.event.Consumer;
+import org.dspace.event.Event;
+
+/**
+ * Keeps the embargo lift date index in step with edits of the lift date
+ * metadata which do not go through the EmbargoService, e.g. by the
+ * metadata editor or an import.
+ */
+public class EmbargoConsumer implements Consumer
+{
+    /** log4j logger */
+    private static Logger log = Logger.getLogger(EmbargoConsumer.class);
+
+    private ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+    private EmbargoService embargoService = EmbargoServiceFactory.getInstance().getEmbargoService();
+
+    /** Items modified or deleted since the last end(), each is only looked at once */
+    private Set<UUID> itemsToUpdate = new HashSet<UUID>();
+    private Set<UUID> itemsToRemove = new HashSet<UUID>();
+
+    public void initialize()
+        throws Exception
+    {
+
+    }
+
+    public void consume(Context context, Event event)
+        throws Exception
+    {
+        if (event.getSubjectType() != Constants.ITEM)
+        {
+            return;
+        }
+        UUID id = event.getSubjectID();
+        if (event.getEventType() == Event.DELETE)
+        {
+            itemsToUpdate.remove(id);
+            itemsToRemove.add(id);
+        }
+        else
+        {
+            itemsToUpdate.add(id);
+        }
+    }
+
+    public void end(Context ctx)
+        throws Exception
+    {
+        try
+        {
+            for (UUID id : itemsToUpdate)
+            {
+                Item item = itemService.find(ctx, id);
+                if (item != null)
+                {
+                    embargoService.updateEmbargoIndex(ctx, item);
+                }
+            }
+            for (UUID id : itemsToRemove)
+            {
+                embargoService.removeFromEmbargoIndex(ctx, id);
+            }
+            if (!itemsToUpdate.isEmpty() || !itemsToRemove.isEmpty())
+            {
+                log.debug("Updated the embargo lift dates of " + itemsToUpdate.size() + " items, removed "
+                        + itemsToRemove.size());
+                ctx.commitNoEventDispatching();
+            }
+        }
+        finally
+        {
+            itemsToUpdate.clear();
+            itemsToRemove.clear();
+        }
+    }
+
+    public void finish(Context ctx)
+    {
+
+    }
+}
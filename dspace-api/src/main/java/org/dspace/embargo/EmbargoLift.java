@@ -0,0 +1,50 @@
+package org.dspace.embargo;
+
+import org.dspace.content.Item;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * The lift date of an embargoed item, kept as a timestamp so the items
+ * due to be lifted can be found with an index range scan instead of by
+ * parsing the lift date metadata of every embargoed item.
+ * <p>
+ * The metadata stays authoritative: the EmbargoService keeps this table
+ * in step with it, see {@link org.dspace.embargo.service.EmbargoService#updateEmbargoIndex}.
+ */
+@Entity
+@Table(name="embargo_lift", schema = "public",
+        indexes = {@Index(name = "embargo_lift_date_idx", columnList = "lift_date")})
+public class EmbargoLift implements Serializable {
+
+    @Id
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name="item_id", nullable = false, referencedColumnName = "uuid")
+    private Item item;
+
+    @Column(name = "lift_date", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date liftDate;
+
+    protected EmbargoLift() {
+    }
+
+    EmbargoLift(Item item, Date liftDate) {
+        this.item = item;
+        this.liftDate = liftDate;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public Date getLiftDate() {
+        return liftDate;
+    }
+
+    void setLiftDate(Date liftDate) {
+        this.liftDate = liftDate;
+    }
+}
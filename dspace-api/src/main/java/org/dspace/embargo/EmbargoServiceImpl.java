@@ -12,6 +12,7 @@ import java.sql.SQLException;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.log4j.Logger;
 import org.dspace.authorize.AuthorizeException;
@@ -20,6 +21,7 @@ import org.dspace.content.service.ItemService;
 import org.dspace.core.ConfigurationManager;
 import org.dspace.core.Context;
 import org.dspace.core.PluginManager;
+import org.dspace.embargo.dao.EmbargoLiftDAO;
 import org.dspace.embargo.service.EmbargoService;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -70,7 +72,10 @@ public class EmbargoServiceImpl implements EmbargoService
 
     @Autowired(required = true)
     protected ItemService itemService;
-    
+
+    @Autowired(required = true)
+    protected EmbargoLiftDAO embargoLiftDAO;
+
 
     protected void init() {
         if (terms_schema == null)
@@ -131,6 +136,7 @@ public class EmbargoServiceImpl implements EmbargoService
             context.setIgnoreAuthorization(true);
             itemService.clearMetadata(context, item, lift_schema, lift_element, lift_qualifier, Item.ANY);
             itemService.addMetadata(context, item, lift_schema, lift_element, lift_qualifier, null, slift);
+            updateEmbargoIndex(context, item, myLift.toDate());
             log.info("Set embargo on Item "+item.getHandle(context)+", expires on: "+slift);
 
             setter.setEmbargo(context, item);
@@ -214,6 +220,7 @@ public class EmbargoServiceImpl implements EmbargoService
        // new version of Embargo policies remain in place.
         //lifter.liftEmbargo(context, item);
         itemService.clearMetadata(context, item, lift_schema, lift_element, lift_qualifier, Item.ANY);
+        embargoLiftDAO.deleteByItem(context, item.getID());
 
         // set the dc.date.available value to right now
         itemService.clearMetadata(context, item, MetadataSchema.DC_SCHEMA, "date", "available", Item.ANY);
@@ -280,6 +287,59 @@ public class EmbargoServiceImpl implements EmbargoService
         return itemService.findByMetadataField(context, lift_schema, lift_element, lift_qualifier, Item.ANY);
     }
 
+    @Override
+    public List<UUID> findItemsToLift(Context context, Date date) throws SQLException
+    {
+        return embargoLiftDAO.findItemsLiftedBy(context, date);
+    }
+
+    @Override
+    public List<UUID> findItemsUnderEmbargo(Context context, Date date) throws SQLException
+    {
+        return embargoLiftDAO.findItemsLiftedAfter(context, date);
+    }
+
+    @Override
+    public boolean isEmbargoIndexEmpty(Context context) throws SQLException
+    {
+        return embargoLiftDAO.countRows(context) == 0;
+    }
+
+    @Override
+    public void updateEmbargoIndex(Context context, Item item) throws SQLException
+    {
+        DCDate lift = getActualEmbargoLiftDate(item);
+        updateEmbargoIndex(context, item, lift == null ? null : lift.toDate());
+    }
+
+    @Override
+    public void removeFromEmbargoIndex(Context context, UUID itemId) throws SQLException
+    {
+        embargoLiftDAO.deleteByItem(context, itemId);
+    }
+
+    // store the lift date of an item in the index, or drop the item from it if the date is null
+    protected void updateEmbargoIndex(Context context, Item item, Date liftDate) throws SQLException
+    {
+        EmbargoLift embargoLift = embargoLiftDAO.findByItem(context, item);
+        if (liftDate == null)
+        {
+            if (embargoLift != null)
+            {
+                embargoLiftDAO.delete(context, embargoLift);
+            }
+        }
+        else if (embargoLift == null)
+        {
+            embargoLiftDAO.create(context, new EmbargoLift(item, liftDate));
+        }
+        else if (embargoLift.getLiftDate().getTime() != liftDate.getTime())
+        {
+            embargoLift.setLiftDate(liftDate);
+            embargoLiftDAO.save(context, embargoLift);
+        }
+    }
+
     @Override
     public EmbargoSetter getSetter() {
         init();
@@ -0,0 +1,36 @@
+package org.dspace.embargo.dao;
+
+import org.dspace.content.Item;
+import org.dspace.core.Context;
+import org.dspace.dao.GenericDAO;
+import org.dspace.embargo.EmbargoLift;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Database Access Object interface class for the EmbargoLift object.
+ */
+public interface EmbargoLiftDAO extends GenericDAO<EmbargoLift> {
+
+    public EmbargoLift findByItem(Context context, Item item) throws SQLException;
+
+    /**
+     * @return the ids of the items whose embargo is lifted on or before the date, the earliest first
+     */
+    public List<UUID> findItemsLiftedBy(Context context, Date date) throws SQLException;
+
+    /**
+     * @return the ids of the items whose embargo is lifted after the date, the earliest first
+     */
+    public List<UUID> findItemsLiftedAfter(Context context, Date date) throws SQLException;
+
+    /**
+     * @return the number of items in the table
+     */
+    public int countRows(Context context) throws SQLException;
+
+    public void deleteByItem(Context context, UUID itemId) throws SQLException;
+}
@@ -0,0 +1,54 @@
+package org.dspace.embargo.dao.impl;
+
+import org.dspace.content.Item;
+import org.dspace.core.AbstractHibernateDAO;
+import org.dspace.core.Context;
+import org.dspace.embargo.EmbargoLift;
+import org.dspace.embargo.dao.EmbargoLiftDAO;
+import org.hibernate.Criteria;
+import org.hibernate.Query;
+import org.hibernate.criterion.Restrictions;
+
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hibernate implementation of the Database Access Object interface class for the EmbargoLift object.
+ */
+public class EmbargoLiftDAOImpl extends AbstractHibernateDAO<EmbargoLift> implements EmbargoLiftDAO {
+
+    @Override
+    public EmbargoLift findByItem(Context context, Item item) throws SQLException {
+        Criteria criteria = createCriteria(context, EmbargoLift.class);
+        criteria.add(Restrictions.eq("item", item));
+        return uniqueResult(context, "findByItem", criteria);
+    }
+
+    @Override
+    public List<UUID> findItemsLiftedBy(Context context, Date date) throws SQLException {
+        Query query = createQuery(context, "SELECT el.item.id FROM EmbargoLift el WHERE el.liftDate <= :date ORDER BY el.liftDate");
+        query.setTimestamp("date", date);
+        return this.<UUID>listValues(context, "findItemsLiftedBy", query);
+    }
+
+    @Override
+    public List<UUID> findItemsLiftedAfter(Context context, Date date) throws SQLException {
+        Query query = createQuery(context, "SELECT el.item.id FROM EmbargoLift el WHERE el.liftDate > :date ORDER BY el.liftDate");
+        query.setTimestamp("date", date);
+        return this.<UUID>listValues(context, "findItemsLiftedAfter", query);
+    }
+
+    @Override
+    public int countRows(Context context) throws SQLException {
+        return count(context, "countRows", createCriteria(context, EmbargoLift.class));
+    }
+
+    @Override
+    public void deleteByItem(Context context, UUID itemId) throws SQLException {
+        Query query = createQuery(context, "DELETE FROM EmbargoLift WHERE item.id = :item_id");
+        query.setParameter("item_id", itemId);
+        executeUpdate(context, "deleteByItem", query);
+    }
+}
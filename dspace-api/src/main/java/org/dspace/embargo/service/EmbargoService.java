@@ -8,7 +8,10 @@ import org.dspace.embargo.EmbargoSetter;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -27,5 +30,39 @@ public interface EmbargoService {
 
     public DCDate getActualEmbargoLiftDate(Item item);
 
+    /**
+     * Find the items which carry the lift date metadata field, by scanning
+     * the metadata.  The lift job uses the lift date index instead.
+     */
     public Iterator<Item> findItemsWithEmbargo(Context context) throws SQLException, AuthorizeException;
+
+    /**
+     * @return the ids of the items in the lift date index whose embargo is
+     *         lifted on or before the date, the earliest first
+     */
+    public List<UUID> findItemsToLift(Context context, Date date) throws SQLException;
+
+    /**
+     * @return the ids of the items in the lift date index whose embargo is
+     *         lifted after the date, the earliest first
+     */
+    public List<UUID> findItemsUnderEmbargo(Context context, Date date) throws SQLException;
+
+    /**
+     * @return whether the lift date index holds no item at all, e.g. right
+     *         after the upgrade which added it
+     */
+    public boolean isEmbargoIndexEmpty(Context context) throws SQLException;
+
+    /**
+     * Brings the lift date index up to date with the lift date metadata of
+     * the item.  setEmbargo and liftEmbargo do so themselves, this is for
+     * other edits of the metadata.
+     */
+    public void updateEmbargoIndex(Context context, Item item) throws SQLException;
+
+    /**
+     * Drops a deleted item from the lift date index.
+     */
+    public void removeFromEmbargoIndex(Context context, UUID itemId) throws SQLException;
 }
@@ -61,8 +61,10 @@ public class EPerson extends DSpaceObject {
     @Column(name="phone", length = 32)
     private String phone;
 
-    @Transient
-    private EPersonService ePersonService = EPersonServiceFactory.getInstance().getEPersonService();
+    /** Looked up when used, like those of {@link org.dspace.content.Item} */
+    private static EPersonService getEPersonService() {
+        return EPersonServiceFactory.getInstance().getEPersonService();
+    }
 
 
     @ManyToMany(fetch = FetchType.LAZY, mappedBy = "epeople")
@@ -428,13 +430,13 @@ public class EPerson extends DSpaceObject {
         return groups;
     }
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
     */
 
     @Override
     public String getName()
     {
-        return ePersonService.getName(this);
+        return getEPersonService().getName(this);
     }
 }
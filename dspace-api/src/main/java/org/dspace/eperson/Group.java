@@ -66,8 +66,10 @@ public class Group extends DSpaceObject {
     private List<Group> parentGroups = new ArrayList<Group>();
 
 
-    @Transient
-    private GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
+    /** Looked up when used, like those of {@link org.dspace.content.Item} */
+    private static GroupService getGroupService() {
+        return EPersonServiceFactory.getInstance().getGroupService();
+    }
 
     public Group() {
     }
@@ -218,7 +220,7 @@ public class Group extends DSpaceObject {
     }
 
 
-    /*
+    /**
         Getters & setters which should be removed on the long run, they are just here to provide all getters & setters to the item object
     */
 
@@ -227,7 +229,7 @@ public class Group extends DSpaceObject {
     @Override
     public String getName()
     {
-        return groupService.getName(this);
+        return getGroupService().getName(this);
     }
 
     public boolean isGroupsChanged() {
@@ -686,20 +686,23 @@ public class GroupServiceImpl extends DSpaceObjectServiceImpl<Group> implements
         group2GroupCacheDAO.deleteAll(context);
 
         // write out new one
+        List<Group2GroupCache> group2GroupCaches = new ArrayList<Group2GroupCache>();
         for (Map.Entry<Group, Set<Group>> parent : parents.entrySet())
         {
             Group key  = parent.getKey();
 
             for (Group child : parent.getValue())
             {
-                Group2GroupCache group2GroupCache = group2GroupCacheDAO.create(context, new Group2GroupCache());
+                Group2GroupCache group2GroupCache = new Group2GroupCache();
 
                 group2GroupCache.setParent(key);
                 group2GroupCache.setChild(child);
 
-                group2GroupCacheDAO.save(context, group2GroupCache);
+                group2GroupCaches.add(group2GroupCache);
             }
         }
+        // nothing uses the cache rows in this session, write them in batches and forget them
+        group2GroupCacheDAO.saveAll(context, group2GroupCaches, true);
 
     }
 }
\ No newline at end of file
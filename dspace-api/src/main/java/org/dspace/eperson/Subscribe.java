@@ -0,0 +1,399 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import org.apache.commons.cli.*;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+import org.dspace.authorize.factory.AuthorizeServiceFactory;
+import org.dspace.authorize.service.AuthorizeService;
+import org.dspace.content.Collection;
+import org.dspace.content.DCDate;
+import org.dspace.content.FetchPlan;
+import org.dspace.content.Item;
+import org.dspace.content.MetadataValue;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.ItemService;
+import org.dspace.content.service.SubscriptionService;
+import org.dspace.core.BatchProcessor;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.core.Email;
+import org.dspace.core.I18nUtil;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.EPersonService;
+import org.dspace.handle.factory.HandleServiceFactory;
+import org.dspace.handle.service.HandleService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the daily digest of the new items in the collections each e-person
+ * is subscribed to.
+ * <p>
+ * The work is done in a few set based steps rather than per subscription:
+ * the items archived in the window are found in one query grouped by
+ * collection, the text of each collection is rendered once per supported
+ * locale, and the subscribers of those collections are found in one join
+ * over the subscriptions.  The messages, one per e-person, are then put
+ * together from the rendered texts and sent on several threads.
+ */
+public class Subscribe
+{
+    private static final Logger log = Logger.getLogger(Subscribe.class);
+
+    protected static final SubscriptionService SUBSCRIPTION_SERVICE = ContentServiceFactory.getInstance().getSubscriptionService();
+    protected static final CollectionService COLLECTION_SERVICE = ContentServiceFactory.getInstance().getCollectionService();
+    protected static final ItemService ITEM_SERVICE = ContentServiceFactory.getInstance().getItemService();
+    protected static final EPersonService EPERSON_SERVICE = EPersonServiceFactory.getInstance().getEPersonService();
+    protected static final AuthorizeService AUTHORIZE_SERVICE = AuthorizeServiceFactory.getInstance().getAuthorizeService();
+    protected static final HandleService HANDLE_SERVICE = HandleServiceFactory.getInstance().getHandleService();
+
+    /** The number of e-persons sent their digest in one context */
+    protected static final int BATCH_SIZE = 100;
+
+    protected static final String SEPARATOR = "\n---------------------------------------\n";
+
+    /**
+     * Sends the digests of the items archived since yesterday midnight.
+     * <p>
+     * Options:
+     * <dl>
+     *   <dt>-t,--test</dt>
+     *   <dd>         Print the messages instead of sending them.</dd>
+     *   <dt>-p,--threads</dt>
+     *   <dd>         The number of threads sending messages (default 4).</dd>
+     *   <dt>-h,--help</dt>
+     *   <dd>         Help.</dd>
+     * </dl>
+     */
+    public static void main(String[] argv)
+    {
+        Options options = new Options();
+        options.addOption("t", "test", false, "Print the messages instead of sending them.");
+        options.addOption("p", "threads", true, "The number of threads sending messages (default 4).");
+        options.addOption("h", "help", false, "help");
+        CommandLine line = null;
+        try
+        {
+            line = new PosixParser().parse(options, argv);
+        }
+        catch (ParseException e)
+        {
+            System.err.println("Command error: " + e.getMessage());
+            new HelpFormatter().printHelp(Subscribe.class.getName(), options);
+            System.exit(1);
+        }
+
+        if (line.hasOption('h'))
+        {
+            new HelpFormatter().printHelp(Subscribe.class.getName(), options);
+            System.exit(0);
+        }
+
+        int threads = line.hasOption('p') ? Integer.parseInt(line.getOptionValue('p')) : 4;
+
+        Calendar midnight = Calendar.getInstance();
+        midnight.set(Calendar.HOUR_OF_DAY, 0);
+        midnight.set(Calendar.MINUTE, 0);
+        midnight.set(Calendar.SECOND, 0);
+        midnight.set(Calendar.MILLISECOND, 0);
+        Date until = midnight.getTime();
+        midnight.add(Calendar.DAY_OF_MONTH, -1);
+        Date from = midnight.getTime();
+
+        int status = 0;
+        Context context = null;
+        try
+        {
+            context = new Context();
+            if (processDaily(context, from, until, line.hasOption('t'), threads))
+            {
+                status = 1;
+            }
+            context.complete();
+            context = null;
+        }
+        catch (Exception e)
+        {
+            log.fatal(e);
+            System.err.println("ERROR, got exception: " + e);
+            status = 1;
+        }
+        finally
+        {
+            if (context != null)
+            {
+                context.abort();
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Sends the digests of the items archived in a window.  With the
+     * configuration <code>eperson.subscription.onlynew</code> only the
+     * items accessioned in the window are included, otherwise all those
+     * modified in it.  With <code>harvest.includerestricted.subscription</code>
+     * set to false the items anonymous users cannot read are left out, so
+     * the context must not be authenticated.
+     *
+     * @param context DSpace context
+     * @param from    the start of the window, inclusive
+     * @param until   the end of the window, exclusive
+     * @param test    print the messages instead of sending them
+     * @param threads the number of threads sending messages
+     * @return false on success, true if some messages failed
+     */
+    public static boolean processDaily(Context context, Date from, Date until, boolean test, int threads)
+        throws Exception
+    {
+        Map<UUID, List<UUID>> itemsByCollection = SUBSCRIPTION_SERVICE.findItemsInSubscribedCollections(context, from, until);
+        if (itemsByCollection.isEmpty())
+        {
+            log.info("No items in subscribed collections between " + from + " and " + until);
+            return false;
+        }
+
+        Map<Locale, Map<UUID, String>> texts = renderCollections(context, itemsByCollection, from, until);
+        if (texts.isEmpty())
+        {
+            log.info("No items to send to subscribers between " + from + " and " + until);
+            return false;
+        }
+
+        Map<UUID, List<UUID>> subscribers = SUBSCRIPTION_SERVICE.findSubscribersOfModifiedCollections(context, from, until);
+        log.info("Sending subscription digests of " + texts.get(I18nUtil.getDefaultLocale()).size()
+                + " collections to " + subscribers.size() + " subscribers");
+        return sendInParallel(subscribers, texts, test, threads);
+    }
+
+    // render the text of each collection with new items once for every supported locale
+    // and the default one, collections left without items are left out
+    protected static Map<Locale, Map<UUID, String>> renderCollections(Context context,
+            Map<UUID, List<UUID>> itemsByCollection, Date from, Date until)
+        throws Exception
+    {
+        boolean onlyNew = ConfigurationManager.getBooleanProperty("eperson.subscription.onlynew", false);
+        boolean includeRestricted = ConfigurationManager.getBooleanProperty("harvest.includerestricted.subscription", true);
+
+        // load every item once, in chunks with their metadata fetched, and resolve their handles at once
+        Set<UUID> ids = new LinkedHashSet<UUID>();
+        for (List<UUID> collectionItems : itemsByCollection.values())
+        {
+            ids.addAll(collectionItems);
+        }
+        List<UUID> idList = new ArrayList<UUID>(ids);
+        Map<UUID, Item> items = new HashMap<UUID, Item>();
+        for (Item item : ITEM_SERVICE.findByIds(context, idList, FetchPlan.ITEM_LISTING))
+        {
+            items.put(item.getID(), item);
+        }
+        Map<UUID, String> handles = HANDLE_SERVICE.findHandles(context, idList);
+
+        // the default locale need not be among the supported ones, but is the fallback
+        Set<Locale> locales = new LinkedHashSet<Locale>(Arrays.asList(I18nUtil.getSupportedLocales()));
+        locales.add(I18nUtil.getDefaultLocale());
+
+        Map<Locale, Map<UUID, String>> texts = new HashMap<Locale, Map<UUID, String>>();
+        for (Map.Entry<UUID, List<UUID>> entry : itemsByCollection.entrySet())
+        {
+            Collection collection = COLLECTION_SERVICE.find(context, entry.getKey());
+            List<Item> included = new ArrayList<Item>();
+            for (UUID id : entry.getValue())
+            {
+                Item item = items.get(id);
+                if (item != null
+                        && (!onlyNew || isAccessionedBetween(item, from, until))
+                        && (includeRestricted || AUTHORIZE_SERVICE.authorizeActionBoolean(context, item, Constants.READ)))
+                {
+                    included.add(item);
+                }
+            }
+            if (collection == null || included.isEmpty())
+            {
+                continue;
+            }
+            for (Locale locale : locales)
+            {
+                Map<UUID, String> localized = texts.get(locale);
+                if (localized == null)
+                {
+                    localized = new HashMap<UUID, String>();
+                    texts.put(locale, localized);
+                }
+                localized.put(collection.getID(), renderCollection(collection, included, handles, locale));
+            }
+        }
+        return texts;
+    }
+
+    protected static boolean isAccessionedBetween(Item item, Date from, Date until)
+    {
+        for (MetadataValue value : ITEM_SERVICE.getMetadata(item, "dc", "date", "accessioned", Item.ANY))
+        {
+            Date accessioned = new DCDate(value.getValue()).toDate();
+            if (accessioned != null && !accessioned.before(from) && accessioned.before(until))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static String renderCollection(Collection collection, List<Item> items, Map<UUID, String> handles,
+            Locale locale)
+        throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        text.append(I18nUtil.getMessage("org.dspace.eperson.Subscribe.new-items", locale)).append(" ")
+                .append(collection.getName()).append(": ").append(items.size()).append("\n\n");
+
+        for (Item item : items)
+        {
+            List<MetadataValue> titles = ITEM_SERVICE.getMetadata(item, "dc", "title", null, Item.ANY);
+            text.append("      ").append(I18nUtil.getMessage("org.dspace.eperson.Subscribe.title", locale)).append(" ");
+            text.append(titles.isEmpty() ? "Untitled" : titles.get(0).getValue());
+
+            String handle = handles.get(item.getID());
+            if (handle != null)
+            {
+                text.append("\n         ").append(I18nUtil.getMessage("org.dspace.eperson.Subscribe.id", locale))
+                        .append(" ").append(HANDLE_SERVICE.getCanonicalForm(handle));
+            }
+
+            List<MetadataValue> authors = ITEM_SERVICE.getMetadata(item, "dc", "contributor", Item.ANY, Item.ANY);
+            if (!authors.isEmpty())
+            {
+                text.append("\n    ").append(I18nUtil.getMessage("org.dspace.eperson.Subscribe.authors", locale))
+                        .append(" ").append(authors.get(0).getValue());
+                for (int i = 1; i < authors.size(); i++)
+                {
+                    text.append("\n             ").append(authors.get(i).getValue());
+                }
+            }
+            text.append("\n\n");
+        }
+        return text.toString();
+    }
+
+    // send the digests in batches of e-persons on several threads
+    // return false on success, true if some messages failed.
+    protected static boolean sendInParallel(final Map<UUID, List<UUID>> subscribers,
+            final Map<Locale, Map<UUID, String>> texts, final boolean test, int threads)
+        throws InterruptedException
+    {
+        final AtomicInteger sent = new AtomicInteger();
+        int failed = new BatchProcessor<UUID>("subscription digests", BATCH_SIZE, threads)
+        {
+            @Override
+            protected int process(Context context, List<UUID> batch) throws Exception
+            {
+                return sendBatch(context, batch, subscribers, texts, test, sent);
+            }
+        }.run(new ArrayList<UUID>(subscribers.keySet()));
+
+        log.info("Sent " + sent.get() + " subscription digests, " + failed + " failed");
+        return failed > 0;
+    }
+
+    // send the digests of a batch of e-persons,
+    // return the number of digests which failed.
+    protected static int sendBatch(Context context, List<UUID> batch, Map<UUID, List<UUID>> subscribers,
+            Map<Locale, Map<UUID, String>> texts, boolean test, AtomicInteger sent)
+        throws SQLException
+    {
+        int failed = 0;
+        for (UUID epersonId : batch)
+        {
+            EPerson eperson = EPERSON_SERVICE.find(context, epersonId);
+            if (eperson == null)
+            {
+                continue;
+            }
+            try
+            {
+                if (sendDigest(eperson, subscribers.get(epersonId), texts, test))
+                {
+                    sent.incrementAndGet();
+                }
+            }
+            catch (Exception e)
+            {
+                log.error("Failed sending the subscription digest to " + eperson.getEmail(), e);
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    // put the digest of one e-person together and send it,
+    // return whether there was anything to send.
+    protected static boolean sendDigest(EPerson eperson, List<UUID> collectionIds,
+            Map<Locale, Map<UUID, String>> texts, boolean test)
+        throws Exception
+    {
+        // an e-person without a language gets the default, without logging about it
+        Locale locale = StringUtils.isBlank(eperson.getLanguage()) ? I18nUtil.getDefaultLocale()
+                : I18nUtil.getEPersonLocale(eperson);
+        Map<UUID, String> localized = texts.get(locale);
+        if (localized == null)
+        {
+            localized = texts.get(I18nUtil.getDefaultLocale());
+        }
+
+        StringBuilder details = new StringBuilder();
+        for (UUID collectionId : collectionIds)
+        {
+            String text = localized.get(collectionId);
+            if (text != null)
+            {
+                if (details.length() > 0)
+                {
+                    details.append(SEPARATOR);
+                }
+                details.append(text);
+            }
+        }
+        if (details.length() == 0)
+        {
+            return false;
+        }
+
+        if (test)
+        {
+            synchronized (System.out)
+            {
+                System.out.println("To: " + eperson.getEmail());
+                System.out.println(details);
+            }
+        }
+        else
+        {
+            Email email = Email.getEmail(I18nUtil.getEmailFilename(locale, "subscription"));
+            email.addRecipient(eperson.getEmail());
+            email.addArgument(details.toString());
+            email.send();
+        }
+        return true;
+    }
+}
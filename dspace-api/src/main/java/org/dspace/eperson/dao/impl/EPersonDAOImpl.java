@@ -27,7 +27,7 @@ public class EPersonDAOImpl extends AbstractHibernateDAO<EPerson> implements EPe
         // All email addresses are stored as lowercase, so ensure that the email address is lowercased for the lookup
         Criteria criteria = createCriteria(context, EPerson.class);
         criteria.add(Restrictions.eq("email", email.toLowerCase()));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByEmail", criteria);
     }
 
 
@@ -36,7 +36,7 @@ public class EPersonDAOImpl extends AbstractHibernateDAO<EPerson> implements EPe
     {
         Criteria criteria = createCriteria(context, EPerson.class);
         criteria.add(Restrictions.eq("netid", netid));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByNetid", criteria);
     }
 
     @Override
@@ -57,7 +57,7 @@ public class EPersonDAOImpl extends AbstractHibernateDAO<EPerson> implements EPe
         {
             criteria.setMaxResults(limit);
         }
-        return list(criteria);
+        return list(context, "search", criteria);
     }
 
     @Override
@@ -68,14 +68,14 @@ public class EPersonDAOImpl extends AbstractHibernateDAO<EPerson> implements EPe
         Disjunction disjunction = addSearchCriteria(queryParam);
         criteria.add(disjunction);
 
-        return count(criteria);
+        return count(context, "searchResultCount", criteria);
     }
 
     @Override
     public List<EPerson> findAll(Context context, String sortField) throws SQLException {
         Criteria criteria = createCriteria(context, EPerson.class);
         criteria.addOrder(Order.asc(sortField));
-        return list(criteria);
+        return list(context, "findAll", criteria);
 
     }
 
@@ -89,7 +89,7 @@ public class EPersonDAOImpl extends AbstractHibernateDAO<EPerson> implements EPe
             orRestriction.add(Restrictions.eq("g.id", group.getID()));
         }
         criteria.add(orRestriction);
-        return list(criteria);
+        return list(context, "findByGroups", criteria);
     }
 
 
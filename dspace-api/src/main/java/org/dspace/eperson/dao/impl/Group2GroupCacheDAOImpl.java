@@ -24,7 +24,7 @@ public class Group2GroupCacheDAOImpl extends AbstractHibernateDAO<Group2GroupCac
     public List<Group2GroupCache> findByParent(Context context, Group group) throws SQLException {
         Criteria criteria = createCriteria(context, Group2GroupCache.class);
         criteria.add(Restrictions.eq("parent", group));
-        return list(criteria);
+        return list(context, "findByParent", criteria);
     }
 
     @Override
@@ -38,11 +38,11 @@ public class Group2GroupCacheDAOImpl extends AbstractHibernateDAO<Group2GroupCac
         }
 
         criteria.add(orDisjunction);
-        return list(criteria);
+        return list(context, "findByChildren", criteria);
     }
 
     @Override
     public void deleteAll(Context context) throws SQLException {
-        createQuery(context, "delete from Group2GroupCache").executeUpdate();
+        executeUpdate(context, "deleteAll", createQuery(context, "delete from Group2GroupCache"));
     }
 }
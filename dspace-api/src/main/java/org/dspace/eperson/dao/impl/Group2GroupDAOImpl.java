@@ -20,13 +20,13 @@ public class Group2GroupDAOImpl extends AbstractHibernateDAO<Group2Group> implem
     public void deleteByChild(Context context, Group child) throws SQLException {
         Query query = createQuery(context, "delete from Group2Group WHERE child=:child");
         query.setParameter("child", child);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByChild", query);
     }
 
     @Override
     public void deleteByParent(Context context, Group parent) throws SQLException {
         Query query = createQuery(context, "delete from Group2Group WHERE parent=:parent");
         query.setParameter("parent", parent);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByParent", query);
     }
 }
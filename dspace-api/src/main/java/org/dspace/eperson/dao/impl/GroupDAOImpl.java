@@ -29,7 +29,7 @@ public class GroupDAOImpl extends AbstractHibernateDAO<Group> implements GroupDA
         Criteria criteria = createCriteria(context, Group.class);
         criteria.add(Restrictions.eq("name", name));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByName", criteria);
     }
 
     @Override
@@ -38,14 +38,14 @@ public class GroupDAOImpl extends AbstractHibernateDAO<Group> implements GroupDA
         Criteria criteria = createCriteria(context, Group.class);
         criteria.addOrder(Order.asc(sortColumn));
 
-        return list(criteria);
+        return list(context, "findAll", criteria);
     }
 
     @Override
     public List<Group> findByEPerson(Context context, EPerson ePerson) throws SQLException {
         Query query = createQuery(context, "from Group where (from EPerson e where e.id = :eperson_id) in elements(epeople)");
         query.setParameter("eperson_id", ePerson.getID());
-        return list(query);
+        return list(context, "findByEPerson", query);
     }
 
     @Override
@@ -62,7 +62,7 @@ public class GroupDAOImpl extends AbstractHibernateDAO<Group> implements GroupDA
         {
             criteria.setMaxResults(limit);
         }
-        return list(criteria);
+        return list(context, "search", criteria);
     }
 
     @Override
@@ -71,7 +71,7 @@ public class GroupDAOImpl extends AbstractHibernateDAO<Group> implements GroupDA
         Disjunction disjunction = addSearchCriteria(query);
         criteria.add(disjunction);
 
-        return count(criteria);
+        return count(context, "searchResultCount", criteria);
     }
 
     protected Disjunction addSearchCriteria(String queryParam) {
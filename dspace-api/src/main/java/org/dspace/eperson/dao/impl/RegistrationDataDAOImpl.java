@@ -21,20 +21,20 @@ public class RegistrationDataDAOImpl extends AbstractHibernateDAO<RegistrationDa
     public RegistrationData findByEmail(Context context, String email) throws SQLException {
         Criteria criteria = createCriteria(context, RegistrationData.class);
         criteria.add(Restrictions.eq("email", email));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByEmail", criteria);
     }
 
     @Override
     public RegistrationData findByToken(Context context, String token) throws SQLException {
         Criteria criteria = createCriteria(context, RegistrationData.class);
         criteria.add(Restrictions.eq("token", token));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByToken", criteria);
     }
 
     @Override
     public void deleteByToken(Context context, String token) throws SQLException {
         String hql = "delete from RegistrationData where token=:token";
         Query query = createQuery(context, hql);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByToken", query);
     }
 }
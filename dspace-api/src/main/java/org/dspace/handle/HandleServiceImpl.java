@@ -9,8 +9,11 @@ package org.dspace.handle;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.log4j.Logger;
@@ -446,6 +449,27 @@ public class HandleServiceImpl implements HandleService
         }
     }
 
+    @Override
+    public Map<UUID, String> findHandles(Context context, List<UUID> ids) throws SQLException
+    {
+        Map<UUID, String> handles = new HashMap<UUID, String>();
+        for (int from = 0; from < ids.size(); from += 1000)
+        {
+            for (Object[] row : handleDAO.findHandlesByDSpaceObjectIds(context,
+                    ids.subList(from, Math.min(from + 1000, ids.size()))))
+            {
+                UUID id = (UUID) row[0];
+                String handle = (String) row[1];
+                // prefer a handle which does not look like a version, as findHandle does
+                if (!handles.containsKey(id) || !handle.matches(".*/.*\\.\\d+"))
+                {
+                    handles.put(id, handle);
+                }
+            }
+        }
+        return handles;
+    }
+
     /**
      * Return all the handles which start with prefix.
      *
@@ -7,6 +7,7 @@ import org.dspace.handle.Handle;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Created with IntelliJ IDEA.
@@ -22,4 +23,10 @@ public interface HandleDAO extends GenericDAO<Handle> {
     public Handle findByHandle(Context context, String handle)throws SQLException;
 
     public List<Handle> findByPrefix(Context context, String prefix) throws SQLException;
+
+    /**
+     * The handles of the objects with these ids, without loading the
+     * objects, as pairs of object id and handle, ordered by handle id.
+     */
+    public List<Object[]> findHandlesByDSpaceObjectIds(Context context, List<UUID> ids) throws SQLException;
 }
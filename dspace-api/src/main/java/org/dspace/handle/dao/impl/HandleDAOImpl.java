@@ -6,10 +6,12 @@ import org.dspace.core.AbstractHibernateDAO;
 import org.dspace.handle.Handle;
 import org.dspace.handle.dao.HandleDAO;
 import org.hibernate.Criteria;
+import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Created with IntelliJ IDEA.
@@ -27,20 +29,28 @@ public class HandleDAOImpl extends AbstractHibernateDAO<Handle> implements Handl
                 Restrictions.eq("resourceTypeId", type),
                 Restrictions.eq("dspaceObject", dso)
         ));
-        return list(criteria);
+        return list(context, "getHandlesByTypeAndDSpaceObject", criteria);
     }
 
     @Override
     public Handle findByHandle(Context context, String handle) throws SQLException {
         Criteria criteria = createCriteria(context, Handle.class);
         criteria.add(Restrictions.eq("handle", handle));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByHandle", criteria);
     }
 
     @Override
     public List<Handle> findByPrefix(Context context, String prefix) throws SQLException {
         Criteria criteria = createCriteria(context, Handle.class);
         criteria.add(Restrictions.like("handle", prefix + "%"));
-        return list(criteria);
+        return list(context, "findByPrefix", criteria);
+    }
+
+    @Override
+    public List<Object[]> findHandlesByDSpaceObjectIds(Context context, List<UUID> ids) throws SQLException {
+        Query query = createQuery(context, "SELECT h.dspaceObject.id, h.handle FROM Handle h"
+                + " WHERE h.dspaceObject.id IN (:ids) ORDER BY h.id");
+        query.setParameterList("ids", ids);
+        return this.<Object[]>listValues(context, "findHandlesByDSpaceObjectIds", query);
     }
 }
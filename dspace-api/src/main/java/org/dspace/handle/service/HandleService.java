@@ -6,6 +6,8 @@ import org.dspace.core.Context;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * User: kevin (kevin at atmire.com)
@@ -35,6 +37,15 @@ public interface HandleService {
 
     public String findHandle(Context context, DSpaceObject dso) throws SQLException;
 
+    /**
+     * The handles of several objects at once, as {@link #findHandle(Context, DSpaceObject)}
+     * would return them, in a query for every thousand objects.
+     *
+     * @param ids the ids of the objects, which need not be loaded
+     * @return the handles by object id, objects without one are left out
+     */
+    public Map<UUID, String> findHandles(Context context, List<UUID> ids) throws SQLException;
+
     public List<String> getHandlesForPrefix(Context context, String prefix) throws SQLException;
 
     public String getPrefix();
@@ -25,7 +25,7 @@ public class HarvestedCollectionDAOImpl extends AbstractHibernateDAO<HarvestedCo
 //      Old query: "select collection_id from harvested_collection where harvest_type > ? and harvest_status = ? order by last_harvested desc limit 1";
         Criteria criteria = getByStatusAndMinimalTypeCriteria(context, status, type, limit);
         criteria.addOrder(Order.desc("lastHarvested"));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByStatusAndMinimalTypeOrderByLastHarvestedDesc", criteria);
     }
 
     @Override
@@ -33,21 +33,21 @@ public class HarvestedCollectionDAOImpl extends AbstractHibernateDAO<HarvestedCo
 //        Old query: "select collection_id from harvested_collection where harvest_type > ? and harvest_status = ? order by last_harvested asc limit 1";
         Criteria criteria = getByStatusAndMinimalTypeCriteria(context, status, type, limit);
         criteria.addOrder(Order.asc("lastHarvested"));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByStatusAndMinimalTypeOrderByLastHarvestedAsc", criteria);
     }
 
     @Override
     public List<HarvestedCollection> findByStatus(Context context, int status) throws SQLException {
         Criteria criteria = createCriteria(context, HarvestedCollection.class);
         criteria.add(Restrictions.eq("harvestStatus", status));
-        return list(criteria);
+        return list(context, "findByStatus", criteria);
     }
 
     @Override
     public HarvestedCollection findByCollection(Context context, Collection collection) throws SQLException {
         Criteria criteria = createCriteria(context, HarvestedCollection.class);
         criteria.add(Restrictions.eq("collection", collection));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByCollection", criteria);
 
     }
 
@@ -81,7 +81,7 @@ public class HarvestedCollectionDAOImpl extends AbstractHibernateDAO<HarvestedCo
                 )
         );
         criteria.addOrder(Order.asc("lastHarvested"));
-        return list(criteria);
+        return list(context, "findByLastHarvestedAndHarvestTypeAndHarvestStatusesAndHarvestTime", criteria);
 
     }
 
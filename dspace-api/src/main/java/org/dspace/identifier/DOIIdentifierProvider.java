@@ -382,7 +382,7 @@ public class DOIIdentifierProvider
             throw new DOIIdentifierException("Unable to find DOI.",
                     DOIIdentifierException.DOI_DOES_NOT_EXIST);
         }
-        if (ObjectUtils.equals(doiRow.getDSpaceObject(), dso))
+        if (!ObjectUtils.equals(doiRow.getDSpaceObject(), dso))
         {
             log.error("Refuse to update metadata of DOI {} with the metadata of "
                             + " an object ({}/{}) the DOI is not dedicated to.",
@@ -9,6 +9,7 @@ import org.dspace.identifier.service.DOIService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.sql.SQLException;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -79,6 +80,11 @@ public class DOIServiceImpl implements DOIService {
         return doiDAO.findDOIByDSpaceObject(context, dso);
     }
 
+    @Override
+    public List<Integer> findIdsByStatus(Context context, List<Integer> statuses) throws SQLException {
+        return doiDAO.findIdsByStatus(context, statuses);
+    }
+
     @Override
     public String DOIFromExternalFormat(String identifier) throws DOIIdentifierException {
         Pattern pattern = Pattern.compile("^" + RESOLVER + "/+(10\\..*)$");
@@ -6,6 +6,7 @@ import org.dspace.dao.GenericDAO;
 import org.dspace.identifier.DOI;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Created by kevin on 01/05/14.
@@ -15,4 +16,6 @@ public interface DOIDAO extends GenericDAO<DOI>
     public DOI findByDoi(Context context, String doi) throws SQLException;
 
     public DOI findDOIByDSpaceObject(Context context, DSpaceObject dso) throws SQLException;
+
+    public List<Integer> findIdsByStatus(Context context, List<Integer> statuses) throws SQLException;
 }
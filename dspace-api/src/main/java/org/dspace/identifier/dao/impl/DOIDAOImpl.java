@@ -6,9 +6,11 @@ import org.dspace.core.AbstractHibernateDAO;
 import org.dspace.identifier.DOI;
 import org.dspace.identifier.dao.DOIDAO;
 import org.hibernate.Criteria;
+import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Created by kevin on 01/05/14.
@@ -18,7 +20,7 @@ public class DOIDAOImpl extends AbstractHibernateDAO<DOI> implements DOIDAO {
     public DOI findByDoi(Context context, String doi) throws SQLException {
         Criteria criteria = createCriteria(context, DOI.class);
         criteria.add(Restrictions.eq("doi", doi));
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByDoi", criteria);
     }
 
     @Override
@@ -38,6 +40,13 @@ public class DOIDAOImpl extends AbstractHibernateDAO<DOI> implements DOIDAO {
 
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findDOIByDSpaceObject", criteria);
+    }
+
+    @Override
+    public List<Integer> findIdsByStatus(Context context, List<Integer> statuses) throws SQLException {
+        Query query = createQuery(context, "SELECT d.id FROM DOI d WHERE d.status IN (:statuses) ORDER BY d.id");
+        query.setParameterList("statuses", statuses);
+        return listValues(context, "findIdsByStatus", query);
     }
 }
@@ -0,0 +1,364 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+
+package org.dspace.identifier.doi;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.dspace.core.BatchProcessor;
+import org.dspace.core.Context;
+import org.dspace.identifier.DOI;
+import org.dspace.identifier.DOIIdentifierProvider;
+import org.dspace.identifier.factory.IdentifierServiceFactory;
+import org.dspace.identifier.service.DOIService;
+import org.dspace.services.ConfigurationService;
+import org.dspace.utils.DSpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Works through the queue of DOIs waiting to be reserved, registered,
+ * updated or deleted at the registration agency.
+ *
+ * <p>The DOIs are handed out to several threads in batches, each batch is
+ * processed in a context of its own and every DOI is committed as soon as
+ * the registration agency accepted it.  Calls failing because the agency or
+ * the network had a problem are retried after a growing delay, the other
+ * failures are logged and the DOI is left in the queue.</p>
+ *
+ * <p>The number of threads should not exceed identifier.doi.http.maxconnections,
+ * the number of connections the {@link DataCiteConnector} keeps open.</p>
+ */
+public class DOIOrganiser
+{
+    private static final Logger log = LoggerFactory.getLogger(DOIOrganiser.class);
+
+    static final String CFG_RETRIES = "identifier.doi.retries";
+    static final String CFG_RETRY_DELAY = "identifier.doi.retry.delay";
+
+    /** The number of DOIs processed in one context */
+    protected static final int BATCH_SIZE = 100;
+
+    /**
+     * The operations of the queue, and the states of the DOIs waiting for them.
+     */
+    public enum Operation
+    {
+        RESERVE(DOI.TO_BE_RESERVERED)
+        {
+            @Override
+            void run(DOIIdentifierProvider provider, Context context, DOI doi) throws Exception
+            {
+                provider.reserveOnline(context, doi.getDSpaceObject(), DOIService.SCHEME + doi.getDoi());
+            }
+        },
+        REGISTER(DOI.TO_BE_REGISTERED)
+        {
+            @Override
+            void run(DOIIdentifierProvider provider, Context context, DOI doi) throws Exception
+            {
+                provider.registerOnline(context, doi.getDSpaceObject(), DOIService.SCHEME + doi.getDoi());
+            }
+        },
+        UPDATE(DOI.UPDATE_BEFORE_REGISTERATION, DOI.UPDATE_RESERVERED, DOI.UPDATE_REGISTERED)
+        {
+            @Override
+            void run(DOIIdentifierProvider provider, Context context, DOI doi) throws Exception
+            {
+                provider.updateMetadataOnline(context, doi.getDSpaceObject(), DOIService.SCHEME + doi.getDoi());
+            }
+        },
+        DELETE(DOI.TO_BE_DELETED)
+        {
+            @Override
+            void run(DOIIdentifierProvider provider, Context context, DOI doi) throws Exception
+            {
+                provider.deleteOnline(context, DOIService.SCHEME + doi.getDoi());
+            }
+        };
+
+        private final List<Integer> statuses;
+
+        Operation(Integer... statuses)
+        {
+            this.statuses = Arrays.asList(statuses);
+        }
+
+        public List<Integer> getStatuses()
+        {
+            return statuses;
+        }
+
+        abstract void run(DOIIdentifierProvider provider, Context context, DOI doi) throws Exception;
+    }
+
+    protected final DOIIdentifierProvider provider;
+    protected final DOIService doiService;
+    protected final int threads;
+    protected final int retries;
+    protected final long retryDelay;
+    protected final boolean quiet;
+
+    /**
+     * @param provider   the provider talking to the registration agency
+     * @param doiService the DOI service
+     * @param threads    the number of DOIs processed at once
+     * @param retries    how often a call failing for a temporary reason is retried
+     * @param retryDelay the delay before the first retry in milliseconds,
+     *                   it doubles with every further retry
+     * @param quiet      print nothing but errors
+     */
+    public DOIOrganiser(DOIIdentifierProvider provider, DOIService doiService,
+            int threads, int retries, long retryDelay, boolean quiet)
+    {
+        this.provider = provider;
+        this.doiService = doiService;
+        this.threads = Math.max(1, threads);
+        this.retries = Math.max(0, retries);
+        this.retryDelay = retryDelay;
+        this.quiet = quiet;
+    }
+
+    public static void main(String[] args)
+    {
+        Options options = new Options();
+        options.addOption("h", "help", false, "Help");
+        options.addOption("q", "quiet", false, "Print nothing but errors.");
+        options.addOption("s", "reserve-all", false,
+                "Reserve all DOIs marked as to be reserved.");
+        options.addOption("r", "register-all", false,
+                "Register all DOIs marked as to be registered.");
+        options.addOption("u", "update-all", false,
+                "Send the metadata of all DOIs marked as to be updated.");
+        options.addOption("d", "delete-all", false,
+                "Delete all DOIs marked as to be deleted.");
+        options.addOption("p", "threads", true,
+                "The number of DOIs processed at once (default 4).");
+
+        CommandLine line = null;
+        try
+        {
+            line = new PosixParser().parse(options, args);
+        }
+        catch (ParseException e)
+        {
+            System.err.println("Command error: " + e.getMessage());
+            new HelpFormatter().printHelp(DOIOrganiser.class.getName(), options);
+            System.exit(1);
+        }
+
+        if (line.hasOption('h') || line.getOptions().length == 0)
+        {
+            new HelpFormatter().printHelp(DOIOrganiser.class.getName(), options);
+            System.exit(0);
+        }
+
+        DSpace dspace = new DSpace();
+        ConfigurationService configurationService = dspace.getConfigurationService();
+        DOIIdentifierProvider provider = dspace.getServiceManager().getServiceByName(
+                DOIIdentifierProvider.class.getName(), DOIIdentifierProvider.class);
+        if (null == provider)
+        {
+            System.err.println("The DOIIdentifierProvider is not configured.");
+            System.exit(1);
+        }
+
+        DOIOrganiser organiser = new DOIOrganiser(provider,
+                IdentifierServiceFactory.getInstance().getDOIService(),
+                line.hasOption('p') ? Integer.parseInt(line.getOptionValue('p')) : 4,
+                configurationService.getPropertyAsType(CFG_RETRIES, 3),
+                configurationService.getPropertyAsType(CFG_RETRY_DELAY, 1000),
+                line.hasOption('q'));
+
+        int status = 0;
+        try
+        {
+            // the order matters: a DOI to be updated may be waiting for its
+            // registration, and it should be reserved before either
+            if (line.hasOption('s') && organiser.processQueue(Operation.RESERVE))
+            {
+                status = 1;
+            }
+            if (line.hasOption('r') && organiser.processQueue(Operation.REGISTER))
+            {
+                status = 1;
+            }
+            if (line.hasOption('u') && organiser.processQueue(Operation.UPDATE))
+            {
+                status = 1;
+            }
+            if (line.hasOption('d') && organiser.processQueue(Operation.DELETE))
+            {
+                status = 1;
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed processing the DOI queue", e);
+            System.err.println("ERROR, got exception: " + e);
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Run an operation for every DOI waiting for it.
+     *
+     * @return false on success, true if some DOIs failed
+     */
+    public boolean processQueue(final Operation operation)
+        throws Exception
+    {
+        List<Integer> ids;
+        Context context = new Context();
+        try
+        {
+            ids = doiService.findIdsByStatus(context, operation.getStatuses());
+        }
+        finally
+        {
+            context.abort();
+        }
+        if (!quiet)
+        {
+            System.out.println(operation + ": " + ids.size() + " DOIs");
+        }
+
+        final AtomicInteger done = new AtomicInteger();
+        int failed = new BatchProcessor<Integer>("DOIs", BATCH_SIZE, threads)
+        {
+            @Override
+            protected int process(Context context, List<Integer> batch) throws Exception
+            {
+                return processBatch(operation, context, batch, done);
+            }
+        }.run(ids);
+
+        log.info("{}: {} DOIs done, {} failed", new Object[] {operation, done.get(), failed});
+        if (!quiet)
+        {
+            System.out.println(operation + ": " + done.get() + " DOIs done, " + failed + " failed");
+        }
+        return failed > 0;
+    }
+
+    /**
+     * Run the operation for a batch of DOIs, committing every DOI the
+     * registration agency accepted.
+     *
+     * @return the number of DOIs which failed
+     */
+    protected int processBatch(Operation operation, Context context, List<Integer> batch, AtomicInteger done)
+        throws Exception
+    {
+        int failed = 0;
+        context.turnOffAuthorisationSystem();
+        for (Integer id : batch)
+        {
+            DOI doi = doiService.find(context, id);
+            // someone else may have dealt with it in the meantime
+            if (doi == null || !operation.getStatuses().contains(doi.getStatus()))
+            {
+                continue;
+            }
+            if (processWithRetries(operation, context, doi))
+            {
+                context.commit();
+                done.incrementAndGet();
+            }
+            else
+            {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Run the operation for one DOI, retrying it after a growing delay if it
+     * fails for a reason which may go away.  Whatever a failed attempt
+     * changed is rolled back, so the commit of the next DOI of the batch
+     * does not write it.
+     *
+     * @return whether the operation succeeded
+     */
+    protected boolean processWithRetries(Operation operation, Context context, DOI doi)
+        throws InterruptedException, SQLException
+    {
+        long delay = retryDelay;
+        for (int attempt = 0; ; attempt++)
+        {
+            try
+            {
+                operation.run(provider, context, doi);
+                return true;
+            }
+            catch (Exception e)
+            {
+                Integer id = doi.getId();
+                rollback(context);
+                if (attempt < retries && isTemporary(e))
+                {
+                    log.info("{} of DOI {} failed, retrying in {} ms: {}",
+                            new Object[] {operation, doi.getDoi(), delay, e.getMessage()});
+                    Thread.sleep(delay);
+                    delay *= 2;
+                    doi = doiService.find(context, id);
+                    // someone else may have dealt with it in the meantime
+                    if (doi == null || !operation.getStatuses().contains(doi.getStatus()))
+                    {
+                        return true;
+                    }
+                }
+                else
+                {
+                    log.error(operation + " of DOI " + doi.getDoi() + " failed", e);
+                    if (!quiet)
+                    {
+                        System.err.println(operation + " of DOI " + doi.getDoi() + " failed: " + e.getMessage());
+                    }
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Roll back the changes of a failed DOI and start over with a new
+     * session, whose objects are loaded again.
+     */
+    protected void rollback(Context context)
+    {
+        context.reset();
+        context.turnOffAuthorisationSystem();
+    }
+
+    /**
+     * Whether a failure may go away by itself: an internal error of the
+     * registration agency or a network problem, which the
+     * {@link DataCiteConnector} reports as a RuntimeException caused by an
+     * IOException.
+     */
+    protected boolean isTemporary(Exception e)
+    {
+        if (e instanceof DOIIdentifierException)
+        {
+            return ((DOIIdentifierException) e).getCode() == DOIIdentifierException.INTERNAL_ERROR;
+        }
+        return e instanceof RuntimeException && e.getCause() instanceof IOException;
+    }
+}
@@ -25,6 +25,10 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 import org.apache.http.util.EntityUtils;
 import org.dspace.authorize.AuthorizeException;
 import org.dspace.content.DSpaceObject;
@@ -61,6 +65,9 @@ implements DOIConnector
     // Configuration property names
     static final String CFG_USER = "identifier.doi.user";
     static final String CFG_PASSWORD = "identifier.doi.password";
+    static final String CFG_MAX_CONNECTIONS = "identifier.doi.http.maxconnections";
+    static final String CFG_CONNECT_TIMEOUT = "identifier.doi.http.connecttimeout";
+    static final String CFG_SOCKET_TIMEOUT = "identifier.doi.http.sockettimeout";
     
     /**
      * Stores the scheme used to connect to the DataCite server. It will be set
@@ -100,12 +107,20 @@ implements DOIConnector
     
     protected String USERNAME;
     protected String PASSWORD;
+
+    /**
+     * The HTTP client shared by all requests, so the connections to the
+     * DataCite server are kept alive and reused.  Its connections are pooled,
+     * so it may be used by several threads at once.  Created on first use.
+     */
+    protected DefaultHttpClient httpclient;
     
     public DataCiteConnector()
     {
         this.xwalk = null;
         this.USERNAME = null;
         this.PASSWORD = null;
+        this.httpclient = null;
     }
     
     /**
@@ -234,6 +249,52 @@ implements DOIConnector
         return this.PASSWORD;
     }
 
+
+    /**
+     * Get the shared HTTP client, creating it on first use.  The number of
+     * connections to the DataCite server is limited by
+     * identifier.doi.http.maxconnections (10 by default), the timeouts in
+     * milliseconds are identifier.doi.http.connecttimeout (10000 by default)
+     * and identifier.doi.http.sockettimeout (60000 by default).
+     */
+    protected synchronized DefaultHttpClient getHttpClient()
+    {
+        if (null == this.httpclient)
+        {
+            int maxConnections = this.configurationService.getPropertyAsType(CFG_MAX_CONNECTIONS, 10);
+            PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+            HttpParams params = new BasicHttpParams();
+            HttpConnectionParams.setConnectionTimeout(params,
+                    this.configurationService.getPropertyAsType(CFG_CONNECT_TIMEOUT, 10000));
+            HttpConnectionParams.setSoTimeout(params,
+                    this.configurationService.getPropertyAsType(CFG_SOCKET_TIMEOUT, 60000));
+            // a pooled connection the server closed in the meantime is not reused
+            HttpConnectionParams.setStaleCheckingEnabled(params, true);
+
+            DefaultHttpClient client = new DefaultHttpClient(connectionManager, params);
+            client.getCredentialsProvider().setCredentials(
+                    new AuthScope(HOST, 443),
+                    new UsernamePasswordCredentials(this.getUsername(), this.getPassword()));
+            this.httpclient = client;
+        }
+        return this.httpclient;
+    }
+
+    /**
+     * Close the pooled connections.  Used by spring as destroy method, the
+     * client is created again if the connector is used afterwards.
+     */
+    public synchronized void shutdown()
+    {
+        if (null != this.httpclient)
+        {
+            this.httpclient.getConnectionManager().shutdown();
+            this.httpclient = null;
+        }
+    }
     
     public boolean isDOIReserved(Context context, String doi)
             throws DOIIdentifierException, SQLException {
@@ -854,15 +915,10 @@ implements DOIConnector
     protected DataCiteResponse sendHttpRequest(HttpUriRequest req, String doi)
             throws DOIIdentifierException
     {
-        DefaultHttpClient httpclient = new DefaultHttpClient();
-        httpclient.getCredentialsProvider().setCredentials(
-                new AuthScope(HOST, 443),
-                new UsernamePasswordCredentials(this.getUsername(), this.getPassword()));
-        
         HttpEntity entity = null;
         try
         {
-            HttpResponse response = httpclient.execute(req);
+            HttpResponse response = getHttpClient().execute(req);
             
             StatusLine status = response.getStatusLine();
             int statusCode = status.getStatusCode();
@@ -961,7 +1017,8 @@ implements DOIConnector
         {
             try
             {
-                // Release any ressources used by HTTP-Request.
+                // Release any ressources used by HTTP-Request, this returns
+                // the connection to the pool.
                 if (null != entity)
                 {
                     EntityUtils.consume(entity);
@@ -8,6 +8,7 @@ import org.dspace.identifier.doi.DOIIdentifierException;
 import org.dspace.service.DSpaceCRUDService;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Created by kevin on 01/05/14.
@@ -23,6 +24,12 @@ public interface DOIService extends DSpaceCRUDService<DOI>{
 
     public DOI findDOIByDSpaceObject(Context context, DSpaceObject dso) throws SQLException;
 
+    /**
+     * Find the ids of the DOIs in one of the given states, to work through
+     * them in contexts of their own.
+     */
+    public List<Integer> findIdsByStatus(Context context, List<Integer> statuses) throws SQLException;
+
     public String DOIFromExternalFormat(String identifier) throws DOIIdentifierException;
 
     public String DOIToExternalForm(String identifier) throws IdentifierException;
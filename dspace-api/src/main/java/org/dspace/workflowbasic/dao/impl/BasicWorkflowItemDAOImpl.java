@@ -27,7 +27,7 @@ public class BasicWorkflowItemDAOImpl extends AbstractHibernateDAO<BasicWorkflow
         Criteria criteria = createCriteria(context, BasicWorkflowItem.class);
         criteria.add(Restrictions.eq("item", i));
         // Look for the unique WorkflowItem entry where 'item_id' references this item
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByItem", criteria);
     }
 
     @Override
@@ -35,7 +35,7 @@ public class BasicWorkflowItemDAOImpl extends AbstractHibernateDAO<BasicWorkflow
     {
         Criteria criteria = createCriteria(context, BasicWorkflowItem.class);
         criteria.add(Restrictions.eq("item.submitter", ep));
-        return list(criteria);
+        return list(context, "findBySubmitter", criteria);
 
     }
 
@@ -44,7 +44,7 @@ public class BasicWorkflowItemDAOImpl extends AbstractHibernateDAO<BasicWorkflow
     {
         Criteria criteria = createCriteria(context, BasicWorkflowItem.class);
         criteria.add(Restrictions.eq("collection", c));
-        return list(criteria);
+        return list(context, "findByCollection", criteria);
     }
 
     @Override
@@ -53,13 +53,13 @@ public class BasicWorkflowItemDAOImpl extends AbstractHibernateDAO<BasicWorkflow
         String queryString = "select BasicWorkflowItem from BasicWorkflowItem as wf join TaskListItem.eperson tli where tli.eperson = :eperson";
         Query query = createQuery(context, queryString);
         query.setParameter("eperson", ePerson);
-        return list(query);
+        return list(context, "findByPooledTasks", query);
     }
 
     @Override
     public List<BasicWorkflowItem> findByOwner(Context context, EPerson ePerson) throws SQLException {
         Criteria criteria = createCriteria(context, BasicWorkflowItem.class);
         criteria.add(Restrictions.eq("owner", ePerson));
-        return list(criteria);
+        return list(context, "findByOwner", criteria);
     }
 }
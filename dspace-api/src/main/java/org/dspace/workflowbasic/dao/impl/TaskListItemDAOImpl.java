@@ -26,13 +26,13 @@ public class TaskListItemDAOImpl extends AbstractHibernateDAO<TaskListItem> impl
         String queryString = "delete from TaskListItem where workflowItem = :workflowItem";
         Query query = createQuery(context, queryString);
         query.setParameter("workflowItem", workflowItem);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByWorkflowItem", query);
     }
 
     @Override
     public List<TaskListItem> findByEPerson(Context context, EPerson ePerson) throws SQLException {
         Criteria criteria = createCriteria(context, TaskListItem.class);
         criteria.add(Restrictions.eq("ePerson", ePerson));
-        return list(criteria);
+        return list(context, "findByEPerson", criteria);
     }
 }
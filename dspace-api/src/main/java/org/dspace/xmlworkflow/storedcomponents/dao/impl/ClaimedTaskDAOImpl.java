@@ -26,7 +26,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
         Criteria criteria = createCriteria(context, ClaimedTask.class);
         criteria.add(Restrictions.eq("workflowItem", workflowItem));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItem", criteria);
 
     }
 
@@ -38,7 +38,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
                 Restrictions.eq("owner", ePerson)
         ));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByWorkflowItemAndEPerson", criteria);
     }
 
     @Override
@@ -46,7 +46,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
         Criteria criteria = createCriteria(context, ClaimedTask.class);
         criteria.add(Restrictions.eq("owner", ePerson));
 
-        return list(criteria);
+        return list(context, "findByEperson", criteria);
     }
 
     @Override
@@ -57,7 +57,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
                 Restrictions.eq("stepId", stepID)
         ));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItemAndStepId", criteria);
     }
 
     @Override
@@ -70,7 +70,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
                 Restrictions.eq("actionId", actionID)
         ));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByEPersonAndWorkflowItemAndStepIdAndActionId", criteria);
     }
 
     @Override
@@ -82,7 +82,7 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
                 Restrictions.eq("actionId", actionID)
         ));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItemAndStepIdAndActionId", criteria);
     }
 
     @Override
@@ -90,6 +90,6 @@ public class ClaimedTaskDAOImpl extends AbstractHibernateDAO<ClaimedTask>  imple
         Criteria criteria = createCriteria(context, ClaimedTask.class);
         criteria.add(Restrictions.eq("stepId", stepID));
 
-        return list(criteria);
+        return list(context, "findByStep", criteria);
     }
 }
@@ -26,7 +26,7 @@ public class CollectionRoleDAOImpl extends AbstractHibernateDAO<CollectionRole>
         Criteria criteria = createCriteria(context, CollectionRole.class);
         criteria.add(Restrictions.eq("collection", collection));
 
-        return list(criteria);
+        return list(context, "findByCollection", criteria);
     }
 
     @Override
@@ -38,7 +38,7 @@ public class CollectionRoleDAOImpl extends AbstractHibernateDAO<CollectionRole>
             )
         );
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByCollectionAndRole", criteria);
 
     }
 
@@ -47,6 +47,6 @@ public class CollectionRoleDAOImpl extends AbstractHibernateDAO<CollectionRole>
         String hql = "delete from CollectionRole WHERE collection=:collection";
         Query query = createQuery(context, hql);
         query.setParameter("collection", collection);
-        query.executeUpdate();
+        executeUpdate(context, "deleteByCollection", query);
     }
 }
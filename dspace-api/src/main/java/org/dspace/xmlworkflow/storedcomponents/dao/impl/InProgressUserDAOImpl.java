@@ -28,7 +28,7 @@ public class InProgressUserDAOImpl extends AbstractHibernateDAO<InProgressUser>
                         Restrictions.eq("ePerson", ePerson)
                 )
         );
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByWorkflowItemAndEPerson", criteria);
     }
 
     @Override
@@ -36,7 +36,7 @@ public class InProgressUserDAOImpl extends AbstractHibernateDAO<InProgressUser>
         Criteria criteria = createCriteria(context, InProgressUser.class);
         criteria.add(Restrictions.eq("ePerson", ePerson));
 
-        return list(criteria);
+        return list(context, "findByEperson", criteria);
     }
 
     @Override
@@ -44,7 +44,7 @@ public class InProgressUserDAOImpl extends AbstractHibernateDAO<InProgressUser>
         Criteria criteria = createCriteria(context, InProgressUser.class);
         criteria.add(Restrictions.eq("workflowItem", workflowItem));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItem", criteria);
     }
 
     @Override
@@ -57,7 +57,7 @@ public class InProgressUserDAOImpl extends AbstractHibernateDAO<InProgressUser>
                 )
         );
 
-        return count(criteria);
+        return count(context, "countInProgressUsers", criteria);
     }
 
     @Override
@@ -69,6 +69,6 @@ public class InProgressUserDAOImpl extends AbstractHibernateDAO<InProgressUser>
                         Restrictions.eq("finished", true)
                 )
         );
-        return count(criteria);
+        return count(context, "countFinishedUsers", criteria);
     }
 }
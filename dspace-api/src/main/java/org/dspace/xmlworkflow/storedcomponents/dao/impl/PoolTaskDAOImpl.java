@@ -27,7 +27,7 @@ public class PoolTaskDAOImpl extends AbstractHibernateDAO<PoolTask> implements P
         Criteria criteria = createCriteria(context, PoolTask.class);
         criteria.add(Restrictions.eq("ePerson", ePerson));
 
-        return list(criteria);
+        return list(context, "findByEPerson", criteria);
     }
 
     @Override
@@ -35,7 +35,7 @@ public class PoolTaskDAOImpl extends AbstractHibernateDAO<PoolTask> implements P
         Criteria criteria = createCriteria(context, PoolTask.class);
         criteria.add(Restrictions.eq("group", group));
 
-        return list(criteria);
+        return list(context, "findByGroup", criteria);
     }
 
     @Override
@@ -43,7 +43,7 @@ public class PoolTaskDAOImpl extends AbstractHibernateDAO<PoolTask> implements P
         Criteria criteria = createCriteria(context, PoolTask.class);
         criteria.add(Restrictions.eq("workflowItem", workflowItem));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItem", criteria);
     }
 
     @Override
@@ -56,7 +56,7 @@ public class PoolTaskDAOImpl extends AbstractHibernateDAO<PoolTask> implements P
                 )
         );
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByWorkflowItemAndEPerson", criteria);
     }
 
     @Override
@@ -69,6 +69,6 @@ public class PoolTaskDAOImpl extends AbstractHibernateDAO<PoolTask> implements P
                 )
         );
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByWorkflowItemAndGroup", criteria);
     }
 }
@@ -30,7 +30,7 @@ public class WorkflowItemRoleDAOImpl extends AbstractHibernateDAO<WorkflowItemRo
             )
         );
 
-        return list(criteria);
+        return list(context, "findByWorkflowItemAndRole", criteria);
     }
 
     @Override
@@ -38,7 +38,7 @@ public class WorkflowItemRoleDAOImpl extends AbstractHibernateDAO<WorkflowItemRo
         Criteria criteria = createCriteria(context, WorkflowItemRole.class);
         criteria.add(Restrictions.eq("workflowItem", workflowItem));
 
-        return list(criteria);
+        return list(context, "findByWorkflowItem", criteria);
     }
 
     @Override
@@ -46,6 +46,6 @@ public class WorkflowItemRoleDAOImpl extends AbstractHibernateDAO<WorkflowItemRo
         Criteria criteria = createCriteria(context, WorkflowItemRole.class);
         criteria.add(Restrictions.eq("ePerson", ePerson));
 
-        return list(criteria);
+        return list(context, "findByEPerson", criteria);
     }
 }
@@ -39,7 +39,7 @@ public class XmlWorkflowItemDAOImpl extends AbstractHibernateDAO<XmlWorkflowItem
             criteria.setMaxResults(limit);
         }
 
-        return list(criteria);
+        return list(context, "findAllInCollection", criteria);
     }
 
     @Override
@@ -54,7 +54,7 @@ public class XmlWorkflowItemDAOImpl extends AbstractHibernateDAO<XmlWorkflowItem
         {
             criteria.add(Restrictions.eq("collection", collection));
         }
-        return count(criteria);
+        return count(context, "countAllInCollection", criteria);
     }
 
     @Override
@@ -62,7 +62,7 @@ public class XmlWorkflowItemDAOImpl extends AbstractHibernateDAO<XmlWorkflowItem
         Criteria criteria = createCriteria(context, XmlWorkflowItem.class);
         criteria.add(Restrictions.eq("item.submitter", ep));
 
-        return list(criteria);
+        return list(context, "findBySubmitter", criteria);
     }
 
     @Override
@@ -70,7 +70,7 @@ public class XmlWorkflowItemDAOImpl extends AbstractHibernateDAO<XmlWorkflowItem
         Criteria criteria = createCriteria(context, XmlWorkflowItem.class);
         criteria.add(Restrictions.eq("collection", collection));
 
-        return list(criteria);
+        return list(context, "findByCollection", criteria);
     }
 
     @Override
@@ -78,6 +78,6 @@ public class XmlWorkflowItemDAOImpl extends AbstractHibernateDAO<XmlWorkflowItem
         Criteria criteria = createCriteria(context, XmlWorkflowItem.class);
         criteria.add(Restrictions.eq("item", item));
 
-        return uniqueResult(criteria);
+        return uniqueResult(context, "findByItem", criteria);
     }
 }
@@ -0,0 +1,66 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace;
+
+import static org.junit.Assert.assertTrue;
+
+import org.dspace.core.HibernateUtil;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements Hibernate prepares, so tests can assert that
+ * a piece of code runs in a bounded number of queries.
+ * <p>
+ * The count comes from the statistics of the session factory, which are
+ * global: only use it in tests which run on a single thread, and keep
+ * hibernate.generate_statistics on in the test configuration.
+ */
+public class QueryCounter
+{
+    private final Statistics statistics;
+    private long start;
+
+    private QueryCounter()
+    {
+        statistics = HibernateUtil.getStatistics();
+        reset();
+    }
+
+    /**
+     * @return a counter which counts from now on
+     */
+    public static QueryCounter start()
+    {
+        return new QueryCounter();
+    }
+
+    /**
+     * Starts counting from zero again.
+     */
+    public void reset()
+    {
+        start = statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * @return the number of statements prepared since the counter was started or reset
+     */
+    public long getCount()
+    {
+        return statistics.getPrepareStatementCount() - start;
+    }
+
+    /**
+     * Fails if more than the given number of statements were prepared.
+     */
+    public void assertAtMost(String message, long max)
+    {
+        long count = getCount();
+        assertTrue(message + ": expected at most " + max + " queries, but there were " + count, count <= max);
+    }
+}
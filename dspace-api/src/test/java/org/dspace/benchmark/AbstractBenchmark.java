@@ -0,0 +1,136 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.core.Context;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+
+/**
+ * Base class of the ContiPerf benchmarks of the DAO and service layer.
+ * <p>
+ * The benchmarks run against the {@link SyntheticRepository} on an
+ * embedded H2 database and are not part of the regular build, run them
+ * with <code>mvn test -P benchmark</code>.  ContiPerf writes its
+ * report to <code>target/contiperf-report</code>.
+ * <p>
+ * A context may only be used by one thread at a time, so every thread
+ * invoking a benchmark gets its own {@link Context}, logged in as the
+ * benchmark user and reset between invocations.
+ */
+public abstract class AbstractBenchmark
+{
+    private static final Logger log = Logger.getLogger(AbstractBenchmark.class);
+
+    @Rule
+    public ContiPerfRule contiPerfRule = new ContiPerfRule();
+
+    protected static SyntheticRepository repository;
+
+    /** All contexts handed out, to be closed after the benchmarks */
+    private static final List<Context> contexts = new ArrayList<Context>();
+
+    private static final ThreadLocal<Context> threadContext = new ThreadLocal<Context>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @BeforeClass
+    public static void initRepository() throws Exception
+    {
+        repository = SyntheticRepository.getInstance();
+    }
+
+    @AfterClass
+    public static void closeContexts()
+    {
+        synchronized (contexts)
+        {
+            for (Context context : contexts)
+            {
+                context.abort();
+            }
+            contexts.clear();
+        }
+        // the contexts of other threads are closed now, getContext() replaces them
+        threadContext.remove();
+    }
+
+    /**
+     * Hands out the context of the calling thread.  The context is reset
+     * before every invocation but the first, so each invocation starts
+     * with an empty session like a new request does, rather than
+     * measuring the objects earlier invocations left in the session.
+     * <p>
+     * A context whose transaction was committed is not valid any more, but
+     * can still be reset and used, so the context is only replaced once
+     * {@link #closeContexts()} closed it.
+     *
+     * @return the context of the calling thread
+     */
+    protected Context getContext() throws Exception
+    {
+        Context context = threadContext.get();
+        boolean open;
+        synchronized (contexts)
+        {
+            open = context != null && contexts.contains(context);
+        }
+        if (!open)
+        {
+            context = new Context();
+            threadContext.set(context);
+            synchronized (contexts)
+            {
+                contexts.add(context);
+            }
+            log.debug("Created the benchmark context of " + Thread.currentThread().getName());
+        }
+        else
+        {
+            context.reset();
+        }
+        context.setCurrentUser(EPersonServiceFactory.getInstance().getEPersonService()
+                .find(context, repository.getUser()));
+        return context;
+    }
+
+    /**
+     * Walks through the items, so consecutive invocations do not all hit the same one.
+     *
+     * @return the id of the next item
+     */
+    protected UUID nextItem()
+    {
+        List<UUID> items = repository.getItems();
+        return items.get((next.getAndIncrement() & Integer.MAX_VALUE) % items.size());
+    }
+
+    /**
+     * @return the handle of the next item
+     */
+    protected String nextHandle()
+    {
+        List<String> handles = repository.getHandles();
+        return handles.get((next.getAndIncrement() & Integer.MAX_VALUE) % handles.size());
+    }
+
+    protected ContentServiceFactory getContentServiceFactory()
+    {
+        return ContentServiceFactory.getInstance();
+    }
+}
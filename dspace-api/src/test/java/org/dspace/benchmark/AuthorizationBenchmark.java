@@ -0,0 +1,54 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import static org.junit.Assert.*;
+
+import org.databene.contiperf.PerfTest;
+import org.dspace.authorize.factory.AuthorizeServiceFactory;
+import org.dspace.authorize.service.AuthorizeService;
+import org.dspace.content.Item;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.GroupService;
+import org.junit.Test;
+
+/**
+ * Benchmarks the authorization checks, the benchmark user may read the
+ * items through a chain of nested groups.
+ */
+public class AuthorizationBenchmark extends AbstractBenchmark
+{
+    protected AuthorizeService authorizeService = AuthorizeServiceFactory.getInstance().getAuthorizeService();
+    protected GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
+    protected ItemService itemService = getContentServiceFactory().getItemService();
+
+    /**
+     * Benchmark of {@link AuthorizeService#authorizeActionBoolean(Context, org.dspace.content.DSpaceObject, int)}
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void authorizeRead() throws Exception
+    {
+        Context context = getContext();
+        Item item = itemService.find(context, nextItem());
+        assertTrue(authorizeService.authorizeActionBoolean(context, item, Constants.READ));
+    }
+
+    /**
+     * Benchmark of {@link GroupService#isMember(Context, java.util.UUID)}
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void isMember() throws Exception
+    {
+        assertTrue(groupService.isMember(getContext(), repository.getOuterGroup()));
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import static org.junit.Assert.*;
+
+import org.databene.contiperf.PerfTest;
+import org.dspace.content.Item;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.junit.Test;
+
+/**
+ * Benchmarks creating contexts, the way curation tasks and event consumers
+ * use them: one short unit of work per object.
+ */
+public class ContextBenchmark extends AbstractBenchmark
+{
+    protected ItemService itemService = getContentServiceFactory().getItemService();
+
+    /** One context per thread, reused through {@link Context#reset()} */
+    private static final ThreadLocal<Context> reusedContext = new ThreadLocal<Context>();
+
+    /**
+     * Benchmark of constructing and closing a context which is never used
+     */
+    @Test
+    @PerfTest(invocations = 200000, threads = 4, warmUp = 2000)
+    public void createContext() throws Exception
+    {
+        Context context = new Context();
+        context.turnOffAuthorisationSystem();
+        context.restoreAuthSystemState();
+        context.abort();
+    }
+
+    /**
+     * Benchmark of reading one item in a context of its own
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void findInNewContext() throws Exception
+    {
+        Context context = new Context();
+        try
+        {
+            Item item = itemService.find(context, nextItem());
+            assertNotNull(item);
+        }
+        finally
+        {
+            context.abort();
+        }
+    }
+
+    /**
+     * Benchmark of reading one item in a context reused by the thread,
+     * compare with {@link #findInNewContext()}
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void findInResetContext() throws Exception
+    {
+        Context context = reusedContext.get();
+        if (context == null)
+        {
+            context = new Context();
+            reusedContext.set(context);
+        }
+        try
+        {
+            Item item = itemService.find(context, nextItem());
+            assertNotNull(item);
+        }
+        finally
+        {
+            context.reset();
+        }
+    }
+}
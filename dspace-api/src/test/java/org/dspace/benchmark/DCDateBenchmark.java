@@ -0,0 +1,112 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.dspace.content.DCDate;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Benchmarks parsing and formatting dates with {@link DCDate}, compared
+ * with the chain of SimpleDateFormats it used before.  Needs no
+ * repository, so it does not extend {@link AbstractBenchmark}.
+ */
+public class DCDateBenchmark
+{
+    @Rule
+    public ContiPerfRule contiPerfRule = new ContiPerfRule();
+
+    /** Dates of every granularity, as found in dc.date fields */
+    private static final String[] DATES = {
+        "2009-07-16T13:59:21Z",
+        "2009-07-16T13:59:21",
+        "2009-07-16T13:59",
+        "2009-07-16",
+        "2009-07",
+        "2009"
+    };
+
+    private static final String[] PATTERNS = {
+        "yyyy-MM-dd'T'HH:mm:ss'Z'",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm",
+        "yyyy-MM-dd'T'HH",
+        "yyyy-MM-dd",
+        "yyyy-MM",
+        "yyyy"
+    };
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private String nextDate()
+    {
+        return DATES[(next.getAndIncrement() & Integer.MAX_VALUE) % DATES.length];
+    }
+
+    /**
+     * Benchmark of parsing a date and formatting it again
+     */
+    @Test
+    @PerfTest(invocations = 1000000, threads = 4, warmUp = 2000)
+    public void parseAndFormat() throws Exception
+    {
+        DCDate date = new DCDate(nextDate());
+        assertNotNull(date.toString());
+    }
+
+    /**
+     * Benchmark of formatting the current time, as done for dc.date.accessioned
+     */
+    @Test
+    @PerfTest(invocations = 1000000, threads = 4, warmUp = 2000)
+    public void formatCurrent() throws Exception
+    {
+        assertNotNull(DCDate.getCurrent().toString());
+    }
+
+    /**
+     * The same work as {@link #parseAndFormat()} done the way DCDate did
+     * before: new formats for every date, tried until one of them parses.
+     */
+    @Test
+    @PerfTest(invocations = 1000000, threads = 4, warmUp = 2000)
+    public void parseAndFormatSimpleDateFormat() throws Exception
+    {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        SimpleDateFormat[] formats = new SimpleDateFormat[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++)
+        {
+            formats[i] = new SimpleDateFormat(PATTERNS[i]);
+            formats[i].setTimeZone(utc);
+        }
+        String source = nextDate();
+        Date date = null;
+        for (int i = 0; i < formats.length && date == null; i++)
+        {
+            try
+            {
+                date = formats[i].parse(source);
+            }
+            catch (ParseException pe)
+            {
+                // try the next one
+            }
+        }
+        assertNotNull(formats[0].format(date));
+    }
+}
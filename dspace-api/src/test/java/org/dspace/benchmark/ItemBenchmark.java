@@ -0,0 +1,162 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.databene.contiperf.PerfTest;
+import org.dspace.content.Collection;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.FetchPlan;
+import org.dspace.content.Item;
+import org.dspace.content.MetadataValue;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Context;
+import org.dspace.handle.factory.HandleServiceFactory;
+import org.dspace.handle.service.HandleService;
+import org.junit.Test;
+
+/**
+ * Benchmarks reading and writing items.
+ */
+public class ItemBenchmark extends AbstractBenchmark
+{
+    protected ItemService itemService = getContentServiceFactory().getItemService();
+    protected HandleService handleService = HandleServiceFactory.getInstance().getHandleService();
+
+    /**
+     * Benchmark of {@link ItemService#getMetadata(Item, String, String, String, String)}
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void getMetadata() throws Exception
+    {
+        Item item = itemService.find(getContext(), nextItem());
+        List<MetadataValue> values = itemService.getMetadata(item, "dc", "subject", null, Item.ANY);
+        assertNotNull(values);
+    }
+
+    /**
+     * Benchmark of {@link ItemService#addMetadata(Context, Item, String, String, String, String, String)},
+     * the value is removed again so the item does not grow.
+     */
+    @Test
+    @PerfTest(invocations = 5000, threads = 4, warmUp = 1000)
+    public void addMetadata() throws Exception
+    {
+        Context context = getContext();
+        Item item = itemService.find(context, nextItem());
+        itemService.addMetadata(context, item, "dc", "description", null, null, "benchmark");
+        itemService.clearMetadata(context, item, "dc", "description", null, Item.ANY);
+    }
+
+    /**
+     * Benchmark of {@link HandleService#resolveToObject(Context, String)}
+     */
+    @Test
+    @PerfTest(invocations = 20000, threads = 4, warmUp = 2000)
+    public void resolveHandle() throws Exception
+    {
+        DSpaceObject dso = handleService.resolveToObject(getContext(), nextHandle());
+        assertNotNull(dso);
+    }
+
+    /**
+     * Benchmark of iterating over all items of a collection
+     */
+    @Test
+    @PerfTest(invocations = 200, threads = 2, warmUp = 1000)
+    public void iterateCollection() throws Exception
+    {
+        Context context = getContext();
+        Collection collection = getContentServiceFactory().getCollectionService()
+                .find(context, repository.getCollections().get(0));
+        Iterator<Item> items = itemService.findByCollection(context, collection);
+        int count = 0;
+        while (items.hasNext())
+        {
+            items.next();
+            count++;
+        }
+        assertTrue(count > 0);
+    }
+
+    /**
+     * Benchmark of loading all items of a collection into a fresh context,
+     * so every item is materialised by Hibernate again.  Measures the cost
+     * of constructing the entities, compare it before and after changes to
+     * what the entities do when they are created.  The items are iterated
+     * one by one, as without a fetch plan.
+     */
+    @Test
+    @PerfTest(invocations = 200, threads = 2, warmUp = 1000)
+    public void loadCollection() throws Exception
+    {
+        loadCollection(null);
+    }
+
+    /**
+     * Like {@link #loadCollection()}, with the items listed in one query by
+     * the {@link FetchPlan#ITEM_LISTING} fetch plan.
+     */
+    @Test
+    @PerfTest(invocations = 200, threads = 2, warmUp = 1000)
+    public void loadCollectionListing() throws Exception
+    {
+        loadCollection(FetchPlan.ITEM_LISTING);
+    }
+
+    private void loadCollection(FetchPlan fetchPlan) throws Exception
+    {
+        Context context = new Context();
+        try
+        {
+            Collection collection = getContentServiceFactory().getCollectionService()
+                    .find(context, repository.getCollections().get(0));
+            Iterator<Item> items = fetchPlan == null ? itemService.findByCollection(context, collection)
+                    : itemService.findByCollection(context, collection, fetchPlan);
+            int count = 0;
+            while (items.hasNext())
+            {
+                items.next();
+                count++;
+            }
+            assertTrue(count > 0);
+        }
+        finally
+        {
+            context.abort();
+        }
+    }
+
+    /**
+     * Benchmark of committing a small change to an item
+     */
+    @Test
+    @PerfTest(invocations = 2000, threads = 1, warmUp = 1000)
+    public void updateAndCommit() throws Exception
+    {
+        Context context = getContext();
+        Item item = itemService.find(context, nextItem());
+        context.turnOffAuthorisationSystem();
+        try
+        {
+            itemService.clearMetadata(context, item, "dc", "description", null, Item.ANY);
+            itemService.addMetadata(context, item, "dc", "description", null, null, "benchmark");
+            itemService.update(context, item);
+        }
+        finally
+        {
+            context.restoreAuthSystemState();
+        }
+        context.commit();
+    }
+}
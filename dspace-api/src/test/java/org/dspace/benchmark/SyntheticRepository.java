@@ -0,0 +1,272 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.apache.log4j.Logger;
+import org.dspace.administer.MetadataImporter;
+import org.dspace.administer.RegistryLoader;
+import org.dspace.authorize.factory.AuthorizeServiceFactory;
+import org.dspace.authorize.service.AuthorizeService;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.CollectionService;
+import org.dspace.content.service.CommunityService;
+import org.dspace.content.service.InstallItemService;
+import org.dspace.content.service.ItemService;
+import org.dspace.content.service.WorkspaceItemService;
+import org.dspace.core.ConfigurationManager;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.eperson.EPerson;
+import org.dspace.eperson.Group;
+import org.dspace.eperson.factory.EPersonServiceFactory;
+import org.dspace.eperson.service.EPersonService;
+import org.dspace.eperson.service.GroupService;
+import org.dspace.servicemanager.DSpaceKernelImpl;
+import org.dspace.servicemanager.DSpaceKernelInit;
+
+/**
+ * Boots DSpace and fills the database with a synthetic repository for
+ * the benchmarks.  This happens once per JVM, the benchmark classes
+ * share the same repository.
+ * <p>
+ * The size of the repository is set with system properties:
+ * <ul>
+ *  <li>{@code benchmark.communities}, the number of communities (default 5)</li>
+ *  <li>{@code benchmark.collections}, the number of collections in each community (default 4)</li>
+ *  <li>{@code benchmark.items}, the number of items in each collection (default 50)</li>
+ *  <li>{@code benchmark.metadata}, the number of extra metadata values of each item (default 10)</li>
+ *  <li>{@code benchmark.groups}, the depth of the nested groups the benchmark user is a member of (default 10)</li>
+ * </ul>
+ * The items can be read by the outermost of the nested groups, the
+ * benchmark user is a member of the innermost one.
+ */
+public class SyntheticRepository
+{
+    private static final Logger log = Logger.getLogger(SyntheticRepository.class);
+
+    private static SyntheticRepository instance;
+
+    private final List<UUID> items = new ArrayList<UUID>();
+    private final List<String> handles = new ArrayList<String>();
+    private final List<UUID> collections = new ArrayList<UUID>();
+    private UUID outerGroup;
+    private UUID user;
+
+    /**
+     * @return the repository, booting DSpace and creating it on the first call
+     */
+    public static synchronized SyntheticRepository getInstance() throws Exception
+    {
+        if (instance == null)
+        {
+            SyntheticRepository repository = new SyntheticRepository();
+            repository.boot();
+            repository.populate();
+            instance = repository;
+        }
+        return instance;
+    }
+
+    /**
+     * Starts the kernel and loads the registries, like the unit tests do.
+     */
+    private void boot() throws Exception
+    {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Dublin"));
+        ConfigurationManager.loadConfig(null);
+
+        DSpaceKernelImpl kernel = DSpaceKernelInit.getKernel(null);
+        if (!kernel.isRunning())
+        {
+            kernel.start(ConfigurationManager.getProperty("dspace.dir"));
+        }
+
+        Context context = new Context();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            ContentServiceFactory.getInstance().getSiteService().createSite(context);
+
+            String base = ConfigurationManager.getProperty("dspace.dir")
+                    + File.separator + "config" + File.separator
+                    + "registries" + File.separator;
+            RegistryLoader.loadBitstreamFormats(context, base + "bitstream-formats.xml");
+            MetadataImporter.loadRegistry(base + "dublin-core-types.xml", true);
+
+            GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
+            for (String name : new String[] { Group.ANONYMOUS, Group.ADMIN })
+            {
+                Group group = groupService.create(context);
+                group.setName(name);
+                groupService.update(context, group);
+            }
+            context.restoreAuthSystemState();
+            context.complete();
+        }
+        finally
+        {
+            if (context.isValid())
+            {
+                context.abort();
+            }
+        }
+    }
+
+    /**
+     * Creates the groups, communities, collections and items.
+     */
+    private void populate() throws Exception
+    {
+        int communityCount = Integer.getInteger("benchmark.communities", 5);
+        int collectionCount = Integer.getInteger("benchmark.collections", 4);
+        int itemCount = Integer.getInteger("benchmark.items", 50);
+        int metadataCount = Integer.getInteger("benchmark.metadata", 10);
+        int groupDepth = Math.max(1, Integer.getInteger("benchmark.groups", 10));
+
+        ContentServiceFactory contentServiceFactory = ContentServiceFactory.getInstance();
+        CommunityService communityService = contentServiceFactory.getCommunityService();
+        CollectionService collectionService = contentServiceFactory.getCollectionService();
+        ItemService itemService = contentServiceFactory.getItemService();
+        WorkspaceItemService workspaceItemService = contentServiceFactory.getWorkspaceItemService();
+        InstallItemService installItemService = contentServiceFactory.getInstallItemService();
+        AuthorizeService authorizeService = AuthorizeServiceFactory.getInstance().getAuthorizeService();
+        EPersonService ePersonService = EPersonServiceFactory.getInstance().getEPersonService();
+        GroupService groupService = EPersonServiceFactory.getInstance().getGroupService();
+
+        long start = System.currentTimeMillis();
+        Context context = new Context();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+
+            EPerson eperson = ePersonService.create(context);
+            eperson.setFirstName("benchmark");
+            eperson.setLastName("user");
+            eperson.setEmail("benchmark@dspace.org");
+            eperson.setCanLogIn(true);
+            ePersonService.update(context, eperson);
+            user = eperson.getID();
+
+            // group 0 contains group 1 ... contains the benchmark user
+            Group parent = null;
+            for (int i = 0; i < groupDepth; i++)
+            {
+                Group group = groupService.create(context);
+                group.setName("benchmark-group-" + i);
+                groupService.update(context, group);
+                if (parent == null)
+                {
+                    outerGroup = group.getID();
+                }
+                else
+                {
+                    groupService.addMember(context, parent, group);
+                    groupService.update(context, parent);
+                }
+                parent = group;
+            }
+            groupService.addMember(context, parent, eperson);
+            groupService.update(context, parent);
+            Group readers = groupService.find(context, outerGroup);
+            context.commit();
+
+            for (int c = 0; c < communityCount; c++)
+            {
+                Community community = communityService.create(context, null);
+                community.setShortDescription("Community " + c);
+                communityService.update(context, community);
+
+                for (int l = 0; l < collectionCount; l++)
+                {
+                    Collection collection = collectionService.create(context, community);
+                    collection.setShortDescription("Collection " + c + "." + l);
+                    collectionService.update(context, collection);
+                    collections.add(collection.getID());
+
+                    for (int i = 0; i < itemCount; i++)
+                    {
+                        WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+                        Item item = workspaceItem.getItem();
+                        itemService.addMetadata(context, item, "dc", "title", null, null, "Item " + c + "." + l + "." + i);
+                        for (int m = 0; m < metadataCount; m++)
+                        {
+                            itemService.addMetadata(context, item, "dc", "subject", null, null, "subject " + m);
+                        }
+                        item = installItemService.installItem(context, workspaceItem);
+                        authorizeService.addPolicy(context, item, Constants.READ, readers);
+                        items.add(item.getID());
+                        handles.add(item.getHandle(context));
+                    }
+                    context.commit();
+                }
+            }
+            context.restoreAuthSystemState();
+            context.complete();
+        }
+        finally
+        {
+            if (context.isValid())
+            {
+                context.abort();
+            }
+        }
+        log.info("Created a repository of " + communityCount + " communities, " + collections.size()
+                + " collections and " + items.size() + " items in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * @return the ids of all items
+     */
+    public List<UUID> getItems()
+    {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * @return the handles of all items
+     */
+    public List<String> getHandles()
+    {
+        return Collections.unmodifiableList(handles);
+    }
+
+    /**
+     * @return the ids of all collections
+     */
+    public List<UUID> getCollections()
+    {
+        return Collections.unmodifiableList(collections);
+    }
+
+    /**
+     * @return the id of the outermost of the nested groups, which may read all items
+     */
+    public UUID getOuterGroup()
+    {
+        return outerGroup;
+    }
+
+    /**
+     * @return the id of the benchmark user, a member of the innermost of the nested groups
+     */
+    public UUID getUser()
+    {
+        return user;
+    }
+}
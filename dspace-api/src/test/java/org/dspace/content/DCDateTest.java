@@ -0,0 +1,257 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.content;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Compares parsing and formatting dates with {@link DCDate} with the chain
+ * of SimpleDateFormats it used before.  Needs no repository, so it does
+ * not extend AbstractUnitTest.
+ */
+public class DCDateTest
+{
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /** The formats DCDate tried in turn, from time down to year */
+    private static final String[] PATTERNS = {
+        "yyyy-MM-dd'T'HH:mm:ss'Z'",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm",
+        "yyyy-MM-dd'T'HH",
+        "yyyy-MM-dd",
+        "yyyy-MM",
+        "yyyy"
+    };
+
+    /**
+     * Parse a date with the first of the formats which accepts it, and
+     * format it the way DCDate did.
+     *
+     * @return the date as DCDate put it back in the Dublin Core, or "null"
+     */
+    private static String parseWithFormats(String source)
+    {
+        for (int i = 0; i < PATTERNS.length; i++)
+        {
+            SimpleDateFormat format = new SimpleDateFormat(PATTERNS[i]);
+            format.setTimeZone(UTC);
+            Date date;
+            try
+            {
+                date = format.parse(source);
+            }
+            catch (ParseException e)
+            {
+                continue;
+            }
+            Calendar calendar = new GregorianCalendar(UTC);
+            calendar.setTime(date);
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH) + 1;
+            int day = calendar.get(Calendar.DAY_OF_MONTH);
+            if (i == 4)
+            {
+                return String.format("%4d-%02d-%02d", year, month, day);
+            }
+            if (i == 5)
+            {
+                return String.format("%4d-%02d", year, month);
+            }
+            if (i == 6)
+            {
+                return String.format("%4d", year);
+            }
+            SimpleDateFormat full = new SimpleDateFormat(PATTERNS[0]);
+            full.setTimeZone(UTC);
+            return full.format(date);
+        }
+        return "null";
+    }
+
+    /**
+     * Parse a date with the first of the formats which accepts it.
+     *
+     * @return the date, or null
+     */
+    private static Date dateWithFormats(String source)
+    {
+        for (String pattern : PATTERNS)
+        {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            format.setTimeZone(UTC);
+            try
+            {
+                return format.parse(source);
+            }
+            catch (ParseException e)
+            {
+                // try the next one
+            }
+        }
+        return null;
+    }
+
+    private static void assertParsedAsBefore(String... sources)
+    {
+        for (String source : sources)
+        {
+            DCDate date = new DCDate(source);
+            assertEquals("Parsing [" + source + "]", parseWithFormats(source), date.toString());
+            assertEquals("Parsing [" + source + "]", dateWithFormats(source), date.toDate());
+        }
+    }
+
+    /**
+     * Every granularity, with and without the Z of full dates.
+     */
+    @Test
+    public void testGranularities()
+    {
+        assertParsedAsBefore(
+                "2009-07-16T13:59:21Z",
+                "2009-07-16T13:59:21",
+                "2009-07-16T13:59",
+                "2009-07-16T13",
+                "2009-07-16",
+                "2009-07",
+                "2009",
+                "2009-7-6T1:2:3",
+                "0001-01-01",
+                "999",
+                "0");
+
+        DCDate time = new DCDate("2009-07-16T13:59:21Z");
+        assertEquals(2009, time.getYearUTC());
+        assertEquals(7, time.getMonthUTC());
+        assertEquals(16, time.getDayUTC());
+        assertEquals(13, time.getHourUTC());
+        assertEquals(59, time.getMinuteUTC());
+        assertEquals(21, time.getSecondUTC());
+
+        DCDate month = new DCDate("2009-07");
+        assertEquals(2009, month.getYear());
+        assertEquals(7, month.getMonth());
+        assertEquals(-1, month.getDay());
+        assertEquals(-1, month.getHour());
+    }
+
+    /**
+     * Text after the longest leading date is ignored, as the formats did.
+     */
+    @Test
+    public void testTrailingText()
+    {
+        assertParsedAsBefore(
+                "2009-07-16T",
+                "2009-07-16 13:59",
+                "2009-07-16t13:59",
+                "2009-07-16T13:59:21Zfoo",
+                "2009-07-16T13:59:21+02:00",
+                "2009-07-",
+                "2009x",
+                "20090716");
+    }
+
+    /**
+     * Out of range values roll over into the next unit, as the lenient
+     * formats did.
+     */
+    @Test
+    public void testRollOver()
+    {
+        assertParsedAsBefore(
+                "2009-13",
+                "2009-00",
+                "2009-02-30",
+                "2009-12-32",
+                "2009-07-16T25:61:61",
+                "2009-07-16T24");
+    }
+
+    /**
+     * Spaces and tabs before a number are skipped, no other white space is.
+     */
+    @Test
+    public void testLeadingWhitespace()
+    {
+        assertParsedAsBefore(
+                " 2009-07-16",
+                "\t2009",
+                "  \t 2009-07",
+                "2009- 07",
+                "2009-07-16T13: 59",
+                "\n2009",
+                "\r\n2009-07-16",
+                "\f2009",
+                "2009-\n07",
+                "2009-07-16T\u200313",
+                "x2009",
+                "");
+    }
+
+    /**
+     * Numbers of up to nine digits are parsed as the formats did.  A longer
+     * number overflowed the calendar of the formats, it now ends the date.
+     */
+    @Test
+    public void testLongNumbers()
+    {
+        assertParsedAsBefore(
+                "123456789",
+                "2009-000000007",
+                "2009-07-16T000000013");
+
+        assertEquals("null", new DCDate("1234567890").toString());
+        assertNull(new DCDate("1234567890").toDate());
+        assertEquals("2009", new DCDate("2009-1234567890").toString());
+        assertEquals("2009-07-16", new DCDate("2009-07-16T00000000013").toString());
+    }
+
+    /**
+     * A date put back in the Dublin Core is read back as the same date.
+     */
+    @Test
+    public void testRoundTrip()
+    {
+        String[] sources = {
+            "2009-07-16T13:59:21Z",
+            "2009-07-16T13:59",
+            "2009-07-16",
+            "2009-07",
+            "2009",
+            "0001-01-01",
+            "999",
+            "2009-13",
+            "2009-07-16T25:61:61"
+        };
+        for (String source : sources)
+        {
+            String written = new DCDate(source).toString();
+            assertEquals("Reading [" + written + "]", written, new DCDate(written).toString());
+        }
+
+        DCDate now = new DCDate(new Date(1247752761000L));
+        assertEquals("2009-07-16T13:59:21Z", now.toString());
+        assertEquals(now.toDate(), new DCDate(now.toString()).toDate());
+
+        DCDate day = new DCDate(2009, 7, 16, -1, -1, -1);
+        assertEquals("2009-07-16", day.toString());
+        assertEquals("2009-07-16", new DCDate(day.toString()).toString());
+        assertEquals("2009", new DCDate(2009, -1, -1, -1, -1, -1).toString());
+    }
+}
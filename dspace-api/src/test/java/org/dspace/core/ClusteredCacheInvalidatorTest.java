@@ -0,0 +1,194 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.authorize.ResourcePolicy;
+import org.dspace.eperson.Group;
+import org.dspace.providers.ClusterEventProvider;
+import org.dspace.servicemanager.config.DSpaceConfigurationService;
+import org.dspace.services.EventService;
+import org.dspace.services.events.SocketClusterEventProvider;
+import org.dspace.services.model.Event;
+import org.dspace.services.model.EventListener;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Sends the invalidations of a bulk delete from one node to another over
+ * two {@link SocketClusterEventProvider}s, and checks the receiving node
+ * evicts the region the delete changed.
+ */
+public class ClusteredCacheInvalidatorTest extends AbstractUnitTest {
+
+    private SocketClusterEventProvider sender;
+    private SocketClusterEventProvider receiver;
+    private EventService previous;
+
+    private final List<Event> received = Collections.synchronizedList(new ArrayList<Event>());
+    private final CountDownLatch reloaded = new CountDownLatch(1);
+    private final CountDownLatch delivered = new CountDownLatch(1);
+
+    private Group deleted;
+    private Group kept;
+
+    @Before
+    @Override
+    public void init() {
+        super.init();
+        try {
+            int senderPort = freePort();
+            int receiverPort = freePort();
+            receiver = startNode("receiver", receiverPort, "127.0.0.1:" + senderPort);
+            sender = startNode("sender", senderPort, "127.0.0.1:" + receiverPort);
+        } catch (Exception e) {
+            fail("Unable to start the cluster nodes: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception {
+        if (previous != null) {
+            HibernateUtil.getCacheInvalidator().connect(previous);
+        }
+        sender.shutdown();
+        receiver.shutdown();
+        context.turnOffAuthorisationSystem();
+        if (deleted != null) {
+            groupService.delete(context, deleted);
+        }
+        if (kept != null) {
+            resourcePolicyService.removeGroupPolicies(context, kept);
+            groupService.delete(context, kept);
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    private static SocketClusterEventProvider startNode(String nodeId, int port, String peers) {
+        DSpaceConfigurationService config = new DSpaceConfigurationService();
+        config.setProperty("events.cluster.port", Integer.toString(port));
+        config.setProperty("events.cluster.bind.address", "127.0.0.1");
+        config.setProperty("events.cluster.node.id", nodeId);
+        config.setProperty("events.cluster.peers", peers);
+        config.setProperty("events.cluster.secret", "secret");
+        SocketClusterEventProvider node = new SocketClusterEventProvider();
+        node.setConfigurationService(config);
+        node.init();
+        return node;
+    }
+
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * A bulk delete of the policies of a group evicts all policies from
+     * the caches of the other nodes, including those of other groups.
+     */
+    @Test
+    public void testBulkDelete() throws Exception {
+        context.turnOffAuthorisationSystem();
+        deleted = groupService.create(context);
+        kept = groupService.create(context);
+        createPolicy(deleted);
+        ResourcePolicy keptPolicy = createPolicy(kept);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        // only the changes from here on go to the other node
+        previous = HibernateUtil.getCacheInvalidator().connect(new ClusterEventService());
+        resourcePolicyService.removeGroupPolicies(context, deleted);
+        context.commit();
+
+        // the bulk delete evicted the local region, the policy goes back in the cache
+        Cache cache = ((Session) context.getDBConnection().getSession()).getSessionFactory().getCache();
+        Context reader = new Context();
+        try {
+            assertNotNull(resourcePolicyService.find(reader, keptPolicy.getID()));
+        } finally {
+            reader.abort();
+        }
+        assertTrue(cache.containsEntity(ResourcePolicy.class, keptPolicy.getID()));
+        reloaded.countDown();
+
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        assertEquals(1, received.size());
+        Event event = received.get(0);
+        assertEquals(ClusteredCacheInvalidator.EVENT_INVALIDATE, event.getName());
+        assertEquals("entity", event.getProperties().get(ResourcePolicy.class.getName() + "#*"));
+        assertFalse(cache.containsEntity(ResourcePolicy.class, keptPolicy.getID()));
+    }
+
+    private ResourcePolicy createPolicy(Group group) throws Exception {
+        ResourcePolicy policy = resourcePolicyService.create(context);
+        policy.setGroup(group);
+        policy.setAction(Constants.READ);
+        resourcePolicyService.update(context, policy);
+        return policy;
+    }
+
+    /**
+     * Sends the events of this node through the sender, and hands the
+     * events arriving at the receiver to the listeners once the test
+     * has reloaded the policy into the cache.
+     */
+    private class ClusterEventService implements EventService {
+
+        @Override
+        public void fireEvent(Event event) {
+            try {
+                sender.send(Collections.singletonList(event));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void queueEvent(Event event) {
+            fireEvent(event);
+        }
+
+        @Override
+        public void registerEventListener(final EventListener listener) {
+            receiver.setReceiver(new ClusterEventProvider.Receiver() {
+                public void receive(String nodeId, List<Event> events) {
+                    received.addAll(events);
+                    try {
+                        reloaded.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (Event event : events) {
+                        listener.receiveEvent(event);
+                    }
+                    delivered.countDown();
+                }
+            });
+        }
+    }
+}
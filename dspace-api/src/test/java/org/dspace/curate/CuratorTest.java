@@ -0,0 +1,368 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import mockit.Mock;
+import mockit.MockUp;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.ItemService;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Curates a small collection on several workers with stub tasks, spread
+ * over batches of two items.
+ */
+public class CuratorTest extends AbstractUnitTest
+{
+    private static final int ITEMS = 7;
+    private static final int THREADS = 3;
+
+    // what the stub tasks did, and on which item they suspend or fail
+    private static final List<String> curated = Collections.synchronizedList(new ArrayList<String>());
+    private static String suspendOn;
+    private static String failOn;
+    private static CountDownLatch suspended;
+
+    private Community community;
+    private Collection collection;
+    private List<Item> items = new ArrayList<Item>();
+    // the names of the items in the order the curator hands them out
+    private List<String> names = new ArrayList<String>();
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            for (int i = 0; i < ITEMS; i++)
+            {
+                WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+                Item item = installItemService.installItem(context, workspaceItem);
+                itemService.addMetadata(context, item, "dc", "title", null, null, "Item " + i);
+                itemService.update(context, item);
+                items.add(item);
+            }
+            context.restoreAuthSystemState();
+            context.commit();
+
+            for (UUID id : itemService.findArchivedItemIdsByCollection(context, collection))
+            {
+                names.add(itemService.find(context, id).getName());
+            }
+            curated.clear();
+            suspendOn = null;
+            failOn = null;
+            suspended = new CountDownLatch(1);
+
+            new MockUp<TaskResolver>()
+            {
+                @Mock
+                public ResolvedTask resolveTask(String taskName)
+                {
+                    if ("report".equals(taskName))
+                    {
+                        return new ResolvedTask(taskName, new ReportingTask());
+                    }
+                    if ("suspend".equals(taskName))
+                    {
+                        return new ResolvedTask(taskName, new SuspendingTask());
+                    }
+                    if ("mutate".equals(taskName))
+                    {
+                        return new ResolvedTask(taskName, new MutatingTask());
+                    }
+                    return null;
+                }
+            };
+        }
+        catch (Exception e)
+        {
+            fail("Unable to create the collection: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        // the workers changed the items in contexts of their own
+        Context cleanup = new Context();
+        try
+        {
+            cleanup.turnOffAuthorisationSystem();
+            for (Item item : items)
+            {
+                itemService.delete(cleanup, itemService.find(cleanup, item.getID()));
+            }
+            collectionService.delete(cleanup, collectionService.find(cleanup, collection.getID()));
+            communityService.delete(cleanup, communityService.find(cleanup, community.getID()));
+            cleanup.complete();
+        }
+        finally
+        {
+            if (cleanup.isValid())
+            {
+                cleanup.abort();
+            }
+        }
+        super.destroy();
+    }
+
+    private Curator curator(String taskName)
+    {
+        return new Curator().setThreads(THREADS).setBatchSize(2).setReporter("-").addTask(taskName);
+    }
+
+    // curates the collection and returns what the curator reported
+    private List<String> curate(Curator curator) throws Exception
+    {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, "UTF-8"));
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            curator.curate(context, collection.getHandle(context));
+        }
+        finally
+        {
+            context.restoreAuthSystemState();
+            System.setOut(out);
+        }
+        List<String> reports = new ArrayList<String>();
+        for (String line : printed.toString("UTF-8").split("\n"))
+        {
+            if (line.trim().startsWith("curated "))
+            {
+                reports.add(line.trim().substring("curated ".length()));
+            }
+        }
+        return reports;
+    }
+
+    private Item find(Context other, String name) throws Exception
+    {
+        for (Item item : items)
+        {
+            Item found = itemService.find(other, item.getID());
+            if (name.equals(found.getName()))
+            {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The workers' reports are passed on in the order of the items.
+     */
+    @Test
+    public void testReportsInOrder() throws Exception
+    {
+        Curator curator = curator("report");
+        assertEquals(names, curate(curator));
+        assertEquals(Curator.CURATE_SUCCESS, curator.getStatus("report"));
+        assertEquals(names.get(ITEMS - 1), curator.getResult("report"));
+    }
+
+    /**
+     * A task suspending curation on one worker stops the others once their
+     * current item is done, and its status and result are kept.
+     */
+    @Test
+    public void testSuspendStopsWorkers() throws Exception
+    {
+        suspendOn = names.get(0);
+        Curator curator = curator("suspend");
+        curate(curator);
+
+        assertEquals(Curator.CURATE_FAIL, curator.getStatus("suspend"));
+        assertEquals(suspendOn, curator.getResult("suspend"));
+        // the other two workers curated the first item of their batch, no more
+        assertTrue(curated.contains(suspendOn));
+        assertFalse(curated.contains(names.get(1)));
+        assertFalse(curated.contains(names.get(3)));
+        assertFalse(curated.contains(names.get(5)));
+        assertFalse(curated.contains(names.get(6)));
+    }
+
+    /**
+     * A mutative task commits every item, so a failure later in the batch
+     * keeps the items before it.
+     */
+    @Test
+    public void testMutativeCommitsPerObject() throws Exception
+    {
+        failOn = names.get(1);
+        try
+        {
+            curate(curator("mutate"));
+            fail("The failure of the task was not passed on");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        Context other = new Context();
+        try
+        {
+            Item first = find(other, names.get(0));
+            assertEquals(1, itemService.getMetadata(first, "dc", "description", null, Item.ANY).size());
+            Item failed = find(other, failOn);
+            assertTrue(itemService.getMetadata(failed, "dc", "description", null, Item.ANY).isEmpty());
+        }
+        finally
+        {
+            other.abort();
+        }
+    }
+
+    /**
+     * A runtime exception of the task on a worker fails the curation with
+     * the exception as its cause.
+     */
+    @Test
+    public void testFailurePropagates() throws Exception
+    {
+        failOn = names.get(4);
+        try
+        {
+            curate(curator("report"));
+            fail("The failure of the task was not passed on");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("Failing on " + failOn, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Reports the name of every item and makes it the result.
+     */
+    private static class ReportingTask implements CurationTask
+    {
+        protected Curator curator;
+        protected String taskId;
+
+        public void init(Curator curator, String taskId) throws IOException
+        {
+            this.curator = curator;
+            this.taskId = taskId;
+        }
+
+        public int perform(DSpaceObject dso) throws IOException
+        {
+            if (dso.getType() != Constants.ITEM)
+            {
+                return Curator.CURATE_SKIP;
+            }
+            String name = dso.getName();
+            if (name.equals(failOn))
+            {
+                throw new IllegalStateException("Failing on " + name);
+            }
+            int status = curate((Item) dso);
+            curated.add(name);
+            curator.report("curated " + name);
+            curator.setResult(taskId, name);
+            return status;
+        }
+
+        protected int curate(Item item) throws IOException
+        {
+            return Curator.CURATE_SUCCESS;
+        }
+
+        public int perform(Context ctx, String id) throws IOException
+        {
+            return Curator.CURATE_SKIP;
+        }
+    }
+
+    /**
+     * Fails on one item, which suspends curation.  The other items wait
+     * until it did.
+     */
+    @Suspendable(statusCodes = {Curator.CURATE_FAIL})
+    private static class SuspendingTask extends ReportingTask
+    {
+        @Override
+        protected int curate(Item item) throws IOException
+        {
+            if (item.getName().equals(suspendOn))
+            {
+                suspended.countDown();
+                return Curator.CURATE_FAIL;
+            }
+            try
+            {
+                suspended.await(10, TimeUnit.SECONDS);
+                // give the suspending worker time to stop the others
+                Thread.sleep(200);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return Curator.CURATE_SUCCESS;
+        }
+    }
+
+    /**
+     * Adds a description to every item.
+     */
+    @Mutative
+    private static class MutatingTask extends ReportingTask
+    {
+        @Override
+        protected int curate(Item item) throws IOException
+        {
+            try
+            {
+                Context context = Curator.curationContext();
+                ItemService itemService = ContentServiceFactory.getInstance().getItemService();
+                itemService.addMetadata(context, item, "dc", "description", null, null, "curated");
+                itemService.update(context, item);
+            }
+            catch (Exception e)
+            {
+                throw new IOException(e.getMessage(), e);
+            }
+            return Curator.CURATE_SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.core.Context;
+import org.dspace.curate.factory.CurateServiceFactory;
+import org.dspace.curate.service.QueuedTaskService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the claims on the entries of the database task queue.  Runs on
+ * the configured database, e.g. on H2 with
+ * <code>mvn test -P h2 -Dtest=DBTaskQueueTest</code>.
+ */
+public class DBTaskQueueTest extends AbstractUnitTest
+{
+    private static final long LEASE = 60000;
+    private static final int MAX_ATTEMPTS = 2;
+
+    private QueuedTaskService queuedTaskService = CurateServiceFactory.getInstance().getQueuedTaskService();
+    private DBTaskQueue queue = new DBTaskQueue();
+
+    // every test has queues of its own
+    private String queueName;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        queueName = "test-" + UUID.randomUUID();
+    }
+
+    private List<String> enqueue(String queueName, int count) throws Exception
+    {
+        List<String> objectIds = new ArrayList<String>();
+        Set<TaskQueueEntry> entries = new LinkedHashSet<TaskQueueEntry>();
+        for (int i = 0; i < count; i++)
+        {
+            String objectId = "123456789/" + UUID.randomUUID();
+            objectIds.add(objectId);
+            entries.add(new TaskQueueEntry("test@example.com", System.currentTimeMillis(),
+                    Arrays.asList("noop"), objectId));
+        }
+        queue.enqueue(queueName, entries);
+        return objectIds;
+    }
+
+    private List<QueuedTask> claim(String claim, int max, long leaseMillis, int maxAttempts) throws Exception
+    {
+        Context claiming = new Context();
+        try
+        {
+            List<QueuedTask> claimed = queuedTaskService.claim(claiming, queueName, claim, max, leaseMillis, maxAttempts);
+            claiming.complete();
+            return claimed;
+        }
+        finally
+        {
+            if (claiming.isValid())
+            {
+                claiming.abort();
+            }
+        }
+    }
+
+    private void release(QueuedTask queuedTask) throws Exception
+    {
+        Context releasing = new Context();
+        queuedTaskService.release(releasing, queuedTask);
+        releasing.complete();
+    }
+
+    private static List<String> objectIds(Iterable<QueuedTask> queuedTasks)
+    {
+        List<String> objectIds = new ArrayList<String>();
+        for (QueuedTask queuedTask : queuedTasks)
+        {
+            objectIds.add(queuedTask.getEntry().getObjectId());
+        }
+        return objectIds;
+    }
+
+    private static Set<String> entryObjectIds(Iterable<TaskQueueEntry> entries)
+    {
+        Set<String> objectIds = new HashSet<String>();
+        for (TaskQueueEntry entry : entries)
+        {
+            objectIds.add(entry.getObjectId());
+        }
+        return objectIds;
+    }
+
+    /**
+     * Two readers working off the same queue at once get every entry
+     * exactly once between them.
+     */
+    @Test
+    public void testTwoReaders() throws Exception
+    {
+        List<String> enqueued = enqueue(queueName, 30);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<List<String>>> readers = new ArrayList<Future<List<String>>>();
+        for (final String reader : new String[] {"reader-a", "reader-b"})
+        {
+            readers.add(executor.submit(new Callable<List<String>>()
+            {
+                public List<String> call() throws Exception
+                {
+                    // the same claim every time, a claim returns only what it took
+                    List<String> taken = new ArrayList<String>();
+                    List<QueuedTask> claimed;
+                    while (!(claimed = claim(reader, 4, LEASE, MAX_ATTEMPTS)).isEmpty())
+                    {
+                        taken.addAll(objectIds(claimed));
+                    }
+                    return taken;
+                }
+            }));
+        }
+        executor.shutdown();
+
+        List<String> first = readers.get(0).get();
+        List<String> second = readers.get(1).get();
+        List<String> all = new ArrayList<String>(first);
+        all.addAll(second);
+        assertEquals(enqueued.size(), all.size());
+        assertEquals(new HashSet<String>(enqueued), new HashSet<String>(all));
+        assertTrue(Collections.disjoint(first, second));
+    }
+
+    /**
+     * An entry whose lease ended is handed out again, counting another attempt.
+     */
+    @Test
+    public void testLeaseExpiry() throws Exception
+    {
+        List<String> enqueued = enqueue(queueName, 1);
+
+        // a lease of no time ends at once
+        List<QueuedTask> expired = claim("reader-a", 0, 0, MAX_ATTEMPTS);
+        assertEquals(enqueued, objectIds(expired));
+        assertEquals(1, expired.get(0).getAttempts());
+        Thread.sleep(10);
+
+        List<QueuedTask> held = claim("reader-b", 0, LEASE, MAX_ATTEMPTS);
+        assertEquals(enqueued, objectIds(held));
+        assertEquals(2, held.get(0).getAttempts());
+        assertEquals("reader-b", held.get(0).getClaim());
+        // a live lease keeps the entry from other readers
+        assertTrue(claim("reader-c", 0, LEASE, MAX_ATTEMPTS + 1).isEmpty());
+    }
+
+    /**
+     * A released entry is retried until it was handed out the maximum
+     * number of times, then it stays in the queue.
+     */
+    @Test
+    public void testRetryAndAttemptLimit() throws Exception
+    {
+        List<String> enqueued = enqueue(queueName, 1);
+
+        List<QueuedTask> first = claim("reader-a", 0, LEASE, MAX_ATTEMPTS);
+        assertEquals(enqueued, objectIds(first));
+        release(first.get(0));
+
+        List<QueuedTask> second = claim("reader-b", 0, LEASE, MAX_ATTEMPTS);
+        assertEquals(enqueued, objectIds(second));
+        assertEquals(MAX_ATTEMPTS, second.get(0).getAttempts());
+        release(second.get(0));
+
+        assertTrue(claim("reader-c", 0, LEASE, MAX_ATTEMPTS).isEmpty());
+        // the entry is still there for an administrator
+        assertEquals(enqueued, objectIds(claim("admin", 0, LEASE, MAX_ATTEMPTS + 1)));
+    }
+
+    /**
+     * An entry acknowledged by another reader than the one holding it is left alone.
+     */
+    @Test
+    public void testOnlyTheHolderAcknowledges() throws Exception
+    {
+        enqueue(queueName, 1);
+        List<QueuedTask> expired = claim("reader-a", 0, 0, MAX_ATTEMPTS);
+        Thread.sleep(10);
+        List<QueuedTask> held = claim("reader-b", 0, LEASE, MAX_ATTEMPTS);
+        assertEquals(objectIds(expired), objectIds(held));
+
+        // reader-a's lease ended, its acknowledgement comes too late
+        queue.done(expired.get(0));
+        queue.retry(held.get(0));
+        List<QueuedTask> again = claim("reader-c", 0, LEASE, MAX_ATTEMPTS + 1);
+        assertEquals(objectIds(held), objectIds(again));
+
+        queue.done(again.get(0));
+        assertTrue(claim("admin", 0, LEASE, MAX_ATTEMPTS + 10).isEmpty());
+    }
+
+    /**
+     * Releasing a ticket returns its entries to the queue or deletes them,
+     * and a ticket dequeued again gets only the new entries.
+     */
+    @Test
+    public void testReleaseAndDeleteByTicket() throws Exception
+    {
+        List<String> enqueued = enqueue(queueName, 3);
+        String otherQueue = queueName + "-other";
+        enqueue(otherQueue, 1);
+
+        assertEquals(new HashSet<String>(enqueued), entryObjectIds(queue.dequeue(queueName, 1)));
+        queue.release(queueName, 1, false);
+        assertEquals(new HashSet<String>(enqueued), entryObjectIds(queue.dequeue(queueName, 2)));
+
+        // the ticket still holds the first entries, a dequeue returns only the new one
+        List<String> added = enqueue(queueName, 1);
+        assertEquals(new HashSet<String>(added), entryObjectIds(queue.dequeue(queueName, 2)));
+        // nor does it return the entries of other queues the ticket holds
+        assertEquals(1, queue.dequeue(otherQueue, 7).size());
+        assertTrue(queue.dequeue(otherQueue, 7).isEmpty());
+
+        queue.release(queueName, 2, true);
+        assertTrue(queue.dequeue(queueName, 3).isEmpty());
+        queue.release(otherQueue, 7, true);
+    }
+}
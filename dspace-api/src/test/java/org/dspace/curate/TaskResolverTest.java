@@ -0,0 +1,281 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.curate;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.DSpaceObject;
+import org.dspace.core.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the resolution of scripted tasks with a stub script engine, whose
+ * scripts define nothing and whose constructor expressions instantiate a
+ * Java class.
+ */
+public class TaskResolverTest extends AbstractUnitTest
+{
+    // how often the engine evaluated a script, rather than a constructor expression
+    private static final AtomicInteger evaluations = new AtomicInteger();
+
+    private TaskResolver resolver = new TaskResolver();
+    private File script;
+
+    @BeforeClass
+    public static void registerEngine()
+    {
+        TaskResolver.getEngineManager().registerEngineName("stub", new StubEngineFactory());
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        script = File.createTempFile("task", ".stub");
+        FileUtils.writeStringToFile(script, "# a task script");
+    }
+
+    @After
+    public void tearDown()
+    {
+        script.delete();
+    }
+
+    private String descriptor(Class<? extends ScriptedTask> taskClass)
+    {
+        return "stub|" + script.getName() + "|new " + taskClass.getName();
+    }
+
+    /**
+     * Every curator gets an instance of a thread safe task of its own, from
+     * a script evaluated only once.
+     */
+    @Test
+    public void testThreadSafeTaskPerCurator() throws Exception
+    {
+        String descriptor = descriptor(SafeTask.class);
+        int before = evaluations.get();
+        ResolvedTask first = resolver.resolveScript("safe", descriptor, script);
+        ResolvedTask second = resolver.resolveScript("safe", descriptor, script);
+        assertEquals(1, evaluations.get() - before);
+
+        Curator firstCurator = new Curator();
+        Curator secondCurator = new Curator();
+        first.init(firstCurator);
+        second.init(secondCurator);
+        // initialising the second task leaves the first one with its curator
+        first.perform(null, "first");
+        second.perform(null, "second");
+        assertEquals(Arrays.asList(firstCurator, secondCurator), SafeTask.performedFor.subList(
+                SafeTask.performedFor.size() - 2, SafeTask.performedFor.size()));
+    }
+
+    /**
+     * The script of a thread safe task is evaluated again once it changed.
+     */
+    @Test
+    public void testChangedScript() throws Exception
+    {
+        String descriptor = descriptor(SafeTask.class);
+        assertNotNull(resolver.resolveScript("safe", descriptor, script));
+        int before = evaluations.get();
+        FileUtils.writeStringToFile(script, "# a task script, changed");
+        assertNotNull(resolver.resolveScript("safe", descriptor, script));
+        assertNotNull(resolver.resolveScript("safe", descriptor, script));
+        assertEquals(1, evaluations.get() - before);
+    }
+
+    /**
+     * Any other task's script is evaluated for every resolution.
+     */
+    @Test
+    public void testPlainTaskEvaluatedEveryTime() throws Exception
+    {
+        String descriptor = descriptor(PlainTask.class);
+        int before = evaluations.get();
+        ResolvedTask first = resolver.resolveScript("plain", descriptor, script);
+        ResolvedTask second = resolver.resolveScript("plain", descriptor, script);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, evaluations.get() - before);
+    }
+
+    /**
+     * Records the curator it was initialised by on every call.
+     */
+    @ThreadSafe
+    public static class SafeTask implements ScriptedTask
+    {
+        static final List<Curator> performedFor = new CopyOnWriteArrayList<Curator>();
+
+        private Curator curator;
+
+        public void init(Curator curator, String taskId) throws IOException
+        {
+            this.curator = curator;
+        }
+
+        public int performDso(DSpaceObject dso) throws IOException
+        {
+            performedFor.add(curator);
+            return Curator.CURATE_SUCCESS;
+        }
+
+        public int performId(Context ctx, String id) throws IOException
+        {
+            performedFor.add(curator);
+            return Curator.CURATE_SUCCESS;
+        }
+    }
+
+    public static class PlainTask extends SafeTask
+    {
+    }
+
+    /**
+     * Evaluates "new &lt;class name&gt;" by instantiating the class, and
+     * counts any other script.
+     */
+    private static class StubEngine extends AbstractScriptEngine
+    {
+        private final ScriptEngineFactory factory;
+
+        StubEngine(ScriptEngineFactory factory)
+        {
+            this.factory = factory;
+        }
+
+        @Override
+        public Object eval(String script, ScriptContext context) throws ScriptException
+        {
+            if (script.startsWith("new "))
+            {
+                try
+                {
+                    return Class.forName(script.substring("new ".length()).trim()).newInstance();
+                }
+                catch (Exception e)
+                {
+                    throw new ScriptException(e);
+                }
+            }
+            evaluations.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) throws ScriptException
+        {
+            try
+            {
+                return eval(IOUtils.toString(reader), context);
+            }
+            catch (IOException e)
+            {
+                throw new ScriptException(e);
+            }
+        }
+
+        @Override
+        public Bindings createBindings()
+        {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory()
+        {
+            return factory;
+        }
+    }
+
+    private static class StubEngineFactory implements ScriptEngineFactory
+    {
+        public String getEngineName()
+        {
+            return "stub";
+        }
+
+        public String getEngineVersion()
+        {
+            return "1";
+        }
+
+        public List<String> getExtensions()
+        {
+            return Arrays.asList("stub");
+        }
+
+        public List<String> getMimeTypes()
+        {
+            return Collections.<String>emptyList();
+        }
+
+        public List<String> getNames()
+        {
+            return Arrays.asList("stub");
+        }
+
+        public String getLanguageName()
+        {
+            return "stub";
+        }
+
+        public String getLanguageVersion()
+        {
+            return "1";
+        }
+
+        public Object getParameter(String key)
+        {
+            return ScriptEngine.NAME.equals(key) ? getEngineName() : null;
+        }
+
+        public String getMethodCallSyntax(String obj, String m, String... args)
+        {
+            return obj + "." + m + "()";
+        }
+
+        public String getOutputStatement(String toDisplay)
+        {
+            return toDisplay;
+        }
+
+        public String getProgram(String... statements)
+        {
+            return Arrays.toString(statements);
+        }
+
+        public ScriptEngine getScriptEngine()
+        {
+            return new StubEngine(this);
+        }
+    }
+}
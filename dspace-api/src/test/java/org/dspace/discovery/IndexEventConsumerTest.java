@@ -0,0 +1,265 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Bundle;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.core.Constants;
+import org.dspace.core.Context;
+import org.dspace.event.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests which objects the {@link IndexEventConsumer} hands to the indexer,
+ * with an indexer which only records them.
+ */
+public class IndexEventConsumerTest extends AbstractUnitTest
+{
+    private IndexEventConsumer consumer;
+    private RecordingIndexer indexer;
+
+    private Community community;
+    private org.dspace.content.Collection collection;
+    private Item first;
+    private Item second;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            indexer = new RecordingIndexer();
+            consumer = new IndexEventConsumer();
+            consumer.indexer = indexer;
+            consumer.initialize();
+
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            first = createItem();
+            second = createItem();
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception e)
+        {
+            fail("Unable to create the items: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        consumer.finish(context);
+        context.turnOffAuthorisationSystem();
+        itemService.delete(context, itemService.find(context, first.getID()));
+        itemService.delete(context, itemService.find(context, second.getID()));
+        collectionService.delete(context, collection);
+        communityService.delete(context, community);
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    private Item createItem() throws Exception
+    {
+        WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+        return installItemService.installItem(context, workspaceItem);
+    }
+
+    /**
+     * When indexing all objects at once fails, they are indexed one by one,
+     * so one object which fails does not keep the others out.
+     */
+    @Test
+    public void testIndexOneByOneAfterFailure() throws Exception
+    {
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, first.getID(), null));
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, second.getID(), null));
+        consumer.end(context);
+        assertEquals(Arrays.asList(first.getID(), second.getID()), indexer.indexedAll);
+        assertTrue(indexer.indexed.isEmpty());
+
+        indexer.failAll = true;
+        indexer.failing = first.getID();
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, first.getID(), null));
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, second.getID(), null));
+        consumer.end(context);
+        // the first one failed on its own as well, the second one made it
+        assertEquals(Arrays.asList(second.getID()), indexer.indexed);
+    }
+
+    /**
+     * A bitstream event of a TEXT bundle updates the owning Item, even when
+     * the bundle is deleted before the transaction ends.
+     */
+    @Test
+    public void testTextBundle() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        Bundle text = bundleService.create(context, first, "TEXT");
+        Bundle original = bundleService.create(context, second, "ORIGINAL");
+        context.restoreAuthSystemState();
+        context.commit();
+        UUID textId = text.getID();
+
+        consumer.consume(context, new Event(Event.REMOVE, Constants.BUNDLE, textId,
+                Constants.BITSTREAM, UUID.randomUUID(), "1"));
+        consumer.consume(context, new Event(Event.REMOVE, Constants.BUNDLE, original.getID(),
+                Constants.BITSTREAM, UUID.randomUUID(), "1"));
+        context.turnOffAuthorisationSystem();
+        itemService.removeBundle(context, itemService.find(context, first.getID()), bundleService.find(context, textId));
+        context.restoreAuthSystemState();
+        consumer.end(context);
+        assertEquals(Arrays.asList(first.getID()), indexer.indexedAll);
+
+        // the bundle is gone before its events are consumed, the event of the item names it
+        context.turnOffAuthorisationSystem();
+        text = bundleService.create(context, second, "TEXT");
+        textId = text.getID();
+        itemService.removeBundle(context, itemService.find(context, second.getID()), text);
+        context.restoreAuthSystemState();
+        indexer.indexedAll.clear();
+        consumer.consume(context, new Event(Event.REMOVE, Constants.BUNDLE, textId,
+                Constants.BITSTREAM, UUID.randomUUID(), "1"));
+        consumer.consume(context, new Event(Event.REMOVE, Constants.ITEM, second.getID(),
+                Constants.BUNDLE, textId, "TEXT"));
+        consumer.end(context);
+        assertEquals(Arrays.asList(second.getID()), indexer.indexedAll);
+    }
+
+    /**
+     * Records the objects indexed, and fails as told.
+     */
+    private static class RecordingIndexer implements IndexingService
+    {
+        /** The objects indexed all at once */
+        List<UUID> indexedAll = new ArrayList<UUID>();
+        /** The objects indexed one by one */
+        List<UUID> indexed = new ArrayList<UUID>();
+        /** Whether indexing all at once fails */
+        boolean failAll;
+        /** The object which fails to index on its own */
+        UUID failing;
+
+        @Override
+        public void indexContent(Context context, DSpaceObject dso)
+        {
+            indexContent(context, dso, false);
+        }
+
+        @Override
+        public void indexContent(Context context, DSpaceObject dso, boolean force)
+        {
+            indexed.add(dso.getID());
+        }
+
+        @Override
+        public void indexContent(Context context, DSpaceObject dso, boolean force, boolean commit)
+                throws SearchServiceException
+        {
+            if (dso.getID().equals(failing))
+            {
+                throw new SearchServiceException("Failing " + dso.getID());
+            }
+            indexed.add(dso.getID());
+        }
+
+        @Override
+        public void indexContent(Context context, Collection<? extends DSpaceObject> dsos)
+                throws SearchServiceException
+        {
+            indexContent(context, dsos, false);
+        }
+
+        @Override
+        public void indexContent(Context context, Collection<? extends DSpaceObject> dsos, boolean force)
+                throws SearchServiceException
+        {
+            if (failAll)
+            {
+                throw new SearchServiceException("Failing all");
+            }
+            for (DSpaceObject dso : dsos)
+            {
+                indexedAll.add(dso.getID());
+            }
+        }
+
+        @Override
+        public void unIndexContent(Context context, DSpaceObject dso)
+        {
+        }
+
+        @Override
+        public void unIndexContent(Context context, DSpaceObject dso, boolean commit)
+        {
+        }
+
+        @Override
+        public void unIndexContent(Context context, String handle)
+        {
+        }
+
+        @Override
+        public void unIndexContent(Context context, String handle, boolean commit)
+        {
+        }
+
+        @Override
+        public void reIndexContent(Context context, DSpaceObject dso)
+        {
+        }
+
+        @Override
+        public void createIndex(Context context)
+        {
+        }
+
+        @Override
+        public void updateIndex(Context context)
+        {
+        }
+
+        @Override
+        public void updateIndex(Context context, boolean force)
+        {
+        }
+
+        @Override
+        public void cleanIndex(boolean force)
+        {
+        }
+
+        @Override
+        public void commit()
+        {
+        }
+
+        @Override
+        public void optimize()
+        {
+        }
+    }
+}
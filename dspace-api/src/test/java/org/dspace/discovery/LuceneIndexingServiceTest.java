@@ -0,0 +1,415 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.discovery;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Community;
+import org.dspace.content.DSpaceObject;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.core.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the embedded Lucene index: when changes become visible and when
+ * they are committed, rebuilding it, and cleaning it.  Every test uses an
+ * index of its own in a temporary directory.
+ */
+public class LuceneIndexingServiceTest extends AbstractUnitTest
+{
+    private static final long HOUR = 60 * 60 * 1000;
+
+    /** The word in the titles of the items, which no other item has */
+    private static final String TITLE = "quokka";
+
+    private File directory;
+    private LuceneIndexingService service;
+
+    private Community community;
+    private org.dspace.content.Collection collection;
+    private Item first;
+    private Item second;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            directory = File.createTempFile("lucene", "");
+            directory.delete();
+            directory.mkdir();
+
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            first = createItem();
+            second = createItem();
+            context.restoreAuthSystemState();
+            context.commit();
+        }
+        catch (Exception e)
+        {
+            fail("Unable to create the items: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        if (service != null)
+        {
+            service.shutdown();
+        }
+        FileUtils.deleteDirectory(directory);
+
+        context.turnOffAuthorisationSystem();
+        for (Item item : new Item[] {first, second})
+        {
+            Item found = itemService.find(context, item.getID());
+            if (found != null)
+            {
+                itemService.delete(context, found);
+            }
+        }
+        collectionService.delete(context, collection);
+        communityService.delete(context, community);
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    private Item createItem() throws Exception
+    {
+        WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+        Item item = installItemService.installItem(context, workspaceItem);
+        itemService.addMetadata(context, item, "dc", "title", null, null, TITLE + " " + item.getID());
+        itemService.update(context, item);
+        return item;
+    }
+
+    private LuceneIndexingService createService(int commitCount, long commitMillis, int threads)
+    {
+        service = new LuceneIndexingService(directory.getAbsolutePath(), commitCount, commitMillis, threads);
+        return service;
+    }
+
+    /**
+     * @return the number of documents of the object the near real time
+     *         reader finds, committed or not
+     */
+    private int countVisible(DSpaceObject dso) throws IOException
+    {
+        SearcherManager manager = service.getSearcherManager();
+        IndexSearcher searcher = manager.acquire();
+        try
+        {
+            return searcher.search(new TermQuery(service.uniqueId(dso.getType(), dso.getID())), 10).totalHits;
+        }
+        finally
+        {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * @return whether a document of the object is committed, read from the
+     *         disk as another process would
+     */
+    private boolean isCommitted(DSpaceObject dso) throws IOException
+    {
+        Directory index = FSDirectory.open(directory);
+        try
+        {
+            if (!DirectoryReader.indexExists(index))
+            {
+                return false;
+            }
+            DirectoryReader reader = DirectoryReader.open(index);
+            try
+            {
+                return new IndexSearcher(reader)
+                        .search(new TermQuery(service.uniqueId(dso.getType(), dso.getID())), 1).totalHits > 0;
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        finally
+        {
+            index.close();
+        }
+    }
+
+    private Set<UUID> search() throws Exception
+    {
+        Set<UUID> ids = new HashSet<UUID>();
+        for (DSpaceObject dso : service.search(context, "dc.title:" + TITLE, 10))
+        {
+            ids.add(dso.getID());
+        }
+        return ids;
+    }
+
+    /**
+     * Waits a few seconds at most for the objects to be found by a search.
+     */
+    private void waitUntilFound(DSpaceObject... dsos) throws Exception
+    {
+        Set<UUID> expected = new HashSet<UUID>();
+        for (DSpaceObject dso : dsos)
+        {
+            expected.add(dso.getID());
+        }
+        long until = System.currentTimeMillis() + 5000;
+        while (!search().equals(expected) && System.currentTimeMillis() < until)
+        {
+            Thread.sleep(100);
+        }
+        assertEquals(expected, search());
+    }
+
+    /**
+     * Changes are found by searches before they are committed.
+     */
+    @Test
+    public void testVisibleBeforeCommit() throws Exception
+    {
+        createService(1000, HOUR, 1);
+        service.indexContent(context, first, true, false);
+        service.indexContent(context, second, true, false);
+
+        waitUntilFound(first, second);
+        assertFalse(isCommitted(first));
+        assertFalse(isCommitted(second));
+
+        service.unIndexContent(context, second, false);
+        waitUntilFound(first);
+
+        service.commit();
+        assertTrue(isCommitted(first));
+        assertFalse(isCommitted(second));
+    }
+
+    /**
+     * Changes are committed once enough of them piled up.
+     */
+    @Test
+    public void testCommitByCount() throws Exception
+    {
+        createService(2, HOUR, 1);
+        service.indexContent(context, first, true, false);
+        assertFalse(isCommitted(first));
+
+        service.indexContent(context, second, true, false);
+        assertTrue(isCommitted(first));
+        assertTrue(isCommitted(second));
+    }
+
+    /**
+     * Changes are committed once some time passed, however few they are.
+     */
+    @Test
+    public void testCommitByInterval() throws Exception
+    {
+        createService(1000, 500, 1);
+        service.indexContent(context, first, true, false);
+        assertFalse(isCommitted(first));
+
+        long until = System.currentTimeMillis() + 5000;
+        while (!isCommitted(first) && System.currentTimeMillis() < until)
+        {
+            Thread.sleep(100);
+        }
+        assertTrue(isCommitted(first));
+    }
+
+    /**
+     * Rebuilding and updating the index at the same time, each on several
+     * threads, indexes every object once.
+     */
+    @Test
+    public void testCreateAndUpdateInParallel() throws Exception
+    {
+        createService(1000, HOUR, 4);
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        Thread create = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Context createContext = new Context();
+                    try
+                    {
+                        service.createIndex(createContext);
+                    }
+                    finally
+                    {
+                        createContext.abort();
+                    }
+                }
+                catch (Exception e)
+                {
+                    errors.add(e);
+                }
+            }
+        };
+        Thread update = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Context updateContext = new Context();
+                    try
+                    {
+                        service.updateIndex(updateContext, true);
+                    }
+                    finally
+                    {
+                        updateContext.abort();
+                    }
+                }
+                catch (Exception e)
+                {
+                    errors.add(e);
+                }
+            }
+        };
+        create.start();
+        update.start();
+        create.join();
+        update.join();
+
+        assertTrue("Failed: " + errors, errors.isEmpty());
+        service.getSearcherManager().maybeRefreshBlocking();
+        assertEquals(1, countVisible(first));
+        assertEquals(1, countVisible(second));
+        assertEquals(1, countVisible(collection));
+        assertEquals(1, countVisible(community));
+        assertTrue(isCommitted(first));
+        assertTrue(isCommitted(second));
+    }
+
+    /**
+     * Items which fail while rebuilding the index fail the rebuild, the
+     * documents written are kept.  Updating the index only logs them.
+     */
+    @Test
+    public void testFailureWhileRebuilding() throws Exception
+    {
+        service = new LuceneIndexingService(directory.getAbsolutePath(), 1000, HOUR, 2)
+        {
+            @Override
+            protected void indexBatch(Context context, List<UUID> batch, boolean force) throws Exception
+            {
+                throw new IOException("Failing a batch of " + batch.size());
+            }
+        };
+        try
+        {
+            service.createIndex(context);
+            fail("Rebuilding the index should have failed");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Failed indexing "));
+        }
+        assertTrue(isCommitted(community));
+        assertTrue(isCommitted(collection));
+        assertFalse(isCommitted(first));
+
+        service.updateIndex(context, true);
+        assertFalse(isCommitted(first));
+    }
+
+    /**
+     * Cleaning removes the documents of objects which are gone, or all
+     * documents if forced.
+     */
+    @Test
+    public void testCleanIndex() throws Exception
+    {
+        createService(1000, HOUR, 1);
+        service.indexContent(context, community, true, false);
+        service.indexContent(context, first, true, false);
+        service.indexContent(context, second, true, false);
+        service.commit();
+
+        context.turnOffAuthorisationSystem();
+        itemService.delete(context, itemService.find(context, second.getID()));
+        context.restoreAuthSystemState();
+        context.commit();
+
+        service.cleanIndex(false);
+        assertTrue(isCommitted(community));
+        assertTrue(isCommitted(first));
+        assertFalse(isCommitted(second));
+
+        service.cleanIndex(true);
+        assertFalse(isCommitted(community));
+        assertFalse(isCommitted(first));
+    }
+
+    /**
+     * Shutting down commits the changes, the index is closed for good.
+     */
+    @Test
+    public void testShutdown() throws Exception
+    {
+        createService(1000, HOUR, 1);
+        service.indexContent(context, first, true, false);
+        service.shutdown();
+        assertTrue(isCommitted(first));
+
+        try
+        {
+            service.indexContent(context, second, true, false);
+            fail("The index should be closed");
+        }
+        catch (AlreadyClosedException e)
+        {
+            // expected
+        }
+        try
+        {
+            service.search(context, "dc.title:" + TITLE, 10);
+            fail("The index should be closed");
+        }
+        catch (AlreadyClosedException e)
+        {
+            // expected
+        }
+    }
+}
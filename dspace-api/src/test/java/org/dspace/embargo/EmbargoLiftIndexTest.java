@@ -0,0 +1,263 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.embargo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.DCDate;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.core.Constants;
+import org.dspace.embargo.factory.EmbargoServiceFactory;
+import org.dspace.event.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the table of embargo lift dates: its upkeep by the
+ * {@link EmbargoServiceImpl} and the {@link EmbargoConsumer}, and the
+ * range queries over it.
+ */
+public class EmbargoLiftIndexTest extends AbstractUnitTest
+{
+    private EmbargoServiceImpl embargoService;
+
+    private Community community;
+    private Collection collection;
+    private Item first;
+    private Item second;
+
+    private Date now;
+    private Date nextMonth;
+    private Date nextYear;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            embargoService = (EmbargoServiceImpl) EmbargoServiceFactory.getInstance().getEmbargoService();
+            // the configured fields are placeholders, use two fields of the dublin core registry
+            embargoService.terms_schema = "dc";
+            embargoService.terms_element = "coverage";
+            embargoService.terms_qualifier = "spatial";
+            embargoService.lift_schema = "dc";
+            embargoService.lift_element = "coverage";
+            embargoService.lift_qualifier = "temporal";
+            embargoService.setter = new DefaultEmbargoSetter();
+            embargoService.lifter = new DefaultEmbargoLifter();
+
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            collection = collectionService.create(context, community);
+            first = createItem();
+            second = createItem();
+            context.restoreAuthSystemState();
+            context.commit();
+
+            now = new Date();
+            nextMonth = days(30);
+            nextYear = days(365);
+        }
+        catch (Exception e)
+        {
+            fail("Unable to create the items: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (Item item : new Item[] {first, second})
+        {
+            if (item != null && itemService.find(context, item.getID()) != null)
+            {
+                embargoService.removeFromEmbargoIndex(context, item.getID());
+                itemService.delete(context, item);
+            }
+        }
+        collectionService.delete(context, collection);
+        communityService.delete(context, community);
+        context.restoreAuthSystemState();
+        // back to the configured fields and plugins
+        embargoService.terms_schema = null;
+        super.destroy();
+    }
+
+    private Item createItem() throws Exception
+    {
+        WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+        return installItemService.installItem(context, workspaceItem);
+    }
+
+    private Date days(int days)
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, days);
+        return calendar.getTime();
+    }
+
+    private void setTerms(Item item, Date liftDate) throws Exception
+    {
+        itemService.clearMetadata(context, item, "dc", "coverage", "spatial", Item.ANY);
+        itemService.addMetadata(context, item, "dc", "coverage", "spatial", null, new DCDate(liftDate).toString());
+    }
+
+    private void setLiftDate(Item item, Date liftDate) throws Exception
+    {
+        itemService.clearMetadata(context, item, "dc", "coverage", "temporal", Item.ANY);
+        if (liftDate != null)
+        {
+            itemService.addMetadata(context, item, "dc", "coverage", "temporal", null, new DCDate(liftDate).toString());
+        }
+        itemService.update(context, item);
+    }
+
+    /**
+     * Setting an embargo indexes the lift date, lifting it removes the item again.
+     */
+    @Test
+    public void testSetAndLiftEmbargo() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        setTerms(first, nextMonth);
+        embargoService.setEmbargo(context, first);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertEquals(Arrays.asList(first.getID()), embargoService.findItemsUnderEmbargo(context, now));
+        assertTrue(embargoService.findItemsToLift(context, now).isEmpty());
+        assertEquals(Arrays.asList(first.getID()), embargoService.findItemsToLift(context, nextYear));
+
+        context.turnOffAuthorisationSystem();
+        embargoService.liftEmbargo(context, first);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertTrue(embargoService.findItemsUnderEmbargo(context, now).isEmpty());
+        assertTrue(embargoService.findItemsToLift(context, nextYear).isEmpty());
+    }
+
+    /**
+     * The range queries split the items at the date and order them by lift date.
+     */
+    @Test
+    public void testRangeQueries() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        setLiftDate(first, nextYear);
+        setLiftDate(second, nextMonth);
+        embargoService.updateEmbargoIndex(context, first);
+        embargoService.updateEmbargoIndex(context, second);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertEquals(Arrays.asList(second.getID(), first.getID()), embargoService.findItemsUnderEmbargo(context, now));
+        assertTrue(embargoService.findItemsToLift(context, now).isEmpty());
+
+        Date between = days(60);
+        assertEquals(Arrays.asList(second.getID()), embargoService.findItemsToLift(context, between));
+        assertEquals(Arrays.asList(first.getID()), embargoService.findItemsUnderEmbargo(context, between));
+
+        // a lift date on the boundary is due
+        assertEquals(Arrays.asList(second.getID()), embargoService.findItemsToLift(context,
+                embargoService.getActualEmbargoLiftDate(second).toDate()));
+
+        List<UUID> all = embargoService.findItemsToLift(context, days(400));
+        assertEquals(Arrays.asList(second.getID(), first.getID()), all);
+    }
+
+    /**
+     * While the index is empty but items have a lift date, the lift job
+     * sorts them by scanning their metadata.
+     */
+    @Test
+    public void testScanWhileIndexEmpty() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        setLiftDate(first, days(-1));
+        setLiftDate(second, nextMonth);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertTrue(embargoService.isEmbargoIndexEmpty(context));
+        assertTrue(EmbargoCLITool.isIndexMissing(context));
+
+        List<UUID> due = new ArrayList<UUID>();
+        List<UUID> underEmbargo = new ArrayList<UUID>();
+        EmbargoCLITool.scanLiftDates(context, now, due, underEmbargo);
+        assertEquals(Arrays.asList(first.getID()), due);
+        assertEquals(Arrays.asList(second.getID()), underEmbargo);
+
+        context.turnOffAuthorisationSystem();
+        embargoService.updateEmbargoIndex(context, second);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        assertFalse(embargoService.isEmbargoIndexEmpty(context));
+        assertFalse(EmbargoCLITool.isIndexMissing(context));
+    }
+
+    /**
+     * The consumer follows edits of the lift date metadata made without
+     * the embargo service, and drops deleted items.
+     */
+    @Test
+    public void testConsumer() throws Exception
+    {
+        EmbargoConsumer consumer = new EmbargoConsumer();
+        consumer.initialize();
+
+        context.turnOffAuthorisationSystem();
+        setLiftDate(first, nextMonth);
+        context.restoreAuthSystemState();
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, first.getID(), null));
+        consumer.end(context);
+        assertEquals(Arrays.asList(first.getID()), embargoService.findItemsUnderEmbargo(context, now));
+
+        // a new lift date moves the item
+        context.turnOffAuthorisationSystem();
+        setLiftDate(first, nextYear);
+        context.restoreAuthSystemState();
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, first.getID(), null));
+        consumer.end(context);
+        assertTrue(embargoService.findItemsToLift(context, days(60)).isEmpty());
+        assertEquals(Arrays.asList(first.getID()), embargoService.findItemsToLift(context, days(400)));
+
+        // removing the lift date removes the item
+        context.turnOffAuthorisationSystem();
+        setLiftDate(first, null);
+        setLiftDate(second, nextMonth);
+        context.restoreAuthSystemState();
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, first.getID(), null));
+        consumer.consume(context, new Event(Event.MODIFY_METADATA, Constants.ITEM, second.getID(), null));
+        consumer.end(context);
+        assertEquals(Arrays.asList(second.getID()), embargoService.findItemsUnderEmbargo(context, now));
+
+        // so does deleting the item
+        consumer.consume(context, new Event(Event.DELETE, Constants.ITEM, second.getID(), null));
+        consumer.end(context);
+        assertTrue(embargoService.findItemsUnderEmbargo(context, now).isEmpty());
+        consumer.finish(context);
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.eperson;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.dspace.AbstractUnitTest;
+import org.dspace.content.Collection;
+import org.dspace.content.Community;
+import org.dspace.content.Item;
+import org.dspace.content.WorkspaceItem;
+import org.dspace.content.factory.ContentServiceFactory;
+import org.dspace.content.service.SubscriptionService;
+import org.dspace.core.I18nUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the grouped queries behind the subscription digests, and sending
+ * the digests to the subscribers.
+ */
+public class SubscribeTest extends AbstractUnitTest
+{
+    private SubscriptionService subscriptionService = ContentServiceFactory.getInstance().getSubscriptionService();
+
+    private Community community;
+    private Collection both;
+    private Collection one;
+    private Collection none;
+    private List<Item> items = new ArrayList<Item>();
+    private EPerson subscriberOfBoth;
+    private EPerson subscriberOfOne;
+
+    private Date from;
+    private Date until;
+
+    @Before
+    @Override
+    public void init()
+    {
+        super.init();
+        try
+        {
+            context.turnOffAuthorisationSystem();
+            community = communityService.create(context, null);
+            both = createCollection("Subscribed by both");
+            one = createCollection("Subscribed by one");
+            none = createCollection("Subscribed by none");
+            createItem(both, "First");
+            createItem(both, "Second");
+            createItem(one, "Third");
+            createItem(none, "Fourth");
+
+            subscriberOfBoth = createEPerson("both@example.com");
+            subscriberOfOne = createEPerson("one@example.com");
+            subscribe(subscriberOfBoth, both);
+            subscribe(subscriberOfBoth, one);
+            subscribe(subscriberOfOne, both);
+            context.setCurrentUser(eperson);
+            context.restoreAuthSystemState();
+            context.commit();
+
+            long now = System.currentTimeMillis();
+            from = new Date(now - 3600000L);
+            until = new Date(now + 3600000L);
+        }
+        catch (Exception e)
+        {
+            fail("Unable to create the subscriptions: " + e.getMessage());
+        }
+    }
+
+    @After
+    @Override
+    public void destroy() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (EPerson subscriber : new EPerson[] {subscriberOfBoth, subscriberOfOne})
+        {
+            if (subscriber != null)
+            {
+                context.setCurrentUser(subscriber);
+                subscriptionService.delete(context, subscriber);
+                context.setCurrentUser(eperson);
+                ePersonService.delete(context, subscriber);
+            }
+        }
+        for (Item item : items)
+        {
+            itemService.delete(context, item);
+        }
+        for (Collection collection : new Collection[] {both, one, none})
+        {
+            if (collection != null)
+            {
+                collectionService.delete(context, collection);
+            }
+        }
+        if (community != null)
+        {
+            communityService.delete(context, community);
+        }
+        context.restoreAuthSystemState();
+        super.destroy();
+    }
+
+    private Collection createCollection(String name) throws Exception
+    {
+        Collection collection = collectionService.create(context, community);
+        collection.setName(name);
+        collectionService.update(context, collection);
+        return collection;
+    }
+
+    private void createItem(Collection collection, String title) throws Exception
+    {
+        WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
+        Item item = installItemService.installItem(context, workspaceItem);
+        itemService.addMetadata(context, item, "dc", "title", null, null, title);
+        itemService.update(context, item);
+        items.add(item);
+    }
+
+    private void subscribe(EPerson subscriber, Collection collection) throws Exception
+    {
+        // e-persons may subscribe themselves
+        context.setCurrentUser(subscriber);
+        subscriptionService.create(context, collection, subscriber);
+    }
+
+    private Set<UUID> ids(Item... of)
+    {
+        Set<UUID> ids = new HashSet<UUID>();
+        for (Item item : of)
+        {
+            ids.add(item.getID());
+        }
+        return ids;
+    }
+
+    /**
+     * The items archived in the window are grouped by the subscribed collections holding them.
+     */
+    @Test
+    public void testFindItemsInSubscribedCollections() throws Exception
+    {
+        Map<UUID, List<UUID>> itemsByCollection = subscriptionService.findItemsInSubscribedCollections(context, from, until);
+        assertEquals(new HashSet<UUID>(Arrays.asList(both.getID(), one.getID())), itemsByCollection.keySet());
+        assertEquals(ids(items.get(0), items.get(1)), new HashSet<UUID>(itemsByCollection.get(both.getID())));
+        assertEquals(2, itemsByCollection.get(both.getID()).size());
+        assertEquals(ids(items.get(2)), new HashSet<UUID>(itemsByCollection.get(one.getID())));
+
+        assertTrue(subscriptionService.findItemsInSubscribedCollections(context, until, new Date(until.getTime() + 3600000L)).isEmpty());
+    }
+
+    /**
+     * The subscribers are grouped with the collections they are subscribed to which have new items.
+     */
+    @Test
+    public void testFindSubscribersOfModifiedCollections() throws Exception
+    {
+        Map<UUID, List<UUID>> subscribers = subscriptionService.findSubscribersOfModifiedCollections(context, from, until);
+        assertEquals(new HashSet<UUID>(Arrays.asList(subscriberOfBoth.getID(), subscriberOfOne.getID())), subscribers.keySet());
+        assertEquals(new HashSet<UUID>(Arrays.asList(both.getID(), one.getID())),
+                new HashSet<UUID>(subscribers.get(subscriberOfBoth.getID())));
+        assertEquals(Arrays.asList(both.getID()), subscribers.get(subscriberOfOne.getID()));
+
+        assertTrue(subscriptionService.findSubscribersOfModifiedCollections(context, until, new Date(until.getTime() + 3600000L)).isEmpty());
+    }
+
+    /**
+     * The texts are rendered for the default locale even if it is not a supported one.
+     */
+    @Test
+    public void testRenderCollections() throws Exception
+    {
+        Map<Locale, Map<UUID, String>> texts = Subscribe.renderCollections(context,
+                subscriptionService.findItemsInSubscribedCollections(context, from, until), from, until);
+        Map<UUID, String> localized = texts.get(I18nUtil.getDefaultLocale());
+        assertNotNull(localized);
+        assertEquals(2, localized.size());
+        String text = localized.get(both.getID());
+        assertTrue(text.contains("Subscribed by both"));
+        assertTrue(text.contains("First"));
+        assertTrue(text.contains("Second"));
+        assertTrue(text.contains(handleService.getCanonicalForm(items.get(0).getHandle(context))));
+        assertFalse(text.contains("Third"));
+    }
+
+    /**
+     * Every subscriber is sent one digest with the texts of their collections.
+     */
+    @Test
+    public void testProcessDaily() throws Exception
+    {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, "UTF-8"));
+        boolean failed;
+        try
+        {
+            failed = Subscribe.processDaily(context, from, until, true, 2);
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+        assertFalse(failed);
+
+        String output = printed.toString("UTF-8");
+        String toBoth = "To: both@example.com";
+        String toOne = "To: one@example.com";
+        assertTrue(output.contains(toBoth));
+        assertTrue(output.contains(toOne));
+        // the digests are printed one after the other, the order of the subscribers is not fixed
+        int startOfBoth = output.indexOf(toBoth);
+        int startOfOne = output.indexOf(toOne);
+        String digestOfBoth = startOfBoth < startOfOne ? output.substring(startOfBoth, startOfOne) : output.substring(startOfBoth);
+        String digestOfOne = startOfOne < startOfBoth ? output.substring(startOfOne, startOfBoth) : output.substring(startOfOne);
+
+        assertTrue(digestOfBoth.contains("Subscribed by both"));
+        assertTrue(digestOfBoth.contains("Subscribed by one"));
+        assertTrue(digestOfBoth.contains(Subscribe.SEPARATOR.trim()));
+        assertTrue(digestOfOne.contains("Subscribed by both"));
+        assertFalse(digestOfOne.contains("Subscribed by one"));
+        assertFalse(output.contains("Subscribed by none"));
+    }
+}
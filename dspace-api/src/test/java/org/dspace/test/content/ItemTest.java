@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 
 import org.apache.commons.lang.time.DateUtils;
+import org.dspace.QueryCounter;
 import org.dspace.authorize.AuthorizeException;
 import org.apache.log4j.Logger;
 
@@ -1704,6 +1705,94 @@ public class ItemTest  extends AbstractDSpaceObjectTest
         return collectionService.create(context, owningCommunity);
     }
 
+    /**
+     * Test of find method with a fetch plan, of class Item.  Walking the
+     * fetched graph must not run any more queries.
+     */
+    @Test
+    public void testFindWithFetchPlan() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        File f = new File(testProps.get("test.bitstream").toString());
+        itemService.createSingleBitstream(context, it, new FileInputStream(f), "ORIGINAL");
+        itemService.addMetadata(context, it, "dc", "title", null, null, "fetch plan");
+        itemService.update(context, it);
+        context.restoreAuthSystemState();
+        context.commit();
+
+        Context other = new Context();
+        try
+        {
+            QueryCounter counter = QueryCounter.start();
+            Item found = itemService.find(other, it.getID(), FetchPlan.ITEM_FULL);
+            counter.assertAtMost("testFindWithFetchPlan 0", 10);
+
+            counter.reset();
+            for (MetadataValue value : found.getMetadata())
+            {
+                assertThat("testFindWithFetchPlan 1", value.getMetadataField().getMetadataSchema().getName(), notNullValue());
+            }
+            assertThat("testFindWithFetchPlan 2", found.getBundles().size(), equalTo(1));
+            for (Bundle bundle : found.getBundles())
+            {
+                for (BundleBitstream bundleBitstream : bundle.getBitstreams())
+                {
+                    assertThat("testFindWithFetchPlan 3", bundleBitstream.getBitstream().getFormat(), notNullValue());
+                }
+            }
+            assertThat("testFindWithFetchPlan 4", found.getCollections().size(), equalTo(1));
+            counter.assertAtMost("testFindWithFetchPlan 5", 0);
+        }
+        finally
+        {
+            other.abort();
+        }
+    }
+
+    /**
+     * Test of findByCollection method with a fetch plan, of class Item.  The
+     * number of queries may not grow with the number of items.
+     */
+    @Test
+    public void testFindByCollectionWithFetchPlan() throws Exception
+    {
+        context.turnOffAuthorisationSystem();
+        for (int i = 0; i < 5; i++)
+        {
+            Item item = createItem();
+            itemService.addMetadata(context, item, "dc", "title", null, null, "fetch plan " + i);
+            itemService.update(context, item);
+        }
+        context.restoreAuthSystemState();
+        context.commit();
+
+        Context other = new Context();
+        try
+        {
+            Collection otherCollection = collectionService.find(other, collection.getID());
+            QueryCounter counter = QueryCounter.start();
+            Iterator<Item> items = itemService.findByCollection(other, otherCollection, FetchPlan.ITEM_LISTING);
+            counter.assertAtMost("testFindByCollectionWithFetchPlan 0", 4);
+
+            counter.reset();
+            int count = 0;
+            while (items.hasNext())
+            {
+                for (MetadataValue value : items.next().getMetadata())
+                {
+                    assertThat("testFindByCollectionWithFetchPlan 1", value.getMetadataField().getElement(), notNullValue());
+                }
+                count++;
+            }
+            assertThat("testFindByCollectionWithFetchPlan 2", count, equalTo(6));
+            counter.assertAtMost("testFindByCollectionWithFetchPlan 3", 0);
+        }
+        finally
+        {
+            other.abort();
+        }
+    }
+
     protected Item createItem() throws SQLException, IOException, AuthorizeException, IllegalAccessException {
         WorkspaceItem workspaceItem = workspaceItemService.create(context, collection, false);
         return installItemService.installItem(context, workspaceItem);
@@ -21,6 +21,8 @@ import org.dspace.content.service.CollectionService;
 import org.dspace.content.service.CommunityService;
 import org.dspace.core.Context;
 import org.dspace.identifier.*;
+import org.dspace.identifier.doi.DOIIdentifierException;
+import org.dspace.identifier.doi.DOIOrganiser;
 import org.dspace.identifier.service.DOIService;
 import org.dspace.kernel.ServiceManager;
 import org.dspace.services.ConfigurationService;
@@ -662,6 +664,119 @@ public class DOIIdentifierProviderTest
                 DOI.TO_BE_DELETED.equals(doiRow2.getStatus()));
     }
 
+    @Test
+    public void testOrganiser_registers_queued_DOIs()
+            throws Exception
+    {
+        Item item1 = newItem(context);
+        String doi1 = this.createDOI(item1, DOI.TO_BE_REGISTERED, false);
+        Item item2 = newItem(context);
+        String doi2 = this.createDOI(item2, DOI.TO_BE_REGISTERED, false);
+
+        DOIOrganiser organiser = new DOIOrganiser(provider, doiService, 2, 0, 0, true);
+        assertFalse("The organiser reported failed DOIs.",
+                organiser.processQueue(DOIOrganiser.Operation.REGISTER));
+
+        assertTrue("The organiser did not register the first DOI.",
+                connector.registered.containsKey(doi1));
+        assertTrue("The organiser did not register the second DOI.",
+                connector.registered.containsKey(doi2));
+
+        // the organiser committed in contexts of its own
+        Context other = new Context();
+        try
+        {
+            DOI doiRow = doiService.findByDoi(other, doi1.substring(DOIService.SCHEME.length()));
+            assertTrue("The organiser did not set the DOI status.",
+                    DOI.IS_REGISTERED.equals(doiRow.getStatus()));
+        }
+        finally
+        {
+            other.abort();
+        }
+    }
+
+
+    @Test
+    public void testOrganiser_retries_temporary_failures()
+            throws Exception
+    {
+        Item item = newItem(context);
+        String doi = this.createDOI(item, DOI.TO_BE_REGISTERED, false);
+        connector.temporaryFailures.put(doi, 2);
+
+        DOIOrganiser organiser = new DOIOrganiser(provider, doiService, 1, 2, 1, true);
+        assertFalse("The organiser gave up on a temporary failure.",
+                organiser.processQueue(DOIOrganiser.Operation.REGISTER));
+        assertTrue("The organiser did not register the DOI after retrying.",
+                connector.registered.containsKey(doi));
+        assertEquals("The organiser did not retry every failure.",
+                Integer.valueOf(0), connector.temporaryFailures.get(doi));
+    }
+
+    @Test
+    public void testOrganiser_gives_up_after_the_retries()
+            throws Exception
+    {
+        Item item = newItem(context);
+        String doi = this.createDOI(item, DOI.TO_BE_REGISTERED, false);
+        connector.temporaryFailures.put(doi, 5);
+
+        // one attempt and two retries, the delay doubles from 1 ms
+        DOIOrganiser organiser = new DOIOrganiser(provider, doiService, 1, 2, 1, true);
+        assertTrue("The organiser did not report the failed DOI.",
+                organiser.processQueue(DOIOrganiser.Operation.REGISTER));
+        assertFalse("The organiser registered a failing DOI.",
+                connector.registered.containsKey(doi));
+        assertEquals("The organiser did not stop after the retries.",
+                Integer.valueOf(2), connector.temporaryFailures.get(doi));
+
+        // the DOI stays in the queue
+        Context other = new Context();
+        try
+        {
+            DOI doiRow = doiService.findByDoi(other, doi.substring(DOIService.SCHEME.length()));
+            assertTrue("The organiser changed the status of a failed DOI.",
+                    DOI.TO_BE_REGISTERED.equals(doiRow.getStatus()));
+        }
+        finally
+        {
+            other.abort();
+        }
+    }
+
+    @Test
+    public void testOrganiser_retries_only_temporary_failures()
+    {
+        TemporaryFailures organiser = new TemporaryFailures(provider);
+        assertTrue("An internal error of the agency is temporary.", organiser.isTemporary(
+                new DOIIdentifierException(DOIIdentifierException.INTERNAL_ERROR)));
+        assertTrue("A network problem is temporary.", organiser.isTemporary(
+                new RuntimeException(new IOException("Connection reset"))));
+        assertFalse("A mismatch is not temporary.", organiser.isTemporary(
+                new DOIIdentifierException(DOIIdentifierException.MISMATCH)));
+        assertFalse("A bad answer of the agency is not temporary.", organiser.isTemporary(
+                new DOIIdentifierException(DOIIdentifierException.BAD_ANSWER)));
+        assertFalse("Other runtime exceptions are not temporary.", organiser.isTemporary(
+                new IllegalStateException()));
+    }
+
+    /**
+     * Opens up the decision which failures the organiser retries.
+     */
+    private class TemporaryFailures extends DOIOrganiser
+    {
+        TemporaryFailures(DOIIdentifierProvider provider)
+        {
+            super(provider, doiService, 1, 0, 0, true);
+        }
+
+        @Override
+        public boolean isTemporary(Exception e)
+        {
+            return super.isTemporary(e);
+        }
+    }
     
     // test the following methods using the MockDOIConnector.
     // updateMetadataOnline
@@ -29,17 +29,21 @@ implements org.dspace.identifier.doi.DOIConnector
 
     public Map<String, UUID> reserved;
     public Map<String, UUID> registered;
+    /** How often the registration of a DOI fails with an internal error before it succeeds */
+    public Map<String, Integer> temporaryFailures;
     
     public MockDOIConnector()
     {
         reserved = new HashMap<String, UUID>();
         registered = new HashMap<String, UUID>();
+        temporaryFailures = new HashMap<String, Integer>();
     }
     
     public void reset()
     {
         reserved.clear();
         registered.clear();
+        temporaryFailures.clear();
     }
             
     @Override
@@ -124,6 +128,14 @@ implements org.dspace.identifier.doi.DOIConnector
     public void registerDOI(Context context, DSpaceObject dso, String doi)
             throws DOIIdentifierException
     {
+        Integer failures = temporaryFailures.get(doi);
+        if (null != failures && failures > 0)
+        {
+            temporaryFailures.put(doi, failures - 1);
+            throw new DOIIdentifierException("The registration agency had an "
+                    + "internal error.", DOIIdentifierException.INTERNAL_ERROR);
+        }
+
         if (!reserved.containsKey(doi))
         {
             throw new DOIIdentifierException("Trying to register an unreserverd "
@@ -796,6 +796,34 @@ CREATE TABLE harvested_item
 
 CREATE INDEX harvested_item_fk_idx ON harvested_item(item_id);
 
+-- the lift dates of the embargoed items, see org.dspace.embargo.EmbargoLift
+CREATE TABLE embargo_lift
+(
+    item_id uuid PRIMARY KEY REFERENCES item(uuid) ON DELETE CASCADE,
+    lift_date TIMESTAMP NOT NULL
+);
+
+CREATE INDEX embargo_lift_date_idx ON embargo_lift(lift_date);
+
+-- the queued curation requests, see org.dspace.curate.DBTaskQueue
+CREATE SEQUENCE curation_queue_seq;
+
+CREATE TABLE curation_queue
+(
+    queued_task_id INTEGER PRIMARY KEY,
+    queue_name VARCHAR(256) NOT NULL,
+    eperson_id VARCHAR(256),
+    submit_time BIGINT NOT NULL,
+    tasks VARCHAR(1024) NOT NULL,
+    object_id VARCHAR(256) NOT NULL,
+    claim VARCHAR(256),
+    lease_expires TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX curation_queue_name_idx ON curation_queue(queue_name, lease_expires);
+CREATE INDEX curation_queue_claim_idx ON curation_queue(claim);
+
 
 
 CREATE TABLE versionhistory
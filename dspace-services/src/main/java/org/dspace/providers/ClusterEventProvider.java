@@ -0,0 +1,67 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.providers;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.dspace.services.model.Event;
+
+
+/**
+ * This is a provider (pluggable functionality) for DSpace.
+ * <p>
+ * This allows an external system to define how events with the
+ * {@link org.dspace.services.model.Event.Scope#CLUSTER} scope are
+ * carried to the other nodes of a cluster by implementing this interface
+ * and registering it with the service manager.  Without a provider
+ * cluster events are only delivered locally.
+ * </p>
+ * The event service does the batching and de-duplication of the events,
+ * the provider only has to move batches between the nodes.
+ */
+public interface ClusterEventProvider {
+
+    /**
+     * @return the id of this node, unique within the cluster
+     */
+    public String getNodeId();
+
+    /**
+     * Sets the receiver which is handed the batches arriving from
+     * the other nodes.
+     *
+     * @param receiver the receiver, null to stop receiving
+     */
+    public void setReceiver(Receiver receiver);
+
+    /**
+     * Sends a batch of events to all other nodes of the cluster.
+     *
+     * @param events the events to send, in the order they were fired
+     * @throws IOException if the batch could not be sent to some of the nodes
+     */
+    public void send(List<Event> events) throws IOException;
+
+    /**
+     * Receives the batches of events sent by other nodes.
+     */
+    public interface Receiver {
+
+        /**
+         * Called for each batch which arrives from another node.
+         * May be called by several threads at once.
+         *
+         * @param nodeId the id of the node which sent the batch
+         * @param events the events in the batch
+         */
+        public void receive(String nodeId, List<Event> events);
+
+    }
+
+}
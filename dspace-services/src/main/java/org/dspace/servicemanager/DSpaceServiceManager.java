@@ -9,6 +9,9 @@ package org.dspace.servicemanager;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.dspace.kernel.Activator;
@@ -62,6 +65,34 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
      */
     private List<Activator> activators = Collections.synchronizedList(new ArrayList<Activator>());
 
+    /**
+     * The singleton services found by {@link #getServiceByName(String, Class)},
+     * so a repeated lookup is a single map read.  Cleared whenever services
+     * are registered or unregistered and whenever the configuration changes.
+     */
+    private final ConcurrentMap<ServiceKey, Object> serviceCache = new ConcurrentHashMap<ServiceKey, Object>();
+    /**
+     * Counts the clearings of the cache, so a lookup which raced with one
+     * does not put back what was just cleared.
+     */
+    private final AtomicLong serviceCacheGeneration = new AtomicLong();
+
+    /**
+     * Forwards every change published by the configuration service to the
+     * services which implement {@link ConfigChangeListener}.
+     */
+    private final ConfigChangeListener configChangeForwarder = new ConfigChangeListener() {
+        public String[] notifyForConfigNames() {
+            return null;
+        }
+        public void configurationChanged(List<String> changedSettingNames, Map<String, String> changedSettings) {
+            clearServiceCache();
+            if (isRunning()) {
+                notifyConfigChangeListeners(changedSettingNames, changedSettings);
+            }
+        }
+    };
+
     protected boolean developing = false;
     /**
      * Standard constructor.
@@ -169,6 +200,9 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
      * Shut down all service managers, including this one.
      */
     public void shutdown() {
+        if (configurationService != null) {
+            configurationService.removeConfigChangeListener(configChangeForwarder);
+        }
         unregisterActivators();
         for (ServiceManagerSystem sms : serviceManagers) {
             try {
@@ -181,6 +215,7 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
         this.running = false; // wait til the end
         this.serviceManagers.clear();
         this.primaryServiceManager = null;
+        clearServiceCache();
         log.info("Shutdown DSpace core service manager");
     }
 
@@ -211,6 +246,9 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
             this.serviceManagers.add(springSMS);
             this.primaryServiceManager = springSMS;
 
+            // from now on configuration changes are pushed to the services
+            configurationService.addConfigChangeListener(configChangeForwarder);
+
             // now startup the activators
             registerActivators();
 
@@ -234,6 +272,7 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
         for (ServiceManagerSystem sms : serviceManagers) {
             sms.registerService(name, service);
         }
+        clearServiceCache();
     }
 
     public <T> T registerServiceClass(String name, Class<T> type) {
@@ -242,7 +281,9 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
             throw new IllegalArgumentException("name and type cannot be null");
         }
         // we only register with the primary
-        return primaryServiceManager.registerServiceClass(name, type);
+        T service = primaryServiceManager.registerServiceClass(name, type);
+        clearServiceCache();
+        return service;
     }
 
     public void unregisterService(String name) {
@@ -252,6 +293,7 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
         }
         // only unregister with the primary
         primaryServiceManager.unregisterService(name);
+        clearServiceCache();
     }
 
     public <T> T getServiceByName(String name, Class<T> type) {
@@ -259,6 +301,44 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
         if (type == null) {
             throw new IllegalArgumentException("type cannot be null");
         }
+        ServiceKey key = new ServiceKey(name, type);
+        Object cached = serviceCache.get(key);
+        if (cached != null) {
+            return type.cast(cached);
+        }
+        long generation = serviceCacheGeneration.get();
+        T service = findServiceByName(name, type);
+        if (service != null && isCacheable(name, type)) {
+            serviceCache.put(key, service);
+            if (serviceCacheGeneration.get() != generation) {
+                // the services changed meanwhile, the next lookup looks again
+                serviceCache.remove(key);
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Only singletons of the primary service manager are cached, anything
+     * else may be a different instance on the next lookup.
+     */
+    private boolean isCacheable(String name, Class<?> type) {
+        SpringServiceManager primary = primaryServiceManager;
+        return primary != null && primary.isSingletonService(name, type);
+    }
+
+    /**
+     * Forgets the services found so far.
+     */
+    private void clearServiceCache() {
+        serviceCacheGeneration.incrementAndGet();
+        serviceCache.clear();
+    }
+
+    /**
+     * Asks the service managers for a service, the lookup behind the cache.
+     */
+    private <T> T findServiceByName(String name, Class<T> type) {
         T service = null;
         for (ServiceManagerSystem sms : serviceManagers) {
             try {
@@ -356,59 +436,61 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
      * Handles the configuration push for all services.
      * Every service gets called to notify them of the config change
      * depending on the the listener they are using.
+     * The notification itself is triggered by the configuration service
+     * once the new settings have been swapped in.
      */
     public void pushConfig(Map<String, String> properties) {
         checkRunning();
         if (properties != null && !properties.isEmpty()) {
             // load in the new settings to the config service
-            String[] changedNames = configurationService.loadConfiguration(properties, false);
-            if (changedNames.length > 0) {
-                // some configs changed so push the changes to the listeners in all known services and providers
-                // make the list of changed setting names and map of changed settings
-                ArrayList<String> changedSettingNames = new ArrayList<String>();
-                Map<String, String> changedSettings = new LinkedHashMap<String, String>();
-                for (String configName : changedNames) {
-                    changedSettingNames.add(configName);
-                    changedSettings.put( getSimplerName(configName), configurationService.getProperty(configName) );
-                }
-                // notify the services that implement the mixin
-                for (ServiceManagerSystem sms : serviceManagers) {
-                    List<ConfigChangeListener> configChangeListeners = sms.getServicesByType(ConfigChangeListener.class);
-                    for (ConfigChangeListener configChangeListener : configChangeListeners) {
-                        String serviceImplName = configChangeListener.getClass().getName();
-                        // notify this service
-                        try {
-                            boolean notify = false;
-                            String[] notifyNames = configChangeListener.notifyForConfigNames();
-                            if (notifyNames == null || notifyNames.length == 0) {
+            configurationService.loadConfiguration(properties, false);
+        }
+        clearServiceCache();
+    }
+
+    /**
+     * Pushes the changes to the listeners in all known services and providers.
+     * @param changedNames the names of the settings which changed
+     * @param changedSettings the changed settings keyed by their simpler name
+     */
+    private void notifyConfigChangeListeners(List<String> changedNames, Map<String, String> changedSettings) {
+        ArrayList<String> changedSettingNames = new ArrayList<String>(changedNames);
+        // notify the services that implement the mixin
+        for (ServiceManagerSystem sms : serviceManagers) {
+            List<ConfigChangeListener> configChangeListeners = sms.getServicesByType(ConfigChangeListener.class);
+            for (ConfigChangeListener configChangeListener : configChangeListeners) {
+                String serviceImplName = configChangeListener.getClass().getName();
+                // notify this service
+                try {
+                    boolean notify = false;
+                    String[] notifyNames = configChangeListener.notifyForConfigNames();
+                    if (notifyNames == null || notifyNames.length == 0) {
+                        notify = true;
+                    } else {
+                        for (String notifyName : notifyNames) {
+                            // check to see if the change was one of the bean properties for our service
+                            String simplerName = getSimplerName(notifyName);
+                            String notifyBeanName = DSpaceConfig.getBeanName(notifyName);
+                            if (notifyBeanName != null && notifyBeanName.equals(serviceImplName)) {
+                                // this is a bean key
                                 notify = true;
-                            } else {
-                                for (String notifyName : notifyNames) {
-                                    // check to see if the change was one of the bean properties for our service
-                                    String simplerName = getSimplerName(notifyName);
-                                    String notifyBeanName = DSpaceConfig.getBeanName(notifyName);
-                                    if (notifyBeanName != null && notifyBeanName.equals(serviceImplName)) {
-                                        // this is a bean key
-                                        notify = true;
-                                        break;
-                                    }
-                                    // check to see if the name matches one of those the listener cares about
-                                    for (String changedName : changedNames) {
-                                        if (simplerName != null && simplerName.equals(changedName)) {
-                                            notify = true;
-                                            break;
-                                        }
-                                    }
-                                }
+                                break;
                             }
-                            // do the notify if we should at this point
-                            if (notify) {
-                                configChangeListener.configurationChanged(changedSettingNames, changedSettings);
+                            // check to see if the name matches one of those the listener cares about
+                            for (String changedName : changedNames) {
+                                if (simplerName != null && simplerName.equals(changedName)) {
+                                    notify = true;
+                                    break;
+                                }
                             }
-                        } catch (Exception e) {
-                            System.err.println("Failure occurred while trying to notify service of config change: " + e.getMessage());
                         }
                     }
+                    // do the notify if we should at this point
+                    if (notify) {
+                        configChangeListener.configurationChanged(changedSettingNames, changedSettings);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failure occurred while trying to notify service of config change: " + e.getMessage());
                 }
             }
         }
@@ -429,6 +511,37 @@ public final class DSpaceServiceManager implements ServiceManagerSystem {
         return simpleName;
     }
 
+    /**
+     * The key of the service cache, a service name, which may be null,
+     * together with the type it was asked for.
+     */
+    private static final class ServiceKey {
+        private final String name;
+        private final Class<?> type;
+
+        ServiceKey(String name, Class<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ServiceKey)) {
+                return false;
+            }
+            ServiceKey other = (ServiceKey) o;
+            return type.equals(other.type) && (name == null ? other.name == null : name.equals(other.name));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + (name == null ? 0 : name.hashCode());
+        }
+    }
+
     // STATICS
 
     /**
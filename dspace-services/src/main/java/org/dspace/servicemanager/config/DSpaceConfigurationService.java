@@ -8,12 +8,17 @@
 package org.dspace.servicemanager.config;
 
 import java.io.*;
+import java.lang.reflect.Array;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.dspace.constants.Constants;
+import org.dspace.kernel.mixins.ConfigChangeListener;
 import org.dspace.servicemanager.ServiceConfig;
 import org.dspace.services.ConfigurationService;
 import org.slf4j.Logger;
@@ -26,6 +31,14 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 /**
  * The central DSpace configuration service.
  * This is effectively immutable once the config has loaded.
+ * <p>
+ * The settings are held in an immutable snapshot which is replaced as a
+ * whole whenever the configuration changes, so reads never take a lock.
+ * Writes are serialized and build the next snapshot from a copy of the
+ * current one.  Each snapshot also carries the typed values converted by
+ * {@link #getPropertyAsType(String, Class)} so the string conversion only
+ * happens once per setting and type.  Registered
+ * {@link ConfigChangeListener}s are notified after each swap.
  *
  * @author Aaron Zeckoski (azeckoski @ gmail.com)
  * @author Kevin Van de Velde (kevin at atmire dot com)
@@ -49,9 +62,21 @@ public final class DSpaceConfigurationService implements ConfigurationService {
 
     public static final String DSPACE_MODULES_CONFIG_PATH = "config" + File.separator + "modules";
 
-    protected transient Map<String, Map<String, ServiceConfig>> serviceNameConfigs;
+    protected transient volatile Map<String, Map<String, ServiceConfig>> serviceNameConfigs;
     public static final String DSPACE_CONFIG_ADDON = "dspace/config-*";
 
+    /**
+     * The current configuration, never modified once published.
+     */
+    private volatile ConfigSnapshot snapshot = new ConfigSnapshot(new LinkedHashMap<String, DSpaceConfig>());
+
+    /**
+     * Serializes all writers, readers only ever look at {@link #snapshot}.
+     */
+    private final Object writeLock = new Object();
+
+    private final List<ConfigChangeListener> changeListeners = new CopyOnWriteArrayList<ConfigChangeListener>();
+
     public DSpaceConfigurationService() {
         // init and load up current config settings
         loadInitialConfig(null);
@@ -71,7 +96,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
 //            props.put(config.getKey(), config.getValue().getValue());
 //        }
 
-        for (DSpaceConfig config : configuration.values()) {
+        for (DSpaceConfig config : snapshot.configs.values()) {
             props.put(config.getKey(), config.getValue());
         }
         return props;
@@ -83,7 +108,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
     @Override
     public Properties getProperties() {
         Properties props = new Properties();
-        for (DSpaceConfig config : configuration.values()) {
+        for (DSpaceConfig config : snapshot.configs.values()) {
             props.put(config.getKey(), config.getValue());
         }
         return props;
@@ -94,7 +119,11 @@ public final class DSpaceConfigurationService implements ConfigurationService {
      */
     @Override
     public String getProperty(String name) {
-        DSpaceConfig config = configuration.get(name);
+        return getProperty(snapshot, name);
+    }
+
+    private static String getProperty(ConfigSnapshot current, String name) {
+        DSpaceConfig config = current.configs.get(name);
         String value = null;
         if (config != null) {
             value = config.getValue();
@@ -107,8 +136,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
      */
     @Override
     public <T> T getPropertyAsType(String name, Class<T> type) {
-        String value = getProperty(name);
-        return convert(value, type);
+        return getTypedProperty(snapshot, name, type);
     }
 
     /* (non-Javadoc)
@@ -125,7 +153,8 @@ public final class DSpaceConfigurationService implements ConfigurationService {
     @SuppressWarnings("unchecked")
     @Override
     public <T> T getPropertyAsType(String name, T defaultValue, boolean setDefaultIfNotFound) {
-        String value = getProperty(name);
+        ConfigSnapshot current = snapshot;
+        String value = getProperty(current, name);
         T property = null;
         if (defaultValue == null) {
             property = null; // just return null when default value is null
@@ -137,7 +166,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
             }
         } else {
             // something is already set so we convert the stored value to match the type
-            property = (T)convert(value, defaultValue.getClass());
+            property = (T)getTypedProperty(current, name, defaultValue.getClass());
         }
         return property;
     }
@@ -154,8 +183,17 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         }
         boolean changed = false;
         if (value == null) {
-            changed = this.configuration.remove(name) != null;
+            synchronized (writeLock) {
+                Map<String, DSpaceConfig> working = copyConfiguration();
+                changed = working.remove(name) != null;
+                if (changed) {
+                    publish(working);
+                }
+            }
             log.info("Cleared the configuration setting for name ("+name+")");
+            if (changed) {
+                fireConfigurationChanged(Collections.singletonList(name));
+            }
         } else {
             SimpleTypeConverter converter = new SimpleTypeConverter();
             String sVal = (String)converter.convertIfNecessary(value, String.class);
@@ -166,7 +204,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
 
     // INTERNAL loading methods
     public List<DSpaceConfig> getConfiguration() {
-        return new ArrayList<DSpaceConfig>( configuration.values() );
+        return new ArrayList<DSpaceConfig>( snapshot.configs.values() );
     }
 
     /**
@@ -177,7 +215,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
     public List<DSpaceConfig> getConfigsByPrefix(String prefix) {
         List<DSpaceConfig> configs = new ArrayList<DSpaceConfig>();
         if (prefix != null && prefix.length() > 0) {
-            for (DSpaceConfig config : configuration.values()) {
+            for (DSpaceConfig config : snapshot.configs.values()) {
                 if (config.getKey().startsWith(prefix)) {
                     configs.add(config);
                 }
@@ -186,8 +224,6 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         return configs;
     }
 
-    protected Map<String, DSpaceConfig> configuration = Collections.synchronizedMap(new LinkedHashMap<String, DSpaceConfig>());
-
     /**
      * @return a map of the service name configurations that are known for fast resolution
      */
@@ -199,10 +235,12 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         if (configuration == null) {
             throw new IllegalArgumentException("configuration cannot be null");
         }
-        this.configuration = configuration;
-        replaceVariables(this.configuration);
-        // refresh the configs
-        serviceNameConfigs = makeServiceNameConfigs();
+        Map<String, DSpaceConfig> working = new LinkedHashMap<String, DSpaceConfig>(configuration);
+        synchronized (writeLock) {
+            replaceVariables(working);
+            publish(working);
+        }
+        fireConfigurationChanged(new ArrayList<String>(working.keySet()));
     }
 
     /**
@@ -243,35 +281,38 @@ public final class DSpaceConfigurationService implements ConfigurationService {
      */
     public String[] loadConfiguration(List<DSpaceConfig> dspaceConfigs, boolean clear) {
         ArrayList<String> changed = new ArrayList<String>();
-        if (clear) {
-            this.configuration.clear();
-        }
-        for (DSpaceConfig config : dspaceConfigs) {
-            String key = config.getKey();
-            boolean same = true;
+        synchronized (writeLock) {
+            Map<String, DSpaceConfig> working;
             if (clear) {
-                // all are new
-                same = false;
+                working = new LinkedHashMap<String, DSpaceConfig>();
             } else {
-                if (this.configuration.containsKey(key)) {
-                    if (this.configuration.get(key).equals(config)) {
-                        // this one has changed
+                working = copyConfiguration();
+            }
+            for (DSpaceConfig config : dspaceConfigs) {
+                String key = config.getKey();
+                boolean same = true;
+                if (clear) {
+                    // all are new
+                    same = false;
+                } else {
+                    DSpaceConfig existing = working.get(key);
+                    if (existing == null || ! existing.equals(config)) {
+                        // this one is new or has changed
                         same = false;
                     }
-                } else {
-                    // this one is new
-                    same = false;
+                }
+                if (!same) {
+                    changed.add(key);
+                    working.put(key, config);
                 }
             }
-            if (!same) {
-                changed.add(key);
-                this.configuration.put(key, config);
+            if (clear || changed.size() > 0) {
+                replaceVariables(working);
+                publish(working);
             }
         }
         if (changed.size() > 0) {
-            replaceVariables(this.configuration);
-            // refresh the configs
-            serviceNameConfigs = makeServiceNameConfigs();
+            fireConfigurationChanged(changed);
         }
         return changed.toArray(new String[changed.size()]);
     }
@@ -286,11 +327,17 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         if (key == null) {
             throw new IllegalArgumentException("key cannot be null");
         }
-        // update replacements and add
-        boolean changed = replaceAndAddConfig( new DSpaceConfig(key, value) );
+        boolean changed;
+        synchronized (writeLock) {
+            Map<String, DSpaceConfig> working = copyConfiguration();
+            // update replacements and add
+            changed = replaceAndAddConfig(working, new DSpaceConfig(key, value));
+            if (changed) {
+                publish(working);
+            }
+        }
         if (changed) {
-            // refresh the configs
-            serviceNameConfigs = makeServiceNameConfigs();
+            fireConfigurationChanged(Collections.singletonList(key));
         }
         return changed;
     }
@@ -299,9 +346,97 @@ public final class DSpaceConfigurationService implements ConfigurationService {
      * Clears the configuration settings.
      */
     public void clear() {
-        this.configuration.clear();
-        this.serviceNameConfigs.clear();
+        List<String> cleared;
+        synchronized (writeLock) {
+            cleared = new ArrayList<String>(snapshot.configs.keySet());
+            publish(new LinkedHashMap<String, DSpaceConfig>());
+        }
         log.info("Cleared all configuration settings");
+        if (! cleared.isEmpty()) {
+            fireConfigurationChanged(cleared);
+        }
+    }
+
+    /**
+     * Registers a listener which is notified after every configuration
+     * change, once the new settings are visible to readers.
+     * Spring managed services implementing {@link ConfigChangeListener}
+     * are notified by the service manager and do not need to register.
+     *
+     * @param listener the listener to add
+     */
+    public void addConfigChangeListener(ConfigChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+        if (! changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeConfigChangeListener(ConfigChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * @return a mutable copy of the current configuration to build the next snapshot from
+     */
+    private Map<String, DSpaceConfig> copyConfiguration() {
+        return new LinkedHashMap<String, DSpaceConfig>(snapshot.configs);
+    }
+
+    /**
+     * Makes the working configuration the current one.
+     * Must be called while holding the {@link #writeLock}.
+     * @param working the complete new configuration, not modified after this call
+     */
+    private void publish(Map<String, DSpaceConfig> working) {
+        snapshot = new ConfigSnapshot(working);
+        // refresh the configs
+        serviceNameConfigs = makeServiceNameConfigs();
+    }
+
+    /**
+     * Notifies the registered listeners of the changed settings.
+     * Called outside of the write lock so that listeners may read
+     * (or even change) the configuration.
+     * @param changedNames the names of the settings which changed
+     */
+    protected void fireConfigurationChanged(List<String> changedNames) {
+        if (changeListeners.isEmpty() || changedNames.isEmpty()) {
+            return;
+        }
+        ConfigSnapshot current = snapshot;
+        List<String> changedSettingNames = new ArrayList<String>(changedNames);
+        Map<String, String> changedSettings = new LinkedHashMap<String, String>();
+        for (String changedName : changedNames) {
+            String simplerName = DSpaceConfig.getBeanProperty(changedName);
+            changedSettings.put(simplerName != null ? simplerName : changedName, getProperty(current, changedName));
+        }
+        for (ConfigChangeListener listener : changeListeners) {
+            try {
+                boolean notify = false;
+                String[] notifyNames = listener.notifyForConfigNames();
+                if (notifyNames == null || notifyNames.length == 0) {
+                    notify = true;
+                } else {
+                    for (String notifyName : notifyNames) {
+                        if (changedNames.contains(notifyName) || changedSettings.containsKey(notifyName)) {
+                            notify = true;
+                            break;
+                        }
+                    }
+                }
+                if (notify) {
+                    listener.configurationChanged(changedSettingNames, changedSettings);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failure notifying config change listener (" + listener + "): " + e.getMessage(), e);
+            }
+        }
     }
 
     // loading from files code
@@ -471,10 +606,11 @@ public final class DSpaceConfigurationService implements ConfigurationService {
     /**
      * Adds in this DSConfig and then updates the config by checking for
      * replacements everywhere else.
+     * @param dsConfiguration the working configuration to add the config to
      * @param dsConfig a DSConfig to update the value of and then add in to the main config
      * @return true if the config changed or is new
      */
-    protected boolean replaceAndAddConfig(DSpaceConfig dsConfig) {
+    protected boolean replaceAndAddConfig(Map<String, DSpaceConfig> dsConfiguration, DSpaceConfig dsConfig) {
         DSpaceConfig newConfig = null;
         String key = dsConfig.getKey();
         if (dsConfig.getValue().contains("${")) {
@@ -488,7 +624,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
                         log.warn("Found circular reference for key ("+newKey+") in config value: " + value);
                         break;
                     }
-                    DSpaceConfig dsc = this.configuration.get(newKey);
+                    DSpaceConfig dsc = dsConfiguration.get(newKey);
                     if (dsc == null) {
                         log.warn("Could not find key ("+newKey+") for replacement in value: " + value);
                         break;
@@ -504,14 +640,14 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         }
 
         // add the config
-        if (this.configuration.containsKey(key) && this.configuration.get(key).equals(dsConfig)) {
+        if (dsConfiguration.containsKey(key) && dsConfiguration.get(key).equals(dsConfig)) {
             return false; // SHORT CIRCUIT
         }
 
         // config changed or new
-        this.configuration.put(key, newConfig != null ? newConfig : dsConfig);
+        dsConfiguration.put(key, newConfig != null ? newConfig : dsConfig);
         // update replacements
-        replaceVariables(this.configuration);
+        replaceVariables(dsConfiguration);
         return true;
     }
 
@@ -650,7 +786,7 @@ public final class DSpaceConfigurationService implements ConfigurationService {
 
     @Override
     public String toString() {
-        return "Config:" + DSPACE_HOME + ":size=" + configuration.size();
+        return "Config:" + DSPACE_HOME + ":size=" + snapshot.configs.size();
     }
 
 
@@ -677,6 +813,51 @@ public final class DSpaceConfigurationService implements ConfigurationService {
         return serviceNameConfigs;
     }
 
+    /**
+     * Converts the named setting of the given snapshot to the requested type,
+     * reusing the converted value if the snapshot already holds one.
+     * Only immutable types (and arrays of them, which are copied) are cached.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getTypedProperty(ConfigSnapshot current, String name, Class<T> type) {
+        String value = getProperty(current, name);
+        if (value == null || ! isImmutableType(type)) {
+            return convert(value, type);
+        }
+        ConcurrentMap<String, Object> typedValues = current.getTypedValues(type);
+        Object typed = typedValues.get(name);
+        if (typed == null) {
+            typed = convert(value, type);
+            if (typed == null) {
+                return null;
+            }
+            typedValues.putIfAbsent(name, typed);
+        }
+        if (type.isArray()) {
+            int length = Array.getLength(typed);
+            Object copy = Array.newInstance(type.getComponentType(), length);
+            System.arraycopy(typed, 0, copy, 0, length);
+            typed = copy;
+        }
+        return (T)typed;
+    }
+
+    /**
+     * @return true if converted values of this type can safely be shared between callers
+     */
+    private static boolean isImmutableType(Class<?> type) {
+        if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            return ! componentType.isArray() && isImmutableType(componentType);
+        }
+        return type.isPrimitive()
+                || type.isEnum()
+                || String.class.equals(type)
+                || Boolean.class.equals(type)
+                || Character.class.equals(type)
+                || (Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang."));
+    }
+
     private <T> T convert(String value, Class<T> type) {
         SimpleTypeConverter converter = new SimpleTypeConverter();
 
@@ -699,4 +880,33 @@ public final class DSpaceConfigurationService implements ConfigurationService {
 
         return (T)converter.convertIfNecessary(value, type);
     }
+
+    /**
+     * An immutable view of the configuration along with the typed values
+     * which were converted from it.  A new snapshot (with an empty typed
+     * value cache) is created on every change.
+     */
+    private static final class ConfigSnapshot {
+
+        private final Map<String, DSpaceConfig> configs;
+
+        private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> typedValues =
+                new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Object>>();
+
+        ConfigSnapshot(Map<String, DSpaceConfig> configs) {
+            this.configs = Collections.unmodifiableMap(configs);
+        }
+
+        ConcurrentMap<String, Object> getTypedValues(Class<?> type) {
+            ConcurrentMap<String, Object> values = typedValues.get(type);
+            if (values == null) {
+                values = new ConcurrentHashMap<String, Object>();
+                ConcurrentMap<String, Object> existing = typedValues.putIfAbsent(type, values);
+                if (existing != null) {
+                    values = existing;
+                }
+            }
+            return values;
+        }
+    }
 }
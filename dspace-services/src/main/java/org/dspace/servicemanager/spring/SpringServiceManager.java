@@ -93,41 +93,67 @@ public final class SpringServiceManager implements ServiceManagerSystem {
                 && ApplicationContext.class.isAssignableFrom(type)) {
             bean = (T) getApplicationContext();
         } else {
-            if (name != null) {
-                // get by name and type
+            // get by name and type, or by a name made up from the type,
+            // checking first rather than catching the failure of getBean
+            String beanName = name != null ? name : type.getName();
+            if (applicationContext.containsBean(beanName)
+                    && applicationContext.isTypeMatch(beanName, type)) {
                 try {
-                    bean = (T) applicationContext.getBean(name, type);
+                    bean = (T) applicationContext.getBean(beanName, type);
                 } catch (BeansException e) {
-                    // no luck, try the fall back option
-                    bean = null;
-                }
-            } else {
-                // try making up the name based on the type
-                try {
-                    bean = (T) applicationContext.getBean(type.getName(), type);
-                } catch (BeansException e) {
-                    // no luck, try the fall back option
+                    // the bean failed to be created
+                    log.warn("Failed to get service (" + beanName + "): " + e.getMessage());
                     bean = null;
                 }
             }
             // if still no luck then try by type only
             if (name == null 
                     && bean == null) {
-                try {
-                    Map<String, T> map = applicationContext.getBeansOfType(type);
-                    if (map.size() == 1) {
-                        // only return the bean if there is exactly one
-                        bean = (T) map.values().iterator().next();
+                String[] names = applicationContext.getBeanNamesForType(type, true, true);
+                if (names.length == 1) {
+                    // only return the bean if there is exactly one
+                    try {
+                        bean = (T) applicationContext.getBean(names[0], type);
+                    } catch (BeansException e) {
+                        log.warn("Failed to get service (" + names[0] + "): " + e.getMessage());
+                        bean = null;
                     }
-                } catch (BeansException e) {
-                    // I guess there are no beans of this type
-                    bean = null;
                 }
             }
         }
         return bean;
     }
 
+    /**
+     * Tells whether the service {@link #getServiceByName(String, Class)}
+     * finds for this name and type is a singleton, which may be kept
+     * rather than looked up again.
+     *
+     * @param name the name of the service, or null
+     * @param type the type of the service
+     * @return true if the service is a singleton, false if it is not or
+     *         does not exist
+     */
+    public boolean isSingletonService(String name, Class<?> type) {
+        if (applicationContext == null) {
+            return false;
+        }
+        if (ApplicationContext.class.getName().equals(name)
+                && ApplicationContext.class.isAssignableFrom(type)) {
+            return true;
+        }
+        String beanName = name != null ? name : type.getName();
+        if (applicationContext.containsBean(beanName)
+                && applicationContext.isTypeMatch(beanName, type)) {
+            return applicationContext.isSingleton(beanName);
+        }
+        if (name == null) {
+            String[] names = applicationContext.getBeanNamesForType(type, true, true);
+            return names.length == 1 && applicationContext.isSingleton(names[0]);
+        }
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> List<T> getServicesByType(Class<T> type) {
         ArrayList<T> l = new ArrayList<T>();
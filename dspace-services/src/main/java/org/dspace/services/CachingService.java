@@ -11,6 +11,7 @@ import java.util.List;
 
 import org.dspace.services.model.Cache;
 import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheStats;
 
 /**
  * A service to manage creation and retrieval of caches.
@@ -74,6 +75,16 @@ public interface CachingService {
      */
     public String getStatus(String cacheName);
 
+    /**
+     * Get the usage statistics of all caches the service knows about
+     * (see {@link #getCaches()}), except request caches, which only live
+     * as long as their request.  Caches which do not track their usage
+     * only report their size.
+     *
+     * @return the statistics of all caches, sorted by cache name
+     */
+    public List<CacheStats> getCacheStats();
+
     /**
      * Clears all caches.
      * Generally there is no reason to call this.
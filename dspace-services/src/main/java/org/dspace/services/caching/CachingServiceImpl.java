@@ -10,32 +10,39 @@ package org.dspace.services.caching;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Statistics;
 
 import org.dspace.kernel.ServiceManager;
 import org.dspace.kernel.mixins.ConfigChangeListener;
 import org.dspace.kernel.mixins.InitializedService;
 import org.dspace.kernel.mixins.ServiceChangeListener;
+import org.dspace.kernel.mixins.ServiceManagerReadyAware;
 import org.dspace.kernel.mixins.ShutdownService;
 import org.dspace.providers.CacheProvider;
 import org.dspace.services.CachingService;
 import org.dspace.services.ConfigurationService;
+import org.dspace.services.EventService;
 import org.dspace.services.RequestService;
 import org.dspace.services.caching.model.EhcacheCache;
 import org.dspace.services.caching.model.MapCache;
 import org.dspace.services.model.*;
 import org.dspace.services.model.CacheConfig.CacheScope;
+import org.dspace.services.model.Event.Scope;
 import org.dspace.utils.servicemanager.ProviderHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,10 +52,18 @@ import org.springframework.beans.factory.annotation.Required;
 /**
  * Implementation of the core caching service, which is available for
  * anyone who is writing code for DSpace to use.
+ * <p>
+ * Non request caches come from the registered {@link CacheProvider}
+ * if there is one (e.g. the {@link InMemoryCacheProvider}), otherwise
+ * from Ehcache.  The statistics of all caches are available as
+ * {@link CacheStats} and through JMX ({@link CachingServiceMXBean}).
+ * <p>
+ * Resetting the caches sends a {@link #EVENT_RESET} cluster event so
+ * the other nodes of the cluster reset their caches as well.
  * 
  * @author Aaron Zeckoski (azeckoski @ gmail.com)
  */
-public final class CachingServiceImpl implements CachingService, InitializedService, ShutdownService, ConfigChangeListener, ServiceChangeListener {
+public final class CachingServiceImpl implements CachingService, CachingServiceMXBean, InitializedService, ShutdownService, ConfigChangeListener, ServiceChangeListener, ServiceManagerReadyAware {
 
     private static Logger log = LoggerFactory.getLogger(CachingServiceImpl.class);
 
@@ -60,6 +75,10 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
      * The default config location.
      */
     protected static final String DEFAULT_CONFIG = "org/dspace/services/caching/ehcache-config.xml";
+    /**
+     * The name the caching statistics are published under in JMX.
+     */
+    protected static final String MBEAN_NAME = "org.dspace:type=CachingService";
 
     /**
      * All the non-thread caches that we know about.
@@ -68,26 +87,39 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
     private Map<String, EhcacheCache> cacheRecord = new ConcurrentHashMap<String, EhcacheCache>();
 
     /**
-     * All the request caches.  This is bound to the thread.
-     * The initial value of this TL is set automatically when it is
-     * created.
+     * All the request caches, keyed by the id of the request.
+     * The caches of a request are concurrent maps so that parallel work
+     * done on behalf of a request can share them.
      */
-    private Map<String, Map<String, MapCache>> requestCachesMap = new ConcurrentHashMap<String, Map<String, MapCache>>();
+    private ConcurrentMap<String, ConcurrentMap<String, MapCache>> requestCachesMap = new ConcurrentHashMap<String, ConcurrentMap<String, MapCache>>();
 
     /**
      * @return the current request map which is bound to the current thread
      */
-    protected Map<String, MapCache> getRequestCaches() {
-        if (requestService == null || requestService.getCurrentRequestId() == null ) {
+    protected ConcurrentMap<String, MapCache> getRequestCaches() {
+        if (requestService == null) {
+            return null;
+        }
+        String requestId = requestService.getCurrentRequestId();
+        if (requestId == null) {
             return null;
         }
+        return getRequestCaches(requestId);
+    }
 
-        Map<String, MapCache> requestCaches = requestCachesMap.get(requestService.getCurrentRequestId());
+    /**
+     * @param requestId the id of a request
+     * @return the caches of the request, created if there are none yet
+     */
+    private ConcurrentMap<String, MapCache> getRequestCaches(String requestId) {
+        ConcurrentMap<String, MapCache> requestCaches = requestCachesMap.get(requestId);
         if (requestCaches == null) {
-            requestCaches = new HashMap<String, MapCache>();
-            requestCachesMap.put(requestService.getCurrentRequestId(), requestCaches);
+            requestCaches = new ConcurrentHashMap<String, MapCache>();
+            ConcurrentMap<String, MapCache> existing = requestCachesMap.putIfAbsent(requestId, requestCaches);
+            if (existing != null) {
+                requestCaches = existing;
+            }
         }
-
         return requestCaches;
     }
 
@@ -136,6 +168,7 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
     private int maxElementsInMemory = 2000;
     private int timeToLiveSecs = 3600;
     private int timeToIdleSecs = 600;
+    private int requestMaxElements = MapCache.DEFAULT_MAX_ELEMENTS;
 
     /**
      * Reloads the config settings from the configuration service.
@@ -146,6 +179,10 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
         maxElementsInMemory = configurationService.getPropertyAsType(knownConfigNames[2], int.class);
         timeToLiveSecs = configurationService.getPropertyAsType(knownConfigNames[3], int.class);
         timeToIdleSecs = configurationService.getPropertyAsType(knownConfigNames[4], int.class);
+        requestMaxElements = configurationService.getPropertyAsType(knownConfigNames[5], int.class);
+        if (requestMaxElements <= 0) {
+            requestMaxElements = MapCache.DEFAULT_MAX_ELEMENTS;
+        }
     }
 
     /**
@@ -158,6 +195,7 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
             "caching.default.max.elements", // the maximum number of elements in memory, before they are evicted
             "caching.default.time.to.live.secs", // the default amount of time to live for an element from its creation date
             "caching.default.time.to.idle.secs", // the default amount of time to live for an element from its last accessed or modified date
+            "caching.request.max.elements", // the default maximum number of elements in a request cache, before the least recently used are evicted
     };
     /* (non-Javadoc)
      * @see org.dspace.kernel.mixins.ConfigChangeListener#notifyForConfigNames()
@@ -262,14 +300,60 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
             requestService.registerRequestInterceptor(new CachingServiceRequestInterceptor());
         }
 
+        registerMBean();
+
         log.info("Caching service initialized:\n" + getStatus(null));
     }
 
+    /**
+     * Publishes the cache statistics in JMX, replacing those of an
+     * earlier instance of this service (e.g. a restarted kernel).
+     */
+    private void registerMBean() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+            mbs.registerMBean(this, name);
+        } catch (JMException e) {
+            log.warn("Unable to register the caching statistics MBean: " + e.getMessage());
+        } catch (SecurityException e) {
+            log.warn("Unable to register the caching statistics MBean: " + e.getMessage());
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.debug("Unable to unregister the caching statistics MBean", e);
+        } catch (SecurityException e) {
+            log.debug("Unable to unregister the caching statistics MBean", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.ServiceManagerReadyAware#serviceManagerReady(org.dspace.kernel.ServiceManager)
+     */
+    public void serviceManagerReady(ServiceManager serviceManager) {
+        EventService eventService = serviceManager.getServiceByName(EventService.class.getName(), EventService.class);
+        if (eventService != null) {
+            eventService.registerEventListener(new CacheResetListener());
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.dspace.kernel.mixins.ShutdownService#shutdown()
      */
     public void shutdown() {
         log.info("destroy()");
+        unregisterMBean();
         // for some reason this causes lots of errors so not using it for now -AZ
         //ehCacheManagementService.dispose();
         try {
@@ -406,9 +490,8 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
                 sb.append(" * ");
                 sb.append(cache.toString());
                 sb.append("\n");
-                if (cache instanceof EhcacheCache) {
-                    Ehcache ehcache = ((EhcacheCache)cache).getCache();
-                    sb.append(generateCacheStats(ehcache));
+                if (cache instanceof MeasuredCache) {
+                    sb.append(((MeasuredCache) cache).getStats());
                     sb.append("\n");
                 }
             }
@@ -428,9 +511,8 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
                 sb.append(" * ");
                 sb.append(cache.toString());
                 sb.append("\n");
-                if (cache instanceof EhcacheCache) {
-                    Ehcache ehcache = ((EhcacheCache)cache).getCache();
-                    sb.append(generateCacheStats(ehcache));
+                if (cache instanceof MeasuredCache) {
+                    sb.append(((MeasuredCache) cache).getStats());
                     sb.append("\n");
                 }
             }
@@ -439,6 +521,27 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
         return sb.toString();
     }
 
+    /* (non-Javadoc)
+     * @see org.dspace.services.CachingService#getCacheStats()
+     */
+    public List<CacheStats> getCacheStats() {
+        List<Cache> allCaches = getCaches();
+        List<CacheStats> stats = new ArrayList<CacheStats>(allCaches.size());
+        for (Cache cache : allCaches) {
+            CacheScope scope = cache.getConfig() == null ? null : cache.getConfig().getCacheScope();
+            if (CacheScope.REQUEST.equals(scope)) {
+                // lives only as long as its request, e.g. one a provider keeps
+                continue;
+            }
+            if (cache instanceof MeasuredCache) {
+                stats.add(((MeasuredCache) cache).getStats());
+            } else {
+                stats.add(new CacheStats(cache.getName(), scope == null ? null : scope.name(), cache.size(), 0, 0, 0, 0, 0));
+            }
+        }
+        return stats;
+    }
+
     /* (non-Javadoc)
      * @see org.dspace.services.CachingService#resetCaches()
      */
@@ -462,6 +565,13 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
         // DO NOT CALL System.gc() here or I will have you shot -AZ
 
         log.info("doReset(): Memory Recovery to: " + Runtime.getRuntime().freeMemory());
+
+        // tell the other nodes, this is skipped when the reset came from another node
+        EventService eventService = serviceManager == null ? null
+                : serviceManager.getServiceByName(EventService.class.getName(), EventService.class);
+        if (eventService != null) {
+            eventService.fireEvent(new Event(EVENT_RESET, null, null, null, new Scope[] {Scope.CLUSTER}, true));
+        }
     }
 
     /**
@@ -569,17 +679,20 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
             scope = cacheConfig.getCacheScope();
         }
 
-        Map<String, MapCache> caches = getRequestCaches();
+        ConcurrentMap<String, MapCache> caches = getRequestCaches();
         if (caches != null) {
             if (CacheScope.REQUEST.equals(scope)) {
                 cache = caches.get(cacheName);
             }
 
             if (cache == null) {
-                cache = new MapCache(cacheName, cacheConfig);
-                // place cache into the right TL
+                cache = new MapCache(cacheName, cacheConfig, requestMaxElements);
+                // place cache into the right request, another thread of the request may have beaten us to it
                 if (CacheScope.REQUEST.equals(scope)) {
-                    caches.put(cacheName, cache);
+                    MapCache existing = caches.putIfAbsent(cacheName, cache);
+                    if (existing != null) {
+                        cache = existing;
+                    }
                 }
             }
         }
@@ -587,32 +700,6 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
         return cache;
     }
 
-    /**
-     * Generate some stats for this cache.
-     * Note that this is not cheap so do not use it very often.
-     *
-     * @param cache an Ehcache
-     * @return the stats of this cache as a string
-     */
-    protected static String generateCacheStats(Ehcache cache) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(cache.getName()).append(":");
-        // this will make this costly but it is important to get accurate settings
-        cache.setStatisticsAccuracy(Statistics.STATISTICS_ACCURACY_GUARANTEED);
-        Statistics stats = cache.getStatistics();
-        final long memSize = cache.getMemoryStoreSize();
-        final long diskSize = cache.getDiskStoreSize();
-        final long size = memSize + diskSize;
-        final long hits = stats.getCacheHits();
-        final long misses = stats.getCacheMisses();
-        final String hitPercentage = ((hits+misses) > 0) ? ((100l * hits) / (hits + misses)) + "%" : "N/A";
-        final String missPercentage = ((hits+misses) > 0) ? ((100l * misses) / (hits + misses)) + "%" : "N/A";
-        sb.append("  Size: ").append(size).append(" [memory:").append(memSize).append(", disk:").append(diskSize).append("]");
-        sb.append(",  Hits: ").append(hits).append(" [memory:").append(stats.getInMemoryHits()).append(", disk:").append(stats.getOnDiskHits()).append("] (").append(hitPercentage).append(")");
-        sb.append(",  Misses: ").append(misses).append(" (").append(missPercentage).append(")");
-        return sb.toString();
-    }
-
     /**
      * Compare two Cache objects by name.
      */
@@ -627,11 +714,7 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
 
         public void onStart(String requestId, Session session) {
             if (requestId != null) {
-                Map<String, MapCache> requestCaches = requestCachesMap.get(requestId);
-                if (requestCaches == null) {
-                    requestCaches = new HashMap<String, MapCache>();
-                    requestCachesMap.put(requestId, requestCaches);
-                }
+                getRequestCaches(requestId);
             }
         }
 
@@ -645,4 +728,35 @@ public final class CachingServiceImpl implements CachingService, InitializedServ
             return 1;
         }
     }
+
+    /**
+     * Resets the caches when another node of the cluster reset its caches.
+     */
+    private final class CacheResetListener implements EventListener {
+
+        /* (non-Javadoc)
+         * @see org.dspace.services.model.EventListener#getEventNamePrefixes()
+         */
+        public String[] getEventNamePrefixes() {
+            return new String[] { EVENT_RESET };
+        }
+
+        /* (non-Javadoc)
+         * @see org.dspace.services.model.EventListener#getResourcePrefix()
+         */
+        public String getResourcePrefix() {
+            return null;
+        }
+
+        /* (non-Javadoc)
+         * @see org.dspace.services.model.EventListener#receiveEvent(org.dspace.services.model.Event)
+         */
+        public void receiveEvent(Event event) {
+            if (EVENT_RESET.equals(event.getName())) {
+                resetCaches();
+            }
+        }
+
+    }
+
 }
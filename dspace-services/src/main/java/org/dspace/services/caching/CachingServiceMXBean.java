@@ -0,0 +1,25 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching;
+
+import java.util.List;
+
+import org.dspace.services.model.CacheStats;
+
+/**
+ * MBean type for monitoring the DSpace caches.
+ * Registered as {@code org.dspace:type=CachingService}.
+ */
+public interface CachingServiceMXBean {
+
+    /** Statistics for all caches, except request caches. */
+    public List<CacheStats> getCacheStats();
+
+    /** Clear all caches. */
+    public void resetCaches();
+}
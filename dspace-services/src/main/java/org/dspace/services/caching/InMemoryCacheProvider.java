@@ -0,0 +1,165 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dspace.kernel.mixins.InitializedService;
+import org.dspace.kernel.mixins.ShutdownService;
+import org.dspace.providers.CacheProvider;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.caching.model.InMemoryCache;
+import org.dspace.services.model.Cache;
+import org.dspace.services.model.CacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * A {@link CacheProvider} which keeps all (non request) caches in
+ * process as {@link InMemoryCache}s.  Register this as the
+ * {@code org.dspace.providers.CacheProvider} service to use it instead
+ * of Ehcache.
+ * <p>
+ * The defaults for the caches are read from the configuration:
+ * <ul>
+ *  <li>{@code caching.memory.max.elements} (falls back to {@code caching.default.max.elements})</li>
+ *  <li>{@code caching.default.time.to.live.secs}</li>
+ *  <li>{@code caching.memory.refresh.threads}, the number of threads doing background refreshes</li>
+ * </ul>
+ */
+public final class InMemoryCacheProvider implements CacheProvider, InitializedService, ShutdownService {
+
+    private static Logger log = LoggerFactory.getLogger(InMemoryCacheProvider.class);
+
+    private static final int DEFAULT_MAX_ELEMENTS = 2000;
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+    private static final int REFRESH_QUEUE_SIZE = 1000;
+
+    private final ConcurrentMap<String, InMemoryCache> caches = new ConcurrentHashMap<String, InMemoryCache>();
+
+    private ConfigurationService configurationService;
+    @Autowired
+    @Required
+    public void setConfigurationService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.InitializedService#init()
+     */
+    public void init() {
+        int refreshThreads = configurationService.getPropertyAsType("caching.memory.refresh.threads", DEFAULT_REFRESH_THREADS);
+        if (refreshThreads <= 0) {
+            refreshThreads = DEFAULT_REFRESH_THREADS;
+        }
+        // refreshes which do not fit in the queue are dropped, the stale value is refreshed on a later read
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(REFRESH_QUEUE_SIZE), new RefreshThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        refreshExecutor.allowCoreThreadTimeOut(true);
+        log.info("In memory cache provider initialized with " + refreshThreads + " refresh threads");
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.ShutdownService#shutdown()
+     */
+    public void shutdown() {
+        caches.clear();
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.CacheProvider#getCaches()
+     */
+    public List<Cache> getCaches() {
+        return new ArrayList<Cache>(caches.values());
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.CacheProvider#getCache(java.lang.String, org.dspace.services.model.CacheConfig)
+     */
+    public Cache getCache(String cacheName, CacheConfig config) {
+        if (cacheName == null || "".equals(cacheName)) {
+            throw new IllegalArgumentException("cacheName cannot be null or empty string");
+        }
+        InMemoryCache cache = caches.get(cacheName);
+        if (cache == null) {
+            int maxElements = config == null ? 0 : config.getMaxElements();
+            if (maxElements <= 0) {
+                maxElements = getDefaultMaxElements();
+            }
+            int timeToLiveSecs = config == null ? 0 : config.getTimeToLiveSecs();
+            if (timeToLiveSecs <= 0) {
+                timeToLiveSecs = configurationService.getPropertyAsType("caching.default.time.to.live.secs", int.class);
+            }
+            cache = new InMemoryCache(cacheName, config, maxElements, timeToLiveSecs, refreshExecutor);
+            InMemoryCache existing = caches.putIfAbsent(cacheName, cache);
+            if (existing != null) {
+                cache = existing;
+            } else {
+                log.info("Created new in memory cache: " + cache);
+            }
+        }
+        return cache;
+    }
+
+    private int getDefaultMaxElements() {
+        int maxElements = configurationService.getPropertyAsType("caching.memory.max.elements", int.class);
+        if (maxElements <= 0) {
+            maxElements = configurationService.getPropertyAsType("caching.default.max.elements", int.class);
+        }
+        return maxElements > 0 ? maxElements : DEFAULT_MAX_ELEMENTS;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.CacheProvider#destroyCache(java.lang.String)
+     */
+    public void destroyCache(String cacheName) {
+        InMemoryCache cache = caches.remove(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.CacheProvider#resetCaches()
+     */
+    public void resetCaches() {
+        for (InMemoryCache cache : caches.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Creates daemon threads so refreshes never keep the JVM alive.
+     */
+    private static final class RefreshThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "dspace-cache-refresh-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching.model;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded map which evicts the least recently used entries and
+ * can safely be used by several threads at once.
+ * <p>
+ * The entries are spread over a number of segments which are each an
+ * access ordered {@link LinkedHashMap} guarded by its own lock, so
+ * threads working on different keys rarely wait on each other.  The
+ * eviction order is least recently used within each segment, which is a
+ * close approximation of a global LRU order.
+ * <p>
+ * Iterating over the map works on a snapshot of the entries.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class BoundedLruMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Segments smaller than this would make the eviction order too coarse.
+     */
+    private static final int MIN_SEGMENT_SIZE = 16;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int maxSize;
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize the maximum number of entries held by this map
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedLruMap(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && (segmentCount * 2) * MIN_SEGMENT_SIZE <= maxSize) {
+            segmentCount *= 2;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        int segmentSize = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<K, V>(segmentSize + (i < remainder ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * @return the maximum number of entries held by this map
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of entries evicted since this map was created
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    @Override
+    public V get(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    /**
+     * Stores the value unless the key is already mapped.
+     *
+     * @param key the key
+     * @param value the value to store
+     * @return the value already mapped to the key or null if the value was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V existing = segment.get(key);
+            if (existing == null) {
+                segment.put(key, value);
+            }
+            return existing;
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return an unmodifiable snapshot of the current entries
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Map<K, V> copy = new LinkedHashMap<K, V>();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                copy.putAll(segment);
+            }
+        }
+        return Collections.unmodifiableMap(copy).entrySet();
+    }
+
+    /**
+     * One lock domain of the map, evicting its eldest entry when full.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final transient AtomicLong evictions;
+
+        Segment(int capacity, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
@@ -13,10 +13,12 @@ import java.util.List;
 
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.Statistics;
 import net.sf.ehcache.Status;
 
-import org.dspace.services.model.Cache;
 import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheStats;
+import org.dspace.services.model.MeasuredCache;
 import org.dspace.services.model.CacheConfig.CacheScope;
 
 
@@ -25,7 +27,7 @@ import org.dspace.services.model.CacheConfig.CacheScope;
  * 
  * @author Aaron Zeckoski (azeckoski @ gmail.com)
  */
-public final class EhcacheCache implements Cache {
+public final class EhcacheCache implements MeasuredCache {
 
     protected Ehcache cache;
     public Ehcache getCache() {
@@ -150,6 +152,16 @@ public final class EhcacheCache implements Cache {
         return cache.getSize();
     }
 
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.MeasuredCache#getStats()
+     */
+    public CacheStats getStats() {
+        // uses the default (best effort) statistics accuracy, which is cheap
+        Statistics stats = cache.getStatistics();
+        return new CacheStats(getName(), cacheConfig.getCacheScope().name(), stats.getObjectCount(),
+                stats.getCacheHits(), stats.getCacheMisses(), stats.getEvictionCount(), 0, 0);
+    }
+
     /**
      * Retrieve a payload from the cache for this key if one can be found.
      * @param key the key for this cache element
@@ -0,0 +1,386 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheLoader;
+import org.dspace.services.model.CacheStats;
+import org.dspace.services.model.MeasuredCache;
+import org.dspace.services.model.CacheConfig.CacheScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A fast in-process cache with size and time to live eviction.
+ * <p>
+ * Lookups are a single {@link ConcurrentHashMap} read and never lock or
+ * allocate.  When the cache is full the entry to evict is chosen with
+ * the CLOCK algorithm (an approximation of least recently used): a read
+ * only marks the entry as referenced, the eviction sweep gives marked
+ * entries a second chance.
+ * <p>
+ * If a {@link CacheLoader} is set the cache loads missing entries itself
+ * and, if a refresh interval is set as well, reloads stale entries in
+ * the background while still handing out the stale value.
+ */
+public final class InMemoryCache implements MeasuredCache {
+
+    private static Logger log = LoggerFactory.getLogger(InMemoryCache.class);
+
+    private final String name;
+    private final CacheConfig cacheConfig;
+    private final int maxElements;
+    private final long timeToLiveNanos;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    /**
+     * The keys in the order they were added, the hand of the CLOCK.
+     * May contain keys which were removed in the meantime.
+     */
+    private final ConcurrentLinkedQueue<String> evictionQueue = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger evictionQueueSize = new AtomicInteger();
+
+    private volatile CacheLoader loader;
+    private volatile long refreshAfterNanos;
+    private final Executor refreshExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadTime = new AtomicLong();
+
+    /**
+     * @param name the name of the cache
+     * @param cacheConfig the config for the cache (optional)
+     * @param maxElements the maximum number of elements held
+     * @param timeToLiveSecs the number of seconds an element lives after it was stored, 0 for ever
+     * @param refreshExecutor executes the background refreshes (optional, no background refreshes if null)
+     */
+    public InMemoryCache(String name, CacheConfig cacheConfig, int maxElements, int timeToLiveSecs, Executor refreshExecutor) {
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null");
+        }
+        if (maxElements <= 0) {
+            throw new IllegalArgumentException("maxElements must be greater than 0");
+        }
+        this.name = name;
+        if (cacheConfig != null) {
+            this.cacheConfig = cacheConfig;
+        } else {
+            this.cacheConfig = new CacheConfig(CacheScope.INSTANCE);
+        }
+        this.maxElements = maxElements;
+        this.timeToLiveNanos = timeToLiveSecs > 0 ? timeToLiveSecs * 1000000000L : 0;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Makes the cache load missing entries itself.
+     *
+     * @param loader computes the values of missing entries, null to stop loading
+     * @param refreshAfterSecs entries older than this are reloaded in the
+     * background on their next read, 0 to never refresh
+     */
+    public void setLoader(CacheLoader loader, int refreshAfterSecs) {
+        this.loader = loader;
+        this.refreshAfterNanos = refreshAfterSecs > 0 ? refreshAfterSecs * 1000000000L : 0;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#get(java.lang.String)
+     */
+    public Object get(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        Entry entry = getEntry(key, System.nanoTime());
+        if (entry == null) {
+            misses.incrementAndGet();
+            return loader != null ? load(key) : null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * @return the live entry for the key, marked as referenced, or null
+     */
+    private Entry getEntry(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, now)) {
+            if (entries.remove(key, entry)) {
+                evictions.incrementAndGet();
+            }
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        if (refreshAfterNanos > 0 && now - entry.writeTime > refreshAfterNanos) {
+            refresh(key, entry);
+        }
+        return entry;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return timeToLiveNanos > 0 && now - entry.writeTime > timeToLiveNanos;
+    }
+
+    /**
+     * Loads the missing value with the loader and stores it.
+     */
+    private Object load(String key) {
+        CacheLoader currentLoader = loader;
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = currentLoader.load(key);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failure loading key (" + key + ") of cache (" + name + "): " + e.getMessage(), e);
+        } finally {
+            loads.incrementAndGet();
+            loadTime.addAndGet(System.nanoTime() - start);
+        }
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Reloads the entry in the background, unless that is already happening.
+     */
+    private void refresh(final String key, final Entry entry) {
+        final CacheLoader currentLoader = loader;
+        if (currentLoader == null || refreshExecutor == null || !Entry.REFRESHING.compareAndSet(entry, 0, 1)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+                public void run() {
+                    long start = System.nanoTime();
+                    try {
+                        Object value = currentLoader.load(key);
+                        entries.replace(key, entry, new Entry(value, System.nanoTime()));
+                    } catch (Exception e) {
+                        // keep serving the stale value, try again on a later read
+                        log.warn("Failure refreshing key (" + key + ") of cache (" + name + "): " + e.getMessage());
+                        entry.refreshing = 0;
+                    } finally {
+                        loads.incrementAndGet();
+                        loadTime.addAndGet(System.nanoTime() - start);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing = 0;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#put(java.lang.String, java.lang.Object)
+     */
+    public void put(String key, Object value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        Entry previous = entries.put(key, new Entry(value, System.nanoTime()));
+        if (previous == null) {
+            evictionQueue.offer(key);
+            if (evictionQueueSize.incrementAndGet() > maxElements * 2) {
+                purgeEvictionQueue();
+            }
+            while (entries.size() > maxElements) {
+                if (!evictOne()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances the CLOCK hand until an entry is evicted.
+     * @return false if there was nothing left to evict
+     */
+    private boolean evictOne() {
+        long now = System.nanoTime();
+        String key;
+        while ((key = evictionQueue.poll()) != null) {
+            evictionQueueSize.decrementAndGet();
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                // removed in the meantime
+                continue;
+            }
+            if (entry.referenced && !isExpired(entry, now)) {
+                // second chance
+                entry.referenced = false;
+                evictionQueue.offer(key);
+                evictionQueueSize.incrementAndGet();
+                continue;
+            }
+            if (entries.remove(key, entry)) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            // replaced while we looked at it, keep it in the queue
+            evictionQueue.offer(key);
+            evictionQueueSize.incrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Drops the keys of removed entries from the eviction queue.
+     */
+    private void purgeEvictionQueue() {
+        Iterator<String> it = evictionQueue.iterator();
+        while (it.hasNext()) {
+            if (!entries.containsKey(it.next())) {
+                it.remove();
+                evictionQueueSize.decrementAndGet();
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#look(java.lang.String)
+     */
+    public Object look(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        Entry entry = entries.get(key);
+        return entry == null || isExpired(entry, System.nanoTime()) ? null : entry.value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#exists(java.lang.String)
+     */
+    public boolean exists(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        Entry entry = entries.get(key);
+        return entry != null && !isExpired(entry, System.nanoTime());
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#remove(java.lang.String)
+     */
+    public boolean remove(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        return entries.remove(key) != null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#getKeys()
+     */
+    public List<String> getKeys() {
+        long now = System.nanoTime();
+        List<String> keys = new ArrayList<String>(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!isExpired(entry.getValue(), now)) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#size()
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#clear()
+     */
+    public void clear() {
+        entries.clear();
+        evictionQueue.clear();
+        evictionQueueSize.set(0);
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        loads.set(0);
+        loadTime.set(0);
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#getConfig()
+     */
+    public CacheConfig getConfig() {
+        return cacheConfig;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.Cache#getName()
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the maximum number of elements held by this cache
+     */
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.MeasuredCache#getStats()
+     */
+    public CacheStats getStats() {
+        return new CacheStats(name, cacheConfig.getCacheScope().name(), entries.size(),
+                hits.get(), misses.get(), evictions.get(), loads.get(), loadTime.get());
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryCache:name="+getName()+":Scope="+cacheConfig.getCacheScope()+":size="+size()+":max="+maxElements;
+    }
+
+    /**
+     * A cached value.  Replaced as a whole when the value changes.
+     */
+    private static final class Entry {
+
+        static final AtomicIntegerFieldUpdater<Entry> REFRESHING =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+        final Object value;
+        final long writeTime;
+        volatile boolean referenced;
+        volatile int refreshing;
+
+        Entry(Object value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+}
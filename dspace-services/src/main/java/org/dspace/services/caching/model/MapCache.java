@@ -8,24 +8,33 @@
 package org.dspace.services.caching.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.dspace.services.model.Cache;
 import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheStats;
+import org.dspace.services.model.MeasuredCache;
 import org.dspace.services.model.CacheConfig.CacheScope;
 
 
 /**
  * This is a simple Cache that just uses a map to store the cache values.
  * Used for the request and thread caches.
+ * <p>
+ * The map is bounded (the least recently used entries are evicted once
+ * it is full) and safe for concurrent use, so a request cache can be
+ * handed to worker threads doing parallel work for the request.
  * 
  * @author Aaron Zeckoski (azeckoski @ gmail.com)
  */
-public final class MapCache implements Cache {
+public final class MapCache implements MeasuredCache {
 
-    private Map<String, Object> cache;
+    /**
+     * The maximum number of elements used when the config does not specify one.
+     */
+    public static final int DEFAULT_MAX_ELEMENTS = 10000;
+
+    private BoundedLruMap<String, Object> cache;
     public Map<String, Object> getCache() {
         return cache;
     }
@@ -34,16 +43,31 @@ public final class MapCache implements Cache {
     protected CacheConfig cacheConfig;
 
     public MapCache(String name, CacheConfig cacheConfig) {
+        this(name, cacheConfig, DEFAULT_MAX_ELEMENTS);
+    }
+
+    /**
+     * @param name the name of the cache
+     * @param cacheConfig the config for this cache, the max elements of the
+     * config override the default maximum if set
+     * @param defaultMaxElements the maximum number of elements if the
+     * config does not specify one
+     */
+    public MapCache(String name, CacheConfig cacheConfig, int defaultMaxElements) {
         if (name == null) {
             throw new IllegalArgumentException("name cannot be null");
         }
         this.name = name;
-        this.cache = new HashMap<String, Object>();
         if (cacheConfig != null) {
             this.cacheConfig = cacheConfig;
         } else {
             this.cacheConfig = new CacheConfig(CacheScope.REQUEST);
         }
+        int maxElements = this.cacheConfig.getMaxElements();
+        if (maxElements <= 0) {
+            maxElements = defaultMaxElements > 0 ? defaultMaxElements : DEFAULT_MAX_ELEMENTS;
+        }
+        this.cache = new BoundedLruMap<String, Object>(maxElements);
     }
 
     /* (non-Javadoc)
@@ -111,6 +135,27 @@ public final class MapCache implements Cache {
         this.cache.put(key, value);
     }
 
+    /**
+     * Stores the value unless the key already has one.
+     *
+     * @param key the key for a stored object
+     * @param value the object to store
+     * @return the value already stored for the key or null if the value was stored
+     */
+    public Object putIfAbsent(String key, Object value) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        return this.cache.putIfAbsent(key, value);
+    }
+
+    /**
+     * @return the number of entries evicted because the cache was full
+     */
+    public long getEvictionCount() {
+        return this.cache.getEvictionCount();
+    }
+
     /* (non-Javadoc)
      * @see org.dspace.services.model.Cache#remove(java.lang.String)
      */
@@ -128,6 +173,13 @@ public final class MapCache implements Cache {
         return this.cache.size();
     }
 
+    /* (non-Javadoc)
+     * @see org.dspace.services.model.MeasuredCache#getStats()
+     */
+    public CacheStats getStats() {
+        return new CacheStats(getName(), cacheConfig.getCacheScope().name(), size(), 0, 0, getEvictionCount(), 0, 0);
+    }
+
     @Override
     public String toString() {
         return "MapCache:name="+getName()+":Scope="+cacheConfig.getCacheScope()+":size="+size();
@@ -0,0 +1,240 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.dspace.services.model.Event;
+import org.dspace.services.model.Event.Scope;
+
+/**
+ * Reads and writes batches of cluster events.
+ * <p>
+ * The wire format only carries the fields of the events as plain
+ * strings, nothing arriving from the network is ever deserialized into
+ * arbitrary objects.  All lengths are checked against upper bounds
+ * before anything is allocated.
+ * <p>
+ * Every batch carries an HMAC-SHA256 of its content, keyed with the
+ * secret the nodes share, and a batch is only parsed once its HMAC has
+ * been checked, so nodes without the secret cannot inject events.
+ */
+final class ClusterEventCodec {
+
+    private static final int MAGIC = 0x44534556; // "DSEV"
+    private static final int VERSION = 2;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+
+    static final int MAX_EVENTS = 10000;
+    private static final int MAX_PROPERTIES = 1000;
+    private static final int MAX_SCOPES = 8;
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+    private static final int MAX_BATCH_BYTES = 16 * 1024 * 1024;
+
+    private ClusterEventCodec() {
+    }
+
+    /**
+     * A batch as it was read from the wire.
+     */
+    static final class Batch {
+        final String nodeId;
+        final List<Event> events;
+
+        Batch(String nodeId, List<Event> events) {
+            this.nodeId = nodeId;
+            this.events = events;
+        }
+    }
+
+    /**
+     * @param secret the secret shared by the nodes
+     * @return the key to sign and check batches with
+     */
+    static SecretKeySpec key(String secret) {
+        try {
+            return new SecretKeySpec(secret.getBytes("UTF-8"), MAC_ALGORITHM);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes a signed batch, the caller has to flush the stream.
+     */
+    static void write(DataOutputStream out, SecretKeySpec key, String nodeId, List<Event> events) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeContent(new DataOutputStream(buffer), nodeId, events);
+        byte[] content = buffer.toByteArray();
+        if (content.length > MAX_BATCH_BYTES) {
+            throw new IllegalArgumentException("batches cannot be longer than " + MAX_BATCH_BYTES + " bytes");
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(content.length);
+        out.write(content);
+        out.write(mac(key, content));
+    }
+
+    private static void writeContent(DataOutputStream out, String nodeId, List<Event> events) throws IOException {
+        if (events.size() > MAX_EVENTS) {
+            throw new IllegalArgumentException("batches cannot hold more than " + MAX_EVENTS + " events");
+        }
+        writeString(out, nodeId);
+        out.writeInt(events.size());
+        for (Event event : events) {
+            writeString(out, event.getId());
+            writeString(out, event.getName());
+            writeString(out, event.getUserId());
+            writeString(out, event.getResourceReference());
+            out.writeBoolean(event.isModify());
+            Scope[] scopes = event.getScopes();
+            if (scopes == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(scopes.length);
+                for (Scope scope : scopes) {
+                    writeString(out, scope.name());
+                }
+            }
+            Map<String, String> properties = event.getProperties();
+            if (properties == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(properties.size());
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    writeString(out, property.getKey());
+                    writeString(out, property.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next batch and checks its signature.
+     *
+     * @throws IOException if the stream ends or does not hold a valid batch
+     *         signed with the key
+     */
+    static Batch read(DataInputStream in, SecretKeySpec key) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a cluster event batch");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported cluster event batch version: " + version);
+        }
+        byte[] content = new byte[readLength(in, MAX_BATCH_BYTES)];
+        in.readFully(content);
+        byte[] mac = new byte[MAC_LENGTH];
+        in.readFully(mac);
+        if (!MessageDigest.isEqual(mac, mac(key, content))) {
+            throw new IOException("Cluster event batch with an invalid signature");
+        }
+        return readContent(new DataInputStream(new ByteArrayInputStream(content)));
+    }
+
+    private static Batch readContent(DataInputStream in) throws IOException {
+        String nodeId = readString(in);
+        int count = readLength(in, MAX_EVENTS);
+        List<Event> events = new ArrayList<Event>(count);
+        for (int i = 0; i < count; i++) {
+            String id = readString(in);
+            String name = readString(in);
+            String userId = readString(in);
+            String resourceReference = readString(in);
+            boolean modify = in.readBoolean();
+            int scopeCount = readLength(in, MAX_SCOPES);
+            List<Scope> scopes = new ArrayList<Scope>(scopeCount);
+            for (int s = 0; s < scopeCount; s++) {
+                String scope = readString(in);
+                try {
+                    scopes.add(Scope.valueOf(scope));
+                } catch (RuntimeException e) {
+                    // a scope this node does not know about, ignore it
+                }
+            }
+            Map<String, String> properties = null;
+            int propertyCount = in.readInt();
+            if (propertyCount >= 0) {
+                if (propertyCount > MAX_PROPERTIES) {
+                    throw new IOException("Too many properties in cluster event: " + propertyCount);
+                }
+                properties = new LinkedHashMap<String, String>();
+                for (int p = 0; p < propertyCount; p++) {
+                    properties.put(readString(in), readString(in));
+                }
+            }
+            Event event = new Event(name, resourceReference, userId, properties,
+                    scopes.toArray(new Scope[scopes.size()]), modify);
+            event.setId(id);
+            events.add(event);
+        }
+        return new Batch(nodeId, events);
+    }
+
+    private static byte[] mac(SecretKeySpec key, byte[] content) {
+        try {
+            // a Mac is not thread safe, and cheap to create next to the cost of sending a batch
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(content);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes("UTF-8");
+            if (bytes.length > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("cluster event values cannot be longer than " + MAX_STRING_BYTES + " bytes");
+            }
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Cluster event value too long: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static int readLength(DataInputStream in, int max) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > max) {
+            throw new IOException("Invalid length in cluster event batch: " + length);
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,368 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.events;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.dspace.kernel.mixins.InitializedService;
+import org.dspace.kernel.mixins.ShutdownService;
+import org.dspace.providers.ClusterEventProvider;
+import org.dspace.services.ConfigurationService;
+import org.dspace.services.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * A {@link ClusterEventProvider} which sends the batches of events to
+ * the other nodes over plain TCP connections.  Each node listens on a
+ * port and keeps one connection open to each of its peers, so sending
+ * a batch is a single write per peer.  All nodes can run on the same
+ * host (e.g. in tests) as long as they listen on different ports.
+ * <p>
+ * Settings:
+ * <ul>
+ *  <li>{@code events.cluster.port}, the port to listen on (0 picks a free port)</li>
+ *  <li>{@code events.cluster.bind.address}, the address to listen on (all addresses if unset)</li>
+ *  <li>{@code events.cluster.peers}, the host:port of the other nodes, comma separated</li>
+ *  <li>{@code events.cluster.secret}, the secret shared by the nodes, required</li>
+ *  <li>{@code events.cluster.node.id}, the id of this node (defaults to hostname:port)</li>
+ *  <li>{@code events.cluster.connect.timeout}, the milliseconds to wait for a connection to a peer</li>
+ * </ul>
+ * Batches which cannot be delivered to a peer (e.g. because it is
+ * restarting) are dropped for that peer.
+ * <p>
+ * Received events change the state of the node, e.g. its configuration,
+ * so only connections from the hosts of the configured peers are
+ * accepted, and only batches signed with the shared secret are read
+ * (see {@link ClusterEventCodec}).
+ */
+public final class SocketClusterEventProvider implements ClusterEventProvider, InitializedService, ShutdownService {
+
+    private static Logger log = LoggerFactory.getLogger(SocketClusterEventProvider.class);
+
+    private static final int DEFAULT_PORT = 7800;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 2000;
+
+    private ConfigurationService configurationService;
+    @Autowired
+    @Required
+    public void setConfigurationService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    private volatile Receiver receiver;
+    private volatile boolean running = false;
+    private String nodeId;
+    private SecretKeySpec key;
+    private int connectTimeout;
+    private ServerSocket serverSocket;
+    private final List<Peer> peers = new ArrayList<Peer>();
+    private final Set<Socket> incoming = new CopyOnWriteArraySet<Socket>();
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.InitializedService#init()
+     */
+    public void init() {
+        int port = configurationService.getPropertyAsType("events.cluster.port", DEFAULT_PORT);
+        String bindAddress = configurationService.getProperty("events.cluster.bind.address");
+        connectTimeout = configurationService.getPropertyAsType("events.cluster.connect.timeout", DEFAULT_CONNECT_TIMEOUT);
+        String secret = configurationService.getProperty("events.cluster.secret");
+        if (secret == null || "".equals(secret.trim())) {
+            throw new IllegalStateException("events.cluster.secret must be set to send and receive cluster events");
+        }
+        key = ClusterEventCodec.key(secret.trim());
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            if (bindAddress == null || "".equals(bindAddress.trim())) {
+                serverSocket.bind(new InetSocketAddress(port));
+            } else {
+                serverSocket.bind(new InetSocketAddress(bindAddress.trim(), port));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to listen for cluster events on port " + port + ": " + e.getMessage(), e);
+        }
+
+        nodeId = configurationService.getProperty("events.cluster.node.id");
+        if (nodeId == null || "".equals(nodeId.trim())) {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                host = "localhost";
+            }
+            nodeId = host + ":" + serverSocket.getLocalPort();
+        } else {
+            nodeId = nodeId.trim();
+        }
+
+        String peerList = configurationService.getProperty("events.cluster.peers");
+        if (peerList != null) {
+            for (String peer : peerList.split(",")) {
+                peer = peer.trim();
+                if (peer.length() == 0) {
+                    continue;
+                }
+                int colon = peer.lastIndexOf(':');
+                if (colon <= 0) {
+                    log.warn("Ignoring cluster peer without a port: " + peer);
+                    continue;
+                }
+                try {
+                    peers.add(new Peer(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1))));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring cluster peer with an invalid port: " + peer);
+                }
+            }
+        }
+
+        running = true;
+        Thread acceptor = new Thread(new Runnable() {
+            public void run() {
+                accept();
+            }
+        }, "dspace-cluster-events-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Cluster events for node (" + nodeId + ") listening on port " + serverSocket.getLocalPort() + " with peers " + peers);
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.ShutdownService#shutdown()
+     */
+    public void shutdown() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (Socket socket : incoming) {
+            closeQuietly(socket);
+        }
+        incoming.clear();
+        for (Peer peer : peers) {
+            peer.close();
+        }
+    }
+
+    /**
+     * @return the port this node listens on
+     */
+    public int getLocalPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.ClusterEventProvider#getNodeId()
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.ClusterEventProvider#setReceiver(org.dspace.providers.ClusterEventProvider.Receiver)
+     */
+    public void setReceiver(Receiver receiver) {
+        this.receiver = receiver;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.providers.ClusterEventProvider#send(java.util.List)
+     */
+    public void send(List<Event> events) throws IOException {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        List<String> failed = null;
+        for (Peer peer : peers) {
+            try {
+                peer.send(events);
+            } catch (IOException e) {
+                if (failed == null) {
+                    failed = new ArrayList<String>();
+                }
+                failed.add(peer + " (" + e.getMessage() + ")");
+            }
+        }
+        if (failed != null) {
+            throw new IOException("Could not send " + events.size() + " cluster events to: " + failed);
+        }
+    }
+
+    /**
+     * Accepts the connections from the peers, each one is read by its own thread.
+     */
+    private void accept() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                if (!isPeer(socket.getInetAddress())) {
+                    log.warn("Rejecting cluster event connection from " + socket.getRemoteSocketAddress()
+                            + ", which is not one of the peers " + peers);
+                    closeQuietly(socket);
+                    continue;
+                }
+                incoming.add(socket);
+                Thread reader = new Thread(new Runnable() {
+                    public void run() {
+                        read(socket);
+                    }
+                }, "dspace-cluster-events-reader-" + socket.getRemoteSocketAddress());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failure accepting a cluster event connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the address is one of the addresses the hosts of the
+     *         peers resolve to now
+     */
+    private boolean isPeer(InetAddress address) {
+        for (Peer peer : peers) {
+            try {
+                for (InetAddress peerAddress : InetAddress.getAllByName(peer.host)) {
+                    if (peerAddress.equals(address)) {
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Unable to resolve cluster peer " + peer + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the batches from one peer until the connection closes.
+     */
+    private void read(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (running) {
+                ClusterEventCodec.Batch batch = ClusterEventCodec.read(in, key);
+                Receiver current = receiver;
+                if (current != null && ! nodeId.equals(batch.nodeId)) {
+                    try {
+                        current.receive(batch.nodeId, batch.events);
+                    } catch (RuntimeException e) {
+                        log.warn("Failure receiving cluster events from (" + batch.nodeId + "): " + e.getMessage(), e);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            // the peer closed the connection
+        } catch (SocketException e) {
+            // closed during shutdown or by the peer
+        } catch (IOException e) {
+            log.warn("Dropping cluster event connection from " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        } finally {
+            incoming.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(ServerSocket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    /**
+     * The outgoing connection to one other node, opened on first use
+     * and reopened once if it turns out to be broken.
+     */
+    private final class Peer {
+        private final String host;
+        private final int port;
+        private Socket socket;
+        private DataOutputStream out;
+
+        Peer(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        synchronized void send(List<Event> events) throws IOException {
+            boolean fresh = (socket == null);
+            try {
+                write(events);
+            } catch (IOException e) {
+                close();
+                if (fresh) {
+                    throw e;
+                }
+                // the connection went stale (e.g. the peer restarted), try once more
+                write(events);
+            }
+        }
+
+        private void write(List<Event> events) throws IOException {
+            if (socket == null) {
+                Socket s = new Socket();
+                try {
+                    s.connect(new InetSocketAddress(host, port), connectTimeout);
+                    s.setTcpNoDelay(true);
+                    out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                } catch (IOException e) {
+                    closeQuietly(s);
+                    throw e;
+                }
+                socket = s;
+            }
+            ClusterEventCodec.write(out, key, nodeId, events);
+            out.flush();
+        }
+
+        synchronized void close() {
+            closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
+}
@@ -7,50 +7,130 @@
  */
 package org.dspace.services.events;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.dspace.kernel.mixins.ConfigChangeListener;
+import org.dspace.kernel.mixins.InitializedService;
 import org.dspace.kernel.mixins.ShutdownService;
+import org.dspace.providers.ClusterEventProvider;
 import org.dspace.services.CachingService;
+import org.dspace.services.ConfigurationService;
 import org.dspace.services.EventService;
 import org.dspace.services.RequestService;
 import org.dspace.services.SessionService;
-import org.dspace.services.model.Cache;
-import org.dspace.services.model.CacheConfig;
+import org.dspace.services.caching.model.BoundedLruMap;
 import org.dspace.services.model.Event;
 import org.dspace.services.model.EventListener;
 import org.dspace.services.model.RequestInterceptor;
 import org.dspace.services.model.Session;
-import org.dspace.services.model.CacheConfig.CacheScope;
 import org.dspace.services.model.Event.Scope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
- * This is a placeholder until we get a real event service going.
- * It does pretty much everything the service should do EXCEPT sending
- * the events across a cluster.
+ * The system event service.  Events are delivered to the local
+ * listeners and, if a {@link ClusterEventProvider} is registered, sent
+ * to the other nodes of the cluster.
+ * <p>
+ * Cluster events are collected for a short time
+ * ({@code events.cluster.batch.delay} milliseconds) and sent as one
+ * batch, identical events fired within that time are only sent once.
+ * The other nodes deliver the events they receive to their local
+ * listeners only, and events fired while handling a received event are
+ * not sent back into the cluster.  Changes of the settings listed in
+ * {@code events.cluster.config.keys} are sent to the other nodes as
+ * {@link #EVENT_CONFIG_CHANGE} events and applied there, unless
+ * {@code events.cluster.config.propagate} is false.  The list is comma
+ * separated, an entry ending with a dot stands for all settings starting
+ * with it, e.g. {@code webui., mail.server.disabled}.  No settings are
+ * sent unless listed, so secrets and the settings of a node, like its
+ * paths and ports, stay on the node; a node only applies the settings
+ * it lists itself.
+ * Sending events to external systems is not supported yet.
  * 
  * @author Aaron Zeckoski (azeckoski@gmail.com) - azeckoski - 4:02:31 PM Nov 19, 2008
  */
-public final class SystemEventService implements EventService, ShutdownService {
+public final class SystemEventService implements EventService, InitializedService, ShutdownService, ConfigChangeListener {
 
     private final Logger log = LoggerFactory.getLogger(SystemEventService.class);
 
-    private static final String QUEUE_CACHE_NAME = "eventQueueCache";
-    
+    /**
+     * The name of the cluster events carrying configuration changes,
+     * the properties of the event are the changed settings.
+     */
+    public static final String EVENT_CONFIG_CHANGE = "config.change";
+
+    private static final int DEFAULT_BATCH_DELAY = 50;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    /**
+     * The number of received event ids remembered to drop duplicates.
+     */
+    private static final int RECEIVED_EVENTS_MEMORY = 2000;
+    /**
+     * The number of requests whose queued events are kept at most.  The
+     * events of a request are dropped at its end, a request which never
+     * ends, e.g. because its thread died before it was ended, would keep
+     * them for good, so the oldest are dropped once there are more.
+     */
+    static final int MAX_QUEUED_REQUESTS = 1000;
+
+    /**
+     * Set while the current thread delivers events received from the
+     * cluster, events fired meanwhile are not sent to the cluster again.
+     */
+    private static final ThreadLocal<Boolean> deliveringClusterEvents = new ThreadLocal<Boolean>();
+
     /**
      * Map for holding onto the listeners which is ClassLoader safe.
      */
     private Map<String, EventListener> listenersMap = new ConcurrentHashMap<String, EventListener>();
 
+    /**
+     * The events queued by each running request (keyed by request id),
+     * in the order they were queued.
+     */
+    private final ConcurrentMap<String, RequestEvents> queuedEvents = new ConcurrentHashMap<String, RequestEvents>();
+
     private final RequestService requestService;
     private final SessionService sessionService;
     private final CachingService cachingService;
     private EventRequestInterceptor requestInterceptor;
 
+    private ConfigurationService configurationService;
+    @Autowired(required=false)
+    public void setConfigurationService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    private ClusterEventProvider clusterEventProvider;
+    @Autowired(required=false)
+    public void setClusterEventProvider(ClusterEventProvider clusterEventProvider) {
+        this.clusterEventProvider = clusterEventProvider;
+    }
+
+    /**
+     * The cluster events waiting to be sent, keyed by {@link #makeClusterEventKey(Event)}.
+     */
+    private final Map<String, Event> pendingClusterEvents = new LinkedHashMap<String, Event>();
+    private boolean clusterFlushScheduled = false;
+    private ScheduledExecutorService clusterExecutor;
+    private int clusterBatchDelay = DEFAULT_BATCH_DELAY;
+    private int clusterBatchSize = DEFAULT_BATCH_SIZE;
+    private boolean propagateConfig = true;
+    private String[] propagatedConfigKeys = new String[0];
+    private final Map<String, Boolean> receivedClusterEvents = new BoundedLruMap<String, Boolean>(RECEIVED_EVENTS_MEMORY);
+
     @Autowired(required=true)
     public SystemEventService(RequestService requestService, SessionService sessionService, CachingService cachingService) {
         if (requestService == null || cachingService == null || sessionService == null) {
@@ -65,12 +145,53 @@ public final class SystemEventService implements EventService, ShutdownService {
         this.requestService.registerRequestInterceptor(this.requestInterceptor);
     }
 
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.InitializedService#init()
+     */
+    public void init() {
+        if (configurationService != null) {
+            clusterBatchDelay = configurationService.getPropertyAsType("events.cluster.batch.delay", DEFAULT_BATCH_DELAY);
+            clusterBatchSize = configurationService.getPropertyAsType("events.cluster.batch.size", DEFAULT_BATCH_SIZE);
+            propagateConfig = configurationService.getPropertyAsType("events.cluster.config.propagate", true);
+            propagatedConfigKeys = parseConfigKeys(configurationService.getProperty("events.cluster.config.keys"));
+        }
+        if (clusterBatchSize <= 0 || clusterBatchSize > ClusterEventCodec.MAX_EVENTS) {
+            clusterBatchSize = DEFAULT_BATCH_SIZE;
+        }
+        if (clusterEventProvider != null) {
+            clusterExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "dspace-cluster-events-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            clusterEventProvider.setReceiver(new ClusterEventReceiver());
+            log.info("Cluster events enabled for node (" + clusterEventProvider.getNodeId() + ") using "
+                    + clusterEventProvider.getClass().getName());
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.dspace.kernel.mixins.ShutdownService#shutdown()
      */
     public void shutdown() {
         this.requestInterceptor = null; // clear the interceptor
         this.listenersMap.clear();
+        this.queuedEvents.clear();
+        if (clusterExecutor != null) {
+            // send the waiting events while the provider still runs, it is shut down after this service which depends on it
+            flushClusterEvents();
+            clusterExecutor.shutdown();
+            try {
+                clusterExecutor.awaitTermination(clusterBatchDelay + 1000L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (clusterEventProvider != null) {
+            clusterEventProvider.setReceiver(null);
+        }
     }
 
 
@@ -101,14 +222,20 @@ public final class SystemEventService implements EventService, ShutdownService {
     public void queueEvent(Event event) {
         validateEvent(event);
 
-        // get the cache
-        Cache queueCache = this.cachingService.getCache(QUEUE_CACHE_NAME, new CacheConfig(CacheScope.REQUEST));
-
         // put the event in the queue if this is in a request
-        if (requestService.getCurrentRequestId() != null) {
-            // create a key which is orderable and unique
-            String key = System.currentTimeMillis() + ":" + queueCache.size() + ":" + event.getId();
-            queueCache.put(key, event);
+        String requestId = requestService.getCurrentRequestId();
+        if (requestId != null) {
+            RequestEvents queue = queuedEvents.get(requestId);
+            if (queue == null) {
+                queue = new RequestEvents();
+                RequestEvents existing = queuedEvents.putIfAbsent(requestId, queue);
+                if (existing != null) {
+                    queue = existing;
+                } else if (queuedEvents.size() > MAX_QUEUED_REQUESTS) {
+                    dropOldestQueuedEvents(requestId);
+                }
+            }
+            queue.offer(event);
         } else {
             // no request so fire the event immediately
             log.info("No request to queue this event ("+event+") so firing immediately");
@@ -150,13 +277,194 @@ public final class SystemEventService implements EventService, ShutdownService {
     }
 
     /**
-     * Will eventually fire events to the entire cluster.
-     * TODO not implemented.
+     * Adds the event to the next batch sent to the other nodes of the
+     * cluster, replacing an identical event which is still waiting.
      * 
      * @param event a validated event
      */
     private void fireClusterEvent(Event event) {
-        log.debug("fireClusterEvent is not implemented yet, no support for cluster events yet, could not fire event to the cluster: " + event);
+        if (clusterEventProvider == null || clusterExecutor == null) {
+            log.debug("No cluster event provider, could not fire event to the cluster: " + event);
+            return;
+        }
+        if (deliveringClusterEvents.get() != null) {
+            // caused by an event from the cluster, the other nodes handle that event themselves
+            return;
+        }
+        synchronized (pendingClusterEvents) {
+            String key = makeClusterEventKey(event);
+            pendingClusterEvents.remove(key); // keep the order the events were last fired in
+            pendingClusterEvents.put(key, event);
+            if (pendingClusterEvents.size() >= clusterBatchSize) {
+                scheduleClusterFlush(0);
+            } else if (! clusterFlushScheduled) {
+                scheduleClusterFlush(clusterBatchDelay);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock on {@link #pendingClusterEvents}.
+     */
+    private void scheduleClusterFlush(long delay) {
+        try {
+            clusterExecutor.schedule(new Runnable() {
+                public void run() {
+                    flushClusterEvents();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            clusterFlushScheduled = true;
+        } catch (RuntimeException e) {
+            // shutting down, send them right away
+            log.debug("Could not schedule sending the cluster events: " + e.getMessage());
+            flushClusterEvents();
+        }
+    }
+
+    /**
+     * Sends all the waiting cluster events as one batch.
+     *
+     * @return the number of events which were sent
+     */
+    protected int flushClusterEvents() {
+        List<Event> batch;
+        synchronized (pendingClusterEvents) {
+            clusterFlushScheduled = false;
+            if (pendingClusterEvents.isEmpty()) {
+                return 0;
+            }
+            batch = new ArrayList<Event>(pendingClusterEvents.values());
+            pendingClusterEvents.clear();
+        }
+        try {
+            clusterEventProvider.send(batch);
+        } catch (IOException e) {
+            log.warn("Failure sending cluster events: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Cluster event provider (" + clusterEventProvider + ") failed to send events: " + e.getMessage(), e);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Events with the same key are identical apart from their id and
+     * user, only the last of them is sent to the cluster.
+     */
+    private String makeClusterEventKey(Event event) {
+        StringBuilder sb = new StringBuilder(event.getName());
+        sb.append('|').append(event.getResourceReference());
+        sb.append('|').append(event.isModify());
+        Map<String, String> properties = event.getProperties();
+        if (properties != null && ! properties.isEmpty()) {
+            sb.append('|').append(new TreeMap<String, String>(properties));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Delivers the events received from another node to the local
+     * listeners and applies received configuration changes.
+     *
+     * @param nodeId the node which sent the events
+     * @param events the received events
+     */
+    private void receiveClusterEvents(String nodeId, List<Event> events) {
+        deliveringClusterEvents.set(Boolean.TRUE);
+        try {
+            for (Event event : events) {
+                if (event.getName() == null || "".equals(event.getName())) {
+                    continue;
+                }
+                if (event.getId() != null && receivedClusterEvents.put(nodeId + "/" + event.getId(), Boolean.TRUE) != null) {
+                    // already delivered
+                    continue;
+                }
+                if (EVENT_CONFIG_CHANGE.equals(event.getName())) {
+                    applyConfigChange(nodeId, event);
+                }
+                fireLocalEvent(event);
+            }
+        } finally {
+            deliveringClusterEvents.remove();
+        }
+    }
+
+    private void applyConfigChange(String nodeId, Event event) {
+        if (! propagateConfig || configurationService == null || event.getProperties() == null) {
+            return;
+        }
+        for (Map.Entry<String, String> setting : event.getProperties().entrySet()) {
+            if (! isPropagated(propagatedConfigKeys, setting.getKey())) {
+                log.debug("Ignoring the change of setting (" + setting.getKey() + ") from node (" + nodeId
+                        + "), it is not in events.cluster.config.keys");
+                continue;
+            }
+            try {
+                configurationService.setProperty(setting.getKey(), setting.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Could not apply the configuration change (" + setting.getKey() + ") from node (" + nodeId + "): " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param keys the comma separated settings and prefixes of settings, may be null
+     * @return the settings and prefixes
+     */
+    static String[] parseConfigKeys(String keys) {
+        List<String> parsed = new ArrayList<String>();
+        if (keys != null) {
+            for (String key : keys.split(",")) {
+                if (key.trim().length() > 0) {
+                    parsed.add(key.trim());
+                }
+            }
+        }
+        return parsed.toArray(new String[parsed.size()]);
+    }
+
+    /**
+     * @param keys the settings and prefixes of settings which are propagated
+     * @param name the name of a setting
+     * @return whether changes of the setting are sent to and applied from the other nodes
+     */
+    static boolean isPropagated(String[] keys, String name) {
+        if (name == null) {
+            return false;
+        }
+        for (String key : keys) {
+            if (key.endsWith(".") ? name.startsWith(key) : name.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.ConfigChangeListener#notifyForConfigNames()
+     */
+    public String[] notifyForConfigNames() {
+        return null; // all changes
+    }
+
+    /* (non-Javadoc)
+     * @see org.dspace.kernel.mixins.ConfigChangeListener#configurationChanged(java.util.List, java.util.Map)
+     */
+    public void configurationChanged(List<String> changedSettingNames, Map<String, String> changedSettings) {
+        if (! propagateConfig || clusterEventProvider == null || configurationService == null
+                || changedSettingNames == null || changedSettingNames.isEmpty()) {
+            return;
+        }
+        Map<String, String> settings = new LinkedHashMap<String, String>();
+        for (String name : changedSettingNames) {
+            if (isPropagated(propagatedConfigKeys, name)) {
+                settings.put(name, configurationService.getProperty(name));
+            }
+        }
+        if (settings.isEmpty()) {
+            return;
+        }
+        fireEvent(new Event(EVENT_CONFIG_CHANGE, null, null, settings, new Scope[] {Scope.CLUSTER}, true));
     }
 
     /**
@@ -175,32 +483,73 @@ public final class SystemEventService implements EventService, ShutdownService {
      * @return the number of events which were fired
      */
     protected int fireQueuedEvents() {
-        int fired = 0;
-        Cache queueCache = this.cachingService.getCache(QUEUE_CACHE_NAME, new CacheConfig(CacheScope.REQUEST));
+        return fireQueuedEvents(requestService.getCurrentRequestId());
+    }
 
-        List<String> eventIds = queueCache.getKeys();
-        Collections.sort(eventIds); // put it in the order they were added (hopefully)
-        if (eventIds.size() > 0) {
-            for (String eventId : eventIds) {
-                Event event = (Event) queueCache.get(eventId);
+    /**
+     * Fires all queued events for the given request in the order they were queued.
+     *
+     * @param requestId the id of the request
+     * @return the number of events which were fired
+     */
+    private int fireQueuedEvents(String requestId) {
+        int fired = 0;
+        Queue<Event> queue = requestId == null ? null : queuedEvents.remove(requestId);
+        if (queue != null) {
+            Event event;
+            while ((event = queue.poll()) != null) {
                 fireEvent(event);
                 fired++;
             }
         }
-        queueCache.clear();
         return fired;
     }
 
+    /**
+     * Drops the events of the request which queued its first event
+     * longest ago, other than the current one.
+     *
+     * @param requestId the id of the current request
+     */
+    private void dropOldestQueuedEvents(String requestId) {
+        Map.Entry<String, RequestEvents> oldest = null;
+        for (Map.Entry<String, RequestEvents> entry : queuedEvents.entrySet()) {
+            if (! entry.getKey().equals(requestId)
+                    && (oldest == null || entry.getValue().created < oldest.getValue().created)) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null && queuedEvents.remove(oldest.getKey(), oldest.getValue())) {
+            log.warn("Dropped the " + oldest.getValue().size() + " events queued by the request ("
+                    + oldest.getKey() + "), which did not end");
+        }
+    }
+
+    /**
+     * @return the number of requests with queued events
+     */
+    int getQueuedRequestCount() {
+        return queuedEvents.size();
+    }
+
     /**
      * Clears all events for the current request.
      * 
      * @return the number of events that were cleared
      */
     protected int clearQueuedEvents() {
-        Cache queueCache = this.cachingService.getCache(QUEUE_CACHE_NAME, new CacheConfig(CacheScope.REQUEST));
-        int cleared = queueCache.size();
-        queueCache.clear();
-        return cleared;
+        return clearQueuedEvents(requestService.getCurrentRequestId());
+    }
+
+    /**
+     * Clears all events for the given request.
+     *
+     * @param requestId the id of the request
+     * @return the number of events that were cleared
+     */
+    private int clearQueuedEvents(String requestId) {
+        Queue<Event> queue = requestId == null ? null : queuedEvents.remove(requestId);
+        return queue == null ? 0 : queue.size();
     }
 
     /**
@@ -282,14 +631,41 @@ public final class SystemEventService implements EventService, ShutdownService {
         return allowName && allowResource;
     }
 
-    private Random random = new Random();
+    private final AtomicLong eventCounter = new AtomicLong();
     /**
      * Generate an event ID used to identify and track this event uniquely.
+     * The ids are unique within this node, the other nodes of the cluster
+     * tell the events apart by node and id.
      *
      * @return event Id
      */
     private String makeEventId() {
-        return "event-" + random.nextInt(1000) + "-" + System.currentTimeMillis();
+        return "event-" + eventCounter.incrementAndGet() + "-" + System.currentTimeMillis();
+    }
+
+    /**
+     * The events queued by a request, and when the first was queued.
+     */
+    private static final class RequestEvents extends ConcurrentLinkedQueue<Event> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long created = System.nanoTime();
+
+    }
+
+    /**
+     * Hands the batches from the other nodes to the event service.
+     */
+    private final class ClusterEventReceiver implements ClusterEventProvider.Receiver {
+
+        /* (non-Javadoc)
+         * @see org.dspace.providers.ClusterEventProvider.Receiver#receive(java.lang.String, java.util.List)
+         */
+        public void receive(String nodeId, List<Event> events) {
+            receiveClusterEvents(nodeId, events);
+        }
+
     }
 
     /**
@@ -312,10 +688,10 @@ public final class SystemEventService implements EventService, ShutdownService {
          */
         public void onEnd(String requestId, Session session, boolean succeeded, Exception failure) {
             if (succeeded) {
-                int fired = fireQueuedEvents();
+                int fired = fireQueuedEvents(requestId);
                 log.debug("Fired "+fired+" events at the end of the request ("+requestId+")");
             } else {
-                int cleared = clearQueuedEvents();
+                int cleared = clearQueuedEvents(requestId);
                 log.debug("Cleared/cancelled "+cleared+" events at the end of the failed request ("+requestId+")");
             }
         }
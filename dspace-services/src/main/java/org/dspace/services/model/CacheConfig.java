@@ -52,6 +52,32 @@ public class CacheConfig {
     public final CacheScope getCacheScope() {
         return cacheScope;
     }
+    /**
+     * The maximum number of elements held by the cache, 0 to use the
+     * default of the caching service.
+     */
+    private int maxElements = 0;
+    /**
+     * @return the maximum number of elements in the associated cache,
+     * 0 if the default should be used
+     */
+    public final int getMaxElements() {
+        return maxElements;
+    }
+    /**
+     * The number of seconds an element lives after it was stored,
+     * 0 to use the default of the caching service.
+     * Caches backed by an external configuration (e.g. Ehcache) use the
+     * settings of that configuration instead.
+     */
+    private int timeToLiveSecs = 0;
+    /**
+     * @return the number of seconds an element lives after it was stored,
+     * 0 if the default should be used
+     */
+    public final int getTimeToLiveSecs() {
+        return timeToLiveSecs;
+    }
     /**
      * Configure the cache to use the given scope.
      * @param cacheScope defines the lifecycle of the cache
@@ -59,5 +85,28 @@ public class CacheConfig {
     public CacheConfig(CacheScope cacheScope) {
         this.cacheScope = cacheScope;
     }
+    /**
+     * Configure the cache to use the given scope and size.
+     * @param cacheScope defines the lifecycle of the cache
+     * @param maxElements the maximum number of elements in the cache,
+     * 0 to use the default
+     */
+    public CacheConfig(CacheScope cacheScope, int maxElements) {
+        this.cacheScope = cacheScope;
+        this.maxElements = maxElements;
+    }
+    /**
+     * Configure the cache to use the given scope, size and time to live.
+     * @param cacheScope defines the lifecycle of the cache
+     * @param maxElements the maximum number of elements in the cache,
+     * 0 to use the default
+     * @param timeToLiveSecs the number of seconds an element lives after
+     * it was stored, 0 to use the default
+     */
+    public CacheConfig(CacheScope cacheScope, int maxElements, int timeToLiveSecs) {
+        this.cacheScope = cacheScope;
+        this.maxElements = maxElements;
+        this.timeToLiveSecs = timeToLiveSecs;
+    }
 
 }
@@ -0,0 +1,23 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.model;
+
+/**
+ * Computes the value for a key of a cache which supports loading
+ * missing (or refreshing stale) entries itself.
+ */
+public interface CacheLoader {
+
+    /**
+     * @param key the key to load the value for
+     * @return the value for the key (can be null, e.g. to cache a miss)
+     * @throws Exception if the value could not be loaded
+     */
+    public Object load(String key) throws Exception;
+
+}
@@ -0,0 +1,129 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.model;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable snapshot of the usage statistics of a cache.
+ * Counters which the underlying cache does not track are 0.
+ */
+public final class CacheStats {
+
+    private final String cacheName;
+    private final String cacheScope;
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long loadCount;
+    private final long totalLoadTimeNanos;
+
+    @ConstructorProperties({"cacheName", "cacheScope", "size", "hitCount", "missCount",
+            "evictionCount", "loadCount", "totalLoadTimeNanos"})
+    public CacheStats(String cacheName, String cacheScope, long size, long hitCount, long missCount,
+            long evictionCount, long loadCount, long totalLoadTimeNanos) {
+        this.cacheName = cacheName;
+        this.cacheScope = cacheScope;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.loadCount = loadCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+    }
+
+    /**
+     * @return the name of the cache
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the scope of the cache
+     * @see org.dspace.services.model.CacheConfig.CacheScope
+     */
+    public String getCacheScope() {
+        return cacheScope;
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of lookups which found an entry
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups which found no entry
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of lookups
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return the ratio of lookups which found an entry (0 to 1), 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 0d : (double) hitCount / requests;
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full or they expired
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of values loaded (or refreshed) by a loader
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return the total time spent loading values in nanoseconds
+     */
+    public long getTotalLoadTimeNanos() {
+        return totalLoadTimeNanos;
+    }
+
+    /**
+     * @return the average time spent loading a value in milliseconds, 0 if nothing was loaded
+     */
+    public double getAverageLoadTimeMillis() {
+        return loadCount == 0 ? 0d : totalLoadTimeNanos / 1000000d / loadCount;
+    }
+
+    @Override
+    public String toString() {
+        return cacheName + ":  Size: " + size
+                + ",  Hits: " + hitCount + " (" + Math.round(getHitRate() * 100) + "%)"
+                + ",  Misses: " + missCount
+                + ",  Evictions: " + evictionCount
+                + ",  Loads: " + loadCount + " (avg " + getAverageLoadTimeMillis() + "ms)";
+    }
+
+}
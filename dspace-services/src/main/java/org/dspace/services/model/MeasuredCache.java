@@ -0,0 +1,25 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.model;
+
+/**
+ * A cache which keeps track of its usage.
+ * Implementing this is optional for caches created by a
+ * {@link org.dspace.providers.CacheProvider}, caches which do not
+ * only report their size.
+ */
+public interface MeasuredCache extends Cache {
+
+    /**
+     * Cheap enough to call regularly (e.g. from a monitoring system).
+     *
+     * @return a snapshot of the statistics of this cache
+     */
+    public CacheStats getStats();
+
+}
@@ -158,6 +158,25 @@ public class DSpaceServiceManagerTest {
         assertEquals(null, sab.getSampleValue());
     }
 
+    @Test
+    public void testGetServiceByNameCached() {
+        dsm.startup();
+
+        String name = "myCachedService";
+        assertNull(dsm.getServiceByName(name, String.class));
+        // a miss is not kept, so the registration is found
+        dsm.registerService(name, "AZ");
+        assertEquals("AZ", dsm.getServiceByName(name, String.class));
+        // the type is part of the key
+        assertNull(dsm.getServiceByName(name, Integer.class));
+
+        ConcreteExample concrete = dsm.getServiceByName(ConcreteExample.class.getName(), ConcreteExample.class);
+        assertNotNull(concrete);
+        assertSame(concrete, dsm.getServiceByName(ConcreteExample.class.getName(), ConcreteExample.class));
+
+        dsm.unregisterService(name);
+    }
+
     @Test
     public void testGetServiceByNameConfig() {
         dsm.startup();
@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.dspace.kernel.mixins.ConfigChangeListener;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -236,6 +237,55 @@ public class DSpaceConfigurationServiceTest {
         assertNull(prop);
     }
 
+    /**
+     * Typed values are cached per snapshot, so a change must be visible through the typed getters
+     */
+    @Test
+    public void testGetPropertyAsTypeAfterChange() {
+        assertEquals(123, (int) configurationService.getPropertyAsType("sample.number", int.class) );
+        configurationService.setProperty("sample.number", "456");
+        assertEquals(456, (int) configurationService.getPropertyAsType("sample.number", int.class) );
+        assertEquals(new Integer(456), configurationService.getPropertyAsType("sample.number", new Integer(1)));
+
+        // cached arrays must not be shared with the callers
+        String[] array = configurationService.getPropertyAsType("sample.array", String[].class);
+        array[0] = "changed";
+        array = configurationService.getPropertyAsType("sample.array", String[].class);
+        assertEquals("itemA", array[0]);
+    }
+
+    /**
+     * Test method for {@link org.dspace.servicemanager.config.DSpaceConfigurationService#addConfigChangeListener(ConfigChangeListener)}.
+     */
+    @Test
+    public void testConfigChangeListener() {
+        final List<String> notified = new ArrayList<String>();
+        ConfigChangeListener listener = new ConfigChangeListener() {
+            public String[] notifyForConfigNames() {
+                return new String[] {"sample.boolean"};
+            }
+            public void configurationChanged(List<String> changedSettingNames, Map<String, String> changedSettings) {
+                notified.addAll(changedSettingNames);
+                assertEquals("false", changedSettings.get("sample.boolean"));
+            }
+        };
+        configurationService.addConfigChangeListener(listener);
+
+        configurationService.setProperty("sample.number", "456");
+        assertEquals(0, notified.size());
+
+        configurationService.setProperty("sample.boolean", "false");
+        assertEquals(1, notified.size());
+        assertEquals("sample.boolean", notified.get(0));
+
+        configurationService.setProperty("sample.boolean", "false");
+        assertEquals(1, notified.size());
+
+        configurationService.removeConfigChangeListener(listener);
+        configurationService.setProperty("sample.boolean", "true");
+        assertEquals(1, notified.size());
+    }
+
     /**
      * Test method for {@link org.dspace.servicemanager.config.DSpaceConfigurationService#getConfiguration()}.
      */
@@ -16,6 +16,7 @@ import org.dspace.services.caching.model.EhcacheCache;
 import org.dspace.services.caching.model.MapCache;
 import org.dspace.services.model.Cache;
 import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheStats;
 import org.dspace.services.model.CacheConfig.CacheScope;
 import org.dspace.test.DSpaceAbstractKernelTest;
 import org.junit.After;
@@ -178,6 +179,39 @@ public class CachingServiceTest extends DSpaceAbstractKernelTest {
         assertNotNull(status);
     }
 
+    /**
+     * Test method for {@link org.dspace.services.caching.CachingServiceImpl#getCacheStats()}.
+     */
+    @Test
+    public void testGetCacheStats() {
+        Cache c1 = cachingService.getCache("org.dspace.aztest.stats", null);
+        c1.put("AZ", "aaron.zeckoski");
+        c1.get("AZ");
+
+        List<CacheStats> stats = cachingService.getCacheStats();
+        assertEquals(cachingService.getCaches().size(), stats.size());
+        CacheStats c1Stats = null;
+        for (CacheStats cacheStats : stats) {
+            if ("org.dspace.aztest.stats".equals(cacheStats.getCacheName())) {
+                c1Stats = cacheStats;
+            }
+        }
+        assertNotNull(c1Stats);
+        assertEquals(1, c1Stats.getSize());
+
+        // request caches are left out
+        requestService.startRequest();
+        try {
+            cachingService.getCache("org.dspace.request.stats", new CacheConfig(CacheScope.REQUEST)).put("AZ", "aaron.zeckoski");
+            for (CacheStats cacheStats : cachingService.getCacheStats()) {
+                assertFalse("org.dspace.request.stats".equals(cacheStats.getCacheName()));
+                assertFalse(CacheScope.REQUEST.name().equals(cacheStats.getCacheScope()));
+            }
+        } finally {
+            requestService.endRequest(null);
+        }
+    }
+
     /**
      * Test method for {@link org.dspace.services.caching.CachingServiceImpl#resetCaches()}.
      */
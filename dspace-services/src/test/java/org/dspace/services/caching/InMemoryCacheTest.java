@@ -0,0 +1,89 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching;
+
+import static org.junit.Assert.*;
+
+import org.dspace.services.caching.model.InMemoryCache;
+import org.dspace.services.model.CacheLoader;
+import org.dspace.services.model.CacheStats;
+import org.junit.Test;
+
+
+/**
+ * Testing the in memory cache backend
+ */
+public class InMemoryCacheTest {
+
+    /**
+     * Test method for {@link org.dspace.services.caching.model.InMemoryCache#put(String, Object)}.
+     */
+    @Test
+    public void testPutAndGet() {
+        InMemoryCache cache = new InMemoryCache("memory", null, 10, 0, null);
+        cache.put("AZ", "aaron.zeckoski");
+        cache.put("NULL", null);
+        assertEquals("aaron.zeckoski", cache.get("AZ"));
+        assertNull(cache.get("NULL"));
+        assertTrue(cache.exists("NULL"));
+        assertNull(cache.get("XX"));
+        assertEquals(2, cache.size());
+
+        assertTrue(cache.remove("AZ"));
+        assertFalse(cache.exists("AZ"));
+        assertFalse(cache.remove("AZ"));
+    }
+
+    /**
+     * Entries which were read recently survive the eviction
+     */
+    @Test
+    public void testEviction() {
+        InMemoryCache cache = new InMemoryCache("evicting", null, 3, 0, null);
+        cache.put("A", "a");
+        cache.put("B", "b");
+        cache.put("C", "c");
+        assertEquals("a", cache.get("A"));
+        cache.put("D", "d");
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.exists("A"));
+        assertFalse(cache.exists("B"));
+        assertTrue(cache.exists("D"));
+        assertEquals(1, cache.getStats().getEvictionCount());
+    }
+
+    /**
+     * Test method for {@link org.dspace.services.caching.model.InMemoryCache#setLoader(CacheLoader, int)}.
+     */
+    @Test
+    public void testLoaderAndStats() {
+        InMemoryCache cache = new InMemoryCache("loading", null, 10, 0, null);
+        cache.setLoader(new CacheLoader() {
+            public Object load(String key) {
+                return key.toUpperCase();
+            }
+        }, 0);
+
+        assertEquals("ABC", cache.get("abc"));
+        assertEquals("ABC", cache.get("abc"));
+        assertEquals("ABC", cache.get("abc"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals("loading", stats.getCacheName());
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getLoadCount());
+        assertEquals(2d / 3d, stats.getHitRate(), 0.0001d);
+
+        cache.clear();
+        assertEquals(0, cache.getStats().getRequestCount());
+    }
+
+}
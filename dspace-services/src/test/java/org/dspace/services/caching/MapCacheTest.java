@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.caching;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dspace.services.caching.model.MapCache;
+import org.dspace.services.model.CacheConfig;
+import org.dspace.services.model.CacheConfig.CacheScope;
+import org.junit.Test;
+
+
+/**
+ * Testing the bounded request caches
+ */
+public class MapCacheTest {
+
+    /**
+     * Test method for {@link org.dspace.services.caching.model.MapCache#put(String, Object)}.
+     */
+    @Test
+    public void testEviction() {
+        MapCache cache = new MapCache("evicting", new CacheConfig(CacheScope.REQUEST, 3));
+        cache.put("A", "a");
+        cache.put("B", "b");
+        cache.put("C", "c");
+        // touch A so B is the least recently used
+        assertEquals("a", cache.get("A"));
+        cache.put("D", "d");
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.exists("A"));
+        assertFalse(cache.exists("B"));
+        assertTrue(cache.exists("C"));
+        assertTrue(cache.exists("D"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Test method for {@link org.dspace.services.caching.model.MapCache#putIfAbsent(String, Object)}.
+     */
+    @Test
+    public void testPutIfAbsent() {
+        MapCache cache = new MapCache("absent", null);
+        assertNull(cache.putIfAbsent("A", "a"));
+        assertEquals("a", cache.putIfAbsent("A", "b"));
+        assertEquals("a", cache.get("A"));
+    }
+
+    /**
+     * Several threads working on the same request cache
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final MapCache cache = new MapCache("concurrent", new CacheConfig(CacheScope.REQUEST, 1000));
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 1000;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        String key = "key" + (offset + i);
+                        cache.put(key, i);
+                        cache.get(key);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(cache.size() <= 1000);
+        assertEquals(4000 - cache.size(), cache.getEvictionCount());
+        assertEquals(cache.size(), cache.getKeys().size());
+    }
+
+}
@@ -145,6 +145,45 @@ public class EventServiceTest extends DSpaceAbstractKernelTest {
         assertEquals(event4, listenerNoFilter.getReceivedEvents().get(3));
     }
 
+    /**
+     * The events of requests which never end are dropped, the oldest first,
+     * so they do not pile up.
+     */
+    @Test
+    public void testQueueEventOfRequestsNeverEnded() {
+        for (int i = 0; i <= SystemEventService.MAX_QUEUED_REQUESTS; i++) {
+            // starting another request leaves the one before unended
+            requestService.startRequest();
+            eventService.queueEvent(new Event("test.event.read", "test-resource-" + i, "11111", false));
+        }
+        assertEquals(SystemEventService.MAX_QUEUED_REQUESTS, eventService.getQueuedRequestCount());
+
+        // the last request still gets its events
+        Event last = new Event("test.event.jump", null, "11111", false);
+        eventService.queueEvent(last);
+        requestService.endRequest(null);
+        assertTrue(listenerNoFilter.getReceivedEvents().contains(last));
+        assertEquals(SystemEventService.MAX_QUEUED_REQUESTS - 1, eventService.getQueuedRequestCount());
+    }
+
+    /**
+     * Only the listed settings, and those starting with a listed prefix,
+     * are propagated to the other nodes of the cluster.
+     */
+    @Test
+    public void testPropagatedConfigKeys() {
+        String[] keys = SystemEventService.parseConfigKeys(" webui., mail.server.disabled ,,");
+        assertArrayEquals(new String[] {"webui.", "mail.server.disabled"}, keys);
+        assertTrue(SystemEventService.isPropagated(keys, "webui.browse.index.1"));
+        assertTrue(SystemEventService.isPropagated(keys, "mail.server.disabled"));
+        assertFalse(SystemEventService.isPropagated(keys, "mail.server.password"));
+        assertFalse(SystemEventService.isPropagated(keys, "webui"));
+        assertFalse(SystemEventService.isPropagated(keys, "dspace.dir"));
+        assertFalse(SystemEventService.isPropagated(keys, null));
+        // nothing is propagated unless listed
+        assertFalse(SystemEventService.isPropagated(SystemEventService.parseConfigKeys(null), "webui.browse.index.1"));
+    }
+
     /**
      * Test method for {@link org.dspace.services.events.SystemEventService#registerEventListener(org.dspace.services.model.EventListener)}.
      */
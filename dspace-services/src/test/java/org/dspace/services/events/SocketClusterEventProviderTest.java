@@ -0,0 +1,200 @@
+/**
+ * The contents of this file are subject to the license and copyright
+ * detailed in the LICENSE and NOTICE files at the root of the source
+ * tree and available online at
+ *
+ * http://www.dspace.org/license/
+ */
+package org.dspace.services.events;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.dspace.providers.ClusterEventProvider;
+import org.dspace.servicemanager.config.DSpaceConfigurationService;
+import org.dspace.services.model.Event;
+import org.dspace.services.model.Event.Scope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Two nodes on the local host sending each other cluster events
+ */
+public class SocketClusterEventProviderTest {
+
+    private SocketClusterEventProvider node1;
+    private SocketClusterEventProvider node2;
+
+    @Before
+    public void init() throws Exception {
+        int port1 = freePort();
+        int port2 = freePort();
+        node2 = startNode("node2", port2, "127.0.0.1:" + port1, "secret");
+        node1 = startNode("node1", port1, "127.0.0.1:" + port2, "secret");
+    }
+
+    @After
+    public void tearDown() {
+        node1.shutdown();
+        node2.shutdown();
+        node1 = null;
+        node2 = null;
+    }
+
+    static SocketClusterEventProvider startNode(String nodeId, int port, String peers, String secret) {
+        DSpaceConfigurationService config = new DSpaceConfigurationService();
+        config.setProperty("events.cluster.port", Integer.toString(port));
+        config.setProperty("events.cluster.bind.address", "127.0.0.1");
+        config.setProperty("events.cluster.node.id", nodeId);
+        config.setProperty("events.cluster.peers", peers);
+        config.setProperty("events.cluster.secret", secret);
+        SocketClusterEventProvider node = new SocketClusterEventProvider();
+        node.setConfigurationService(config);
+        node.init();
+        return node;
+    }
+
+    static int freePort() throws Exception {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Test method for {@link org.dspace.services.events.SocketClusterEventProvider#send(java.util.List)}.
+     */
+    @Test
+    public void testSend() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<String> senders = new ArrayList<String>();
+        final List<Event> received = new ArrayList<Event>();
+        node2.setReceiver(new ClusterEventProvider.Receiver() {
+            public void receive(String nodeId, List<Event> events) {
+                synchronized (received) {
+                    senders.add(nodeId);
+                    received.addAll(events);
+                }
+                latch.countDown();
+            }
+        });
+
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("dspace.name", "Cluster");
+        Event event1 = new Event("config.change", null, "11111", properties, new Scope[] {Scope.CLUSTER}, true);
+        event1.setId("event-1");
+        Event event2 = new Event("caching.reset", "az-123", null, null, null, false);
+        event2.setId("event-2");
+        List<Event> batch = new ArrayList<Event>();
+        batch.add(event1);
+        batch.add(event2);
+        node1.send(batch);
+        // a second batch over the same connection
+        node1.send(batch.subList(1, 2));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        synchronized (received) {
+            assertEquals(2, senders.size());
+            assertEquals("node1", senders.get(0));
+            assertEquals(3, received.size());
+
+            Event copy1 = received.get(0);
+            assertEquals("event-1", copy1.getId());
+            assertEquals("config.change", copy1.getName());
+            assertEquals("11111", copy1.getUserId());
+            assertNull(copy1.getResourceReference());
+            assertTrue(copy1.isModify());
+            assertArrayEquals(new Scope[] {Scope.CLUSTER}, copy1.getScopes());
+            assertEquals("Cluster", copy1.getProperties().get("dspace.name"));
+
+            Event copy2 = received.get(1);
+            assertEquals("event-2", copy2.getId());
+            assertEquals("az-123", copy2.getResourceReference());
+            assertNull(copy2.getUserId());
+            assertNull(copy2.getProperties());
+            assertFalse(copy2.isModify());
+            assertEquals("event-2", received.get(2).getId());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSecretRequired() throws Exception {
+        startNode("node3", 0, "127.0.0.1:" + node1.getLocalPort(), "");
+    }
+
+    /**
+     * Batches signed with another secret are dropped.
+     */
+    @Test
+    public void testWrongSecret() throws Exception {
+        SocketClusterEventProvider intruder = startNode("node3", 0, "127.0.0.1:" + node2.getLocalPort(), "guessed");
+        try {
+            assertFalse(receivedFrom(intruder));
+            // the right secret still gets through
+            assertTrue(receivedFrom(node1));
+        } finally {
+            intruder.shutdown();
+        }
+    }
+
+    /**
+     * Connections from hosts which are not peers are closed before anything is read.
+     */
+    @Test
+    public void testNotAPeer() throws Exception {
+        // node3 only accepts 127.0.0.2, it never sends so the port of that peer does not matter
+        SocketClusterEventProvider node3 = startNode("node3", 0, "127.0.0.2:1", "secret");
+        SocketClusterEventProvider sender = startNode("node4", 0, "127.0.0.1:" + node3.getLocalPort(), "secret");
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            node3.setReceiver(new ClusterEventProvider.Receiver() {
+                public void receive(String nodeId, List<Event> events) {
+                    latch.countDown();
+                }
+            });
+            try {
+                send(sender);
+                // the closed connection shows up on a later write
+                Thread.sleep(200);
+                send(sender);
+            } catch (IOException e) {
+                // node3 closed the connection
+            }
+            assertFalse(latch.await(1, TimeUnit.SECONDS));
+        } finally {
+            sender.shutdown();
+            node3.shutdown();
+        }
+    }
+
+    private boolean receivedFrom(SocketClusterEventProvider sender) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        node2.setReceiver(new ClusterEventProvider.Receiver() {
+            public void receive(String nodeId, List<Event> events) {
+                latch.countDown();
+            }
+        });
+        send(sender);
+        return latch.await(2, TimeUnit.SECONDS);
+    }
+
+    private static void send(SocketClusterEventProvider sender) throws Exception {
+        Event event = new Event("caching.reset", null, null, null, null, false);
+        event.setId("event-" + System.nanoTime());
+        List<Event> batch = new ArrayList<Event>();
+        batch.add(event);
+        sender.send(batch);
+    }
+
+}